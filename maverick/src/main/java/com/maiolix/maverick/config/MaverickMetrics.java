@@ -0,0 +1,69 @@
+package com.maiolix.maverick.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import com.maiolix.maverick.handler.TensorBufferPool;
+import com.maiolix.maverick.registry.EvictionReason;
+import com.maiolix.maverick.registry.ModelRegistry;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Metriche Maverick esposte tramite Micrometer (/actuator/metrics)
+ */
+@Component
+public class MaverickMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // === POOL BUFFER TENSOR ONNX ===
+        FunctionCounter.builder("maverick.tensor.pool.hits", TensorBufferPool.class, c -> TensorBufferPool.getHits())
+            .description("Lease di buffer tensor serviti dal pool")
+            .register(registry);
+        FunctionCounter.builder("maverick.tensor.pool.misses", TensorBufferPool.class, c -> TensorBufferPool.getMisses())
+            .description("Lease di buffer tensor che hanno richiesto una nuova allocazione")
+            .register(registry);
+        Gauge.builder("maverick.tensor.pool.bytes.held", TensorBufferPool::getBytesHeld)
+            .description("Byte di buffer diretti trattenuti dai pool")
+            .baseUnit("bytes")
+            .register(registry);
+
+        // === RITIRO HANDLER SOSTITUITI O RIMOSSI ===
+        FunctionCounter.builder("maverick.registry.retired", ModelRegistry.class, c -> ModelRegistry.getRetiredCount())
+            .description("Handler sostituiti o rimossi dal registry")
+            .register(registry);
+        Gauge.builder("maverick.registry.draining", ModelRegistry::getDrainingCount)
+            .description("Handler ritirati in attesa della fine delle predizioni in corso")
+            .register(registry);
+        FunctionTimer.builder("maverick.registry.retire.drain", ModelRegistry.class,
+                c -> ModelRegistry.getClosedCount(), c -> ModelRegistry.getDrainTimeMillis(), TimeUnit.MILLISECONDS)
+            .description("Attesa tra il ritiro di un handler e la fine delle sue predizioni")
+            .register(registry);
+        FunctionTimer.builder("maverick.registry.retire.close", ModelRegistry.class,
+                c -> ModelRegistry.getClosedCount(), c -> ModelRegistry.getCloseTimeMillis(), TimeUnit.MILLISECONDS)
+            .description("Durata della chiusura degli handler ritirati")
+            .register(registry);
+
+        // === BUDGET DI MEMORIA DEI MODELLI ===
+        Gauge.builder("maverick.registry.resident.bytes", ModelRegistry::getResidentBytes)
+            .description("Byte attribuiti ai modelli in memoria (artefatto + footprint stimato)")
+            .baseUnit("bytes")
+            .register(registry);
+        Gauge.builder("maverick.registry.budget.bytes", ModelRegistry::getBudgetBytes)
+            .description("Budget di memoria dei modelli, 0 se illimitato")
+            .baseUnit("bytes")
+            .register(registry);
+        for (EvictionReason reason : EvictionReason.values()) {
+            FunctionCounter.builder("maverick.registry.evictions", ModelRegistry.class, c -> ModelRegistry.getEvictionCount(reason))
+                .description("Modelli usciti dal registry per motivo")
+                .tag("reason", reason.name().toLowerCase())
+                .register(registry);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.maiolix.maverick.config;
+
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import com.maiolix.maverick.repository.ModelArtifactCache;
+import com.maiolix.maverick.repository.ParallelRangeDownloader;
+
+/**
+ * Configurazione della cache locale degli artefatti dei modelli e del loro download parallelo
+ */
+@Configuration
+public class ModelArtifactCacheConfig {
+
+    @Bean
+    public ModelArtifactCache modelArtifactCache(
+            @Value("${maverick.artifact-cache.enabled:true}") boolean enabled,
+            @Value("${maverick.artifact-cache.directory:${java.io.tmpdir}/maverick/artifact-cache}") String directory,
+            @Value("${maverick.artifact-cache.max-size:2GB}") DataSize maxSize) {
+        // Cache locale al nodo indicizzata per SHA-256: ricaricamenti e riavvii non riscaricano dallo storage
+        return enabled ? new ModelArtifactCache(Path.of(directory), maxSize.toBytes()) : ModelArtifactCache.disabled();
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "maverick.storage.parallel-download.enabled", havingValue = "true", matchIfMissing = true)
+    public ParallelRangeDownloader parallelRangeDownloader(
+            @Value("${maverick.storage.parallel-download.part-size:8MB}") DataSize partSize,
+            @Value("${maverick.storage.parallel-download.concurrency:4}") int concurrency,
+            @Value("${maverick.storage.parallel-download.max-retries:3}") int maxRetries,
+            @Value("${maverick.storage.parallel-download.hedge-after-ms:10000}") long hedgeAfterMs) {
+        // Artefatti grandi scaricati a intervalli di byte concorrenti, con retry e richieste di riserva per le parti lente
+        return new ParallelRangeDownloader(partSize.toBytes(), concurrency, maxRetries, hedgeAfterMs);
+    }
+}
@@ -0,0 +1,64 @@
+package com.maiolix.maverick.config;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import com.maiolix.maverick.registry.EvictionPolicy;
+import com.maiolix.maverick.registry.ModelFootprint;
+import com.maiolix.maverick.registry.ModelRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applica al registry dei modelli il budget di memoria configurato e i fattori di stima della memoria per tipo
+ */
+@Configuration
+@Slf4j
+public class ModelRegistryConfig {
+
+    public ModelRegistryConfig(
+            @Value("${maverick.registry.memory-budget:0}") DataSize memoryBudget,
+            @Value("${maverick.registry.eviction-policy:LRU}") String evictionPolicy,
+            @Value("${maverick.registry.pinned-models:}") String pinnedModels,
+            @Value("${maverick.registry.footprint-factors:}") String footprintFactors) {
+        List<String> pinned = Arrays.stream(pinnedModels.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toList();
+        EvictionPolicy policy = EvictionPolicy.fromString(evictionPolicy);
+        ModelRegistry.configureBudget(memoryBudget.toBytes(), policy, pinned);
+        ModelFootprint.configureFactors(parseFactors(footprintFactors));
+
+        if (memoryBudget.toBytes() > 0) {
+            log.info("🧮 Budget memoria modelli: {} MB, eviction {}, modelli fissati {}",
+                    memoryBudget.toMegabytes(), policy, pinned);
+        } else {
+            log.info("🧮 Budget memoria modelli non impostato: nessuna eviction");
+        }
+    }
+
+    /**
+     * Legge i fattori nel formato TIPO:fattore separati da virgola, es. "MOJO:3,PMML:5"
+     */
+    static Map<String, Double> parseFactors(String value) {
+        Map<String, Double> factors = new HashMap<>();
+        for (String item : value.split(",")) {
+            String[] parts = item.split(":");
+            if (parts.length != 2 || parts[0].isBlank()) {
+                continue;
+            }
+            try {
+                factors.put(parts[0].trim(), Double.parseDouble(parts[1].trim()));
+            } catch (NumberFormatException e) {
+                log.warn("⚠️ Fattore di memoria non valido per il tipo {}: {}", parts[0].trim(), parts[1].trim());
+            }
+        }
+        return factors;
+    }
+}
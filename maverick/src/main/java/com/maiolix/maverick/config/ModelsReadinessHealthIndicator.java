@@ -0,0 +1,52 @@
+package com.maiolix.maverick.config;
+
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import com.maiolix.maverick.service.BootstrapReadiness;
+import com.maiolix.maverick.service.ModelBootstrapService;
+
+/**
+ * Health check di readiness: UP solo quando è in memoria la frazione configurata
+ * dei modelli attivi e tutti i modelli critici
+ */
+@Component
+public class ModelsReadinessHealthIndicator implements HealthIndicator {
+
+    private final ModelBootstrapService modelBootstrapService;
+    private final double minFraction;
+
+    public ModelsReadinessHealthIndicator(
+            ModelBootstrapService modelBootstrapService,
+            @Value("${maverick.bootstrap.readiness.min-fraction:1.0}") double minFraction) {
+        this.modelBootstrapService = modelBootstrapService;
+        this.minFraction = minFraction;
+    }
+
+    @Override
+    public Health health() {
+        BootstrapReadiness readiness = modelBootstrapService.getReadiness();
+        if (!readiness.isStarted()) {
+            return Health.down().withDetail("reason", "Caricamento modelli non ancora avviato").build();
+        }
+
+        double fraction = readiness.getLoadedFraction();
+        Set<String> missingCritical = readiness.getMissingCriticalModels();
+        boolean ready = fraction >= minFraction && missingCritical.isEmpty();
+
+        return (ready ? Health.up() : Health.down())
+                .withDetail("totalModels", readiness.getTotal())
+                .withDetail("loadedModels", readiness.getLoaded())
+                .withDetail("failedModels", readiness.getFailed())
+                .withDetail("pendingModels", readiness.getPending())
+                .withDetail("loadedFraction", fraction)
+                .withDetail("minFraction", minFraction)
+                .withDetail("missingCriticalModels", missingCritical)
+                .withDetail("bootstrapCompleted", readiness.isCompleted())
+                .build();
+    }
+}
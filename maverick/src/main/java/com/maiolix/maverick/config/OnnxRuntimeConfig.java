@@ -0,0 +1,26 @@
+package com.maiolix.maverick.config;
+
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import com.maiolix.maverick.handler.OnnxGraphCache;
+
+/**
+ * Configurazione dei bean condivisi dagli handler ONNX
+ */
+@Configuration
+public class OnnxRuntimeConfig {
+
+    @Bean
+    public OnnxGraphCache onnxGraphCache(
+            @Value("${maverick.onnx.graph-cache.enabled:true}") boolean enabled,
+            @Value("${maverick.onnx.graph-cache.directory:${java.io.tmpdir}/maverick/onnx-graph-cache}") String directory,
+            @Value("${maverick.onnx.graph-cache.max-size:2GB}") DataSize maxSize) {
+        // Cache locale al nodo: i grafi ottimizzati dipendono da versione ORT e hardware
+        return enabled ? new OnnxGraphCache(Path.of(directory), maxSize.toBytes()) : OnnxGraphCache.disabled();
+    }
+}
@@ -10,7 +10,11 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maiolix.maverick.security.ClientRateLimitFilter;
+import com.maiolix.maverick.security.ClientRateLimiter;
 import com.maiolix.maverick.security.JwtAuthenticationFilter;
+import com.maiolix.maverick.service.UserService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -25,6 +29,9 @@ import lombok.RequiredArgsConstructor;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final ClientRateLimiter clientRateLimiter;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
@@ -44,7 +51,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/debug/**").permitAll()
                 
                 // Endpoint di health e monitoring (pubblici per Docker)
-                .requestMatchers("/health/**", "/actuator/health", "/actuator/info").permitAll()
+                .requestMatchers("/health/**", "/actuator/health", "/actuator/health/**", "/actuator/info").permitAll()
                 
                 // API documentation (Swagger) - solo in sviluppo
                 .requestMatchers("/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**", "/api-docs/**", "/swagger-resources/**", "/webjars/**").permitAll()
@@ -72,7 +79,10 @@ public class SecurityConfig {
             )
             
             // Aggiungi il filtro JWT
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            
+            // Rate limit per client API, prima dei controller (non registrato come filtro servlet)
+            .addFilterAfter(new ClientRateLimitFilter(clientRateLimiter, userService, objectMapper), JwtAuthenticationFilter.class);
 
         return http.build();
     }
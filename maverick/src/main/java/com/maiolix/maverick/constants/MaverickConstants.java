@@ -27,6 +27,8 @@ public final class MaverickConstants {
     public static final String FEATURE_NAMES = "featureNames";
     public static final String SUPERVISED = "supervised";
     public static final String LABEL_MAPPING = "labelMapping";
+    public static final String SESSION_PROFILE = "sessionProfile";
+    public static final String PINNED = "pinned";
     
     // === OBJECT ATTRIBUTES ===
     public static final String MODEL_STATUS = "status"; // Per attributo status degli oggetti
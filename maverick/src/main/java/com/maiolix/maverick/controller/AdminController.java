@@ -24,6 +24,7 @@ import com.maiolix.maverick.dto.admin.DeleteUserResponseDto;
 import com.maiolix.maverick.dto.admin.UserDetailsDto;
 import com.maiolix.maverick.entity.ApiClientEntity;
 import com.maiolix.maverick.entity.UserEntity;
+import com.maiolix.maverick.security.ClientRateLimiter;
 import com.maiolix.maverick.service.UserService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -49,6 +50,7 @@ import lombok.extern.slf4j.Slf4j;
 public class AdminController {
 
     private final UserService userService;
+    private final ClientRateLimiter clientRateLimiter;
 
     @PostMapping("/users")
     @PreAuthorize("hasRole('ADMIN')")
@@ -261,6 +263,7 @@ public class AdminController {
                 .clientSecretHash(client.getClientSecretHash())
                 .lastUsedAt(client.getLastUsedAt())
                 .usageCount(client.getUsageCount())
+                .throttledRequests(clientRateLimiter.getThrottled(client.getId()))
                 .createdAt(client.getCreatedAt())
                 .updatedAt(client.getUpdatedAt())
                 .build())
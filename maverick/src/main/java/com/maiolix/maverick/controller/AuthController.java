@@ -17,6 +17,7 @@ import com.maiolix.maverick.dto.auth.LoginResponseDto;
 import com.maiolix.maverick.dto.auth.TokenResponseDto;
 import com.maiolix.maverick.entity.ApiClientEntity;
 import com.maiolix.maverick.entity.UserEntity;
+import com.maiolix.maverick.security.JwtPrincipal;
 import com.maiolix.maverick.security.JwtTokenUtil;
 import com.maiolix.maverick.service.UserService;
 
@@ -151,8 +152,9 @@ public class AuthController {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             
-            if (jwtTokenUtil.validateToken(token)) {
-                log.debug("Token validated successfully for user: {}", jwtTokenUtil.getUsernameFromToken(token));
+            JwtPrincipal principal = jwtTokenUtil.authenticate(token);
+            if (principal != null) {
+                log.debug("Token validated successfully for user: {}", principal.username());
                 return ResponseEntity.ok().build();
             }
         }
@@ -180,21 +182,16 @@ public class AuthController {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             
-            if (jwtTokenUtil.validateToken(token)) {
-                String username = jwtTokenUtil.getUsernameFromToken(token);
-                String userType = jwtTokenUtil.getUserType(token);
-                
-                if ("HUMAN".equals(userType)) {
-                    Long userId = jwtTokenUtil.getUserIdFromToken(token);
-                    String role = userService.getUserRole(userId);
-                    String email = jwtTokenUtil.getEmailFromToken(token);
+            JwtPrincipal principal = jwtTokenUtil.authenticate(token);
+            if (principal != null) {
+                if (principal.isHuman()) {
+                    String role = userService.getUserRole(principal.userId());
                     
-                    return ResponseEntity.ok(new UserInfoResponse(username, email, role, userType));
-                } else if ("MACHINE".equals(userType)) {
-                    Long clientId = jwtTokenUtil.getClientIdFromToken(token);
-                    String role = userService.getClientRole(clientId);
+                    return ResponseEntity.ok(new UserInfoResponse(principal.username(), principal.email(), role, principal.userType()));
+                } else if (principal.isMachine()) {
+                    String role = userService.getClientRole(principal.clientId());
                     
-                    return ResponseEntity.ok(new ClientInfoResponse(username, role, userType));
+                    return ResponseEntity.ok(new ClientInfoResponse(principal.username(), role, principal.userType()));
                 }
             }
         }
@@ -1,17 +1,27 @@
 package com.maiolix.maverick.controller;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -19,19 +29,38 @@ import org.springframework.web.multipart.MultipartFile;
 
 import com.maiolix.maverick.constants.MaverickConstants;
 import com.maiolix.maverick.entity.ModelEntity;
+import com.maiolix.maverick.exception.ModelLoadingException;
 import com.maiolix.maverick.exception.ModelNotFoundException;
 import com.maiolix.maverick.exception.ModelPredictionException;
 import com.maiolix.maverick.exception.ModelUploadException;
-import com.maiolix.maverick.handler.IModelHandler;
+import com.maiolix.maverick.exception.PayloadTooLargeException;
+import com.maiolix.maverick.handler.OnnxGraphCache;
+import com.maiolix.maverick.handler.OnnxSessionProfile;
+import com.maiolix.maverick.handler.RawTensor;
+import com.maiolix.maverick.handler.RowResult;
+import com.maiolix.maverick.handler.TensorCodec;
+import com.maiolix.maverick.registry.ModelCacheEntry;
+import com.maiolix.maverick.registry.ModelLease;
 import com.maiolix.maverick.registry.ModelRegistry;
 import com.maiolix.maverick.repository.IModelStorageRepository;
+import com.maiolix.maverick.repository.ModelArtifactCache;
+import com.maiolix.maverick.security.JwtAuthenticationFilter;
+import com.maiolix.maverick.service.ArrowBatchScorer;
+import com.maiolix.maverick.service.CsvBatchScorer;
 import com.maiolix.maverick.service.IModelService;
 import com.maiolix.maverick.service.ModelBootstrapService;
 import com.maiolix.maverick.service.ModelDatabaseService;
+import com.maiolix.maverick.service.ModelLoader;
+import com.maiolix.maverick.service.ModelUploadPipeline;
+import com.maiolix.maverick.service.PredictionCounter;
+import com.maiolix.maverick.service.UsageTracker;
+import com.maiolix.maverick.util.ModelMetadataUtils;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -46,10 +75,25 @@ import lombok.extern.slf4j.Slf4j;
 @Tag(name = "Maverick", description = "API principale per gestione modelli ML")
 public class MaverickController {
 
+    /** Output non tensoriali esclusi dalla risposta binaria */
+    private static final String SKIPPED_OUTPUTS_HEADER = "X-Maverick-Skipped-Outputs";
+
     private final ModelDatabaseService modelDatabaseService;
     private final IModelStorageRepository storageRepository;
     private final IModelService modelService;
     private final ModelBootstrapService modelBootstrapService;
+    private final OnnxGraphCache onnxGraphCache;
+    private final ModelArtifactCache modelArtifactCache;
+    private final ModelUploadPipeline modelUploadPipeline;
+    private final ModelLoader modelLoader;
+    private final PredictionCounter predictionCounter;
+    private final UsageTracker usageTracker;
+    private final ArrowBatchScorer arrowBatchScorer;
+    private final CsvBatchScorer csvBatchScorer;
+
+    /** Dimensione massima del corpo di una predizione con tensori binari */
+    @Value("${maverick.tensor.max-body-size:64MB}")
+    private DataSize maxTensorBodySize;
 
     /**
      * Upload completo: carica modello su MinIO e salva metadati nel database
@@ -62,7 +106,51 @@ public class MaverickController {
             @Parameter(description = "Nome del modello") @RequestParam("modelName") String modelName,
             @Parameter(description = "Versione del modello") @RequestParam("version") String version,
             @Parameter(description = "Tipo di modello") @RequestParam("type") String modelType,
-            @Parameter(description = "Descrizione (opzionale)") @RequestParam(value = "description", required = false) String description) {
+            @Parameter(description = "Descrizione (opzionale)") @RequestParam(value = "description", required = false) String description,
+            @Parameter(description = "Profilo sessione ONNX Runtime in JSON (opzionale, solo ONNX/ONNX_EXT)") @RequestParam(value = "sessionProfile", required = false) String sessionProfile) {
+        
+        if (file == null || file.isEmpty()) {
+            throw new ModelUploadException("File richiesto");
+        }
+        return storeModel(file::getInputStream, file.getSize(), file.getOriginalFilename(), file.getContentType(),
+                modelName, version, modelType, description, sessionProfile);
+    }
+
+    /**
+     * Upload in streaming: il corpo della richiesta è il file del modello, inviato allo storage mentre
+     * arriva senza passare dal parser multipart (nessuna copia intera su disco o in memoria)
+     */
+    @PostMapping(value = "/upload", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "Upload modello in streaming", 
+               description = "Corpo della richiesta: il file del modello; metadati come parametri della query. "
+                       + "Oltre maverick.upload.max-size risponde 413")
+    public ResponseEntity<Map<String, Object>> uploadModelStream(
+            @Parameter(description = "Nome del file") @RequestParam("fileName") String fileName,
+            @Parameter(description = "Nome del modello") @RequestParam("modelName") String modelName,
+            @Parameter(description = "Versione del modello") @RequestParam("version") String version,
+            @Parameter(description = "Tipo di modello") @RequestParam("type") String modelType,
+            @Parameter(description = "Descrizione (opzionale)") @RequestParam(value = "description", required = false) String description,
+            @Parameter(description = "Profilo sessione ONNX Runtime in JSON (opzionale, solo ONNX/ONNX_EXT)") @RequestParam(value = "sessionProfile", required = false) String sessionProfile,
+            HttpServletRequest request) {
+        
+        return storeModel(request::getInputStream, request.getContentLengthLong(), fileName,
+                MediaType.APPLICATION_OCTET_STREAM_VALUE, modelName, version, modelType, description, sessionProfile);
+    }
+
+    /**
+     * Apre il contenuto del modello caricato
+     */
+    @FunctionalInterface
+    private interface UploadContent {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Invia il modello allo storage e salva i metadati nel database
+     * @param size dimensione dichiarata, -1 se non nota
+     */
+    private ResponseEntity<Map<String, Object>> storeModel(UploadContent uploadContent, long size, String fileName,
+            String contentType, String modelName, String version, String modelType, String description, String sessionProfile) {
         
         Map<String, Object> response = new HashMap<>();
         
@@ -70,7 +158,8 @@ public class MaverickController {
             log.info("🚀 Upload modello: {} v{} tipo={}", modelName, version, modelType);
             
             // === VALIDAZIONE INPUT ===
-            validateUploadInput(file, modelName, version, modelType);
+            validateUploadInput(fileName, size, modelName, version, modelType);
+            OnnxSessionProfile profile = parseSessionProfile(sessionProfile);
             
             // === VERIFICA DUPLICATI ===
             if (modelDatabaseService.findByNameAndVersion(modelName, version).isPresent()) {
@@ -79,16 +168,19 @@ public class MaverickController {
             
             // === DETERMINA TIPO MODELLO ===
             ModelEntity.ModelType type = parseModelType(modelType);
-            String fileName = file.getOriginalFilename();
-            String contentType = file.getContentType();
             
             // === UPLOAD SU STORAGE ===
             log.info("📤 Caricamento su {}: {}/{}/{}", storageRepository.getProviderType().getDisplayName(), modelName, version, fileName);
-            storageRepository.uploadModel(modelName, version, fileName, 
-                                      file.getInputStream(), file.getSize(), contentType);
+            // Un solo passaggio: storage a parti fisse, SHA-256 e copia locale da cui si valida l'handler.
+            // Un modello non caricabile viene rifiutato (e rimosso dallo storage) prima del salvataggio nel database
+            ModelUploadPipeline.UploadResult upload;
+            try (InputStream content = uploadContent.open()) {
+                upload = modelUploadPipeline.upload(modelName, version, fileName, content, size,
+                        contentType, type.toString(), profile);
+            }
             
-            // === CALCOLO HASH PER INTEGRITÀ ===
-            String fileHash = calculateFileHash(file);
+            // === HASH PER INTEGRITÀ E CACHE DEGLI ARTEFATTI ===
+            String fileHash = upload.sha256();
             
             // === CREAZIONE ENTITY ===
             ModelEntity modelEntity = ModelEntity.builder()
@@ -99,9 +191,10 @@ public class MaverickController {
                     .storageType(ModelEntity.StorageType.MINIO)
                     .filePath(modelName + "/" + version + "/" + fileName)
                     .bucketName(storageRepository.getDefaultBucket())
-                    .fileSize(file.getSize())
+                    .fileSize(upload.bytes())
                     .fileHash(fileHash)
                     .contentType(contentType)
+                    .metadata(profile != null ? OnnxSessionProfile.mergeIntoMetadata(null, profile) : null)
                     .status(ModelEntity.ModelStatus.READY)
                     .isActive(false) // Modello non attivo di default
                     .createdBy("api-user")
@@ -123,9 +216,14 @@ public class MaverickController {
             response.put("fileName", fileName);
             response.put("minioPath", modelName + "/" + version + "/" + fileName);
             response.put("bucket", storageRepository.getDefaultBucket());
-            response.put(MaverickConstants.FILE_SIZE, file.getSize());
+            response.put(MaverickConstants.FILE_SIZE, upload.bytes());
             response.put("fileHash", fileHash);
+            response.put("uploadMs", upload.uploadMillis());
+            response.put("validationMs", upload.validationMillis());
             response.put(MaverickConstants.IS_ACTIVE, false);
+            if (profile != null) {
+                response.put(MaverickConstants.SESSION_PROFILE, profile);
+            }
             response.put("createdAt", savedModel.getCreatedAt());
             response.put("note", "Usa /load per attivare il modello e caricarlo in memoria");
             
@@ -133,7 +231,7 @@ public class MaverickController {
             
             return ResponseEntity.ok(response);
             
-        } catch (ModelUploadException e) {
+        } catch (ModelUploadException | PayloadTooLargeException e) {
             log.error("❌ Errore validazione upload: {}", e.getMessage());
             throw e; // GlobalExceptionHandler gestirà la risposta
             
@@ -146,11 +244,15 @@ public class MaverickController {
     /**
      * Validazione input per upload
      */
-    private void validateUploadInput(MultipartFile file, String modelName, String version, String modelType) {
-        if (file == null || file.isEmpty()) {
+    private void validateUploadInput(String fileName, long size, String modelName, String version, String modelType) {
+        if (size == 0) {
             throw new ModelUploadException("File richiesto");
         }
         
+        if (fileName == null || fileName.trim().isEmpty()) {
+            throw new ModelUploadException("Nome file richiesto");
+        }
+        
         if (modelName == null || modelName.trim().isEmpty()) {
             throw new ModelUploadException("Nome modello richiesto");
         }
@@ -173,10 +275,10 @@ public class MaverickController {
             throw new ModelUploadException("Versione deve essere nel formato v1.0 o 1.0.0");
         }
         
-        // Validazione dimensione file (max 100MB)
-        long maxSize = 100L * 1024 * 1024; // 100MB
-        if (file.getSize() > maxSize) {
-            throw new ModelUploadException("File troppo grande. Massimo 100MB consentiti");
+        // Validazione dimensione dichiarata (maverick.upload.max-size); senza dimensione il limite vale durante la lettura
+        long maxSize = modelUploadPipeline.getMaxUploadBytes();
+        if (maxSize > 0 && size > maxSize) {
+            throw new PayloadTooLargeException("File troppo grande. Massimo " + DataSize.ofBytes(maxSize).toMegabytes() + "MB consentiti");
         }
     }
 
@@ -193,17 +295,13 @@ public class MaverickController {
     }
 
     /**
-     * Calcolo hash per integrità del file (semplificato)
+     * Parsing e validazione del profilo sessione ONNX Runtime
      */
-    private String calculateFileHash(MultipartFile file) {
+    private OnnxSessionProfile parseSessionProfile(String sessionProfile) {
         try {
-            // Per ora usiamo una combinazione di nome file + dimensione + timestamp
-            // In futuro si può implementare SHA-256 vero
-            String hashInput = file.getOriginalFilename() + "_" + file.getSize() + "_" + System.currentTimeMillis();
-            return String.valueOf(hashInput.hashCode());
-        } catch (Exception e) {
-            log.warn("Impossibile calcolare hash file: {}", e.getMessage());
-            return "unknown";
+            return OnnxSessionProfile.fromJson(sessionProfile);
+        } catch (IllegalArgumentException e) {
+            throw new ModelUploadException(e.getMessage(), e);
         }
     }
 
@@ -215,38 +313,70 @@ public class MaverickController {
                description = "Carica un modello dal database/MinIO nella cache in memoria per predizioni")
     public ResponseEntity<Map<String, Object>> loadModel(
             @Parameter(description = "Nome del modello") @RequestParam("modelName") String modelName,
-            @Parameter(description = "Versione del modello") @RequestParam("version") String version) {
+            @Parameter(description = "Versione del modello") @RequestParam("version") String version,
+            @Parameter(description = "Profilo sessione ONNX Runtime in JSON (opzionale, sostituisce quello salvato)") @RequestParam(value = "sessionProfile", required = false) String sessionProfile,
+            @Parameter(description = "Ricarica il modello se già in memoria, sostituendolo senza interrompere le predizioni in corso") @RequestParam(value = "reload", defaultValue = "false") boolean reload,
+            @Parameter(description = "Esclude (true) o riammette (false) il modello dall'eviction per budget di memoria") @RequestParam(value = "pinned", required = false) Boolean pinned) {
         
         Map<String, Object> response = new HashMap<>();
         
         try {
             log.info("🔄 Caricamento modello in memoria: {} v{}", modelName, version);
+            OnnxSessionProfile profile = parseSessionProfile(sessionProfile);
             
             // === VERIFICA ESISTENZA NEL DATABASE ===
             ModelEntity modelEntity = modelDatabaseService.findByNameAndVersion(modelName, version)
                 .orElseThrow(() -> new ModelNotFoundException(MaverickConstants.MODELLO + modelName + MaverickConstants.VERSIONE + version + MaverickConstants.NON_TROVATO_DB));
             
+            // === AGGIORNAMENTO PROFILO SESSIONE (sulla copia letta: salvato solo se il caricamento riesce) ===
+            if (profile != null) {
+                modelEntity.setMetadata(OnnxSessionProfile.mergeIntoMetadata(modelEntity.getMetadata(), profile));
+            }
+            
+            // === AGGIORNAMENTO FLAG PINNED ===
+            if (pinned != null) {
+                modelEntity.setMetadata(ModelMetadataUtils.withEntry(modelEntity.getMetadata(), MaverickConstants.PINNED, pinned ? Boolean.TRUE : null));
+            }
+            
             // === VERIFICA SE GIÀ IN MEMORIA ===
             String modelKey = modelName + "_" + version;
-            if (ModelRegistry.exists(modelName, version)) {
+            boolean replacing = ModelRegistry.exists(modelName, version);
+            if (replacing && !reload) {
                 log.info("⚡ Modello {} già presente in memoria", modelKey);
                 response.put(MaverickConstants.STATUS, MaverickConstants.SUCCESS);
                 response.put(MaverickConstants.MESSAGE, "Modello già caricato in memoria");
                 response.put(MaverickConstants.MODEL_NAME, modelName);
                 response.put(MaverickConstants.VERSION, version);
                 response.put("cached", true);
+                if (pinned != null || profile != null) {
+                    modelDatabaseService.updateModelMetadata(modelEntity);
+                }
+                if (pinned != null) {
+                    ModelCacheEntry cachedEntry = ModelRegistry.get(modelName, version);
+                    if (cachedEntry != null) {
+                        cachedEntry.setPinned(pinned);
+                    }
+                    response.put(MaverickConstants.PINNED, pinned);
+                }
+                if (profile != null) {
+                    // Il profilo viene salvato e applicato al prossimo caricamento dell'handler
+                    response.put(MaverickConstants.SESSION_PROFILE, profile);
+                    response.put("note", "Profilo sessione salvato: sarà applicato al prossimo caricamento del modello (reload=true per applicarlo subito)");
+                }
                 return ResponseEntity.ok(response);
             }
             
-            // === CARICAMENTO REALE IN MEMORIA ===
+            // === CARICAMENTO REALE IN MEMORIA (sostituzione atomica se già presente) ===
+            if (replacing) {
+                log.info("🔁 Ricaricamento a caldo del modello {}", modelKey);
+            }
             log.info("📥 Download modello da {}: {}", storageRepository.getProviderType().getDisplayName(), modelEntity.getFilePath());
             
-            loadModelIntoMemoryCache(modelName, version, modelEntity);
+            // Se lo stesso modello è già in caricamento (bootstrap, predizione, altra /load) si attende quello
+            loadModelIntoMemoryCache(modelName, version, modelEntity, reload);
             
-            // === AGGIORNAMENTO TIMESTAMP E ATTIVAZIONE ===
-            modelEntity.setLastUsedAt(LocalDateTime.now());
-            modelEntity.setIsActive(true); // Attiva il modello quando caricato in memoria
-            modelDatabaseService.saveModel(modelEntity); // Salva le modifiche nel database
+            // === AGGIORNAMENTO TIMESTAMP, METADATI E ATTIVAZIONE (solo a caricamento riuscito) ===
+            modelDatabaseService.markModelLoaded(modelEntity);
             
             log.info("✅ Modello {} v{} attivato nel database", modelName, version);
             
@@ -260,6 +390,12 @@ public class MaverickController {
             response.put("loadedAt", System.currentTimeMillis());
             response.put("cached", true);
             response.put(MaverickConstants.IS_ACTIVE, true);
+            // Il vecchio handler viene chiuso dal registry al termine delle predizioni in corso
+            response.put("replaced", replacing);
+            OnnxSessionProfile appliedProfile = OnnxSessionProfile.fromMetadata(modelEntity.getMetadata());
+            if (appliedProfile != null) {
+                response.put(MaverickConstants.SESSION_PROFILE, appliedProfile);
+            }
             
             log.info("✅ Modello {} v{} caricato in memoria", modelName, version);
             
@@ -298,8 +434,7 @@ public class MaverickController {
             boolean removed = modelService.removeModel(modelName, version);
             
             // === DISATTIVAZIONE NEL DATABASE ===
-            modelEntity.setIsActive(false);
-            modelDatabaseService.saveModel(modelEntity);
+            modelDatabaseService.deactivateModel(modelEntity.getId());
             
             if (removed) {
                 response.put(MaverickConstants.STATUS, MaverickConstants.SUCCESS);
@@ -349,13 +484,17 @@ public class MaverickController {
             ModelEntity modelEntity = modelDatabaseService.findByNameAndVersion(modelName, version)
                 .orElseThrow(() -> new ModelNotFoundException("Modello " + modelName + " versione " + version + " non trovato"));
             
+            // === CARICAMENTO SU RICHIESTA SE ATTIVO MA NON IN MEMORIA ===
+            modelLoader.ensureLoaded(modelEntity);
+            
             // === ESECUZIONE PREDIZIONE ===
             long startTime = System.currentTimeMillis();
             Object prediction = modelService.predict(modelName, version, inputData);
             long executionTime = System.currentTimeMillis() - startTime;
             
             // === AGGIORNAMENTO STATISTICHE ===
-            modelDatabaseService.recordPrediction(modelEntity.getId());
+            predictionCounter.record(modelEntity.getId(), 1);
+            recordClientUsage(1);
             
             // === RISPOSTA ===
             response.put(MaverickConstants.STATUS, MaverickConstants.SUCCESS);
@@ -373,12 +512,273 @@ public class MaverickController {
             log.error("❌ Modello non trovato per predizione: {}", e.getMessage());
             throw e;
             
+        } catch (ModelLoadingException e) {
+            throw e;
+            
         } catch (Exception e) {
             log.error("❌ Errore durante predizione: {}", e.getMessage(), e);
             throw new ModelPredictionException("Predizione fallita: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Esegue predizione su più righe in una singola chiamata, con esito per riga
+     */
+    @PostMapping("/predict-batch/{version}/{modelName}")
+    @Operation(summary = "Predizione batch modello", 
+               description = "Esegue la predizione di più righe in una singola chiamata; gli errori sono riportati per riga")
+    public ResponseEntity<Map<String, Object>> predictBatch(
+            @Parameter(description = "Versione del modello") @PathVariable String version,
+            @Parameter(description = "Nome del modello") @PathVariable String modelName,
+            @Parameter(description = "Righe di input per la predizione") @RequestBody List<Object> rows) {
+        
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            log.info("🎯 Predizione batch: {} v{} ({} righe)", modelName, version, rows == null ? 0 : rows.size());
+            
+            // === REGISTRAZIONE UTILIZZO ===
+            ModelEntity modelEntity = modelDatabaseService.findByNameAndVersion(modelName, version)
+                .orElseThrow(() -> new ModelNotFoundException("Modello " + modelName + " versione " + version + " non trovato"));
+            
+            // === CARICAMENTO SU RICHIESTA SE ATTIVO MA NON IN MEMORIA ===
+            modelLoader.ensureLoaded(modelEntity);
+            
+            // === ESECUZIONE PREDIZIONE ===
+            long startTime = System.currentTimeMillis();
+            List<RowResult> rowResults = modelService.predictBatch(modelName, version, rows);
+            long executionTime = System.currentTimeMillis() - startTime;
+            
+            // === ESITO PER RIGA ===
+            List<Map<String, Object>> results = new ArrayList<>(rowResults.size());
+            int successCount = 0;
+            for (int i = 0; i < rowResults.size(); i++) {
+                RowResult rowResult = rowResults.get(i);
+                Map<String, Object> result = new HashMap<>();
+                result.put("index", i);
+                if (rowResult.isSuccess()) {
+                    result.put(MaverickConstants.STATUS, MaverickConstants.SUCCESS);
+                    result.put("prediction", rowResult.getPrediction());
+                    successCount++;
+                } else {
+                    result.put(MaverickConstants.STATUS, MaverickConstants.ERROR);
+                    result.put(MaverickConstants.MESSAGE, rowResult.getError().getMessage());
+                }
+                results.add(result);
+            }
+            
+            // === AGGIORNAMENTO STATISTICHE (una sola volta per batch) ===
+            predictionCounter.record(modelEntity.getId(), successCount);
+            recordClientUsage(successCount);
+            
+            // === RISPOSTA ===
+            response.put(MaverickConstants.STATUS, MaverickConstants.SUCCESS);
+            response.put("results", results);
+            response.put("totalRows", rowResults.size());
+            response.put("successCount", successCount);
+            response.put("errorCount", rowResults.size() - successCount);
+            response.put(MaverickConstants.MODEL_NAME, modelName);
+            response.put(MaverickConstants.VERSION, version);
+            response.put("executionTimeMs", executionTime);
+            response.put(MaverickConstants.TIMESTAMP, System.currentTimeMillis());
+            
+            log.info("✅ Predizione batch completata in {}ms: {} v{} ({}/{} righe ok)", 
+                    executionTime, modelName, version, successCount, rowResults.size());
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (ModelNotFoundException e) {
+            log.error("❌ Modello non trovato per predizione batch: {}", e.getMessage());
+            throw e;
+            
+        } catch (ModelLoadingException e) {
+            throw e;
+            
+        } catch (Exception e) {
+            log.error("❌ Errore durante predizione batch: {}", e.getMessage(), e);
+            throw new ModelPredictionException("Predizione batch fallita: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Esegue predizione con tensori binari ({@value TensorCodec#MEDIA_TYPE}): i valori della richiesta
+     * sono passati al modello senza parsing JSON. La risposta è binaria se il client accetta lo stesso
+     * formato, altrimenti JSON come la predizione standard.
+     */
+    @PostMapping(value = {"/predict/{version}/{modelName}", "/predict-batch/{version}/{modelName}"},
+                 consumes = TensorCodec.MEDIA_TYPE)
+    @Operation(summary = "Predizione con tensori binari", 
+               description = "Input e output come tensori little-endian (header con dtype e shape); solo modelli ONNX. "
+                       + "Gli output non tensoriali sono omessi dalla risposta binaria ed elencati nell'header " + SKIPPED_OUTPUTS_HEADER)
+    public ResponseEntity<Object> predictTensors(
+            @Parameter(description = "Versione del modello") @PathVariable String version,
+            @Parameter(description = "Nome del modello") @PathVariable String modelName,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            HttpServletRequest request) throws IOException {
+        
+        // === REGISTRAZIONE UTILIZZO (prima di leggere il corpo: un modello inesistente non alloca il buffer) ===
+        ModelEntity modelEntity = modelDatabaseService.findByNameAndVersion(modelName, version)
+            .orElseThrow(() -> new ModelNotFoundException("Modello " + modelName + " versione " + version + " non trovato"));
+        
+        // === CARICAMENTO SU RICHIESTA SE ATTIVO MA NON IN MEMORIA ===
+        modelLoader.ensureLoaded(modelEntity);
+        
+        // === LETTURA TENSORI (vista sul buffer della richiesta, restituito al pool a fine richiesta; oltre il limite 413) ===
+        try (TensorCodec.Body body = TensorCodec.readBody(request.getInputStream(),
+                request.getContentLengthLong(), maxTensorBodySize.toBytes())) {
+            List<RawTensor> inputs = TensorCodec.decode(body.buffer());
+            
+            try {
+                log.info("🎯 Predizione binaria: {} v{} ({})", modelName, version, inputs);
+            
+                // === ESECUZIONE PREDIZIONE ===
+                long startTime = System.currentTimeMillis();
+                Map<String, Object> outputs = modelService.predictTensors(modelName, version, inputs);
+                long executionTime = System.currentTimeMillis() - startTime;
+            
+                // === AGGIORNAMENTO STATISTICHE (una predizione per riga del primo tensore) ===
+                long[] firstShape = inputs.get(0).getShape();
+                int predictions = firstShape.length > 1 ? (int) firstShape[0] : 1;
+                predictionCounter.record(modelEntity.getId(), predictions);
+                recordClientUsage(predictions);
+            
+                log.info("✅ Predizione binaria completata in {}ms: {} v{}", executionTime, modelName, version);
+            
+                // === RISPOSTA ===
+                if (acceptsTensors(accept)) {
+                    return tensorResponse(outputs, executionTime);
+                }
+                Map<String, Object> prediction = new LinkedHashMap<>();
+                outputs.forEach((name, value) -> prediction.put(name, value instanceof RawTensor tensor ? tensor.toArray() : value));
+                Map<String, Object> response = new HashMap<>();
+                response.put(MaverickConstants.STATUS, MaverickConstants.SUCCESS);
+                response.put("prediction", prediction);
+                response.put(MaverickConstants.MODEL_NAME, modelName);
+                response.put(MaverickConstants.VERSION, version);
+                response.put("executionTimeMs", executionTime);
+                response.put(MaverickConstants.TIMESTAMP, System.currentTimeMillis());
+                return ResponseEntity.ok(response);
+            
+            } catch (ModelNotFoundException | ModelLoadingException | ModelPredictionException e) {
+                throw e;
+            
+            } catch (Exception e) {
+                log.error("❌ Errore durante predizione binaria: {}", e.getMessage(), e);
+                throw new ModelPredictionException("Predizione binaria fallita: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Esegue predizione su record batch Apache Arrow (stream IPC): le colonne sono collegate agli
+     * input del modello e gli output tornano come record batch Arrow, un blocco alla volta
+     */
+    @PostMapping(value = "/predict-batch/{version}/{modelName}", consumes = ArrowBatchScorer.MEDIA_TYPE)
+    @Operation(summary = "Predizione batch Arrow", 
+               description = "Input e output come stream IPC Apache Arrow; la colonna _error riporta gli errori per riga")
+    public void predictArrow(
+            @Parameter(description = "Versione del modello") @PathVariable String version,
+            @Parameter(description = "Nome del modello") @PathVariable String modelName,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        
+        log.info("🎯 Predizione batch Arrow: {} v{}", modelName, version);
+        
+        // === REGISTRAZIONE UTILIZZO ===
+        ModelEntity modelEntity = modelDatabaseService.findByNameAndVersion(modelName, version)
+            .orElseThrow(() -> new ModelNotFoundException("Modello " + modelName + " versione " + version + " non trovato"));
+        
+        // === CARICAMENTO SU RICHIESTA SE ATTIVO MA NON IN MEMORIA ===
+        modelLoader.ensureLoaded(modelEntity);
+        
+        // === ESECUZIONE PREDIZIONE (la risposta è aperta solo al primo batch di output) ===
+        long startTime = System.currentTimeMillis();
+        ArrowBatchScorer.Summary summary = arrowBatchScorer.score(modelName, version, request.getInputStream(), () -> {
+            response.setContentType(ArrowBatchScorer.MEDIA_TYPE);
+            return response.getOutputStream();
+        });
+        long executionTime = System.currentTimeMillis() - startTime;
+        
+        // === AGGIORNAMENTO STATISTICHE ===
+        predictionCounter.record(modelEntity.getId(), summary.successRows());
+        recordClientUsage(summary.successRows());
+        
+        log.info("✅ Predizione batch Arrow completata in {}ms: {} v{} ({}/{} righe ok, {} batch)", 
+                executionTime, modelName, version, summary.successRows(), summary.rows(), summary.batches());
+    }
+
+    /**
+     * Esegue predizione su uno stream CSV: le colonne sono collegate alle feature del modello, i
+     * blocchi di righe sono valutati in parallelo e le predizioni tornano come CSV nell'ordine delle righe
+     */
+    @PostMapping(value = "/predict-batch/{version}/{modelName}", consumes = CsvBatchScorer.MEDIA_TYPE)
+    @Operation(summary = "Predizione batch CSV", 
+               description = "Input e output come CSV con intestazione; la colonna _error riporta gli errori per riga")
+    public void predictCsv(
+            @Parameter(description = "Versione del modello") @PathVariable String version,
+            @Parameter(description = "Nome del modello") @PathVariable String modelName,
+            @Parameter(description = "Colonne da passare al modello, in ordine (default: feature del modello)") 
+            @RequestParam(value = "features", required = false) List<String> features,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        
+        log.info("🎯 Predizione batch CSV: {} v{}", modelName, version);
+        
+        // === REGISTRAZIONE UTILIZZO ===
+        ModelEntity modelEntity = modelDatabaseService.findByNameAndVersion(modelName, version)
+            .orElseThrow(() -> new ModelNotFoundException("Modello " + modelName + " versione " + version + " non trovato"));
+        
+        // === CARICAMENTO SU RICHIESTA SE ATTIVO MA NON IN MEMORIA ===
+        modelLoader.ensureLoaded(modelEntity);
+        
+        // === ESECUZIONE PREDIZIONE (la risposta è aperta solo al primo blocco di predizioni) ===
+        long startTime = System.currentTimeMillis();
+        CsvBatchScorer.Summary summary = csvBatchScorer.score(modelName, version, request.getInputStream(), features, () -> {
+            response.setContentType(CsvBatchScorer.MEDIA_TYPE);
+            response.setCharacterEncoding("UTF-8");
+            return response.getOutputStream();
+        });
+        long executionTime = System.currentTimeMillis() - startTime;
+        
+        // === AGGIORNAMENTO STATISTICHE ===
+        predictionCounter.record(modelEntity.getId(), summary.successRows());
+        recordClientUsage(summary.successRows());
+        
+        log.info("✅ Predizione batch CSV completata in {}ms: {} v{} ({}/{} righe ok, {} blocchi)", 
+                executionTime, modelName, version, summary.successRows(), summary.rows(), summary.chunks());
+    }
+
+    private static boolean acceptsTensors(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        MediaType tensorType = MediaType.parseMediaType(TensorCodec.MEDIA_TYPE);
+        return MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(mediaType -> !mediaType.isWildcardType() && !mediaType.isWildcardSubtype() && mediaType.includes(tensorType));
+    }
+
+    /**
+     * Risposta binaria con i soli output tensoriali numerici
+     */
+    private static ResponseEntity<Object> tensorResponse(Map<String, Object> outputs, long executionTime) {
+        List<RawTensor> tensors = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        outputs.forEach((name, value) -> {
+            if (value instanceof RawTensor tensor) {
+                tensors.add(tensor);
+            } else {
+                skipped.add(name);
+            }
+        });
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(TensorCodec.MEDIA_TYPE))
+                .header("X-Execution-Time-Ms", Long.toString(executionTime));
+        if (!skipped.isEmpty()) {
+            builder.header(SKIPPED_OUTPUTS_HEADER, String.join(",", skipped));
+        }
+        return builder.body(TensorCodec.encode(tensors));
+    }
+
     /**
      * Lista tutti i modelli attualmente caricati in memoria
      */
@@ -405,6 +805,15 @@ public class MaverickController {
                     modelInfo.put("key", entry.getKey());
                     modelInfo.put("hasHandler", entry.getHandler() != null);
                     modelInfo.put("hasLabelMapping", entry.getLabelMapping() != null);
+                    modelInfo.put("activeLeases", entry.getActiveLeases());
+                    modelInfo.put("residentBytes", entry.getResidentBytes());
+                    modelInfo.put("loadMillis", entry.getLoadMillis());
+                    modelInfo.put("diskBytesWritten", entry.getDiskBytesWritten());
+                    modelInfo.put(MaverickConstants.PINNED, ModelRegistry.isPinned(entry));
+                    modelInfo.put("accessCount", entry.getAccessCount());
+                    if (entry.getWarmUp() != null) {
+                        modelInfo.put("warmUp", entry.getWarmUp());
+                    }
                     return modelInfo;
                 })
                 .toList();
@@ -420,6 +829,16 @@ public class MaverickController {
                 .map(model -> (String) model.get(MaverickConstants.MODEL_NAME))
                 .distinct()
                 .count());
+            // Handler sostituiti o rimossi: attesa delle predizioni in corso e tempi di chiusura
+            statistics.put("retirement", ModelRegistry.getRetirementStats());
+            // Budget di memoria: byte residenti ed eviction per motivo
+            statistics.put("memory", ModelRegistry.getMemoryStats());
+            // Caricamenti avviati, condivisi tra richieste concorrenti e in corso
+            statistics.put("loads", ModelRegistry.getLoadStats());
+            statistics.put("predictionCounters", predictionCounter.getStats());
+            statistics.put("modelEntityCache", modelDatabaseService.getEntityCacheStats());
+            statistics.put("arrowScoring", arrowBatchScorer.getStats());
+            statistics.put("csvScoring", csvBatchScorer.getStats());
             
             // === RISPOSTA ===
             response.put(MaverickConstants.STATUS, MaverickConstants.SUCCESS);
@@ -704,6 +1123,16 @@ public class MaverickController {
                 "missingInCache", missingInCache,
                 "extraInCache", extraInCache
             ));
+            
+            // === CACHE GRAFI ONNX OTTIMIZZATI ===
+            response.put("optimizedGraphCache", onnxGraphCache.getStats());
+            // === CACHE ARTEFATTI DEI MODELLI ===
+            response.put("artifactCache", modelArtifactCache.getStats());
+            // === DOWNLOAD PARALLELO DEGLI ARTEFATTI ===
+            Map<String, Object> parallelDownload = modelLoader.getParallelDownloadStats();
+            if (parallelDownload != null) {
+                response.put("parallelDownload", parallelDownload);
+            }
             response.put("timestamp", System.currentTimeMillis());
             
             if (isConsistent) {
@@ -902,7 +1331,10 @@ public class MaverickController {
      * Elabora una entry della cache del modello
      */
     private Map<String, Object> processModelCacheEntry(com.maiolix.maverick.registry.ModelCacheEntry cacheEntry, String modelKey) {
-        try {
+        try (ModelLease lease = ModelRegistry.acquire(cacheEntry)) {
+            if (lease == null) {
+                throw new IllegalStateException("modello sostituito o rimosso durante la lettura");
+            }
             return createModelSummary(cacheEntry, modelKey);
         } catch (Exception e) {
             log.warn("⚠️ Errore elaborazione modello {}: {}", modelKey, e.getMessage());
@@ -996,21 +1428,11 @@ public class MaverickController {
     /**
      * Carica un modello nella cache in memoria
      */
-    private void loadModelIntoMemoryCache(String modelName, String version, ModelEntity modelEntity) {
+    private void loadModelIntoMemoryCache(String modelName, String version, ModelEntity modelEntity, boolean replace) {
         try {
-            // Download del file da Storage
-            InputStream modelStream = storageRepository.downloadModel(modelEntity.getFilePath());
-            
-            // Crea l'handler per il modello
-            Object handler = modelService.createModelHandler(modelStream, modelEntity.getType().toString());
-            
-            // Registra il modello con l'handler nella cache
-            ModelRegistry.register(modelName, modelEntity.getType().toString(), version, (IModelHandler) handler);
-            
-            log.info("✅ Handler creato e registrato per modello {} v{}", modelName, version);
-            
+            modelLoader.load(modelEntity, replace);
         } catch (Exception e) {
-            log.error("❌ Errore creazione handler: {}", e.getMessage(), e);
+            log.error("❌ Errore creazione handler per {} v{}: {}", modelName, version, e.getMessage(), e);
             throw new ModelUploadException("Impossibile creare handler per il modello: " + e.getMessage(), e);
         }
     }
@@ -1029,6 +1451,18 @@ public class MaverickController {
         }
     }
 
+    /**
+     * Conteggia le predizioni del client API autenticato (usageCount)
+     */
+    private void recordClientUsage(long predictions) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null
+                && authentication.getDetails() instanceof JwtAuthenticationFilter.JwtAuthenticationDetails details
+                && details.isMachine()) {
+            usageTracker.recordClientUsage(details.getClientId(), predictions);
+        }
+    }
+
     /**
      * Elimina il modello dal storage
      */
@@ -1,5 +1,6 @@
 package com.maiolix.maverick.controller.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -10,6 +11,7 @@ import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 
 import com.maiolix.maverick.controller.dto.ErrorResponse;
+import com.maiolix.maverick.exception.ModelLoadingException;
 import com.maiolix.maverick.exception.ModelNotFoundException;
 import com.maiolix.maverick.exception.ModelPredictionException;
 import com.maiolix.maverick.exception.ModelUploadException;
@@ -19,6 +21,9 @@ import com.maiolix.maverick.exception.OnnxExtModelException;
 import com.maiolix.maverick.exception.OnnxExtPredictionException;
 import com.maiolix.maverick.exception.OnnxModelException;
 import com.maiolix.maverick.exception.OnnxPredictionException;
+import com.maiolix.maverick.exception.PayloadTooLargeException;
+import com.maiolix.maverick.exception.PmmlModelException;
+import com.maiolix.maverick.exception.PmmlPredictionException;
 
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
@@ -44,6 +49,28 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    @ExceptionHandler(ModelLoadingException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ResponseEntity<ErrorResponse> handleModelLoadingException(
+            ModelLoadingException ex, HttpServletRequest request) {
+        
+        log.warn("Model not available yet: {}", ex.getMessage());
+        
+        ErrorResponse error = ErrorResponse.of(
+                "MODEL_LOADING",
+                ex.getMessage(),
+                request.getRequestURI(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                ex.getRetryAfterSeconds() > 0 ? "The model is being loaded, retry later" : "Check the model artifact and the server logs"
+        );
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE);
+        if (ex.getRetryAfterSeconds() > 0) {
+            response.header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()));
+        }
+        return response.body(error);
+    }
+
     @ExceptionHandler({ModelUploadException.class})
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<ErrorResponse> handleModelUploadException(
@@ -83,7 +110,8 @@ public class GlobalExceptionHandler {
     @ExceptionHandler({
         OnnxModelException.class,
         OnnxExtModelException.class,
-        MojoModelException.class
+        MojoModelException.class,
+        PmmlModelException.class
     })
     @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
     public ResponseEntity<ErrorResponse> handleModelFormatException(
@@ -98,6 +126,8 @@ public class GlobalExceptionHandler {
             errorCode = "ONNX_EXT_MODEL_ERROR";
         } else if (ex instanceof MojoModelException) {
             errorCode = "MOJO_MODEL_ERROR";
+        } else if (ex instanceof PmmlModelException) {
+            errorCode = "PMML_MODEL_ERROR";
         }
         
         ErrorResponse error = ErrorResponse.of(
@@ -114,7 +144,8 @@ public class GlobalExceptionHandler {
     @ExceptionHandler({
         OnnxPredictionException.class,
         OnnxExtPredictionException.class,
-        MojoPredictionException.class
+        MojoPredictionException.class,
+        PmmlPredictionException.class
     })
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<ErrorResponse> handlePredictionFormatException(
@@ -129,6 +160,8 @@ public class GlobalExceptionHandler {
             errorCode = "ONNX_EXT_PREDICTION_ERROR";
         } else if (ex instanceof MojoPredictionException) {
             errorCode = "MOJO_PREDICTION_ERROR";
+        } else if (ex instanceof PmmlPredictionException) {
+            errorCode = "PMML_PREDICTION_ERROR";
         }
         
         ErrorResponse error = ErrorResponse.of(
@@ -160,6 +193,24 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(error);
     }
 
+    @ExceptionHandler(PayloadTooLargeException.class)
+    @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+    public ResponseEntity<ErrorResponse> handlePayloadTooLargeException(
+            PayloadTooLargeException ex, HttpServletRequest request) {
+        
+        log.error("Request body too large: {}", ex.getMessage());
+        
+        ErrorResponse error = ErrorResponse.of(
+                "PAYLOAD_TOO_LARGE",
+                ex.getMessage(),
+                request.getRequestURI(),
+                HttpStatus.PAYLOAD_TOO_LARGE.value(),
+                "Maximum request size allowed is configured in application properties"
+        );
+        
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(error);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<ErrorResponse> handleValidationException(
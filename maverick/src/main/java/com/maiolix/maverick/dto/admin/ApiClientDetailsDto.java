@@ -52,6 +52,9 @@ public class ApiClientDetailsDto {
     @Schema(description = "Numero totale utilizzi", example = "1337")
     private Long usageCount;
 
+    @Schema(description = "Richieste rifiutate per rate limit dall'avvio del nodo", example = "12")
+    private Long throttledRequests;
+
     @Schema(description = "Data e ora di creazione", example = "2024-08-07T10:30:00")
     private LocalDateTime createdAt;
 
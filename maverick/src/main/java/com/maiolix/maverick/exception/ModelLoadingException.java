@@ -0,0 +1,34 @@
+package com.maiolix.maverick.exception;
+
+/**
+ * Eccezione lanciata quando un modello attivo non è ancora disponibile in memoria
+ * Utilizzata dal caricamento su richiesta quando il modello non è pronto entro l'attesa massima
+ * o quando il suo caricamento è fallito
+ */
+public class ModelLoadingException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    /**
+     * Costruttore per modello ancora in caricamento
+     */
+    public ModelLoadingException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Costruttore con messaggio e causa, per caricamento fallito
+     */
+    public ModelLoadingException(String message, Throwable cause) {
+        super(message, cause);
+        this.retryAfterSeconds = 0;
+    }
+
+    /**
+     * Secondi dopo cui ripetere la richiesta, 0 se il caricamento è fallito
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,14 @@
+package com.maiolix.maverick.exception;
+
+/**
+ * Exception thrown when a request body exceeds the configured size limit
+ */
+public class PayloadTooLargeException extends RuntimeException {
+    public PayloadTooLargeException(String message) {
+        super(message);
+    }
+    
+    public PayloadTooLargeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,14 @@
+package com.maiolix.maverick.exception;
+
+/**
+ * Exception thrown when PMML model operations fail
+ */
+public class PmmlModelException extends RuntimeException {
+    public PmmlModelException(String message) {
+        super(message);
+    }
+    
+    public PmmlModelException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
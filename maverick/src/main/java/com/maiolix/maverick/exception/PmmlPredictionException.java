@@ -0,0 +1,14 @@
+package com.maiolix.maverick.exception;
+
+/**
+ * Exception thrown when PMML prediction operations fail
+ */
+public class PmmlPredictionException extends RuntimeException {
+    public PmmlPredictionException(String message) {
+        super(message);
+    }
+    
+    public PmmlPredictionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
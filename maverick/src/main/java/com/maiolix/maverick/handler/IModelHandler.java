@@ -1,13 +1,78 @@
 package com.maiolix.maverick.handler;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public interface IModelHandler {
     Object predict(Object input);
-    
+
     /**
      * Gets information about the input schema required by the model
      * @return Map containing input metadata (names, types, shapes, etc.)
      */
     Map<String, Object> getInputSchema();
+
+    /**
+     * Executes a prediction for each input row.
+     * The default implementation calls {@link #predict(Object)} once per row;
+     * handlers able to score several rows in a single runtime call override it.
+     * @param inputs the input rows, in order
+     * @return one result per input row, in the same order
+     */
+    default List<RowResult> predictBatch(List<?> inputs) {
+        List<RowResult> results = new ArrayList<>(inputs.size());
+        for (Object input : inputs) {
+            try {
+                results.add(RowResult.success(predict(input)));
+            } catch (RuntimeException e) {
+                results.add(RowResult.failure(e));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Checks if {@link #predictBatch(List)} scores all rows with a single runtime call
+     * @return true if the handler batches rows natively
+     */
+    default boolean supportsNativeBatching() {
+        return false;
+    }
+
+    /**
+     * Checks if the handler scores raw tensors through {@link #predictTensors(List)}
+     * @return true if binary tensor requests are supported
+     */
+    default boolean supportsRawTensors() {
+        return false;
+    }
+
+    /**
+     * Gets the element type of each raw tensor input
+     * @return input names and element types, in model order; empty if raw tensors are not supported
+     */
+    default Map<String, RawTensor.DType> getTensorInputTypes() {
+        return Map.of();
+    }
+
+    /**
+     * Executes a prediction on raw input tensors, bound to the model without per-value conversion.
+     * Numeric tensor outputs are returned as {@link RawTensor}; other outputs (strings, sequences,
+     * maps) as the same values {@link #predict(Object)} returns.
+     * @param inputs the input tensors; a single unnamed tensor binds to the only model input
+     * @return the outputs by name, in model order
+     * @throws UnsupportedOperationException if {@link #supportsRawTensors()} is false
+     */
+    default Map<String, Object> predictTensors(List<RawTensor> inputs) {
+        throw new UnsupportedOperationException("Raw tensor input is not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Releases the resources held by the handler, e.g. native sessions and temporary files.
+     * The handler must not be used afterwards.
+     */
+    default void close() {
+        // Nothing to release by default
+    }
 }
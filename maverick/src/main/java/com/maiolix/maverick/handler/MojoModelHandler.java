@@ -1,10 +1,7 @@
 package com.maiolix.maverick.handler;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -13,6 +10,7 @@ import com.maiolix.maverick.exception.MojoModelException;
 import com.maiolix.maverick.exception.MojoPredictionException;
 
 import hex.genmodel.MojoModel;
+import hex.genmodel.MojoReaderBackendFactory;
 import hex.genmodel.easy.EasyPredictModelWrapper;
 import hex.genmodel.easy.RowData;
 import hex.genmodel.easy.prediction.MultinomialModelPrediction;
@@ -24,7 +22,6 @@ public class MojoModelHandler implements IModelHandler {
     private static final String NUMERIC_TYPE = "numeric";
     
     private final EasyPredictModelWrapper model;
-    private File tempModelFile;
 
     public MojoModelHandler(InputStream mojoStream) throws MojoModelException {
         if (mojoStream == null) {
@@ -32,34 +29,20 @@ public class MojoModelHandler implements IModelHandler {
         }
         
         try {
-            // Create temporary file for the model
-            this.tempModelFile = File.createTempFile("mojoModel", ".zip");
-            tempModelFile.deleteOnExit();
-            
-            // Save InputStream to temporary file
-            try (FileOutputStream out = new FileOutputStream(tempModelFile)) {
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                while ((bytesRead = mojoStream.read(buffer)) != -1) {
-                    out.write(buffer, 0, bytesRead);
-                }
-            }
-            
-            // Load MOJO model
-            MojoModel mojoModel = MojoModel.load(tempModelFile.getAbsolutePath());
+            // Read the MOJO archive entries in memory: nothing is written to disk
+            MojoModel mojoModel = MojoModel.load(
+                    MojoReaderBackendFactory.createReaderBackend(mojoStream, MojoReaderBackendFactory.CachingStrategy.MEMORY));
             this.model = new EasyPredictModelWrapper(mojoModel);
             
-            LOGGER.log(Level.INFO, "MOJO model loaded successfully from temporary file: {0}", tempModelFile);
+            LOGGER.info("MOJO model loaded successfully from memory");
             
         } catch (IOException e) {
             // Log and rethrow with context - specific handling for I/O errors
-            LOGGER.log(Level.SEVERE, "Failed to create or write temporary file for MOJO model", e);
-            cleanup();
-            throw new MojoModelException("Failed to create or write temporary file for MOJO model", e);
+            LOGGER.log(Level.SEVERE, "Failed to read MOJO model", e);
+            throw new MojoModelException("Failed to read MOJO model", e);
         } catch (Exception e) {
-            // Log, cleanup and rethrow with context for unexpected errors
+            // Log and rethrow with context for unexpected errors
             LOGGER.log(Level.SEVERE, "Unexpected error during MOJO model initialization", e);
-            cleanup();
             throw new MojoModelException("Unexpected error during MOJO model initialization", e);
         }
     }
@@ -117,21 +100,8 @@ public class MojoModelHandler implements IModelHandler {
         }
     }
     
-    private void cleanup() {
-        try {
-            if (tempModelFile != null && tempModelFile.exists()) {
-                Files.delete(tempModelFile.toPath());
-                LOGGER.log(Level.INFO, "Temporary model file deleted: {0}", tempModelFile);
-            }
-        } catch (IOException e) {
-            LOGGER.log(Level.WARNING, e, () -> "Error deleting temporary model file: " + tempModelFile);
-        } catch (Exception e) {
-            LOGGER.log(Level.WARNING, "Unexpected error during cleanup of temporary model file", e);
-        }
-    }
-    
+    @Override
     public void close() {
-        cleanup();
         LOGGER.info("MOJO model handler closed and resources cleaned up");
     }
     
@@ -1,12 +1,11 @@
 package com.maiolix.maverick.handler;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.Buffer;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -32,12 +31,25 @@ public class OnnxExtModelHandler implements IModelHandler {
     
     private final OrtEnvironment env;
     private OrtSession session;  // Removed final to allow assignment in extractAndProcessZip
-    private Path tempModelFile;
-    private File tempZipFile;
+    private boolean nativeBatching;
+    private OnnxInputBinder binder;
+    private TensorBufferPool bufferPool;
+    private OrtSession.RunOptions runOptions;
     private Map<String, String> labelMapping;
     private final ObjectMapper objectMapper;
 
     public OnnxExtModelHandler(InputStream zipStream) throws OnnxExtModelException {
+        this(zipStream, null, null);
+    }
+
+    /**
+     * Creates the handler with the session settings of the model
+     * @param zipStream the ZIP archive with the ONNX model and its labels
+     * @param profile session profile, or null for ONNX Runtime defaults
+     * @param graphCache cache of optimized graphs, or null to always optimize on load
+     * @throws OnnxExtModelException if the archive or the model cannot be loaded
+     */
+    public OnnxExtModelHandler(InputStream zipStream, OnnxSessionProfile profile, OnnxGraphCache graphCache) throws OnnxExtModelException {
         if (zipStream == null) {
             throw new OnnxExtModelException("ZIP stream cannot be null");
         }
@@ -47,28 +59,15 @@ public class OnnxExtModelHandler implements IModelHandler {
         try {
             this.env = OrtEnvironment.getEnvironment();
             
-            // Create temporary file for the ZIP
-            this.tempZipFile = File.createTempFile("onnxExtModel", ".zip");
-            tempZipFile.deleteOnExit();
-            
-            // Save ZIP stream to temporary file
-            try (FileOutputStream out = new FileOutputStream(tempZipFile)) {
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                while ((bytesRead = zipStream.read(buffer)) != -1) {
-                    out.write(buffer, 0, bytesRead);
-                }
-            }
-            
-            // Extract and process ZIP contents
-            extractAndProcessZip();
+            // Read the ZIP entries straight from the stream: nothing is written to disk
+            extractAndProcessZip(zipStream, profile, graphCache);
             
-            LOGGER.log(Level.INFO, "ONNX Extended model loaded successfully from ZIP file: {0}", tempZipFile);
+            LOGGER.info("ONNX Extended model loaded successfully from ZIP archive");
             
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Failed to create or process temporary ZIP file for ONNX Extended model", e);
+            LOGGER.log(Level.SEVERE, "Failed to read ZIP archive of ONNX Extended model", e);
             cleanup();
-            throw new OnnxExtModelException("Failed to create or process temporary ZIP file for ONNX Extended model", e);
+            throw new OnnxExtModelException("Failed to read ZIP archive of ONNX Extended model", e);
         } catch (OrtException e) {
             LOGGER.log(Level.SEVERE, "Failed to create ONNX session", e);
             cleanup();
@@ -80,11 +79,12 @@ public class OnnxExtModelHandler implements IModelHandler {
         }
     }
     
-    private void extractAndProcessZip() throws IOException, OrtException {
-        Path onnxFile = null;
-        Path jsonFile = null;
+    private void extractAndProcessZip(InputStream zipStream, OnnxSessionProfile profile, OnnxGraphCache graphCache)
+            throws IOException, OrtException {
+        byte[] onnxModel = null;
+        String labelsJson = null;
         
-        try (ZipInputStream zipIn = new ZipInputStream(Files.newInputStream(tempZipFile.toPath()))) {
+        try (ZipInputStream zipIn = new ZipInputStream(zipStream)) {
             ZipEntry entry;
             
             while ((entry = zipIn.getNextEntry()) != null) {
@@ -95,16 +95,16 @@ public class OnnxExtModelHandler implements IModelHandler {
                 String fileName = entry.getName();
                 String lowerFileName = fileName.toLowerCase();
                 
-                // Extract ONNX file
+                // Read ONNX file
                 if (lowerFileName.endsWith(ONNX_FILE_EXTENSION)) {
-                    onnxFile = extractFileFromZip(zipIn, "onnx_model", ONNX_FILE_EXTENSION);
-                    LOGGER.log(Level.INFO, "Extracted ONNX file: {0}", fileName);
+                    onnxModel = zipIn.readAllBytes();
+                    LOGGER.log(Level.INFO, "Read ONNX file: {0}", fileName);
                 }
-                // Extract JSON file (prioritize labels.json, but accept any .json)
+                // Read JSON file (prioritize labels.json, but accept any .json)
                 else if (lowerFileName.endsWith(JSON_FILE_EXTENSION) && 
-                        (lowerFileName.equals(LABELS_JSON_FILENAME) || jsonFile == null)) {
-                    jsonFile = extractFileFromZip(zipIn, "labels", JSON_FILE_EXTENSION);
-                    LOGGER.log(Level.INFO, "Extracted JSON file: {0}", fileName);
+                        (lowerFileName.equals(LABELS_JSON_FILENAME) || labelsJson == null)) {
+                    labelsJson = new String(zipIn.readAllBytes(), StandardCharsets.UTF_8);
+                    LOGGER.log(Level.INFO, "Read JSON file: {0}", fileName);
                 }
                 
                 zipIn.closeEntry();
@@ -112,37 +112,26 @@ public class OnnxExtModelHandler implements IModelHandler {
         }
         
         // Validate that both files were found
-        if (onnxFile == null) {
+        if (onnxModel == null) {
             throw new IOException("No ONNX file found in ZIP archive");
         }
         
-        if (jsonFile == null) {
+        if (labelsJson == null) {
             throw new IOException("No JSON file found in ZIP archive");
         }
         
         // Load label mapping from JSON
-        loadLabelMapping(jsonFile);
+        loadLabelMapping(labelsJson);
         
         // Create ONNX session
-        this.tempModelFile = onnxFile;
-        this.session = env.createSession(onnxFile.toString(), new OrtSession.SessionOptions());
+        this.session = (graphCache != null ? graphCache : OnnxGraphCache.disabled()).createSession(env, onnxModel, profile);
+        this.runOptions = OnnxSessionProfile.toRunOptions(profile);
+        this.nativeBatching = OnnxUtils.hasDynamicBatchDimension(session);
+        this.binder = OnnxInputBinder.compile(session);
+        this.bufferPool = new TensorBufferPool(binder.getElementType());
     }
     
-    private Path extractFileFromZip(ZipInputStream zipIn, String prefix, String extension) throws IOException {
-        Path tempFile = Files.createTempFile(prefix, extension);
-        try (FileOutputStream out = new FileOutputStream(tempFile.toFile())) {
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            while ((bytesRead = zipIn.read(buffer)) != -1) {
-                out.write(buffer, 0, bytesRead);
-            }
-        }
-        return tempFile;
-    }
-    
-    private void loadLabelMapping(Path jsonFile) throws IOException {
-        String jsonContent = Files.readString(jsonFile, StandardCharsets.UTF_8);
-        
+    private void loadLabelMapping(String jsonContent) throws IOException {
         // Try to parse as Map<String, String> first (string keys)
         if (tryParseAsStringMapping(jsonContent)) {
             return;
@@ -184,35 +173,23 @@ public class OnnxExtModelHandler implements IModelHandler {
 
     @Override
     public Object predict(Object input) {
-        if (input == null) {
-            throw new OnnxExtPredictionException("Input cannot be null");
-        }
-        
-        if (!(input instanceof Map)) {
-            throw new OnnxExtPredictionException("Input must be a Map<String, Object>");
-        }
-        
-        @SuppressWarnings("unchecked")
-        Map<String, Object> inputMap = (Map<String, Object>) input;
-        
-        if (inputMap.isEmpty()) {
-            throw new OnnxExtPredictionException("Input map cannot be empty");
-        }
+        Map<String, Object> inputMap = toInputMap(input);
         
         OnnxTensor tensor = null;
         OrtSession.Result result = null;
+        Buffer buffer = null;
         
         try {
-            // Validation and conversion of input data
-            double[] doubleData = validateAndConvertInput(inputMap);
-            float[] data = convertToFloatArray(doubleData);
+            // Bind input values directly into a buffer of the model element type
+            int width = binder.rowWidth(inputMap);
+            buffer = bufferPool.lease(width);
+            binder.bind(inputMap, buffer, 0, width);
 
             // Create tensor
-            tensor = OnnxTensor.createTensor(env, new float[][]{data});
+            tensor = binder.createTensor(env, buffer, 1, width);
             
             // Execute prediction
-            String inputName = getFirstInputName();
-            result = session.run(Map.of(inputName, tensor));
+            result = run(tensor);
             
             // Process result with label mapping
             return processResultWithLabels(result);
@@ -220,6 +197,9 @@ public class OnnxExtModelHandler implements IModelHandler {
         } catch (NumberFormatException e) {
             LOGGER.log(Level.WARNING, "Invalid number format in input data", e);
             throw new OnnxExtPredictionException("Invalid number format in input data: " + e.getMessage(), e);
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Invalid input data", e);
+            throw new OnnxExtPredictionException("Invalid input data: " + e.getMessage(), e);
         } catch (OrtException e) {
             LOGGER.log(Level.SEVERE, "ONNX runtime error during prediction", e);
             throw new OnnxExtPredictionException("ONNX runtime error during prediction", e);
@@ -227,27 +207,127 @@ public class OnnxExtModelHandler implements IModelHandler {
             LOGGER.log(Level.SEVERE, "Unexpected error during ONNX Extended prediction", e);
             throw new OnnxExtPredictionException("Unexpected error during prediction", e);
         } finally {
-            // Cleanup resources
+            // Cleanup resources; the buffer goes back to the pool once the tensor is closed
             cleanupResources(tensor, result);
+            bufferPool.release(buffer);
         }
     }
     
-    private Object processResultWithLabels(OrtSession.Result result) {
+    @Override
+    public List<RowResult> predictBatch(List<?> inputs) {
+        if (!nativeBatching || inputs.size() < 2) {
+            return IModelHandler.super.predictBatch(inputs);
+        }
+        
+        RowResult[] results = new RowResult[inputs.size()];
+        int[] rowIndexes = new int[inputs.size()];
+        Buffer buffer = null;
+        int width = 0;
+        int rows = 0;
+        
+        // Rows that cannot be bound fail on their own; the next valid row overwrites their slot
+        for (int i = 0; i < inputs.size(); i++) {
+            try {
+                Map<String, Object> row = toInputMap(inputs.get(i));
+                if (buffer == null) {
+                    width = binder.rowWidth(row);
+                    buffer = bufferPool.lease(width * inputs.size());
+                }
+                binder.bind(row, buffer, rows, width);
+                rowIndexes[rows++] = i;
+            } catch (OnnxExtPredictionException e) {
+                results[i] = RowResult.failure(e);
+            } catch (IllegalArgumentException e) {
+                results[i] = RowResult.failure(new OnnxExtPredictionException("Invalid input data: " + e.getMessage(), e));
+            }
+        }
+        
         try {
-            // Get the raw result using OnnxUtils
-            Map<String, Object> rawResult = OnnxUtils.processResult(result);
-            
-            // Enhance the result with label mapping if available
-            if (labelMapping != null && !labelMapping.isEmpty()) {
-                return enhanceResultWithLabels(rawResult);
+            if (rows > 0) {
+                runBatch(buffer, rows, width, rowIndexes, results);
             }
+        } finally {
+            bufferPool.release(buffer);
+        }
+        return Arrays.asList(results);
+    }
+    
+    @Override
+    public boolean supportsNativeBatching() {
+        return nativeBatching;
+    }
+    
+    private void runBatch(Buffer buffer, int rows, int width, int[] rowIndexes, RowResult[] results) {
+        OnnxTensor tensor = null;
+        OrtSession.Result result = null;
+        
+        try {
+            // Single [N, F] tensor for all the valid rows
+            tensor = binder.createTensor(env, buffer, rows, width);
+            result = run(tensor);
             
-            return rawResult;
+            List<Map<String, Object>> perRow = OnnxUtils.splitByRow(OnnxUtils.processResult(result), rows);
+            for (int i = 0; i < rows; i++) {
+                results[rowIndexes[i]] = RowResult.success(applyLabelMapping(perRow.get(i)));
+            }
+        } catch (OrtException e) {
+            LOGGER.log(Level.SEVERE, "ONNX runtime error during batch prediction", e);
+            failRows(rowIndexes, rows, results, new OnnxExtPredictionException("ONNX runtime error during batch prediction", e));
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Unexpected error during ONNX Extended batch prediction", e);
+            failRows(rowIndexes, rows, results, new OnnxExtPredictionException("Unexpected error during batch prediction", e));
+        } finally {
+            cleanupResources(tensor, result);
+        }
+    }
+    
+    private OrtSession.Result run(OnnxTensor tensor) throws OrtException {
+        Map<String, OnnxTensor> inputs = Map.of(binder.getInputName(), tensor);
+        return runOptions != null ? session.run(inputs, runOptions) : session.run(inputs);
+    }
+    
+    private void failRows(int[] rowIndexes, int count, RowResult[] results, RuntimeException error) {
+        for (int i = 0; i < count; i++) {
+            results[rowIndexes[i]] = RowResult.failure(error);
+        }
+    }
+    
+    private Map<String, Object> toInputMap(Object input) {
+        if (input == null) {
+            throw new OnnxExtPredictionException("Input cannot be null");
+        }
+        
+        if (!(input instanceof Map)) {
+            throw new OnnxExtPredictionException("Input must be a Map<String, Object>");
+        }
+        
+        @SuppressWarnings("unchecked")
+        Map<String, Object> inputMap = (Map<String, Object>) input;
+        
+        if (inputMap.isEmpty()) {
+            throw new OnnxExtPredictionException("Input map cannot be empty");
+        }
+        return inputMap;
+    }
+    
+    private Object processResultWithLabels(OrtSession.Result result) {
+        try {
+            // Get the raw result using OnnxUtils
+            return applyLabelMapping(OnnxUtils.processResult(result));
         } catch (Exception e) {
             throw new OnnxExtPredictionException("Failed to process result", e);
         }
     }
     
+    private Map<String, Object> applyLabelMapping(Map<String, Object> rawResult) {
+        // Enhance the result with label mapping if available
+        if (labelMapping != null && !labelMapping.isEmpty()) {
+            return enhanceResultWithLabels(rawResult);
+        }
+        
+        return rawResult;
+    }
+    
     private Map<String, Object> enhanceResultWithLabels(Map<String, Object> rawResult) {
         Map<String, Object> enhancedResult = new java.util.HashMap<>(rawResult);
         
@@ -308,47 +388,6 @@ public class OnnxExtModelHandler implements IModelHandler {
         return namedProbabilities;
     }
     
-    private double[] validateAndConvertInput(Map<String, Object> inputMap) {
-        try {
-            return inputMap.values().stream()
-                    .mapToDouble(this::parseToDouble)
-                    .toArray();
-        } catch (Exception e) {
-            throw new OnnxExtPredictionException("Failed to convert input values to numeric data", e);
-        }
-    }
-    
-    private double parseToDouble(Object value) {
-        if (value == null) {
-            throw new NumberFormatException("Input value cannot be null");
-        }
-        
-        if (value instanceof Number number) {
-            return number.doubleValue();
-        }
-        
-        try {
-            return Double.parseDouble(value.toString());
-        } catch (NumberFormatException e) {
-            throw new NumberFormatException("Cannot convert value '" + value + "' to double");
-        }
-    }
-    
-    private float[] convertToFloatArray(double[] doubleData) {
-        float[] data = new float[doubleData.length];
-        for (int i = 0; i < doubleData.length; i++) {
-            data[i] = (float) doubleData[i];
-        }
-        return data;
-    }
-    
-    private String getFirstInputName() {
-        if (session.getInputNames().isEmpty()) {
-            throw new OnnxExtPredictionException("No input names found in ONNX model");
-        }
-        return session.getInputNames().iterator().next();
-    }
-    
     private void cleanupResources(OnnxTensor tensor, OrtSession.Result result) {
         try {
             if (tensor != null) {
@@ -368,6 +407,10 @@ public class OnnxExtModelHandler implements IModelHandler {
     }
     
     private void cleanup() {
+        if (bufferPool != null) {
+            bufferPool.close();
+        }
+        
         try {
             if (session != null) {
                 session.close();
@@ -376,23 +419,12 @@ public class OnnxExtModelHandler implements IModelHandler {
             LOGGER.log(Level.WARNING, "Error closing session", e);
         }
         
-        try {
-            if (tempModelFile != null && Files.exists(tempModelFile)) {
-                Files.delete(tempModelFile);
-            }
-        } catch (IOException e) {
-            LOGGER.log(Level.WARNING, "Error deleting temporary ONNX file", e);
-        }
-        
-        try {
-            if (tempZipFile != null && tempZipFile.exists()) {
-                Files.delete(tempZipFile.toPath());
-            }
-        } catch (IOException e) {
-            LOGGER.log(Level.WARNING, "Error deleting temporary ZIP file", e);
+        if (runOptions != null) {
+            runOptions.close();
         }
     }
     
+    @Override
     public void close() {
         cleanup();
         LOGGER.info("ONNX Extended model handler closed and resources cleaned up");
@@ -424,6 +456,16 @@ public class OnnxExtModelHandler implements IModelHandler {
                 schema.put(inputName, inputDetails);
             }
             
+            // Add usage example: one value per feature, named when the model declares feature names
+            Map<String, Object> example = new java.util.LinkedHashMap<>();
+            int width = binder.rowWidth(Map.of());
+            for (int i = 0; i < width; i++) {
+                example.put(binder.isNamed() ? binder.getFeatureNames().get(i) : "f" + i, 0.0);
+            }
+            if (!example.isEmpty()) {
+                schema.put("inputExample", example);
+            }
+            
             // Add general information
             schema.put("totalInputs", inputsInfo.size());
             schema.put("inputNames", java.util.List.copyOf(session.getInputNames()));
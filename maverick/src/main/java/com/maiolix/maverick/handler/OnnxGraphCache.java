@@ -0,0 +1,415 @@
+package com.maiolix.maverick.handler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.OrtSession.SessionOptions.OptLevel;
+
+/**
+ * Node-local cache of ORT-optimized model graphs.
+ * The first load of a model lets ORT write the optimized graph through the optimized model
+ * file path session option; later loads open that graph with optimizations disabled.
+ * Entries are keyed by the SHA-256 of the model file, the ORT version and the optimization
+ * level, because optimized graphs may contain operators specific to the runtime and the host.
+ * The hash is computed from the model only when the caller does not already know it. The least
+ * recently used graphs are removed when the cache grows beyond its size cap.
+ */
+public final class OnnxGraphCache {
+    private static final Logger LOGGER = Logger.getLogger(OnnxGraphCache.class.getName());
+    private static final String MODEL_EXTENSION = ".onnx";
+    private static final String LOAD_TIME_EXTENSION = ".loadms";
+    private static final String PARTIAL_EXTENSION = ".partial";
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Map<String, Long> optimizingLoadMillis = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder savedMillis = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param directory cache directory, created if missing; null disables the cache
+     */
+    public OnnxGraphCache(Path directory) {
+        this(directory, 0);
+    }
+
+    /**
+     * @param directory cache directory, created if missing; null disables the cache
+     * @param maxBytes size cap of the cached graphs, 0 for no cap; the graph just stored is kept even if it alone exceeds it
+     */
+    public OnnxGraphCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot create ONNX graph cache directory " + directory, e);
+            }
+        }
+    }
+
+    /**
+     * @return a cache that always creates sessions from the original model
+     */
+    public static OnnxGraphCache disabled() {
+        return new OnnxGraphCache(null);
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Creates a session for the model, from the cached optimized graph when available
+     * @param env ORT environment
+     * @param model the original model, in memory
+     * @param profile session profile, or null for ORT defaults
+     * @return the session
+     * @throws OrtException if ORT cannot create the session
+     */
+    public OrtSession createSession(OrtEnvironment env, byte[] model, OnnxSessionProfile profile) throws OrtException {
+        return createSession(env, model, null, profile);
+    }
+
+    /**
+     * Creates a session for the model, from the cached optimized graph when available
+     * @param env ORT environment
+     * @param model the original model, in memory
+     * @param modelHash SHA-256 of the model, lowercase hex, or null to compute it
+     * @param profile session profile, or null for ORT defaults
+     * @return the session
+     * @throws OrtException if ORT cannot create the session
+     */
+    public OrtSession createSession(OrtEnvironment env, byte[] model, String modelHash, OnnxSessionProfile profile)
+            throws OrtException {
+        return createSession(env, knownOr(modelHash, () -> sha256(model)), options -> env.createSession(model, options), profile);
+    }
+
+    /**
+     * Creates a session for a model file, from the cached optimized graph when available.
+     * ORT reads the file itself, so the model is never held in a Java array.
+     * @param env ORT environment
+     * @param model the original model file
+     * @param profile session profile, or null for ORT defaults
+     * @return the session
+     * @throws OrtException if ORT cannot create the session
+     */
+    public OrtSession createSession(OrtEnvironment env, Path model, OnnxSessionProfile profile) throws OrtException {
+        return createSession(env, model, null, profile);
+    }
+
+    /**
+     * Creates a session for a model file, from the cached optimized graph when available
+     * @param env ORT environment
+     * @param model the original model file
+     * @param modelHash SHA-256 of the file, lowercase hex, or null to compute it
+     * @param profile session profile, or null for ORT defaults
+     * @return the session
+     * @throws OrtException if ORT cannot create the session
+     */
+    public OrtSession createSession(OrtEnvironment env, Path model, String modelHash, OnnxSessionProfile profile)
+            throws OrtException {
+        return createSession(env, knownOr(modelHash, () -> sha256(model)),
+                options -> env.createSession(model.toString(), options), profile);
+    }
+
+    private static Supplier<String> knownOr(String modelHash, Supplier<String> compute) {
+        // Hashes already verified by the caller (e.g. the artifact cache) save a full read of the model
+        return modelHash != null && SHA256_HEX.matcher(modelHash).matches() ? () -> modelHash : compute;
+    }
+
+    private OrtSession createSession(OrtEnvironment env, Supplier<String> modelHash, ModelSource model,
+            OnnxSessionProfile profile) throws OrtException {
+        OptLevel level = profile != null && profile.getOptimizationLevel() != null ? profile.getOptimizationLevel() : OptLevel.ALL_OPT;
+        if (!isEnabled() || level == OptLevel.NO_OPT) {
+            try (OrtSession.SessionOptions options = OnnxSessionProfile.toSessionOptions(profile)) {
+                return model.open(options);
+            }
+        }
+
+        String key = cacheKey(modelHash.get(), env.getVersion(), level);
+        Path cached = directory.resolve(key + MODEL_EXTENSION);
+
+        if (Files.exists(cached)) {
+            OrtSession session = openCached(env, cached, key, profile);
+            if (session != null) {
+                return session;
+            }
+        }
+
+        misses.increment();
+        return optimizeAndStore(model, cached, key, profile);
+    }
+
+    private OrtSession openCached(OrtEnvironment env, Path cached, String key, OnnxSessionProfile profile) {
+        long start = System.nanoTime();
+        try (OrtSession.SessionOptions options = OnnxSessionProfile.toSessionOptions(profile)) {
+            options.setOptimizationLevel(OptLevel.NO_OPT);
+            OrtSession session = env.createSession(cached.toString(), options);
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+            touch(cached);
+            hits.increment();
+            Long original = optimizingLoadMillis(key);
+            if (original != null) {
+                savedMillis.add(Math.max(0, original - elapsed));
+            }
+            LOGGER.log(Level.INFO, "Loaded optimized ONNX graph from cache: {0} ({1} ms)", new Object[] { key, elapsed });
+            return session;
+        } catch (OrtException e) {
+            // A stale or corrupted entry is dropped and rebuilt from the original model
+            LOGGER.log(Level.WARNING, "Discarding unusable optimized ONNX graph " + key, e);
+            failures.increment();
+            deleteQuietly(cached);
+            deleteQuietly(directory.resolve(key + LOAD_TIME_EXTENSION));
+            return null;
+        }
+    }
+
+    private OrtSession optimizeAndStore(ModelSource model, Path cached, String key, OnnxSessionProfile profile)
+            throws OrtException {
+        // Each loader writes its own partial file, published with a rename
+        Path partial = directory.resolve(key + "." + UUID.randomUUID() + PARTIAL_EXTENSION);
+        long start = System.nanoTime();
+        OrtSession session;
+        try (OrtSession.SessionOptions options = OnnxSessionProfile.toSessionOptions(profile)) {
+            options.setOptimizedModelFilePath(partial.toString());
+            session = model.open(options);
+        } catch (OrtException e) {
+            LOGGER.log(Level.WARNING, "Cannot write optimized ONNX graph, loading without cache", e);
+            failures.increment();
+            deleteQuietly(partial);
+            try (OrtSession.SessionOptions options = OnnxSessionProfile.toSessionOptions(profile)) {
+                return model.open(options);
+            }
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+        try {
+            if (Files.exists(partial)) {
+                Files.writeString(directory.resolve(key + LOAD_TIME_EXTENSION), Long.toString(elapsed), StandardCharsets.UTF_8);
+                moveIntoPlace(partial, cached);
+                optimizingLoadMillis.put(key, elapsed);
+                writes.increment();
+                LOGGER.log(Level.INFO, "Stored optimized ONNX graph in cache: {0} ({1} ms)", new Object[] { key, elapsed });
+                evict(cached);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Cannot store optimized ONNX graph " + key, e);
+            failures.increment();
+            deleteQuietly(partial);
+        }
+        return session;
+    }
+
+    /**
+     * Removes the least recently used graphs, with their load times, until the cache fits its size cap
+     */
+    private synchronized void evict(Path keep) {
+        if (maxBytes <= 0) {
+            return;
+        }
+        List<Path> entries = new ArrayList<>();
+        long total = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(MODEL_EXTENSION))::iterator) {
+                entries.add(file);
+                total += sizeOf(file);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Cannot list ONNX graph cache directory", e);
+            return;
+        }
+
+        entries.sort(Comparator.comparing(OnnxGraphCache::lastAccess));
+        for (Path entry : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            if (entry.equals(keep)) {
+                continue;
+            }
+            long size = sizeOf(entry);
+            // Sessions already created from the graph do not read the file again
+            String fileName = entry.getFileName().toString();
+            String key = fileName.substring(0, fileName.length() - MODEL_EXTENSION.length());
+            deleteQuietly(entry);
+            deleteQuietly(directory.resolve(key + LOAD_TIME_EXTENSION));
+            optimizingLoadMillis.remove(key);
+            total -= size;
+            evictions.increment();
+            LOGGER.log(Level.INFO, "Evicted optimized ONNX graph from cache: {0}", key);
+        }
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Cannot update access time of " + file, e);
+        }
+    }
+
+    private static FileTime lastAccess(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private Long optimizingLoadMillis(String key) {
+        return optimizingLoadMillis.computeIfAbsent(key, k -> {
+            try {
+                return Long.parseLong(Files.readString(directory.resolve(k + LOAD_TIME_EXTENSION), StandardCharsets.UTF_8).trim());
+            } catch (IOException | NumberFormatException e) {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Builds the cache key of a model
+     * @param fileHash SHA-256 of the original model file
+     * @param ortVersion ORT version
+     * @param level optimization level the graph was produced with
+     * @return a key usable as a file name
+     */
+    static String cacheKey(String fileHash, String ortVersion, OptLevel level) {
+        return fileHash + "-ort" + ortVersion.replaceAll("[^A-Za-z0-9.]", "_") + "-" + level.name().toLowerCase();
+    }
+
+    static String sha256(byte[] model) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(model));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static String sha256(Path model) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        try (InputStream in = new DigestInputStream(Files.newInputStream(model), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read ONNX model " + model, e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Opens a session on the original model, held in memory or read by ORT from a file
+     */
+    @FunctionalInterface
+    private interface ModelSource {
+        OrtSession open(OrtSession.SessionOptions options) throws OrtException;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Cannot delete " + path, e);
+        }
+    }
+
+    /**
+     * Gets the cache statistics
+     * @return hits, misses, writes, failures, evictions, estimated load time saved and disk usage
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("writes", writes.sum());
+        stats.put("failures", failures.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("savedLoadTimeMs", savedMillis.sum());
+        if (isEnabled()) {
+            stats.put("directory", directory.toString());
+            stats.put("maxSizeBytes", maxBytes);
+            long entries = 0;
+            long bytes = 0;
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(MODEL_EXTENSION))::iterator) {
+                    entries++;
+                    bytes += Files.size(file);
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Cannot list ONNX graph cache directory", e);
+            }
+            stats.put("entries", entries);
+            stats.put("sizeBytes", bytes);
+        }
+        return stats;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getSavedLoadTimeMillis() {
+        return savedMillis.sum();
+    }
+}
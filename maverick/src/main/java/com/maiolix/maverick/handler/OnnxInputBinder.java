@@ -0,0 +1,241 @@
+package com.maiolix.maverick.handler;
+
+import java.nio.Buffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ai.onnxruntime.NodeInfo;
+import ai.onnxruntime.OnnxJavaType;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.TensorInfo;
+
+/**
+ * Binds JSON input rows to the model input tensor.
+ * Compiled once per session: the input name, the ORT element type and, when the feature
+ * names are known, the offset of each feature inside a row. Each request then writes its
+ * values straight into a primitive buffer of the right element type.
+ * <p>
+ * Feature names are taken from the {@value #FEATURE_NAMES_METADATA_KEY} custom metadata entry
+ * of the model (comma separated) or from a declared list. Without names, values are bound
+ * positionally in the iteration order of the input map.
+ */
+public final class OnnxInputBinder {
+
+    /** Custom metadata entry holding the ordered, comma separated feature names */
+    public static final String FEATURE_NAMES_METADATA_KEY = "feature_names";
+
+    private final String inputName;
+    private final OnnxJavaType elementType;
+    private final int declaredWidth;
+    private final String[] featureNames;
+    private final Map<String, Integer> offsets;
+
+    private OnnxInputBinder(String inputName, OnnxJavaType elementType, int declaredWidth, List<String> featureNames) {
+        this.inputName = inputName;
+        this.elementType = elementType;
+        this.featureNames = featureNames == null || featureNames.isEmpty() ? null : featureNames.toArray(new String[0]);
+        this.offsets = new HashMap<>();
+        if (this.featureNames != null) {
+            for (int i = 0; i < this.featureNames.length; i++) {
+                offsets.put(this.featureNames[i], i);
+            }
+        }
+        this.declaredWidth = this.featureNames != null ? this.featureNames.length : declaredWidth;
+    }
+
+    /**
+     * Compiles the binder from the session input metadata
+     * @param session the ONNX session
+     * @return the binder for the first model input
+     * @throws OrtException if the session metadata cannot be read
+     */
+    public static OnnxInputBinder compile(OrtSession session) throws OrtException {
+        return compile(session, featureNamesFromMetadata(session));
+    }
+
+    /**
+     * Compiles the binder from the session input metadata and a declared feature list
+     * @param session the ONNX session
+     * @param declaredFeatures ordered feature names, or null to bind positionally
+     * @return the binder for the first model input
+     * @throws OrtException if the session metadata cannot be read
+     */
+    public static OnnxInputBinder compile(OrtSession session, List<String> declaredFeatures) throws OrtException {
+        Map<String, NodeInfo> inputs = session.getInputInfo();
+        if (inputs.isEmpty()) {
+            throw new IllegalStateException("No input names found in ONNX model");
+        }
+        Map.Entry<String, NodeInfo> input = inputs.entrySet().iterator().next();
+
+        OnnxJavaType type = OnnxJavaType.FLOAT;
+        int width = -1;
+        if (input.getValue().getInfo() instanceof TensorInfo tensorInfo) {
+            type = isSupported(tensorInfo.type) ? tensorInfo.type : OnnxJavaType.FLOAT;
+            long[] shape = tensorInfo.getShape();
+            long last = shape.length > 0 ? shape[shape.length - 1] : -1;
+            width = last > 0 ? (int) last : -1;
+        }
+
+        if (declaredFeatures != null && !declaredFeatures.isEmpty() && width > 0 && declaredFeatures.size() != width) {
+            throw new IllegalStateException("Declared " + declaredFeatures.size() + " feature names but model input '"
+                    + input.getKey() + "' expects " + width + " values");
+        }
+        return new OnnxInputBinder(input.getKey(), type, width, declaredFeatures);
+    }
+
+    private static List<String> featureNamesFromMetadata(OrtSession session) throws OrtException {
+        String names = session.getMetadata().getCustomMetadata().get(FEATURE_NAMES_METADATA_KEY);
+        if (names == null || names.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(names.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+
+    private static boolean isSupported(OnnxJavaType type) {
+        return type == OnnxJavaType.FLOAT || type == OnnxJavaType.DOUBLE
+                || type == OnnxJavaType.INT64 || type == OnnxJavaType.INT32;
+    }
+
+    public String getInputName() {
+        return inputName;
+    }
+
+    public OnnxJavaType getElementType() {
+        return elementType;
+    }
+
+    /**
+     * Gets the number of values in one row
+     * @param firstRow used only when the model has neither a fixed width nor feature names
+     * @return the row width
+     */
+    public int rowWidth(Map<String, Object> firstRow) {
+        return declaredWidth > 0 ? declaredWidth : firstRow.size();
+    }
+
+    /**
+     * Checks if values are bound by feature name rather than by position
+     * @return true if feature names are known
+     */
+    public boolean isNamed() {
+        return featureNames != null;
+    }
+
+    /**
+     * Gets the ordered feature names
+     * @return the feature names, empty when values are bound positionally
+     */
+    public List<String> getFeatureNames() {
+        return featureNames != null ? List.of(featureNames) : List.of();
+    }
+
+    /**
+     * Writes one row into the buffer, starting at {@code row * width}
+     * @param values the input row
+     * @param buffer target buffer of the model element type, e.g. leased from a {@link TensorBufferPool}
+     * @param row row index inside the buffer
+     * @param width row width
+     * @throws IllegalArgumentException if the row does not match the model features or a value is not numeric
+     */
+    public void bind(Map<String, Object> values, Buffer buffer, int row, int width) {
+        int base = row * width;
+        if (featureNames == null) {
+            bindPositional(values, buffer, base, width);
+        } else {
+            bindNamed(values, buffer, base);
+        }
+    }
+
+    private void bindPositional(Map<String, Object> values, Buffer buffer, int base, int width) {
+        if (values.size() != width) {
+            throw new IllegalArgumentException("Expected " + width + " input values but got " + values.size());
+        }
+        int offset = base;
+        for (Object value : values.values()) {
+            write(buffer, offset++, value);
+        }
+    }
+
+    private void bindNamed(Map<String, Object> values, Buffer buffer, int base) {
+        int bound = 0;
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            Integer offset = offsets.get(entry.getKey());
+            if (offset == null) {
+                throw new IllegalArgumentException("Unknown feature '" + entry.getKey() + "'. Expected features: " + Arrays.toString(featureNames));
+            }
+            write(buffer, base + offset, entry.getValue());
+            bound++;
+        }
+        if (bound != featureNames.length) {
+            throw new IllegalArgumentException("Missing features: expected " + Arrays.toString(featureNames) + " but got " + values.keySet());
+        }
+    }
+
+    private void write(Buffer buffer, int index, Object value) {
+        switch (elementType) {
+            case DOUBLE -> ((DoubleBuffer) buffer).put(index, toDouble(value));
+            case INT64 -> ((LongBuffer) buffer).put(index, toLong(value));
+            case INT32 -> ((IntBuffer) buffer).put(index, toInt(value));
+            default -> ((FloatBuffer) buffer).put(index, (float) toDouble(value));
+        }
+    }
+
+    /**
+     * Creates the input tensor of shape [rows, width] over the first {@code rows * width} buffer values
+     * @param env ORT environment
+     * @param buffer buffer filled through {@link #bind(Map, Buffer, int, int)}
+     * @param rows number of rows
+     * @param width row width
+     * @return the tensor, to be closed by the caller
+     * @throws OrtException if ORT cannot create the tensor
+     */
+    public OnnxTensor createTensor(OrtEnvironment env, Buffer buffer, int rows, int width) throws OrtException {
+        long[] shape = {rows, width};
+        buffer.limit(rows * width);
+        return switch (elementType) {
+            case DOUBLE -> OnnxTensor.createTensor(env, (DoubleBuffer) buffer, shape);
+            case INT64 -> OnnxTensor.createTensor(env, (LongBuffer) buffer, shape);
+            case INT32 -> OnnxTensor.createTensor(env, (IntBuffer) buffer, shape);
+            default -> OnnxTensor.createTensor(env, (FloatBuffer) buffer, shape);
+        };
+    }
+
+    private static double toDouble(Object value) {
+        if (value == null) {
+            throw new NumberFormatException("Input value cannot be null");
+        }
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        try {
+            return Double.parseDouble(value.toString());
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException("Cannot convert value '" + value + "' to double");
+        }
+    }
+
+    private static int toInt(Object value) {
+        long longValue = toLong(value);
+        try {
+            return Math.toIntExact(longValue);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Value " + value + " is out of range for an int32 input", e);
+        }
+    }
+
+    private static long toLong(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        return (long) toDouble(value);
+    }
+}
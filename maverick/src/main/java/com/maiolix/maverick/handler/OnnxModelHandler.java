@@ -2,8 +2,12 @@ package com.maiolix.maverick.handler;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -11,10 +15,12 @@ import java.util.logging.Logger;
 import com.maiolix.maverick.exception.OnnxModelException;
 import com.maiolix.maverick.exception.OnnxPredictionException;
 
+import ai.onnxruntime.NodeInfo;
 import ai.onnxruntime.OnnxTensor;
 import ai.onnxruntime.OrtEnvironment;
 import ai.onnxruntime.OrtException;
 import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.TensorInfo;
 
 @SuppressWarnings("java:S2139") // Sonar warning for exception handling - we properly log and rethrow
 public class OnnxModelHandler implements IModelHandler {
@@ -22,23 +28,74 @@ public class OnnxModelHandler implements IModelHandler {
     
     private final OrtEnvironment env;
     private final OrtSession session;
-    private Path tempModelFile;
+    private final boolean nativeBatching;
+    private final OnnxInputBinder binder;
+    private final TensorBufferPool bufferPool;
+    private final OrtSession.RunOptions runOptions;
+    private final Map<String, NodeInfo> inputInfo;
 
     public OnnxModelHandler(InputStream modelStream) throws OnnxModelException {
-        if (modelStream == null) {
-            throw new OnnxModelException("Model stream cannot be null");
+        this(modelStream, null, null);
+    }
+
+    /**
+     * Creates the handler with the session settings of the model
+     * @param modelStream the ONNX model
+     * @param profile session profile, or null for ONNX Runtime defaults
+     * @param graphCache cache of optimized graphs, or null to always optimize on load
+     * @throws OnnxModelException if the model cannot be loaded
+     */
+    public OnnxModelHandler(InputStream modelStream, OnnxSessionProfile profile, OnnxGraphCache graphCache) throws OnnxModelException {
+        // The session is built from the model bytes: nothing is written to disk
+        this(modelStream == null ? null : (env, cache) -> cache.createSession(env, modelStream.readAllBytes(), profile),
+                "stream", profile, graphCache);
+    }
+
+    /**
+     * Creates the handler from a model file, which ONNX Runtime reads directly
+     * @param modelFile the ONNX model file
+     * @param profile session profile, or null for ONNX Runtime defaults
+     * @param graphCache cache of optimized graphs, or null to always optimize on load
+     * @throws OnnxModelException if the model cannot be loaded
+     */
+    public OnnxModelHandler(Path modelFile, OnnxSessionProfile profile, OnnxGraphCache graphCache) throws OnnxModelException {
+        this(modelFile, null, profile, graphCache);
+    }
+
+    /**
+     * Creates the handler from a model file whose SHA-256 is already known, so that the graph
+     * cache does not read the file again to hash it
+     * @param modelFile the ONNX model file
+     * @param fileHash SHA-256 of the file, lowercase hex, or null if unknown
+     * @param profile session profile, or null for ONNX Runtime defaults
+     * @param graphCache cache of optimized graphs, or null to always optimize on load
+     * @throws OnnxModelException if the model cannot be loaded
+     */
+    public OnnxModelHandler(Path modelFile, String fileHash, OnnxSessionProfile profile, OnnxGraphCache graphCache)
+            throws OnnxModelException {
+        this(modelFile == null ? null : (env, cache) -> cache.createSession(env, modelFile, fileHash, profile),
+                "file", profile, graphCache);
+    }
+
+    private OnnxModelHandler(SessionOpener opener, String source, OnnxSessionProfile profile, OnnxGraphCache graphCache)
+            throws OnnxModelException {
+        if (opener == null) {
+            throw new OnnxModelException("Model " + source + " cannot be null");
         }
         
         try {
             this.env = OrtEnvironment.getEnvironment();
-            this.tempModelFile = Files.createTempFile("model", ".onnx");
-            Files.copy(modelStream, tempModelFile, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-            this.session = env.createSession(tempModelFile.toString(), new OrtSession.SessionOptions());
-            LOGGER.log(Level.INFO, "ONNX model loaded successfully from temporary file: {0}", tempModelFile);
-        } catch (IOException e) {
+            this.session = opener.open(env, graphCache != null ? graphCache : OnnxGraphCache.disabled());
+            this.runOptions = OnnxSessionProfile.toRunOptions(profile);
+            this.nativeBatching = OnnxUtils.hasDynamicBatchDimension(session);
+            this.binder = OnnxInputBinder.compile(session);
+            this.inputInfo = session.getInputInfo();
+            this.bufferPool = new TensorBufferPool(binder.getElementType());
+            LOGGER.log(Level.INFO, "ONNX model loaded successfully from {0}", source);
+        } catch (IOException | UncheckedIOException e) {
             // Log and rethrow with context - this is the correct pattern for constructor failures
-            LOGGER.log(Level.SEVERE, "Failed to create temporary file for ONNX model", e);
-            throw new OnnxModelException("Failed to create temporary file for ONNX model", e);
+            LOGGER.log(Level.SEVERE, "Failed to read ONNX model " + source, e);
+            throw new OnnxModelException("Failed to read ONNX model " + source, e);
         } catch (OrtException e) {
             // Log, cleanup and rethrow with context
             LOGGER.log(Level.SEVERE, "Failed to create ONNX session", e);
@@ -52,37 +109,33 @@ public class OnnxModelHandler implements IModelHandler {
         }
     }
 
+    /**
+     * Opens the session of the model, from memory or from a file
+     */
+    @FunctionalInterface
+    private interface SessionOpener {
+        OrtSession open(OrtEnvironment env, OnnxGraphCache graphCache) throws IOException, OrtException;
+    }
+
     @Override
     public Object predict(Object input) {
-        if (input == null) {
-            throw new OnnxPredictionException("Input cannot be null");
-        }
-        
-        if (!(input instanceof Map)) {
-            throw new OnnxPredictionException("Input must be a Map<String, Object>");
-        }
-        
-        @SuppressWarnings("unchecked")
-        Map<String, Object> inputMap = (Map<String, Object>) input;
-        
-        if (inputMap.isEmpty()) {
-            throw new OnnxPredictionException("Input map cannot be empty");
-        }
+        Map<String, Object> inputMap = toInputMap(input);
         
         OnnxTensor tensor = null;
         OrtSession.Result result = null;
+        Buffer buffer = null;
         
         try {
-            // Validazione e conversione dei dati di input
-            double[] doubleData = validateAndConvertInput(inputMap);
-            float[] data = convertToFloatArray(doubleData);
+            // Binding dei valori direttamente nel buffer del tipo richiesto dal modello
+            int width = binder.rowWidth(inputMap);
+            buffer = bufferPool.lease(width);
+            binder.bind(inputMap, buffer, 0, width);
 
             // Creazione tensor
-            tensor = OnnxTensor.createTensor(env, new float[][]{data});
+            tensor = binder.createTensor(env, buffer, 1, width);
             
             // Esecuzione predizione
-            String inputName = getFirstInputName();
-            result = session.run(Map.of(inputName, tensor));
+            result = run(tensor);
             
             // Elaborazione risultato
             return OnnxUtils.processResult(result);
@@ -91,6 +144,9 @@ public class OnnxModelHandler implements IModelHandler {
             // Log and rethrow with context - specific handling for number format errors
             LOGGER.log(Level.WARNING, "Invalid number format in input data", e);
             throw new OnnxPredictionException("Invalid number format in input data: " + e.getMessage(), e);
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Invalid input data", e);
+            throw new OnnxPredictionException("Invalid input data: " + e.getMessage(), e);
         } catch (OrtException e) {
             // Log and rethrow with context - specific handling for ONNX runtime errors
             LOGGER.log(Level.SEVERE, "ONNX runtime error during prediction", e);
@@ -100,50 +156,199 @@ public class OnnxModelHandler implements IModelHandler {
             LOGGER.log(Level.SEVERE, "Unexpected error during ONNX prediction", e);
             throw new OnnxPredictionException("Unexpected error during prediction", e);
         } finally {
-            // Cleanup delle risorse
+            // Cleanup delle risorse; il buffer torna nel pool solo dopo la chiusura del tensor
             cleanupResources(tensor, result);
+            bufferPool.release(buffer);
+        }
+    }
+    
+    @Override
+    public List<RowResult> predictBatch(List<?> inputs) {
+        if (!nativeBatching || inputs.size() < 2) {
+            return IModelHandler.super.predictBatch(inputs);
+        }
+        
+        RowResult[] results = new RowResult[inputs.size()];
+        int[] rowIndexes = new int[inputs.size()];
+        Buffer buffer = null;
+        int width = 0;
+        int rows = 0;
+        
+        // Rows that cannot be bound fail on their own; the next valid row overwrites their slot
+        for (int i = 0; i < inputs.size(); i++) {
+            try {
+                Map<String, Object> row = toInputMap(inputs.get(i));
+                if (buffer == null) {
+                    width = binder.rowWidth(row);
+                    buffer = bufferPool.lease(width * inputs.size());
+                }
+                binder.bind(row, buffer, rows, width);
+                rowIndexes[rows++] = i;
+            } catch (OnnxPredictionException e) {
+                results[i] = RowResult.failure(e);
+            } catch (IllegalArgumentException e) {
+                results[i] = RowResult.failure(new OnnxPredictionException("Invalid input data: " + e.getMessage(), e));
+            }
         }
+        
+        try {
+            if (rows > 0) {
+                runBatch(buffer, rows, width, rowIndexes, results);
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+        return Arrays.asList(results);
+    }
+    
+    @Override
+    public boolean supportsNativeBatching() {
+        return nativeBatching;
     }
     
-    private double[] validateAndConvertInput(Map<String, Object> inputMap) {
+    private void runBatch(Buffer buffer, int rows, int width, int[] rowIndexes, RowResult[] results) {
+        OnnxTensor tensor = null;
+        OrtSession.Result result = null;
+        
         try {
-            return inputMap.values().stream()
-                    .mapToDouble(this::parseToDouble)
-                    .toArray();
+            // Un unico tensor [N, F] per tutte le righe valide
+            tensor = binder.createTensor(env, buffer, rows, width);
+            result = run(tensor);
+            
+            List<Map<String, Object>> perRow = OnnxUtils.splitByRow(OnnxUtils.processResult(result), rows);
+            for (int i = 0; i < rows; i++) {
+                results[rowIndexes[i]] = RowResult.success(perRow.get(i));
+            }
+        } catch (OrtException e) {
+            LOGGER.log(Level.SEVERE, "ONNX runtime error during batch prediction", e);
+            failRows(rowIndexes, rows, results, new OnnxPredictionException("ONNX runtime error during batch prediction", e));
         } catch (Exception e) {
-            throw new OnnxPredictionException("Failed to convert input values to numeric data", e);
+            LOGGER.log(Level.SEVERE, "Unexpected error during ONNX batch prediction", e);
+            failRows(rowIndexes, rows, results, new OnnxPredictionException("Unexpected error during batch prediction", e));
+        } finally {
+            cleanupResources(tensor, result);
         }
     }
     
-    private double parseToDouble(Object value) {
-        if (value == null) {
-            throw new NumberFormatException("Input value cannot be null");
+    @Override
+    public boolean supportsRawTensors() {
+        return true;
+    }
+    
+    @Override
+    public Map<String, RawTensor.DType> getTensorInputTypes() {
+        Map<String, RawTensor.DType> types = new LinkedHashMap<>();
+        inputInfo.forEach((name, nodeInfo) -> {
+            if (nodeInfo.getInfo() instanceof TensorInfo tensorInfo && OnnxUtils.toDType(tensorInfo.type) != null) {
+                types.put(name, OnnxUtils.toDType(tensorInfo.type));
+            }
+        });
+        return types;
+    }
+    
+    @Override
+    public Map<String, Object> predictTensors(List<RawTensor> inputs) {
+        if (inputs == null || inputs.isEmpty()) {
+            throw new OnnxPredictionException("Input tensors cannot be empty");
         }
         
-        if (value instanceof Number number) {
-            return number.doubleValue();
-        }
+        Map<String, OnnxTensor> tensors = new LinkedHashMap<>();
+        OrtSession.Result result = null;
         
         try {
-            return Double.parseDouble(value.toString());
-        } catch (NumberFormatException e) {
-            throw new NumberFormatException("Cannot convert value '" + value + "' to double");
+            // I valori della richiesta sono passati a ONNX Runtime senza conversioni
+            for (RawTensor input : inputs) {
+                String name = resolveInputName(input, inputs.size());
+                validateRawInput(name, input);
+                if (tensors.containsKey(name)) {
+                    throw new IllegalArgumentException("Input '" + name + "' given more than once");
+                }
+                tensors.put(name, OnnxUtils.createTensor(env, input));
+            }
+            if (tensors.size() != inputInfo.size()) {
+                throw new IllegalArgumentException("Model expects inputs " + inputInfo.keySet() + " but got " + tensors.keySet());
+            }
+            
+            result = runOptions != null ? session.run(tensors, runOptions) : session.run(tensors);
+            return OnnxUtils.processRawResult(result);
+            
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Invalid input tensor", e);
+            throw new OnnxPredictionException("Invalid input tensor: " + e.getMessage(), e);
+        } catch (OrtException e) {
+            LOGGER.log(Level.SEVERE, "ONNX runtime error during tensor prediction", e);
+            throw new OnnxPredictionException("ONNX runtime error during prediction", e);
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Unexpected error during ONNX tensor prediction", e);
+            throw new OnnxPredictionException("Unexpected error during prediction", e);
+        } finally {
+            tensors.values().forEach(tensor -> cleanupResources(tensor, null));
+            cleanupResources(null, result);
+        }
+    }
+    
+    private String resolveInputName(RawTensor input, int count) {
+        if (input.getName() != null) {
+            return input.getName();
+        }
+        if (count == 1 && inputInfo.size() == 1) {
+            return inputInfo.keySet().iterator().next();
+        }
+        throw new IllegalArgumentException("Unnamed tensor " + input.describe() + " but model has inputs " + inputInfo.keySet());
+    }
+    
+    private void validateRawInput(String name, RawTensor input) {
+        NodeInfo nodeInfo = inputInfo.get(name);
+        if (nodeInfo == null) {
+            throw new IllegalArgumentException("Unknown input '" + name + "'. Expected inputs: " + inputInfo.keySet());
+        }
+        if (!(nodeInfo.getInfo() instanceof TensorInfo tensorInfo)) {
+            throw new IllegalArgumentException("Input '" + name + "' is not a tensor");
+        }
+        RawTensor.DType expected = OnnxUtils.toDType(tensorInfo.type);
+        if (expected != input.getDtype()) {
+            throw new IllegalArgumentException("Input '" + name + "' expects " + (expected != null ? expected : tensorInfo.type)
+                    + " values but got " + input.getDtype());
+        }
+        long[] shape = tensorInfo.getShape();
+        long[] actual = input.getShape();
+        boolean matches = shape.length == actual.length;
+        for (int i = 0; matches && i < shape.length; i++) {
+            matches = shape[i] < 0 || shape[i] == actual[i];
+        }
+        if (!matches) {
+            throw new IllegalArgumentException("Input '" + name + "' expects shape " + Arrays.toString(shape)
+                    + " but got " + Arrays.toString(actual));
         }
     }
     
-    private float[] convertToFloatArray(double[] doubleData) {
-        float[] data = new float[doubleData.length];
-        for (int i = 0; i < doubleData.length; i++) {
-            data[i] = (float) doubleData[i];
+    private OrtSession.Result run(OnnxTensor tensor) throws OrtException {
+        Map<String, OnnxTensor> inputs = Map.of(binder.getInputName(), tensor);
+        return runOptions != null ? session.run(inputs, runOptions) : session.run(inputs);
+    }
+    
+    private void failRows(int[] rowIndexes, int count, RowResult[] results, RuntimeException error) {
+        for (int i = 0; i < count; i++) {
+            results[rowIndexes[i]] = RowResult.failure(error);
         }
-        return data;
     }
     
-    private String getFirstInputName() {
-        if (session.getInputNames().isEmpty()) {
-            throw new OnnxPredictionException("No input names found in ONNX model");
+    private Map<String, Object> toInputMap(Object input) {
+        if (input == null) {
+            throw new OnnxPredictionException("Input cannot be null");
+        }
+        
+        if (!(input instanceof Map)) {
+            throw new OnnxPredictionException("Input must be a Map<String, Object>");
+        }
+        
+        @SuppressWarnings("unchecked")
+        Map<String, Object> inputMap = (Map<String, Object>) input;
+        
+        if (inputMap.isEmpty()) {
+            throw new OnnxPredictionException("Input map cannot be empty");
         }
-        return session.getInputNames().iterator().next();
+        return inputMap;
     }
     
     private void cleanupResources(OnnxTensor tensor, OrtSession.Result result) {
@@ -165,6 +370,10 @@ public class OnnxModelHandler implements IModelHandler {
     }
     
     private void cleanup() {
+        if (bufferPool != null) {
+            bufferPool.close();
+        }
+        
         try {
             if (session != null) {
                 session.close();
@@ -173,12 +382,8 @@ public class OnnxModelHandler implements IModelHandler {
             LOGGER.log(Level.WARNING, "Error closing session", e);
         }
         
-        try {
-            if (tempModelFile != null && Files.exists(tempModelFile)) {
-                Files.delete(tempModelFile);
-            }
-        } catch (IOException e) {
-            LOGGER.log(Level.WARNING, "Error deleting temporary model file", e);
+        if (runOptions != null) {
+            runOptions.close();
         }
     }
     
@@ -263,6 +468,15 @@ public class OnnxModelHandler implements IModelHandler {
     private void addInputExample(Map<String, Object> schema) {
         Map<String, Object> example = new java.util.HashMap<>();
         
+        // With declared feature names the example is a valid prediction input
+        if (binder.isNamed()) {
+            Map<String, Object> namedExample = new java.util.LinkedHashMap<>();
+            binder.getFeatureNames().forEach(name -> namedExample.put(name, 0.0));
+            schema.put("featureNames", binder.getFeatureNames());
+            schema.put("inputExample", namedExample);
+            return;
+        }
+        
         for (String inputName : session.getInputNames()) {
             Object inputInfo = schema.get(inputName);
             if (inputInfo instanceof Map<?, ?> inputMap) {
@@ -289,6 +503,7 @@ public class OnnxModelHandler implements IModelHandler {
         return values;
     }
     
+    @Override
     public void close() {
         cleanup();
         LOGGER.info("ONNX model handler closed and resources cleaned up");
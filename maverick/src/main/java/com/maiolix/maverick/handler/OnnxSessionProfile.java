@@ -0,0 +1,198 @@
+package com.maiolix.maverick.handler;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.OrtSession.SessionOptions.ExecutionMode;
+import ai.onnxruntime.OrtSession.SessionOptions.OptLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ONNX Runtime session settings of a single model.
+ * Stored as JSON under {@value #METADATA_KEY} in the model metadata and applied when the
+ * handler creates its session. Unset fields keep the ORT default.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OnnxSessionProfile {
+
+    /** Metadata entry holding the profile */
+    public static final String METADATA_KEY = "sessionProfile";
+
+    private static final Logger LOGGER = Logger.getLogger(OnnxSessionProfile.class.getName());
+    private static final String ARENA_SHRINKAGE_CONFIG_KEY = "memory.enable_memory_arena_shrinkage";
+    private static final String ARENA_SHRINKAGE_CPU = "cpu:0";
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS)
+            .enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    /** Threads used to parallelize a single operator */
+    private Integer intraOpThreads;
+
+    /** Threads used to run independent operators, only with PARALLEL execution mode */
+    private Integer interOpThreads;
+
+    /** SEQUENTIAL or PARALLEL */
+    private ExecutionMode executionMode;
+
+    /** NO_OPT, BASIC_OPT, EXTENDED_OPT or ALL_OPT */
+    private OptLevel optimizationLevel;
+
+    /** Pre-plans memory allocations from the shapes of the first run */
+    private Boolean memoryPattern;
+
+    /** Uses the CPU arena allocator */
+    private Boolean cpuArena;
+
+    /** Returns unused CPU arena memory to the system at the end of each run */
+    private Boolean arenaShrinkage;
+
+    /**
+     * Parses a profile from its JSON form
+     * @param json the profile, e.g. {"intraOpThreads": 2, "optimizationLevel": "ALL_OPT"}
+     * @return the validated profile, or null if json is blank
+     * @throws IllegalArgumentException if the JSON is malformed or a value is not valid
+     */
+    public static OnnxSessionProfile fromJson(String json) {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        try {
+            return MAPPER.readValue(json, OnnxSessionProfile.class).validate();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid ONNX session profile: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    /**
+     * Reads the profile stored in the model metadata
+     * @param metadata the model metadata JSON, may be null
+     * @return the profile, or null if none is stored or it cannot be read
+     */
+    public static OnnxSessionProfile fromMetadata(String metadata) {
+        if (metadata == null || metadata.isBlank()) {
+            return null;
+        }
+        try {
+            JsonNode node = MAPPER.readTree(metadata).get(METADATA_KEY);
+            if (node == null || !node.isObject()) {
+                return null;
+            }
+            return MAPPER.treeToValue(node, OnnxSessionProfile.class).validate();
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            // A broken profile must not prevent the model from loading with default settings
+            LOGGER.log(Level.WARNING, "Ignoring invalid ONNX session profile in model metadata", e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the profile in the model metadata, keeping the other entries
+     * @param metadata the current metadata JSON, may be null
+     * @param profile the profile, or null to remove it
+     * @return the updated metadata JSON
+     */
+    public static String mergeIntoMetadata(String metadata, OnnxSessionProfile profile) {
+        ObjectNode root = MAPPER.createObjectNode();
+        if (metadata != null && !metadata.isBlank()) {
+            try {
+                JsonNode existing = MAPPER.readTree(metadata);
+                if (existing instanceof ObjectNode objectNode) {
+                    root = objectNode;
+                } else {
+                    root.set("previousMetadata", existing);
+                }
+            } catch (JsonProcessingException e) {
+                root.put("previousMetadata", metadata);
+            }
+        }
+
+        if (profile != null) {
+            root.set(METADATA_KEY, MAPPER.valueToTree(profile));
+        } else {
+            root.remove(METADATA_KEY);
+        }
+        return root.toString();
+    }
+
+    /**
+     * Builds the session options; the caller closes them once the session is created
+     * @param profile the profile, or null for ORT defaults
+     * @return the session options
+     * @throws OrtException if ORT rejects a setting
+     */
+    public static OrtSession.SessionOptions toSessionOptions(OnnxSessionProfile profile) throws OrtException {
+        OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+        if (profile == null) {
+            return options;
+        }
+        try {
+            if (profile.intraOpThreads != null) {
+                options.setIntraOpNumThreads(profile.intraOpThreads);
+            }
+            if (profile.interOpThreads != null) {
+                options.setInterOpNumThreads(profile.interOpThreads);
+            }
+            if (profile.executionMode != null) {
+                options.setExecutionMode(profile.executionMode);
+            }
+            if (profile.optimizationLevel != null) {
+                options.setOptimizationLevel(profile.optimizationLevel);
+            }
+            if (profile.memoryPattern != null) {
+                options.setMemoryPatternOptimization(profile.memoryPattern);
+            }
+            if (profile.cpuArena != null) {
+                options.setCPUArenaAllocator(profile.cpuArena);
+            }
+            return options;
+        } catch (OrtException e) {
+            options.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Builds the run options shared by every prediction of the session
+     * @param profile the profile, may be null
+     * @return the run options, or null if the profile needs none
+     * @throws OrtException if ORT rejects a setting
+     */
+    public static OrtSession.RunOptions toRunOptions(OnnxSessionProfile profile) throws OrtException {
+        if (profile == null || !Boolean.TRUE.equals(profile.arenaShrinkage)) {
+            return null;
+        }
+        OrtSession.RunOptions options = new OrtSession.RunOptions();
+        options.addRunConfigEntry(ARENA_SHRINKAGE_CONFIG_KEY, ARENA_SHRINKAGE_CPU);
+        return options;
+    }
+
+    private OnnxSessionProfile validate() {
+        if (intraOpThreads != null && intraOpThreads < 0) {
+            throw new IllegalArgumentException("intraOpThreads must be >= 0 (0 = ORT default)");
+        }
+        if (interOpThreads != null && interOpThreads < 0) {
+            throw new IllegalArgumentException("interOpThreads must be >= 0 (0 = ORT default)");
+        }
+        return this;
+    }
+}
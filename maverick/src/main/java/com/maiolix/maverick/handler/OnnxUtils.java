@@ -1,13 +1,21 @@
 package com.maiolix.maverick.handler;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import ai.onnxruntime.NodeInfo;
+import ai.onnxruntime.OnnxJavaType;
 import ai.onnxruntime.OnnxSequence;
 import ai.onnxruntime.OnnxTensor;
 import ai.onnxruntime.OnnxValue;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
 import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.TensorInfo;
 
 public class OnnxUtils {
 
@@ -15,30 +23,172 @@ public class OnnxUtils {
         Map<String, Object> output = new LinkedHashMap<>();
 
         for (Map.Entry<String, OnnxValue> entry : result) {
-            String outputName = entry.getKey();
-            OnnxValue value = entry.getValue();
-
-            if (value instanceof OnnxTensor tensor) {
-                output.put(outputName, tensor.getValue());
-            } else if (value instanceof OnnxSequence sequence) {
-                List<Object> sequenceList = new ArrayList<>();
-
-                for (Object item : sequence.getValue()) {
-                    if (item instanceof Map<?, ?> mapItem) {
-                        Map<String, Object> flatMap = new LinkedHashMap<>();
-                        for (Map.Entry<?, ?> e : mapItem.entrySet()) {
-                            flatMap.put(e.getKey().toString(), e.getValue());
-                        }
-                        sequenceList.add(flatMap);
-                    } else {
-                        sequenceList.add(item);
-                    }
-                }
-
-                output.put(outputName, sequenceList);
+            Object value = convertValue(entry.getValue());
+            if (value != null) {
+                output.put(entry.getKey(), value);
             }
         }
 
         return output;
     }
+
+    private static Object convertValue(OnnxValue value) throws OrtException {
+        if (value instanceof OnnxTensor tensor) {
+            return tensor.getValue();
+        }
+        if (value instanceof OnnxSequence sequence) {
+            return sequenceValues(sequence);
+        }
+        return null;
+    }
+
+    /**
+     * Processes a result keeping numeric tensor outputs as {@link RawTensor}; the other outputs
+     * are converted as in {@link #processResult(OrtSession.Result)}
+     */
+    public static Map<String, Object> processRawResult(OrtSession.Result result) throws Exception {
+        Map<String, Object> output = new LinkedHashMap<>();
+
+        for (Map.Entry<String, OnnxValue> entry : result) {
+            Object value;
+            if (entry.getValue() instanceof OnnxTensor tensor && toDType(tensor.getInfo().type) != null) {
+                value = toRawTensor(entry.getKey(), tensor);
+            } else {
+                value = convertValue(entry.getValue());
+            }
+            if (value != null) {
+                output.put(entry.getKey(), value);
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * Converts a sequence to plain Java values, one per element; maps (e.g. class probabilities)
+     * become {@code Map<String, Object>}
+     */
+    private static List<Object> sequenceValues(OnnxSequence sequence) throws OrtException {
+        List<Object> values = new ArrayList<>();
+        for (Object item : sequence.getValue()) {
+            Object value = item instanceof OnnxValue onnxValue ? onnxValue.getValue() : item;
+            if (value instanceof Map<?, ?> map) {
+                Map<String, Object> flatMap = new LinkedHashMap<>();
+                map.forEach((key, entryValue) -> flatMap.put(String.valueOf(key), entryValue));
+                value = flatMap;
+            }
+            values.add(value);
+        }
+        return values;
+    }
+
+    /**
+     * Creates an input tensor over the raw values. The values are used in place when they are
+     * direct and little-endian is the native byte order, otherwise they are copied once.
+     * @param env ORT environment
+     * @param raw the raw tensor
+     * @return the tensor, to be closed by the caller
+     * @throws OrtException if ORT cannot create the tensor
+     */
+    public static OnnxTensor createTensor(OrtEnvironment env, RawTensor raw) throws OrtException {
+        ByteBuffer values = raw.values();
+        if (!values.isDirect() || ByteOrder.nativeOrder() != ByteOrder.LITTLE_ENDIAN) {
+            ByteBuffer copy = ByteBuffer.allocateDirect(values.remaining()).order(ByteOrder.nativeOrder());
+            switch (raw.getDtype()) {
+                case FLOAT64 -> copy.asDoubleBuffer().put(values.asDoubleBuffer());
+                case INT32 -> copy.asIntBuffer().put(values.asIntBuffer());
+                case INT64 -> copy.asLongBuffer().put(values.asLongBuffer());
+                default -> copy.asFloatBuffer().put(values.asFloatBuffer());
+            }
+            values = copy;
+        }
+        long[] shape = raw.getShape();
+        return switch (raw.getDtype()) {
+            case FLOAT64 -> OnnxTensor.createTensor(env, values.asDoubleBuffer(), shape);
+            case INT32 -> OnnxTensor.createTensor(env, values.asIntBuffer(), shape);
+            case INT64 -> OnnxTensor.createTensor(env, values.asLongBuffer(), shape);
+            default -> OnnxTensor.createTensor(env, values.asFloatBuffer(), shape);
+        };
+    }
+
+    /**
+     * Maps an ORT element type to the raw tensor element type
+     * @return the raw element type, or null if raw tensors cannot hold it
+     */
+    public static RawTensor.DType toDType(OnnxJavaType type) {
+        return switch (type) {
+            case FLOAT -> RawTensor.DType.FLOAT32;
+            case DOUBLE -> RawTensor.DType.FLOAT64;
+            case INT32 -> RawTensor.DType.INT32;
+            case INT64 -> RawTensor.DType.INT64;
+            default -> null;
+        };
+    }
+
+    private static RawTensor toRawTensor(String name, OnnxTensor tensor) {
+        RawTensor.DType dtype = toDType(tensor.getInfo().type);
+        long[] shape = tensor.getInfo().getShape();
+        ByteBuffer data = ByteBuffer.allocate(Math.toIntExact(RawTensor.elementCount(shape) * dtype.getSize()))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        // Bulk copies: the byte order is converted by the buffer views
+        switch (dtype) {
+            case FLOAT64 -> data.asDoubleBuffer().put(tensor.getDoubleBuffer());
+            case INT32 -> data.asIntBuffer().put(tensor.getIntBuffer());
+            case INT64 -> data.asLongBuffer().put(tensor.getLongBuffer());
+            default -> data.asFloatBuffer().put(tensor.getFloatBuffer());
+        }
+        return new RawTensor(name, dtype, shape, data);
+    }
+
+    /**
+     * Checks if the session takes a single [N, F] tensor whose first dimension is dynamic,
+     * so that several rows can be stacked into one tensor and scored with a single run
+     */
+    public static boolean hasDynamicBatchDimension(OrtSession session) throws OrtException {
+        Map<String, NodeInfo> inputs = session.getInputInfo();
+        if (inputs.size() != 1) {
+            return false;
+        }
+        NodeInfo nodeInfo = inputs.values().iterator().next();
+        if (nodeInfo.getInfo() instanceof TensorInfo tensorInfo) {
+            long[] shape = tensorInfo.getShape();
+            return shape.length == 2 && shape[0] < 0;
+        }
+        return false;
+    }
+
+    /**
+     * Splits a processed batch output into one output map per row.
+     * Tensors are sliced along the first dimension and sequences by element, so each row
+     * gets the same structure a single-row prediction would return.
+     */
+    public static List<Map<String, Object>> splitByRow(Map<String, Object> output, int rows) {
+        List<Map<String, Object>> perRow = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            perRow.add(new LinkedHashMap<>());
+        }
+
+        for (Map.Entry<String, Object> entry : output.entrySet()) {
+            for (int i = 0; i < rows; i++) {
+                perRow.get(i).put(entry.getKey(), sliceRow(entry.getValue(), i, rows));
+            }
+        }
+
+        return perRow;
+    }
+
+    private static Object sliceRow(Object value, int row, int rows) {
+        if (value instanceof List<?> list && list.size() == rows) {
+            List<Object> slice = new ArrayList<>(1);
+            slice.add(list.get(row));
+            return slice;
+        }
+        if (value != null && value.getClass().isArray() && Array.getLength(value) == rows) {
+            Object slice = Array.newInstance(value.getClass().getComponentType(), 1);
+            Array.set(slice, 0, Array.get(value, row));
+            return slice;
+        }
+        // Outputs without a batch dimension are shared by all rows
+        return value;
+    }
 }
@@ -1,50 +1,255 @@
 package com.maiolix.maverick.handler;
 
 import java.io.InputStream;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import org.dmg.pmml.OpType;
+import org.jpmml.evaluator.Evaluator;
+import org.jpmml.evaluator.EvaluatorUtil;
+import org.jpmml.evaluator.FieldValue;
+import org.jpmml.evaluator.HasProbability;
+import org.jpmml.evaluator.InputField;
+import org.jpmml.evaluator.LoadingModelEvaluatorBuilder;
+import org.jpmml.evaluator.OutputField;
+import org.jpmml.evaluator.TargetField;
+
+import com.maiolix.maverick.exception.PmmlModelException;
+import com.maiolix.maverick.exception.PmmlPredictionException;
+
+@SuppressWarnings("java:S2139") // Sonar warning for exception handling - we properly log and rethrow
 public class PmmlModelHandler implements IModelHandler {
-    private static final String DESCRIPTION_KEY = "description";
+    private static final Logger LOGGER = Logger.getLogger(PmmlModelHandler.class.getName());
     private static final String TYPE_KEY = "type";
     private static final String NUMERIC_TYPE = "numeric";
     private static final String CATEGORICAL_TYPE = "categorical";
 
+    private final Evaluator evaluator;
+
+    // Resolved once at load time, indexed by position
+    private final InputField[] inputFields;
+    private final String[] inputNames;
+    private final Map<String, Integer> inputIndexes;
+    private final TargetField targetField;
+    private final String targetName;
+    private final Object[] targetCategories;
+    private final String[] outputNames;
+
     public PmmlModelHandler(InputStream pmmlStream) {
-        // Mock: nessun caricamento effettivo
+        if (pmmlStream == null) {
+            throw new PmmlModelException("Model stream cannot be null");
+        }
+
+        try {
+            this.evaluator = new LoadingModelEvaluatorBuilder()
+                    .load(pmmlStream)
+                    .build();
+            evaluator.verify();
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Failed to load PMML model", e);
+            throw new PmmlModelException("Failed to load PMML model", e);
+        }
+
+        List<InputField> fields = evaluator.getInputFields();
+        this.inputFields = fields.toArray(new InputField[0]);
+        this.inputNames = new String[inputFields.length];
+        this.inputIndexes = new HashMap<>();
+        for (int i = 0; i < inputFields.length; i++) {
+            inputNames[i] = inputFields[i].getName();
+            inputIndexes.put(inputNames[i], i);
+        }
+
+        List<TargetField> targets = evaluator.getTargetFields();
+        this.targetField = targets.isEmpty() ? null : targets.get(0);
+        this.targetName = targetField != null ? targetField.getName() : null;
+        List<Object> categories = targetField != null && targetField.getOpType() != OpType.CONTINUOUS
+                ? targetField.getCategories() : null;
+        this.targetCategories = categories != null ? categories.toArray() : new Object[0];
+
+        this.outputNames = evaluator.getOutputFields().stream()
+                .map(OutputField::getName)
+                .toArray(String[]::new);
+
+        LOGGER.log(Level.INFO, "PMML model loaded successfully: {0}", evaluator.getSummary());
     }
 
     @Override
     public Object predict(Object input) {
+        if (input == null) {
+            throw new PmmlPredictionException("Input cannot be null");
+        }
+
         if (!(input instanceof Map)) {
-            throw new IllegalArgumentException("Input deve essere di tipo Map<String, Object>");
+            throw new PmmlPredictionException("Input must be a Map<String, Object>");
         }
 
+        @SuppressWarnings("unchecked")
+        Map<String, Object> inputMap = (Map<String, Object>) input;
+
+        if (inputMap.isEmpty()) {
+            throw new PmmlPredictionException("Input map cannot be empty");
+        }
+
+        PreparedArguments arguments = prepareArguments(inputMap);
+
+        try {
+            Map<String, ?> results = evaluator.evaluate(arguments);
+            return processResults(results);
+        } catch (PmmlPredictionException e) {
+            throw e;
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Unexpected error during PMML prediction", e);
+            throw new PmmlPredictionException("Unexpected error during prediction", e);
+        }
+    }
+
+    private PreparedArguments prepareArguments(Map<String, Object> inputMap) {
+        FieldValue[] values = new FieldValue[inputFields.length];
+        for (int i = 0; i < inputFields.length; i++) {
+            try {
+                values[i] = inputFields[i].prepare(inputMap.get(inputNames[i]));
+            } catch (Exception e) {
+                throw new PmmlPredictionException("Invalid value for input field '" + inputNames[i] + "': " + e.getMessage(), e);
+            }
+        }
+        return new PreparedArguments(values);
+    }
+
+    private Map<String, Object> processResults(Map<String, ?> results) {
         Map<String, Object> output = new LinkedHashMap<>();
-        output.put("predictedClass", "mocked-class");
-        output.put("classProbabilities", new double[]{0.8, 0.1, 0.1});
+
+        if (targetName != null) {
+            Object targetValue = results.get(targetName);
+            if (targetValue instanceof HasProbability probabilities && targetCategories.length > 0) {
+                double[] classProbabilities = new double[targetCategories.length];
+                for (int i = 0; i < targetCategories.length; i++) {
+                    Double probability = probabilities.getProbability(targetCategories[i]);
+                    classProbabilities[i] = probability != null ? probability : 0.0;
+                }
+                output.put("predictedClass", EvaluatorUtil.decode(targetValue));
+                output.put("classProbabilities", classProbabilities);
+            } else {
+                output.put("prediction", EvaluatorUtil.decode(targetValue));
+            }
+        }
+
+        for (String outputName : outputNames) {
+            output.put(outputName, EvaluatorUtil.decode(results.get(outputName)));
+        }
+
         return output;
     }
-    
+
     @Override
     public Map<String, Object> getInputSchema() {
-        // Mock implementation for PMML
         Map<String, Object> schema = new LinkedHashMap<>();
-        
-        schema.put("modelType", "PMML");
-        schema.put("status", "mock implementation");
-        
-        // Mock input schema
-        Map<String, Object> features = new LinkedHashMap<>();
-        features.put("feature1", Map.of(TYPE_KEY, NUMERIC_TYPE, DESCRIPTION_KEY, "Mock numeric feature"));
-        features.put("feature2", Map.of(TYPE_KEY, CATEGORICAL_TYPE, DESCRIPTION_KEY, "Mock categorical feature"));
-        features.put("feature3", Map.of(TYPE_KEY, NUMERIC_TYPE, DESCRIPTION_KEY, "Mock numeric feature"));
-        
-        schema.put("features", features);
-        schema.put("totalFeatures", 3);
-        schema.put("featureNames", java.util.List.of("feature1", "feature2", "feature3"));
-        schema.put("responseClasses", java.util.List.of("class1", "class2", "class3"));
-        
+
+        try {
+            Map<String, Object> features = new LinkedHashMap<>();
+            Map<String, Object> inputExample = new LinkedHashMap<>();
+            List<String> categoricalFeatures = new ArrayList<>();
+
+            for (int i = 0; i < inputFields.length; i++) {
+                InputField field = inputFields[i];
+                Map<String, Object> featureInfo = new LinkedHashMap<>();
+                featureInfo.put("index", i);
+                featureInfo.put("name", inputNames[i]);
+                featureInfo.put("dataType", String.valueOf(field.getDataType()).toLowerCase());
+                featureInfo.put("opType", String.valueOf(field.getOpType()).toLowerCase());
+
+                List<?> domain = field.getOpType() != OpType.CONTINUOUS ? field.getDiscreteDomain() : null;
+                if (domain != null && !domain.isEmpty()) {
+                    featureInfo.put(TYPE_KEY, CATEGORICAL_TYPE);
+                    featureInfo.put("domainValues", domain);
+                    inputExample.put(inputNames[i], domain.get(0));
+                    categoricalFeatures.add(inputNames[i]);
+                } else {
+                    featureInfo.put(TYPE_KEY, field.getOpType() == OpType.CONTINUOUS ? NUMERIC_TYPE : CATEGORICAL_TYPE);
+                    inputExample.put(inputNames[i], field.getOpType() == OpType.CONTINUOUS ? 0.0 : "category_value");
+                }
+
+                features.put(inputNames[i], featureInfo);
+            }
+
+            schema.put("features", features);
+            schema.put("totalFeatures", inputFields.length);
+            schema.put("featureNames", List.of(inputNames));
+            schema.put("miningFunction", String.valueOf(evaluator.getMiningFunction()).toLowerCase());
+
+            // Add output information
+            if (targetField != null) {
+                schema.put("supervised", true);
+                schema.put("responseColumnName", targetName);
+                if (targetCategories.length > 0) {
+                    schema.put("nClasses", targetCategories.length);
+                    schema.put("responseClasses", List.of(targetCategories));
+                }
+            } else {
+                schema.put("supervised", false);
+            }
+            schema.put("outputFields", List.of(outputNames));
+
+            schema.put("modelType", "PMML");
+            schema.put("inputExample", inputExample);
+
+            Map<String, Object> usageInstructions = new LinkedHashMap<>();
+            usageInstructions.put("format", "JSON object with feature names as keys");
+            usageInstructions.put("note", "Use exact feature names from the PMML data dictionary; missing fields are treated as missing values");
+            if (!categoricalFeatures.isEmpty()) {
+                usageInstructions.put("categoricalFeatures", categoricalFeatures);
+            }
+            schema.put("usageInstructions", usageInstructions);
+
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Error extracting input schema from PMML model", e);
+            schema.put("error", "Unable to extract input schema: " + e.getMessage());
+        }
+
         return schema;
     }
+
+    /**
+     * Read-only argument map backed by the values prepared for each input field,
+     * looked up through the field indexes resolved at load time.
+     */
+    private final class PreparedArguments extends AbstractMap<String, FieldValue> {
+        private final FieldValue[] values;
+
+        private PreparedArguments(FieldValue[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public FieldValue get(Object key) {
+            Integer index = inputIndexes.get(key);
+            return index != null ? values[index] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return inputIndexes.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public Set<Entry<String, FieldValue>> entrySet() {
+            Set<Entry<String, FieldValue>> entries = new LinkedHashSet<>();
+            for (int i = 0; i < values.length; i++) {
+                entries.add(new SimpleImmutableEntry<>(inputNames[i], values[i]));
+            }
+            return entries;
+        }
+    }
 }
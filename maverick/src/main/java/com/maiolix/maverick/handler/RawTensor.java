@@ -0,0 +1,201 @@
+package com.maiolix.maverick.handler;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Numeric tensor held as raw little-endian values, exchanged with clients through
+ * {@link TensorCodec} and bound to the model runtime without per-value conversion.
+ */
+public final class RawTensor {
+
+    /**
+     * Element types of a raw tensor, with their wire code and size in bytes
+     */
+    public enum DType {
+        FLOAT32(1, 4),
+        FLOAT64(2, 8),
+        INT32(3, 4),
+        INT64(4, 8);
+
+        private final int code;
+        private final int size;
+
+        DType(int code, int size) {
+            this.code = code;
+            this.size = size;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Gets the element type of a wire code
+         * @param code the code read from the tensor header
+         * @return the element type
+         * @throws IllegalArgumentException if the code is unknown
+         */
+        public static DType fromCode(int code) {
+            for (DType type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown tensor dtype code: " + code);
+        }
+    }
+
+    private final String name;
+    private final DType dtype;
+    private final long[] shape;
+    private final ByteBuffer data;
+
+    /**
+     * Creates a tensor over existing values
+     * @param name tensor name, or null to bind to the only model input
+     * @param dtype element type
+     * @param shape dimensions, all non-negative
+     * @param data exactly {@code elementCount * dtype size} bytes, from position to limit
+     * @throws IllegalArgumentException if the data size does not match the shape
+     */
+    public RawTensor(String name, DType dtype, long[] shape, ByteBuffer data) {
+        this.name = name == null || name.isEmpty() ? null : name;
+        this.dtype = dtype;
+        this.shape = shape.clone();
+        this.data = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+        long expected = elementCount(this.shape) * dtype.getSize();
+        if (this.data.remaining() != expected) {
+            throw new IllegalArgumentException("Tensor " + describe() + " needs " + expected
+                    + " bytes of data but got " + this.data.remaining());
+        }
+    }
+
+    /**
+     * Counts the elements of a shape
+     * @param shape the dimensions
+     * @return the product of the dimensions
+     * @throws IllegalArgumentException if a dimension is negative or the count overflows
+     */
+    public static long elementCount(long[] shape) {
+        long count = 1;
+        for (long dim : shape) {
+            if (dim < 0) {
+                throw new IllegalArgumentException("Negative tensor dimension in shape " + Arrays.toString(shape));
+            }
+            count = Math.multiplyExact(count, dim);
+        }
+        return count;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DType getDtype() {
+        return dtype;
+    }
+
+    public long[] getShape() {
+        return shape.clone();
+    }
+
+    public int getRank() {
+        return shape.length;
+    }
+
+    public long getElementCount() {
+        return elementCount(shape);
+    }
+
+    /**
+     * Gets the values as a little-endian view; the tensor itself is not modified
+     * @return a read-only view from the first to the last value
+     */
+    public ByteBuffer getData() {
+        return data.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Gets a writable view of the values, handed to the runtime without copying
+     * when the data is direct and little-endian is the native order
+     */
+    ByteBuffer values() {
+        return data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Converts the values to nested primitive arrays, e.g. {@code float[rows][cols]}, the same
+     * structure the model runtime returns for tensor outputs in JSON responses
+     * @return the nested arrays, or the single value boxed for a scalar
+     */
+    public Object toArray() {
+        ByteBuffer values = getData();
+        if (shape.length == 0) {
+            return Array.get(readFlat(values, 1), 0);
+        }
+        int[] dims = new int[shape.length];
+        for (int i = 0; i < shape.length; i++) {
+            dims[i] = Math.toIntExact(shape[i]);
+        }
+        Object flat = readFlat(values, Math.toIntExact(getElementCount()));
+        Object nested = Array.newInstance(flat.getClass().getComponentType(), dims);
+        fill(nested, flat, new int[] {0}, 0, dims);
+        return nested;
+    }
+
+    private Object readFlat(ByteBuffer values, int count) {
+        return switch (dtype) {
+            case FLOAT64 -> {
+                double[] out = new double[count];
+                values.asDoubleBuffer().get(out);
+                yield out;
+            }
+            case INT32 -> {
+                int[] out = new int[count];
+                values.asIntBuffer().get(out);
+                yield out;
+            }
+            case INT64 -> {
+                long[] out = new long[count];
+                values.asLongBuffer().get(out);
+                yield out;
+            }
+            default -> {
+                float[] out = new float[count];
+                values.asFloatBuffer().get(out);
+                yield out;
+            }
+        };
+    }
+
+    private static void fill(Object target, Object flat, int[] offset, int depth, int[] dims) {
+        if (depth == dims.length - 1) {
+            System.arraycopy(flat, offset[0], target, 0, dims[depth]);
+            offset[0] += dims[depth];
+            return;
+        }
+        for (int i = 0; i < dims[depth]; i++) {
+            fill(Array.get(target, i), flat, offset, depth + 1, dims);
+        }
+    }
+
+    /**
+     * Describes the tensor for error messages, e.g. {@code 'input' FLOAT32[2, 4]}
+     * @return name, element type and shape
+     */
+    public String describe() {
+        return (name != null ? "'" + name + "' " : "") + dtype + Arrays.toString(shape);
+    }
+
+    @Override
+    public String toString() {
+        return "RawTensor{" + describe() + "}";
+    }
+}
@@ -0,0 +1,32 @@
+package com.maiolix.maverick.handler;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of a single row inside a batch prediction.
+ * Either the prediction or the error that prevented it is set, never both.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class RowResult {
+    private final Object prediction;
+    private final RuntimeException error;
+
+    public static RowResult success(Object prediction) {
+        return new RowResult(prediction, null);
+    }
+
+    public static RowResult failure(RuntimeException error) {
+        return new RowResult(null, error);
+    }
+
+    /**
+     * Checks if the row was predicted successfully
+     * @return true if no error was recorded for the row
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,189 @@
+package com.maiolix.maverick.handler;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import ai.onnxruntime.OnnxJavaType;
+
+/**
+ * Pool of direct buffers used as tensor storage, one per model, plus one of byte buffers for
+ * binary tensor request bodies.
+ * Buffers are grouped in power-of-two size classes and kept per thread, so a lease on the
+ * hot path is a lookup in the caller's own free list with no contention. ORT wraps a direct
+ * buffer in native byte order without copying it, so the buffer must be released only
+ * after the tensor created on it has been closed.
+ */
+public final class TensorBufferPool {
+
+    private static final int MIN_CLASS_SHIFT = 4;
+    private static final int MAX_CLASS_SHIFT = 20;
+    private static final int MAX_IDLE_PER_CLASS = 2;
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final AtomicLong BYTES_HELD = new AtomicLong();
+
+    private final OnnxJavaType elementType;
+    private final int elementBytes;
+    private final Set<ThreadCache> caches = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<ThreadCache> threadCache;
+    private volatile boolean closed;
+
+    public TensorBufferPool(OnnxJavaType elementType) {
+        this.elementType = elementType;
+        this.elementBytes = switch (elementType) {
+            case DOUBLE, INT64 -> 8;
+            case INT8, UINT8 -> 1;
+            default -> 4;
+        };
+        this.threadCache = ThreadLocal.withInitial(() -> {
+            ThreadCache cache = new ThreadCache();
+            caches.add(cache);
+            return cache;
+        });
+    }
+
+    /**
+     * Leases a direct buffer of the pool element type
+     * @param capacity minimum number of values
+     * @return a buffer with position 0 and limit equal to its capacity, which may exceed the requested one
+     */
+    public Buffer lease(int capacity) {
+        int sizeClass = sizeClass(capacity);
+        if (sizeClass < 0) {
+            MISSES.increment();
+            return allocate(capacity);
+        }
+
+        Buffer buffer = closed ? null : threadCache.get().poll(sizeClass);
+        if (buffer != null) {
+            HITS.increment();
+            return buffer.clear();
+        }
+
+        MISSES.increment();
+        BYTES_HELD.addAndGet(bytes(1 << (sizeClass + MIN_CLASS_SHIFT)));
+        return allocate(1 << (sizeClass + MIN_CLASS_SHIFT));
+    }
+
+    /**
+     * Returns a leased buffer to the calling thread's free list
+     * @param buffer the buffer, may be null
+     */
+    public void release(Buffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        int capacity = buffer.capacity();
+        int sizeClass = sizeClass(capacity);
+        if (sizeClass < 0 || capacity != 1 << (sizeClass + MIN_CLASS_SHIFT)) {
+            // Oversized buffers are not pooled
+            return;
+        }
+
+        if (closed || !threadCache.get().offer(sizeClass, buffer)) {
+            BYTES_HELD.addAndGet(-bytes(capacity));
+        }
+    }
+
+    /**
+     * Drops every idle buffer; later releases are discarded
+     */
+    public void close() {
+        closed = true;
+        for (ThreadCache cache : caches) {
+            cache.drain();
+        }
+        caches.clear();
+    }
+
+    public OnnxJavaType getElementType() {
+        return elementType;
+    }
+
+    /**
+     * @return number of leases served from an idle buffer, across all pools
+     */
+    public static long getHits() {
+        return HITS.sum();
+    }
+
+    /**
+     * @return number of leases that required a new allocation, across all pools
+     */
+    public static long getMisses() {
+        return MISSES.sum();
+    }
+
+    /**
+     * @return bytes of pooled direct buffers currently leased or idle, across all pools
+     */
+    public static long getBytesHeld() {
+        return BYTES_HELD.get();
+    }
+
+    private int sizeClass(int capacity) {
+        int shift = Math.max(MIN_CLASS_SHIFT, 32 - Integer.numberOfLeadingZeros(Math.max(capacity, 1) - 1));
+        return shift > MAX_CLASS_SHIFT ? -1 : shift - MIN_CLASS_SHIFT;
+    }
+
+    private long bytes(int capacity) {
+        return (long) capacity * elementBytes;
+    }
+
+    private Buffer allocate(int capacity) {
+        ByteBuffer bytes = ByteBuffer.allocateDirect(capacity * elementBytes).order(ByteOrder.nativeOrder());
+        return switch (elementType) {
+            case DOUBLE -> bytes.asDoubleBuffer();
+            case INT64 -> bytes.asLongBuffer();
+            case INT32 -> bytes.asIntBuffer();
+            case INT8, UINT8 -> bytes;
+            default -> bytes.asFloatBuffer();
+        };
+    }
+
+    /**
+     * Free lists of one thread. Only the owner thread leases and releases, so the monitor
+     * is uncontended except when close() drains it from another thread.
+     */
+    private final class ThreadCache {
+        private final List<ArrayDeque<Buffer>> idle = new ArrayList<>(MAX_CLASS_SHIFT - MIN_CLASS_SHIFT + 1);
+        private boolean drained;
+
+        private ThreadCache() {
+            for (int i = MIN_CLASS_SHIFT; i <= MAX_CLASS_SHIFT; i++) {
+                idle.add(new ArrayDeque<>(MAX_IDLE_PER_CLASS));
+            }
+        }
+
+        private synchronized Buffer poll(int sizeClass) {
+            return idle.get(sizeClass).pollFirst();
+        }
+
+        private synchronized boolean offer(int sizeClass, Buffer buffer) {
+            if (drained || idle.get(sizeClass).size() >= MAX_IDLE_PER_CLASS) {
+                return false;
+            }
+            idle.get(sizeClass).addFirst(buffer);
+            return true;
+        }
+
+        private synchronized void drain() {
+            drained = true;
+            for (ArrayDeque<Buffer> list : idle) {
+                Buffer buffer;
+                while ((buffer = list.pollFirst()) != null) {
+                    BYTES_HELD.addAndGet(-bytes(buffer.capacity()));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.maiolix.maverick.handler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.maiolix.maverick.exception.PayloadTooLargeException;
+
+import ai.onnxruntime.OnnxJavaType;
+
+/**
+ * Binary encoding of numeric tensors, an alternative to JSON for wide inputs.
+ * All numbers are little-endian:
+ * <pre>
+ * magic    4 bytes   "MVT1"
+ * count    uint32    number of tensors
+ * for each tensor:
+ *   dtype    uint8     {@link RawTensor.DType} code: 1 float32, 2 float64, 3 int32, 4 int64
+ *   rank     uint8     number of dimensions
+ *   nameLen  uint16    length of the UTF-8 name, 0 for the only model input
+ *   dims     rank x int64
+ *   name     nameLen bytes
+ *   padding  zeros up to a multiple of 8 bytes
+ *   data     elementCount x dtype size bytes
+ *   padding  zeros up to a multiple of 8 bytes
+ * </pre>
+ * The padding keeps every value block 8-byte aligned, so decoded tensors are views over the
+ * request buffer rather than copies. Bodies up to {@value #MAX_POOLED_BODY} bytes are read into
+ * pooled direct buffers that ORT uses in place; larger ones are read into the heap once and
+ * copied by {@link OnnxUtils#createTensor}, instead of allocating a direct buffer per request.
+ */
+public final class TensorCodec {
+
+    /** Content type of encoded tensors */
+    public static final String MEDIA_TYPE = "application/x-maverick-tensor";
+
+    private static final byte[] MAGIC = {'M', 'V', 'T', '1'};
+    private static final int ALIGNMENT = 8;
+    private static final int MAX_TENSORS = 1024;
+    private static final int MAX_POOLED_BODY = 1 << 18;
+
+    private static final TensorBufferPool BODY_POOL = new TensorBufferPool(OnnxJavaType.UINT8);
+
+    private TensorCodec() {
+        // Utility class
+    }
+
+    /**
+     * A request body; close it once the tensors decoded from it are no longer used
+     */
+    public static final class Body implements AutoCloseable {
+        private final ByteBuffer buffer;
+        private final ByteBuffer pooled;
+
+        private Body(ByteBuffer buffer, ByteBuffer pooled) {
+            this.buffer = buffer;
+            this.pooled = pooled;
+        }
+
+        /**
+         * @return the body bytes, from position 0
+         */
+        public ByteBuffer buffer() {
+            return buffer;
+        }
+
+        /**
+         * Returns a pooled buffer to the pool of the calling thread
+         */
+        @Override
+        public void close() {
+            BODY_POOL.release(pooled);
+        }
+    }
+
+    /**
+     * Reads a whole request body, up to a size limit
+     * @param in the body stream
+     * @param contentLength declared length, or a negative value if unknown
+     * @param maxBytes the largest accepted body
+     * @return the body, in a pooled direct buffer when small enough
+     * @throws PayloadTooLargeException if the body is larger than maxBytes
+     * @throws IOException if the stream cannot be read or ends before the declared length
+     */
+    public static Body readBody(InputStream in, long contentLength, long maxBytes) throws IOException {
+        int limit = (int) Math.min(maxBytes, Integer.MAX_VALUE - ALIGNMENT - 1L);
+        if (contentLength > limit) {
+            throw new PayloadTooLargeException(tooLarge(contentLength + " bytes", limit));
+        }
+        if (contentLength < 0) {
+            // Chunked body: never read more than one byte past the limit, and wrap what was read
+            byte[] body = in.readNBytes(limit + 1);
+            if (body.length > limit) {
+                throw new PayloadTooLargeException(tooLarge("more than " + limit + " bytes", limit));
+            }
+            return new Body(ByteBuffer.wrap(body), null);
+        }
+        if (contentLength > MAX_POOLED_BODY) {
+            byte[] body = new byte[(int) contentLength];
+            int read = in.readNBytes(body, 0, body.length);
+            if (read < body.length) {
+                throw new IOException("Tensor request ended after " + read + " of " + contentLength + " bytes");
+            }
+            return new Body(ByteBuffer.wrap(body), null);
+        }
+
+        ByteBuffer pooled = (ByteBuffer) BODY_POOL.lease((int) contentLength);
+        ByteBuffer buffer = pooled.duplicate().limit((int) contentLength);
+        ReadableByteChannel channel = Channels.newChannel(in);
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Tensor request ended after " + buffer.position() + " of " + contentLength + " bytes");
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            BODY_POOL.release(pooled);
+            throw e;
+        }
+        return new Body(buffer.flip(), pooled);
+    }
+
+    private static String tooLarge(String size, long limit) {
+        return "Tensor request too large: " + size + ", the limit is " + limit + " bytes";
+    }
+
+    /**
+     * Decodes the tensors of a message; values are views over the buffer, not copies
+     * @param message the encoded message, from position to limit
+     * @return the tensors, in order
+     * @throws IllegalArgumentException if the message is malformed
+     */
+    public static List<RawTensor> decode(ByteBuffer message) {
+        ByteBuffer in = message.slice().order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            in.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IllegalArgumentException("Not a tensor message: bad magic bytes");
+            }
+            long count = Integer.toUnsignedLong(in.getInt());
+            if (count == 0 || count > MAX_TENSORS) {
+                throw new IllegalArgumentException("Invalid tensor count: " + count);
+            }
+
+            List<RawTensor> tensors = new ArrayList<>((int) count);
+            for (int i = 0; i < count; i++) {
+                tensors.add(decodeTensor(in));
+            }
+            if (in.hasRemaining()) {
+                throw new IllegalArgumentException(in.remaining() + " unexpected bytes after the last tensor");
+            }
+            return tensors;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated tensor message", e);
+        }
+    }
+
+    private static RawTensor decodeTensor(ByteBuffer in) {
+        RawTensor.DType dtype = RawTensor.DType.fromCode(Byte.toUnsignedInt(in.get()));
+        int rank = Byte.toUnsignedInt(in.get());
+        int nameLength = Short.toUnsignedInt(in.getShort());
+        long[] shape = new long[rank];
+        for (int d = 0; d < rank; d++) {
+            shape[d] = in.getLong();
+        }
+        byte[] name = new byte[nameLength];
+        in.get(name);
+        skipPadding(in);
+
+        long dataLength = Math.multiplyExact(RawTensor.elementCount(shape), dtype.getSize());
+        if (dataLength > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        ByteBuffer data = in.slice().limit((int) dataLength);
+        in.position(in.position() + (int) dataLength);
+        skipPadding(in);
+        return new RawTensor(new String(name, StandardCharsets.UTF_8), dtype, shape, data);
+    }
+
+    private static void skipPadding(ByteBuffer in) {
+        int padding = padding(in.position());
+        if (padding > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        in.position(in.position() + padding);
+    }
+
+    /**
+     * Encodes tensors into a message
+     * @param tensors the tensors, in order
+     * @return the encoded message
+     */
+    public static byte[] encode(List<RawTensor> tensors) {
+        if (tensors.size() > MAX_TENSORS) {
+            throw new IllegalArgumentException("Too many tensors: " + tensors.size());
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC).putInt(tensors.size());
+        out.writeBytes(header.array());
+
+        for (RawTensor tensor : tensors) {
+            byte[] name = tensor.getName() != null ? tensor.getName().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            if (name.length > 0xFFFF || tensor.getRank() > 0xFF) {
+                throw new IllegalArgumentException("Cannot encode tensor " + tensor.describe());
+            }
+            int headerLength = 4 + tensor.getRank() * 8 + name.length;
+            ByteBuffer tensorHeader = ByteBuffer.allocate(headerLength + padding(headerLength)).order(ByteOrder.LITTLE_ENDIAN);
+            tensorHeader.put((byte) tensor.getDtype().getCode())
+                    .put((byte) tensor.getRank())
+                    .putShort((short) name.length);
+            for (long dim : tensor.getShape()) {
+                tensorHeader.putLong(dim);
+            }
+            tensorHeader.put(name);
+            out.writeBytes(tensorHeader.array());
+
+            ByteBuffer data = tensor.getData();
+            byte[] values = new byte[data.remaining()];
+            data.get(values);
+            out.writeBytes(values);
+            out.writeBytes(new byte[padding(values.length)]);
+        }
+        return out.toByteArray();
+    }
+
+    private static int padding(int length) {
+        return (ALIGNMENT - length % ALIGNMENT) % ALIGNMENT;
+    }
+}
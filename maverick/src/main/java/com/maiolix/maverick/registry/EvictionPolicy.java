@@ -0,0 +1,28 @@
+package com.maiolix.maverick.registry;
+
+/**
+ * Order in which idle models are evicted when the registry memory budget is exceeded
+ */
+public enum EvictionPolicy {
+    /** Least recently used first */
+    LRU,
+    /** Least frequently used first, ties broken by recency */
+    LFU;
+
+    /**
+     * Parses a policy name, case-insensitively
+     * @param value the policy name
+     * @return the policy
+     * @throws IllegalArgumentException if the name is not a known policy
+     */
+    public static EvictionPolicy fromString(String value) {
+        if (value == null || value.isBlank()) {
+            return LRU;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown eviction policy: " + value + ". Supported policies: LRU, LFU", e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.maiolix.maverick.registry;
+
+/**
+ * Why an entry left the registry
+ */
+public enum EvictionReason {
+    /** Evicted to bring resident memory back under the budget */
+    CAPACITY,
+    /** Replaced by a new handler for the same model version */
+    REPLACED,
+    /** Removed explicitly */
+    REMOVED
+}
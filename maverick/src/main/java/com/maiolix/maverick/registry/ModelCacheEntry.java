@@ -1,20 +1,72 @@
 package com.maiolix.maverick.registry;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.maiolix.maverick.handler.IModelHandler;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 @Data
-@AllArgsConstructor
 public class ModelCacheEntry {
     private String modelName;
     private String type; // MOJO / ONNX / PMML / ONNX_EXT
     private String version;
     private IModelHandler handler;
     private Map<String, String> labelMapping; // Optional label mapping
+    private WarmUpStats warmUp; // Optional warm-up run before registration
+    private long artifactBytes; // Size of the model file
+    private long footprintBytes; // Estimated memory of the handler beyond the artifact
+    private boolean pinned; // Never evicted to honour the memory budget
+    private long loadMillis; // Time to fetch the artifact and build the handler
+    private long diskBytesWritten; // Artifact bytes written to the local cache while loading
+    
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @Setter(AccessLevel.NONE)
+    private volatile long lastAccessNanos = System.nanoTime();
+    
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final LongAdder accessCount = new LongAdder();
+    
+    // Open leases while >= 0; once retired -(leases + 1), so -1 means retired and drained
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final AtomicInteger leaseState = new AtomicInteger();
+    
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile long retiredAtNanos;
+    
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile boolean closeOnDrain;
+    
+    /**
+     * Constructor with label mapping
+     */
+    public ModelCacheEntry(String modelName, String type, String version, IModelHandler handler, Map<String, String> labelMapping) {
+        this.modelName = modelName;
+        this.type = type;
+        this.version = version;
+        this.handler = handler;
+        this.labelMapping = labelMapping;
+    }
     
     /**
      * Constructor without label mapping
@@ -27,6 +79,107 @@ public class ModelCacheEntry {
         this.labelMapping = null;
     }
     
+    /**
+     * Gets the memory accounted to this model against the registry budget
+     * @return artifact size plus estimated footprint, in bytes
+     */
+    public long getResidentBytes() {
+        return artifactBytes + footprintBytes;
+    }
+    
+    /**
+     * Gets the number of leases taken on this entry
+     * @return the use count, for frequency-based eviction
+     */
+    public long getAccessCount() {
+        return accessCount.sum();
+    }
+    
+    void recordAccess() {
+        accessCount.increment();
+        lastAccessNanos = System.nanoTime();
+    }
+    
+    /**
+     * Takes a lease on this entry
+     * @return false if the entry has been retired
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int state = leaseState.get();
+            if (state < 0) {
+                return false;
+            }
+            if (leaseState.compareAndSet(state, state + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Releases a lease taken with {@link #tryAcquire()}
+     */
+    void release() {
+        while (true) {
+            int state = leaseState.get();
+            int next = state >= 0 ? state - 1 : state + 1;
+            if (leaseState.compareAndSet(state, next)) {
+                if (next == -1) {
+                    ModelRegistry.drained(this);
+                }
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Marks the entry as retired: no new lease is granted and the handler is closed
+     * when the last open lease is released
+     * @param closeHandler false if the handler is still used by another entry
+     * @return true if this call retired the entry
+     */
+    boolean retire(boolean closeHandler) {
+        while (true) {
+            int state = leaseState.get();
+            if (state < 0) {
+                return false;
+            }
+            retiredAtNanos = System.nanoTime();
+            closeOnDrain = closeHandler;
+            if (leaseState.compareAndSet(state, -state - 1)) {
+                if (state == 0) {
+                    ModelRegistry.drained(this);
+                }
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Checks if the entry has been replaced or removed
+     * @return true once retired
+     */
+    public boolean isRetired() {
+        return leaseState.get() < 0;
+    }
+    
+    /**
+     * Gets the number of predictions currently using the handler
+     * @return the open leases
+     */
+    public int getActiveLeases() {
+        int state = leaseState.get();
+        return state >= 0 ? state : -state - 1;
+    }
+    
+    long getRetiredAtNanos() {
+        return retiredAtNanos;
+    }
+    
+    boolean isCloseOnDrain() {
+        return closeOnDrain;
+    }
+    
     /**
      * Generates a unique key combining model name and version
      * @param modelName the name of the model
@@ -0,0 +1,62 @@
+package com.maiolix.maverick.registry;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Estimates the memory taken by a loaded handler.
+ * The estimate is the artifact size times a per-type factor, so it is deterministic: it does
+ * not depend on loads running in parallel or on transient buffers, and the memory budget
+ * evicts the same models for the same set of artifacts.
+ */
+public final class ModelFootprint {
+
+    /**
+     * Default in-memory size of the structures built from an artifact, per byte of artifact:
+     * ONNX sessions hold the initializers once more, MOJO trees and PMML object models expand
+     * their compressed or textual form.
+     */
+    private static final Map<String, Double> DEFAULT_FACTORS = Map.of(
+            "ONNX", 1.0,
+            "ONNX_EXT", 1.0,
+            "MOJO", 2.0,
+            "PMML", 4.0);
+    private static final double FALLBACK_FACTOR = 2.0;
+
+    private static volatile Map<String, Double> factors = DEFAULT_FACTORS;
+
+    private ModelFootprint() {
+        // Utility class
+    }
+
+    /**
+     * Overrides the per-type factors
+     * @param overrides factors by model type; types not listed keep the default
+     */
+    public static void configureFactors(Map<String, Double> overrides) {
+        Map<String, Double> merged = new HashMap<>(DEFAULT_FACTORS);
+        if (overrides != null) {
+            overrides.forEach((type, factor) -> {
+                if (type != null && factor != null && factor >= 0) {
+                    merged.put(type.toUpperCase(Locale.ROOT), factor);
+                }
+            });
+        }
+        factors = Map.copyOf(merged);
+    }
+
+    /**
+     * Estimates the memory held by a handler beyond its artifact
+     * @param type the model type
+     * @param artifactBytes the artifact size
+     * @return the estimated bytes, 0 for an unknown size
+     */
+    public static long estimate(String type, long artifactBytes) {
+        if (artifactBytes <= 0) {
+            return 0;
+        }
+        double factor = type != null ? factors.getOrDefault(type.toUpperCase(Locale.ROOT), FALLBACK_FACTOR) : FALLBACK_FACTOR;
+        return (long) (artifactBytes * factor);
+    }
+}
@@ -0,0 +1,37 @@
+package com.maiolix.maverick.registry;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.maiolix.maverick.handler.IModelHandler;
+
+/**
+ * A reference to a registered model held for the duration of one use.
+ * While a lease is open the handler is not closed, even if the entry is replaced or removed.
+ */
+public final class ModelLease implements AutoCloseable {
+
+    private final ModelCacheEntry entry;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    ModelLease(ModelCacheEntry entry) {
+        this.entry = entry;
+    }
+
+    public ModelCacheEntry getEntry() {
+        return entry;
+    }
+
+    public IModelHandler getHandler() {
+        return entry.getHandler();
+    }
+
+    /**
+     * Releases the lease; the last release of a retired entry closes its handler
+     */
+    @Override
+    public void close() {
+        if (released.compareAndSet(false, true)) {
+            entry.release();
+        }
+    }
+}
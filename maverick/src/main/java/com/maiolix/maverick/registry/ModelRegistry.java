@@ -1,25 +1,236 @@
 package com.maiolix.maverick.registry;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import com.maiolix.maverick.handler.IModelHandler;
 
+/**
+ * In-memory registry of the loaded models.
+ * Registering over an existing key or removing a key swaps the entry atomically; the old
+ * entry is retired and its handler closed once the predictions holding a {@link ModelLease}
+ * on it have completed.
+ * With a memory budget configured, registering a model that does not fit evicts idle,
+ * unpinned models following the configured {@link EvictionPolicy}.
+ * Loads go through {@link #loadOnce}, so a model version is built at most once at a time
+ * whichever path (explicit load, bootstrap, prediction miss) asks for it.
+ */
 public class ModelRegistry {
 
     private ModelRegistry() {
         // Prevent instantiation
     }
 
+    private static final Logger LOGGER = Logger.getLogger(ModelRegistry.class.getName());
+
     private static final ConcurrentHashMap<String, ModelCacheEntry> models = new ConcurrentHashMap<>();
 
+    // Retirement statistics
+    private static final LongAdder retired = new LongAdder();
+    private static final LongAdder closed = new LongAdder();
+    private static final LongAdder closeFailures = new LongAdder();
+    private static final LongAdder drainNanos = new LongAdder();
+    private static final LongAdder closeNanos = new LongAdder();
+    private static final AtomicLong maxDrainNanos = new AtomicLong();
+    private static final AtomicLong maxCloseNanos = new AtomicLong();
+
+    // Loads in flight, by model key
+    private static final ConcurrentHashMap<String, PendingLoad> loading = new ConcurrentHashMap<>();
+    private static final LongAdder loadsStarted = new LongAdder();
+    private static final LongAdder loadsJoined = new LongAdder();
+
+    // Memory budget
+    private static final Object budgetLock = new Object();
+    private static final Map<EvictionReason, LongAdder> evictions = new EnumMap<>(EvictionReason.class);
+    private static final LongAdder overBudget = new LongAdder();
+    private static volatile long budgetBytes;
+    private static volatile EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+    private static volatile Set<String> pinnedModels = Set.of();
+
+    static {
+        for (EvictionReason reason : EvictionReason.values()) {
+            evictions.put(reason, new LongAdder());
+        }
+    }
+
+    /**
+     * Configures the memory budget
+     * @param maxBytes resident bytes allowed for all models, 0 or less for no limit
+     * @param policy order in which idle models are evicted
+     * @param pinned model names or name:version keys that are never evicted
+     */
+    public static void configureBudget(long maxBytes, EvictionPolicy policy, Collection<String> pinned) {
+        synchronized (budgetLock) {
+            budgetBytes = Math.max(0, maxBytes);
+            evictionPolicy = policy != null ? policy : EvictionPolicy.LRU;
+            pinnedModels = pinned != null ? Set.copyOf(pinned) : Set.of();
+        }
+    }
+
     /**
      * Register a model with a unique key based on name and version
      */
     public static void register(String name, String type, String version, IModelHandler handler) {
-        String key = ModelCacheEntry.generateKey(name, version);
+        register(name, type, version, handler, null);
+    }
+
+    /**
+     * Register a model together with the warm-up run before it was made visible
+     */
+    public static void register(String name, String type, String version, IModelHandler handler, WarmUpStats warmUp) {
         ModelCacheEntry entry = new ModelCacheEntry(name, type, version, handler);
-        models.put(key, entry);
+        entry.setWarmUp(warmUp);
+        register(entry);
+    }
+
+    /**
+     * Register a prepared entry, evicting idle models if the memory budget is exceeded
+     */
+    public static void register(ModelCacheEntry entry) {
+        String key = entry.getKey();
+        synchronized (budgetLock) {
+            retire(models.put(key, entry), entry.getHandler(), EvictionReason.REPLACED);
+            enforceBudget(entry);
+        }
+    }
+
+    /**
+     * Runs a load unless one is already in flight for the same model version: concurrent
+     * callers receive the same future and share its result or its failure
+     * @param name the model name
+     * @param version the model version
+     * @param loader builds and registers the entry
+     * @param executor runs the loader; {@code Runnable::run} runs it in the calling thread
+     * @return the outcome of the load in flight
+     */
+    public static CompletableFuture<ModelCacheEntry> loadOnce(String name, String version, Supplier<ModelCacheEntry> loader,
+            Executor executor) {
+        return loadOnce(name, version, null, loader, executor);
+    }
+
+    /**
+     * Runs a load with a specific intent, such as a replacement with a new session profile.
+     * A caller without intent joins any load in flight. A caller with an intent joins only a
+     * load with the same intent; otherwise it waits for the load in flight to settle and then
+     * runs its own, so it never receives a handler built for a different request.
+     * @param name the model name
+     * @param version the model version
+     * @param intent what the load must apply, or null if any load of the version will do
+     * @param loader builds and registers the entry
+     * @param executor runs the loader; {@code Runnable::run} runs it in the calling thread
+     * @return the outcome of the load
+     */
+    public static CompletableFuture<ModelCacheEntry> loadOnce(String name, String version, Object intent,
+            Supplier<ModelCacheEntry> loader, Executor executor) {
+        String key = ModelCacheEntry.generateKey(name, version);
+        CompletableFuture<ModelCacheEntry> created = new CompletableFuture<>();
+        PendingLoad pending = new PendingLoad(intent, created, new ConcurrentHashMap<>());
+        PendingLoad inFlight = loading.putIfAbsent(key, pending);
+        if (inFlight != null) {
+            if (intent == null || intent.equals(inFlight.intent())) {
+                loadsJoined.increment();
+                return inFlight.future();
+            }
+            // Callers with the same intent wait together and then share one load
+            return inFlight.followers().computeIfAbsent(intent, waiting -> inFlight.future()
+                    .handle((entry, error) -> null)
+                    .thenCompose(settled -> loadOnce(name, version, intent, loader, executor)));
+        }
+
+        loadsStarted.increment();
+        try {
+            executor.execute(() -> {
+                // The key is released before completion, so a caller woken by a failure can retry at once
+                ModelCacheEntry entry;
+                try {
+                    entry = loader.get();
+                } catch (Throwable t) {
+                    loading.remove(key, pending);
+                    created.completeExceptionally(t);
+                    return;
+                }
+                loading.remove(key, pending);
+                created.complete(entry);
+            });
+        } catch (RejectedExecutionException e) {
+            loading.remove(key, pending);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    /**
+     * Checks if a load is in flight for a model version
+     */
+    public static boolean isLoading(String name, String version) {
+        return loading.containsKey(ModelCacheEntry.generateKey(name, version));
+    }
+
+    /**
+     * Gets the number of loads in flight
+     */
+    public static int getLoadingCount() {
+        return loading.size();
+    }
+
+    /**
+     * Gets the load coalescing statistics
+     * @return loads started, callers that joined a load in flight, loads in flight
+     */
+    public static Map<String, Object> getLoadStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("started", loadsStarted.sum());
+        stats.put("joined", loadsJoined.sum());
+        stats.put("inFlight", List.copyOf(loading.keySet()));
+        return stats;
+    }
+
+    public static long getLoadsJoined() {
+        return loadsJoined.sum();
+    }
+
+    /**
+     * Takes a lease on a model by name and version, to be closed when the prediction completes
+     * @return the lease, or null if the model is not registered
+     */
+    public static ModelLease acquire(String name, String version) {
+        String key = ModelCacheEntry.generateKey(name, version);
+        while (true) {
+            ModelCacheEntry entry = models.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.tryAcquire()) {
+                entry.recordAccess();
+                return new ModelLease(entry);
+            }
+            // Retired between the lookup and the lease: read the replacement
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Takes a lease on an entry obtained from {@link #getAllModels()}
+     * @return the lease, or null if the entry has been retired meanwhile
+     */
+    public static ModelLease acquire(ModelCacheEntry entry) {
+        // Reading an entry for inspection does not count as a use for eviction
+        return entry.tryAcquire() ? new ModelLease(entry) : null;
     }
 
     /**
@@ -57,7 +268,9 @@ public class ModelRegistry {
      */
     public static ModelCacheEntry remove(String name, String version) {
         String key = ModelCacheEntry.generateKey(name, version);
-        return models.remove(key);
+        ModelCacheEntry removed = models.remove(key);
+        retire(removed, null, EvictionReason.REMOVED);
+        return removed;
     }
 
     /**
@@ -78,6 +291,187 @@ public class ModelRegistry {
      * Clear all registered models
      */
     public static void clear() {
-        models.clear();
+        for (String key : models.keySet()) {
+            retire(models.remove(key), null, EvictionReason.REMOVED);
+        }
+    }
+
+    private static void retire(ModelCacheEntry previous, IModelHandler replacement, EvictionReason reason) {
+        if (previous == null) {
+            return;
+        }
+        // Registering the same handler again must not close it
+        if (previous.retire(previous.getHandler() != replacement)) {
+            retired.increment();
+            evictions.get(reason).increment();
+        }
+    }
+
+    /**
+     * Evicts idle unpinned models until the resident bytes fit the budget; called holding the budget lock
+     */
+    private static void enforceBudget(ModelCacheEntry registered) {
+        long budget = budgetBytes;
+        long resident = getResidentBytes();
+        if (budget <= 0 || resident <= budget) {
+            return;
+        }
+
+        // Models serving a prediction are not idle: they are skipped, not waited for
+        List<ModelCacheEntry> candidates = new ArrayList<>();
+        for (ModelCacheEntry entry : models.values()) {
+            if (entry != registered && !isPinned(entry) && entry.getActiveLeases() == 0) {
+                candidates.add(entry);
+            }
+        }
+        candidates.sort(evictionOrder(evictionPolicy));
+
+        for (ModelCacheEntry victim : candidates) {
+            if (resident <= budget) {
+                break;
+            }
+            if (models.remove(victim.getKey(), victim)) {
+                retire(victim, null, EvictionReason.CAPACITY);
+                resident -= victim.getResidentBytes();
+                LOGGER.log(Level.INFO, "Evicted model {0} ({1} bytes) to honour the {2} byte memory budget",
+                        new Object[] { victim.getKey(), victim.getResidentBytes(), budget });
+            }
+        }
+
+        if (resident > budget) {
+            overBudget.increment();
+            LOGGER.log(Level.WARNING, "Registry holds {0} bytes, over the {1} byte budget: remaining models are pinned or in use",
+                    new Object[] { resident, budget });
+        }
+    }
+
+    private static Comparator<ModelCacheEntry> evictionOrder(EvictionPolicy policy) {
+        Comparator<ModelCacheEntry> byRecency = Comparator.comparingLong(ModelCacheEntry::getLastAccessNanos);
+        return policy == EvictionPolicy.LFU
+                ? Comparator.comparingLong(ModelCacheEntry::getAccessCount).thenComparing(byRecency)
+                : byRecency;
+    }
+
+    /**
+     * Checks if a model is excluded from eviction, by its flag or by configuration
+     */
+    public static boolean isPinned(ModelCacheEntry entry) {
+        Set<String> pinned = pinnedModels;
+        return entry.isPinned() || pinned.contains(entry.getModelName()) || pinned.contains(entry.getKey());
+    }
+
+    /**
+     * Gets the memory accounted to all registered models
+     * @return the sum of artifact size and estimated footprint, in bytes
+     */
+    public static long getResidentBytes() {
+        long total = 0;
+        for (ModelCacheEntry entry : models.values()) {
+            total += entry.getResidentBytes();
+        }
+        return total;
+    }
+
+    public static long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * Gets how many entries left the registry for a reason
+     */
+    public static long getEvictionCount(EvictionReason reason) {
+        return evictions.get(reason).sum();
+    }
+
+    /**
+     * Gets the memory budget statistics
+     * @return budget, resident bytes, policy, evictions by reason and times the budget could not be met
+     */
+    public static Map<String, Object> getMemoryStats() {
+        Map<String, Object> byReason = new LinkedHashMap<>();
+        for (EvictionReason reason : EvictionReason.values()) {
+            byReason.put(reason.name().toLowerCase(), getEvictionCount(reason));
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("budgetBytes", budgetBytes);
+        stats.put("residentBytes", getResidentBytes());
+        stats.put("evictionPolicy", evictionPolicy.name());
+        stats.put("pinnedModels", pinnedModels);
+        stats.put("evictions", getEvictionCount(EvictionReason.CAPACITY));
+        stats.put("evictionsByReason", byReason);
+        stats.put("overBudget", overBudget.sum());
+        return stats;
+    }
+
+    /**
+     * Called once the last lease of a retired entry has been released
+     */
+    static void drained(ModelCacheEntry entry) {
+        long start = System.nanoTime();
+        long drain = start - entry.getRetiredAtNanos();
+        drainNanos.add(drain);
+        maxDrainNanos.accumulateAndGet(drain, Math::max);
+
+        IModelHandler handler = entry.getHandler();
+        if (entry.isCloseOnDrain() && handler != null) {
+            try {
+                handler.close();
+            } catch (Exception e) {
+                closeFailures.increment();
+                LOGGER.log(Level.WARNING, "Error closing retired model handler " + entry.getKey(), e);
+            }
+        }
+
+        long close = System.nanoTime() - start;
+        closeNanos.add(close);
+        maxCloseNanos.accumulateAndGet(close, Math::max);
+        closed.increment();
+        LOGGER.log(Level.FINE, "Retired model {0} closed after {1} ms drain",
+                new Object[] { entry.getKey(), drain / 1_000_000 });
+    }
+
+    /**
+     * Gets the retirement statistics of replaced and removed entries
+     * @return retired and closed counts, entries still draining, drain and close latency
+     */
+    public static Map<String, Object> getRetirementStats() {
+        long closedCount = closed.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("retired", retired.sum());
+        stats.put("closed", closedCount);
+        stats.put("draining", getDrainingCount());
+        stats.put("closeFailures", closeFailures.sum());
+        stats.put("avgDrainMs", closedCount > 0 ? drainNanos.sum() / 1_000_000.0 / closedCount : 0.0);
+        stats.put("maxDrainMs", maxDrainNanos.get() / 1_000_000.0);
+        stats.put("avgCloseMs", closedCount > 0 ? closeNanos.sum() / 1_000_000.0 / closedCount : 0.0);
+        stats.put("maxCloseMs", maxCloseNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    public static long getRetiredCount() {
+        return retired.sum();
+    }
+
+    public static long getClosedCount() {
+        return closed.sum();
+    }
+
+    /**
+     * Gets the number of retired entries still waiting for in-flight predictions
+     */
+    public static long getDrainingCount() {
+        return Math.max(0, retired.sum() - closed.sum());
+    }
+
+    public static double getDrainTimeMillis() {
+        return drainNanos.sum() / 1_000_000.0;
+    }
+
+    public static double getCloseTimeMillis() {
+        return closeNanos.sum() / 1_000_000.0;
+    }
+
+    private record PendingLoad(Object intent, CompletableFuture<ModelCacheEntry> future,
+            ConcurrentHashMap<Object, CompletableFuture<ModelCacheEntry>> followers) {
     }
-}
\ No newline at end of file
+}
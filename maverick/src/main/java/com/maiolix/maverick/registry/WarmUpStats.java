@@ -0,0 +1,15 @@
+package com.maiolix.maverick.registry;
+
+import lombok.Value;
+
+/**
+ * Esito del warm-up eseguito prima della registrazione di un modello
+ */
+@Value
+public class WarmUpStats {
+    int iterations;
+    int failures;
+    long totalMillis;
+    double firstPredictionMillis;
+    double lastPredictionMillis;
+}
@@ -1,9 +1,12 @@
 package com.maiolix.maverick.repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.maiolix.maverick.entity.ApiClientEntity;
@@ -34,4 +37,13 @@ public interface ApiClientRepository extends JpaRepository<ApiClientEntity, Long
      */
     @Query("SELECT c FROM ApiClientEntity c WHERE c.isActive = true")
     java.util.List<ApiClientEntity> findAllActiveClients();
+
+    /**
+     * Somma gli utilizzi accumulati in memoria senza arretrare l'ultimo utilizzo
+     */
+    @Modifying
+    @Query("UPDATE ApiClientEntity c SET c.usageCount = COALESCE(c.usageCount, 0) + :count, "
+            + "c.lastUsedAt = CASE WHEN c.lastUsedAt IS NULL OR c.lastUsedAt < :lastUsedAt THEN :lastUsedAt ELSE c.lastUsedAt END "
+            + "WHERE c.id = :id")
+    int addUsage(@Param("id") Long id, @Param("count") long count, @Param("lastUsedAt") LocalDateTime lastUsedAt);
 }
@@ -31,6 +31,29 @@ public interface IModelStorageRepository {
      */
     InputStream downloadModel(String objectPath);
 
+    /**
+     * Indica se il provider supporta il download di intervalli di byte, usato per i download paralleli
+     * 
+     * @return true se {@link #downloadModelRange} è implementato
+     */
+    default boolean supportsRangedDownload() {
+        return false;
+    }
+
+    /**
+     * Scarica un intervallo di byte di un modello dal storage
+     * 
+     * @param objectPath Path del modello nel storage (es. modelName/version/fileName)
+     * @param offset Primo byte dell'intervallo
+     * @param length Numero di byte dell'intervallo
+     * @return InputStream dell'intervallo
+     * @throws StorageOperationException in caso di errore
+     * @throws UnsupportedOperationException se il provider non supporta i download per intervalli
+     */
+    default InputStream downloadModelRange(String objectPath, long offset, long length) {
+        throw new UnsupportedOperationException("Download per intervalli non supportato da " + getProviderType().getDisplayName());
+    }
+
     /**
      * Elimina un modello dal storage
      * 
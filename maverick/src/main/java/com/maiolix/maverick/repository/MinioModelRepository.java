@@ -4,6 +4,7 @@ import java.io.InputStream;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.util.unit.DataSize;
 
 import com.maiolix.maverick.exception.StorageOperationException;
 
@@ -34,6 +35,10 @@ public class MinioModelRepository implements IModelStorageRepository {
     @Value("${maverick.storage.minio.default-bucket}")
     private String defaultBucket;
 
+    // Upload multipart a parti fisse: in memoria resta una sola parte alla volta (minimo MinIO 5MB)
+    @Value("${maverick.storage.minio.upload-part-size:16MB}")
+    private DataSize uploadPartSize;
+
     private MinioClient minioClient;
 
     @PostConstruct
@@ -102,7 +107,7 @@ public class MinioModelRepository implements IModelStorageRepository {
             minioClient.putObject(PutObjectArgs.builder()
                     .bucket(defaultBucket)
                     .object(objectPath)
-                    .stream(inputStream, fileSize, -1)
+                    .stream(inputStream, fileSize, partSize())
                     .contentType(contentType != null ? contentType : "application/octet-stream")
                     .build());
             
@@ -114,6 +119,11 @@ public class MinioModelRepository implements IModelStorageRepository {
         }
     }
 
+    private long partSize() {
+        long minPartSize = 5L * 1024 * 1024;
+        return uploadPartSize != null ? Math.max(minPartSize, uploadPartSize.toBytes()) : -1;
+    }
+
     /**
      * Genera il path strutturato per il modello
      * Formato: modello/versione/file
@@ -168,6 +178,32 @@ public class MinioModelRepository implements IModelStorageRepository {
         }
     }
 
+    @Override
+    public boolean supportsRangedDownload() {
+        return true;
+    }
+
+    /**
+     * Scarica un intervallo di byte di un modello da MinIO (richiesta HTTP con Range)
+     */
+    @Override
+    public InputStream downloadModelRange(String objectPath, long offset, long length) {
+        try {
+            log.debug("📥 Download intervallo {}-{} del modello da MinIO: {}", offset, offset + length - 1, objectPath);
+            
+            return minioClient.getObject(
+                io.minio.GetObjectArgs.builder()
+                    .bucket(defaultBucket)
+                    .object(objectPath)
+                    .offset(offset)
+                    .length(length)
+                    .build());
+                    
+        } catch (Exception e) {
+            throw new StorageOperationException("Errore download intervallo modello: " + e.getMessage(), e, "MINIO");
+        }
+    }
+
     /**
      * Elimina un modello da MinIO
      */
@@ -0,0 +1,415 @@
+package com.maiolix.maverick.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import com.maiolix.maverick.exception.StorageOperationException;
+
+/**
+ * Node-local, content-addressed cache of model artifacts downloaded from storage.
+ * Entries are keyed by the SHA-256 of the artifact, so reloads and restarts of unchanged
+ * models read from disk instead of the network. Every fill is hashed while it is written and
+ * published only if it matches the expected hash. The least recently used entries are removed
+ * when the cache grows beyond its size cap.
+ */
+public final class ModelArtifactCache {
+    private static final Logger LOGGER = Logger.getLogger(ModelArtifactCache.class.getName());
+    private static final String ARTIFACT_EXTENSION = ".artifact";
+    private static final String PARTIAL_EXTENSION = ".partial";
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path directory;
+    private final long maxBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+    private final LongAdder verifyFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder bytesServed = new LongAdder();
+    private final LongAdder bytesFilled = new LongAdder();
+
+    /**
+     * @param directory cache directory, created if missing; null disables the cache
+     * @param maxBytes size cap; the entry being filled is kept even if it alone exceeds it
+     */
+    public ModelArtifactCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot create model artifact cache directory " + directory, e);
+            }
+        }
+    }
+
+    /**
+     * @return a cache that always downloads from storage
+     */
+    public static ModelArtifactCache disabled() {
+        return new ModelArtifactCache(null, 0);
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Writes a whole artifact into a local file, e.g. with parallel ranged requests
+     */
+    @FunctionalInterface
+    public interface Fetcher {
+        void fetchTo(Path target) throws IOException;
+    }
+
+    /**
+     * Opens a model artifact, from the cache when an entry with its hash exists
+     * @param sha256 expected SHA-256 of the artifact, lowercase hex; other values bypass the cache
+     * @param objectPath storage path, for logging
+     * @param download opens the artifact from storage on a miss
+     * @return a stream over the artifact content
+     * @throws StorageOperationException if the downloaded content does not match the hash
+     */
+    public InputStream open(String sha256, String objectPath, Supplier<InputStream> download) {
+        return open(sha256, objectPath, download, null);
+    }
+
+    /**
+     * Opens a model artifact, filling the cache with a fetcher that writes the file directly
+     * @param sha256 expected SHA-256 of the artifact, lowercase hex; other values bypass the cache
+     * @param objectPath storage path, for logging
+     * @param download opens the artifact from storage when the cache is bypassed, or on a miss without fetcher
+     * @param fetcher fills the cache on a miss; null to copy the download stream
+     * @return a stream over the artifact content
+     * @throws StorageOperationException if the downloaded content does not match the hash
+     */
+    public InputStream open(String sha256, String objectPath, Supplier<InputStream> download, Fetcher fetcher) {
+        if (!isEnabled() || !isSha256(sha256)) {
+            // Artifacts uploaded before content hashing cannot be addressed by content
+            bypassed.increment();
+            return download.get();
+        }
+
+        Path cached = lookup(sha256, objectPath);
+        if (cached != null) {
+            try {
+                return Files.newInputStream(cached);
+            } catch (NoSuchFileException e) {
+                // Removed by a concurrent eviction
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Cannot read cached model artifact " + sha256 + ", downloading it again", e);
+            }
+        }
+        fill(sha256, objectPath, download, fetcher);
+        try {
+            return Files.newInputStream(directory.resolve(sha256 + ARTIFACT_EXTENSION));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open cached model artifact " + sha256, e);
+        }
+    }
+
+    /**
+     * A model artifact available as a file in the cache
+     * @param path the cached file, just marked as recently used so that evictions remove it last
+     * @param bytesWritten bytes this call wrote to fill the cache, 0 on a hit
+     */
+    public record LocalArtifact(Path path, long bytesWritten) {
+    }
+
+    /**
+     * Resolves a model artifact to its cached file, filling the cache on a miss, so that
+     * handlers able to read a file do not need the whole artifact in memory
+     * @param sha256 expected SHA-256 of the artifact, lowercase hex
+     * @param objectPath storage path, for logging
+     * @param download opens the artifact from storage on a miss without fetcher
+     * @param fetcher fills the cache on a miss; null to copy the download stream
+     * @return the cached file, or null when the cache is disabled or the hash cannot address it
+     * @throws StorageOperationException if the downloaded content does not match the hash
+     */
+    public LocalArtifact resolve(String sha256, String objectPath, Supplier<InputStream> download, Fetcher fetcher) {
+        if (!isEnabled() || !isSha256(sha256)) {
+            bypassed.increment();
+            return null;
+        }
+        Path cached = lookup(sha256, objectPath);
+        if (cached != null) {
+            return new LocalArtifact(cached, 0);
+        }
+        long size = fill(sha256, objectPath, download, fetcher);
+        return new LocalArtifact(directory.resolve(sha256 + ARTIFACT_EXTENSION), size);
+    }
+
+    /**
+     * @return the cached file, marked as recently used, or null on a miss
+     */
+    private Path lookup(String sha256, String objectPath) {
+        Path cached = directory.resolve(sha256 + ARTIFACT_EXTENSION);
+        try {
+            long size = Files.size(cached);
+            touch(cached);
+            hits.increment();
+            bytesServed.add(size);
+            LOGGER.log(Level.FINE, "Model artifact served from cache: {0}", objectPath);
+            return cached;
+        } catch (NoSuchFileException e) {
+            // Miss, or removed by a concurrent eviction
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Cannot read cached model artifact " + sha256 + ", downloading it again", e);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Creates an empty file for an artifact being received, in the cache directory when the cache
+     * is enabled so that {@link #store} publishes it with a rename
+     * @return the new file
+     * @throws IOException if the file cannot be created
+     */
+    public Path createStagingFile() throws IOException {
+        if (!isEnabled()) {
+            return Files.createTempFile("maverick-upload-", PARTIAL_EXTENSION);
+        }
+        return Files.createFile(directory.resolve("upload." + UUID.randomUUID() + PARTIAL_EXTENSION));
+    }
+
+    /**
+     * Publishes a staged artifact whose hash the caller computed while writing it; the file is
+     * moved into the cache, or deleted when the cache is disabled or cannot take it
+     * @param sha256 SHA-256 of the file, lowercase hex
+     * @param staged file returned by {@link #createStagingFile()}
+     */
+    public void store(String sha256, Path staged) {
+        if (!isEnabled() || !isSha256(sha256)) {
+            deleteQuietly(staged);
+            return;
+        }
+        Path cached = directory.resolve(sha256 + ARTIFACT_EXTENSION);
+        try {
+            long size = Files.size(staged);
+            moveIntoPlace(staged, cached);
+            bytesFilled.add(size);
+            LOGGER.log(Level.INFO, "Stored uploaded model artifact in cache: {0} ({1} bytes)", new Object[] { sha256, size });
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Cannot store uploaded model artifact " + sha256 + " in cache", e);
+            deleteQuietly(staged);
+            return;
+        }
+        evict(cached);
+    }
+
+    /**
+     * @return the bytes written into the cache
+     */
+    private long fill(String sha256, String objectPath, Supplier<InputStream> download, Fetcher fetcher) {
+        Path cached = directory.resolve(sha256 + ARTIFACT_EXTENSION);
+        // Each loader writes its own partial file, published with a rename once verified
+        Path partial = directory.resolve(sha256 + "." + UUID.randomUUID() + PARTIAL_EXTENSION);
+        MessageDigest digest = newSha256();
+        long size;
+        try {
+            if (fetcher != null) {
+                // Ranges arrive out of order: the file is hashed once complete
+                fetcher.fetchTo(partial);
+                try (InputStream in = new DigestInputStream(Files.newInputStream(partial), digest)) {
+                    size = in.transferTo(OutputStream.nullOutputStream());
+                }
+            } else {
+                try (InputStream in = new DigestInputStream(download.get(), digest);
+                        OutputStream out = Files.newOutputStream(partial)) {
+                    size = in.transferTo(out);
+                }
+            }
+        } catch (IOException e) {
+            deleteQuietly(partial);
+            throw new UncheckedIOException("Cannot write model artifact " + objectPath + " to cache", e);
+        } catch (RuntimeException e) {
+            deleteQuietly(partial);
+            throw e;
+        }
+
+        String actual = HexFormat.of().formatHex(digest.digest());
+        if (!actual.equals(sha256)) {
+            verifyFailures.increment();
+            deleteQuietly(partial);
+            throw new StorageOperationException("Model artifact " + objectPath + " does not match its hash: expected "
+                    + sha256 + ", downloaded " + actual);
+        }
+
+        try {
+            moveIntoPlace(partial, cached);
+        } catch (IOException e) {
+            deleteQuietly(partial);
+            throw new UncheckedIOException("Cannot store model artifact " + objectPath + " in cache", e);
+        }
+        bytesFilled.add(size);
+        LOGGER.log(Level.INFO, "Stored model artifact in cache: {0} ({1} bytes)", new Object[] { objectPath, size });
+        evict(cached);
+        return size;
+    }
+
+    /**
+     * Removes the least recently used entries until the cache fits its size cap
+     */
+    private synchronized void evict(Path keep) {
+        if (maxBytes <= 0) {
+            return;
+        }
+        List<Path> entries = new ArrayList<>();
+        long total = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(ARTIFACT_EXTENSION))::iterator) {
+                entries.add(file);
+                total += sizeOf(file);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Cannot list model artifact cache directory", e);
+            return;
+        }
+
+        entries.sort(Comparator.comparing(ModelArtifactCache::lastAccess));
+        for (Path entry : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            if (entry.equals(keep)) {
+                continue;
+            }
+            long size = sizeOf(entry);
+            // Streams already open on the entry keep reading it after the delete
+            deleteQuietly(entry);
+            total -= size;
+            evictions.increment();
+            LOGGER.log(Level.INFO, "Evicted model artifact from cache: {0}", entry.getFileName());
+        }
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Cannot update access time of " + file, e);
+        }
+    }
+
+    private static FileTime lastAccess(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Cannot delete " + path, e);
+        }
+    }
+
+    /**
+     * @return a new SHA-256 digest
+     */
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Checks whether a stored file hash is a SHA-256 the cache can be addressed by
+     */
+    public static boolean isSha256(String hash) {
+        return hash != null && SHA256_HEX.matcher(hash).matches();
+    }
+
+    /**
+     * Gets the cache statistics
+     * @return hits, misses, bypassed loads, verification failures, evictions, bytes and disk usage
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("bypassed", bypassed.sum());
+        stats.put("verifyFailures", verifyFailures.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("bytesServedFromCache", bytesServed.sum());
+        stats.put("bytesDownloaded", bytesFilled.sum());
+        if (isEnabled()) {
+            stats.put("directory", directory.toString());
+            stats.put("maxBytes", maxBytes);
+            long entries = 0;
+            long bytes = 0;
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(ARTIFACT_EXTENSION))::iterator) {
+                    entries++;
+                    bytes += sizeOf(file);
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Cannot list model artifact cache directory", e);
+            }
+            stats.put("entries", entries);
+            stats.put("sizeBytes", bytes);
+        }
+        return stats;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+}
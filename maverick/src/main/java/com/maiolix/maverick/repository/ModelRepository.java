@@ -135,12 +135,13 @@ public interface ModelRepository extends JpaRepository<ModelEntity, Long> {
     // ==== OPERAZIONI DI AGGIORNAMENTO ====
 
     /**
-     * Incrementa contatore predizioni
+     * Somma le predizioni accumulate in memoria senza arretrare l'ultimo utilizzo
      */
     @Modifying
-    @Transactional
-    @Query("UPDATE ModelEntity m SET m.predictionCount = COALESCE(m.predictionCount, 0) + 1, m.lastUsedAt = :now WHERE m.id = :id")
-    int incrementPredictionCount(@Param("id") Long id, @Param("now") LocalDateTime now);
+    @Query("UPDATE ModelEntity m SET m.predictionCount = COALESCE(m.predictionCount, 0) + :count, "
+            + "m.lastUsedAt = CASE WHEN m.lastUsedAt IS NULL OR m.lastUsedAt < :lastUsedAt THEN :lastUsedAt ELSE m.lastUsedAt END "
+            + "WHERE m.id = :id")
+    int addPredictions(@Param("id") Long id, @Param("count") long count, @Param("lastUsedAt") LocalDateTime lastUsedAt);
 
     /**
      * Aggiorna stato modello
@@ -158,6 +159,24 @@ public interface ModelRepository extends JpaRepository<ModelEntity, Long> {
     @Query("UPDATE ModelEntity m SET m.isActive = false, m.updatedAt = :now WHERE m.id = :id")
     int deactivateModel(@Param("id") Long id, @Param("now") LocalDateTime now);
 
+    /**
+     * Attiva un modello caricato in memoria salvandone i metadati, senza toccare i contatori
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ModelEntity m SET m.isActive = true, m.metadata = :metadata, m.updatedAt = :now, "
+            + "m.lastUsedAt = CASE WHEN m.lastUsedAt IS NULL OR m.lastUsedAt < :now THEN :now ELSE m.lastUsedAt END "
+            + "WHERE m.id = :id")
+    int activateLoadedModel(@Param("id") Long id, @Param("metadata") String metadata, @Param("now") LocalDateTime now);
+
+    /**
+     * Aggiorna solo i metadati di un modello
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ModelEntity m SET m.metadata = :metadata, m.updatedAt = :now WHERE m.id = :id")
+    int updateMetadata(@Param("id") Long id, @Param("metadata") String metadata, @Param("now") LocalDateTime now);
+
     /**
      * Disattiva tutte le versioni precedenti di un modello
      */
@@ -0,0 +1,265 @@
+package com.maiolix.maverick.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Downloads a model artifact as concurrent byte ranges into a preallocated local file.
+ * A failed range is retried up to a limit; a range still running after the hedge delay is
+ * requested a second time and the first copy to arrive wins, so one slow connection does not
+ * hold the whole load. Each range is held in memory until written, so at most
+ * {@code (concurrency + hedges) * partSize} bytes are buffered.
+ */
+public final class ParallelRangeDownloader implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(ParallelRangeDownloader.class.getName());
+    private static final long POLL_MILLIS = 100;
+
+    private final long partSize;
+    private final int concurrency;
+    private final int maxRetries;
+    private final long hedgeAfterMillis;
+    private final ExecutorService executor;
+
+    private final LongAdder downloads = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicLong lastBytesPerSecond = new AtomicLong();
+
+    /**
+     * @param partSize bytes per range
+     * @param concurrency ranges downloaded at the same time
+     * @param maxRetries further attempts for a failed range
+     * @param hedgeAfterMillis delay before a running range is requested again; 0 disables hedging
+     */
+    public ParallelRangeDownloader(long partSize, int concurrency, int maxRetries, long hedgeAfterMillis) {
+        if (partSize <= 0 || partSize > Integer.MAX_VALUE - 8 || concurrency <= 0 || maxRetries < 0 || hedgeAfterMillis < 0) {
+            throw new IllegalArgumentException("Invalid parallel download settings: partSize=" + partSize
+                    + ", concurrency=" + concurrency + ", maxRetries=" + maxRetries + ", hedgeAfterMillis=" + hedgeAfterMillis);
+        }
+        this.partSize = partSize;
+        this.concurrency = concurrency;
+        this.maxRetries = maxRetries;
+        this.hedgeAfterMillis = hedgeAfterMillis;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "model-range-download-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Checks whether an artifact is worth downloading in ranges
+     * @param size artifact size
+     * @return true if it spans more than one range
+     */
+    public boolean isParallel(long size) {
+        return size > partSize;
+    }
+
+    /**
+     * Outcome of a download
+     * @param bytes bytes written
+     * @param millis elapsed time
+     * @param parts ranges
+     * @param retries ranges requested again after a failure
+     * @param hedges ranges requested again because they were slow
+     */
+    public record Result(long bytes, long millis, int parts, int retries, int hedges) {
+        public long bytesPerSecond() {
+            return millis > 0 ? bytes * 1000 / millis : bytes * 1000;
+        }
+    }
+
+    /**
+     * Downloads an artifact into a file, which is created or truncated to the artifact size
+     * @param storage storage holding the artifact
+     * @param objectPath storage path
+     * @param size artifact size in bytes
+     * @param target local file
+     * @return bytes, time, retries and hedges of the download
+     * @throws IOException if a range fails more than the retry limit or the file cannot be written
+     */
+    public Result download(IModelStorageRepository storage, String objectPath, long size, Path target) throws IOException {
+        int parts = (int) ((size + partSize - 1) / partSize);
+        long start = System.nanoTime();
+
+        // Only this thread touches the per-range state; workers just fetch bytes
+        boolean[] done = new boolean[parts];
+        int[] running = new int[parts];
+        int[] failed = new int[parts];
+        long[] startedAt = new long[parts];
+        boolean[] hedged = new boolean[parts];
+        int retried = 0;
+        int hedgedCount = 0;
+
+        List<Future<Range>> attempts = new ArrayList<>();
+        CompletionService<Range> completion = new ExecutorCompletionService<>(executor);
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Preallocate the file so each range is written at its own offset
+            if (size > 0) {
+                channel.write(ByteBuffer.allocate(1), size - 1);
+            }
+
+            int next = 0;
+            int inFlight = 0;
+            int completed = 0;
+            while (completed < parts) {
+                while (inFlight < concurrency && next < parts) {
+                    attempts.add(submit(completion, storage, objectPath, next, size));
+                    running[next]++;
+                    startedAt[next] = System.nanoTime();
+                    inFlight++;
+                    next++;
+                }
+
+                Future<Range> finished = completion.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (finished == null) {
+                    hedgedCount += hedge(completion, storage, objectPath, size, next, done, running, startedAt, hedged, attempts);
+                    inFlight = countRunning(running);
+                    continue;
+                }
+
+                Range range = finished.get();
+                running[range.index]--;
+                inFlight--;
+                if (done[range.index]) {
+                    continue; // The other copy of a hedged range arrived first
+                }
+                if (range.data != null) {
+                    channel.write(ByteBuffer.wrap(range.data), range.offset);
+                    done[range.index] = true;
+                    completed++;
+                } else if (running[range.index] == 0) {
+                    if (failed[range.index]++ >= maxRetries) {
+                        throw new IOException("Range " + range.index + " of " + objectPath + " failed after "
+                                + maxRetries + " retries", range.error);
+                    }
+                    LOGGER.log(Level.WARNING, "Retrying range {0} of {1}: {2}",
+                            new Object[] { range.index, objectPath, range.error.getMessage() });
+                    attempts.add(submit(completion, storage, objectPath, range.index, size));
+                    running[range.index]++;
+                    startedAt[range.index] = System.nanoTime();
+                    inFlight++;
+                    retried++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failures.increment();
+            throw new IOException("Download of " + objectPath + " interrupted", e);
+        } catch (IOException e) {
+            failures.increment();
+            throw e;
+        } catch (Exception e) {
+            failures.increment();
+            throw new IOException("Download of " + objectPath + " failed", e);
+        } finally {
+            // Losing copies of hedged ranges are no longer needed
+            attempts.forEach(attempt -> attempt.cancel(true));
+        }
+
+        Result result = new Result(size, (System.nanoTime() - start) / 1_000_000, parts, retried, hedgedCount);
+        downloads.increment();
+        bytes.add(size);
+        retries.add(retried);
+        hedges.add(hedgedCount);
+        lastBytesPerSecond.set(result.bytesPerSecond());
+        LOGGER.log(Level.INFO, "Downloaded {0} in {1} ranges: {2} bytes in {3} ms ({4} MB/s, {5} retries, {6} hedges)",
+                new Object[] { objectPath, parts, size, result.millis(), result.bytesPerSecond() / (1024 * 1024),
+                        retried, hedgedCount });
+        return result;
+    }
+
+    private int hedge(CompletionService<Range> completion, IModelStorageRepository storage, String objectPath, long size,
+            int submitted, boolean[] done, int[] running, long[] startedAt, boolean[] hedged, List<Future<Range>> attempts) {
+        if (hedgeAfterMillis == 0) {
+            return 0;
+        }
+        int count = 0;
+        long now = System.nanoTime();
+        for (int index = 0; index < submitted; index++) {
+            if (!done[index] && !hedged[index] && running[index] == 1
+                    && TimeUnit.NANOSECONDS.toMillis(now - startedAt[index]) >= hedgeAfterMillis) {
+                LOGGER.log(Level.INFO, "Range {0} of {1} is slow, requesting it again", new Object[] { index, objectPath });
+                attempts.add(submit(completion, storage, objectPath, index, size));
+                running[index]++;
+                hedged[index] = true;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int countRunning(int[] running) {
+        int total = 0;
+        for (int attempts : running) {
+            total += attempts;
+        }
+        return total;
+    }
+
+    private Future<Range> submit(CompletionService<Range> completion, IModelStorageRepository storage, String objectPath,
+            int index, long size) {
+        long offset = index * partSize;
+        long length = Math.min(partSize, size - offset);
+        return completion.submit(() -> {
+            try (InputStream in = storage.downloadModelRange(objectPath, offset, length)) {
+                byte[] data = in.readNBytes((int) length);
+                if (data.length != length) {
+                    throw new IOException("Short read: " + data.length + " of " + length + " bytes");
+                }
+                return new Range(index, offset, data, null);
+            } catch (Exception e) {
+                return new Range(index, offset, null, e);
+            }
+        });
+    }
+
+    private record Range(int index, long offset, byte[] data, Exception error) {
+    }
+
+    /**
+     * Gets the download statistics
+     * @return downloads, bytes, retries, hedges, failures and throughput of the last download
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("partSize", partSize);
+        stats.put("concurrency", concurrency);
+        stats.put("downloads", downloads.sum());
+        stats.put("bytes", bytes.sum());
+        stats.put("retries", retries.sum());
+        stats.put("hedges", hedges.sum());
+        stats.put("failures", failures.sum());
+        stats.put("lastBytesPerSecond", lastBytesPerSecond.get());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -1,8 +1,10 @@
 package com.maiolix.maverick.repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -56,4 +58,12 @@ public interface UserRepository extends JpaRepository<UserEntity, Long> {
      * Verifica se email esiste
      */
     boolean existsByEmail(String email);
+
+    /**
+     * Aggiorna l'ultimo accesso senza arretrarlo
+     */
+    @Modifying
+    @Query("UPDATE UserEntity u SET u.lastLoginAt = :lastLoginAt "
+            + "WHERE u.id = :id AND (u.lastLoginAt IS NULL OR u.lastLoginAt < :lastLoginAt)")
+    int updateLastLogin(@Param("id") Long id, @Param("lastLoginAt") LocalDateTime lastLoginAt);
 }
@@ -0,0 +1,85 @@
+package com.maiolix.maverick.security;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maiolix.maverick.controller.dto.ErrorResponse;
+import com.maiolix.maverick.service.UserService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applica rateLimitPerMinute ai client API autenticati, prima dei controller.
+ * Registrato solo nella catena di Spring Security, dopo {@link JwtAuthenticationFilter}.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class ClientRateLimitFilter extends OncePerRequestFilter {
+
+    private final ClientRateLimiter rateLimiter;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null
+                && authentication.getDetails() instanceof JwtAuthenticationFilter.JwtAuthenticationDetails details
+                && details.isMachine() && details.getClientId() != null) {
+            int limit = getLimit(details);
+            ClientRateLimiter.Decision decision = rateLimiter.tryAcquire(details.getClientId(), limit);
+            if (!decision.allowed()) {
+                reject(request, response, decision, limit);
+                return;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Limite corrente dal database (in cache), altrimenti quello presente nel token
+     */
+    private int getLimit(JwtAuthenticationFilter.JwtAuthenticationDetails details) {
+        Integer limit = null;
+        try {
+            limit = userService.getClientRateLimit(details.getClientId());
+        } catch (Exception e) {
+            log.warn("Could not read rate limit for client {}: {}", details.getClientId(), e.getMessage());
+        }
+        if (limit == null && details.getPrincipal() != null) {
+            limit = details.getPrincipal().rateLimit();
+        }
+        return limit != null ? limit : 0;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response,
+                        ClientRateLimiter.Decision decision, int limit) throws IOException {
+        ErrorResponse error = ErrorResponse.of(
+                "RATE_LIMIT_EXCEEDED",
+                "Rate limit of " + limit + " requests per minute exceeded",
+                request.getRequestURI(),
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Retry after " + decision.retryAfterSeconds() + " seconds"
+        );
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(decision.retryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+}
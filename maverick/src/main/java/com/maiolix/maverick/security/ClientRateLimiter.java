@@ -0,0 +1,121 @@
+package com.maiolix.maverick.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Token bucket per client API, senza lock: capacità e ricarica valgono rateLimitPerMinute
+ * richieste al minuto. Lo stato di ogni client è un istante ("theoretical arrival time",
+ * GCRA) con il limite a cui si riferisce, sostituito con compare-and-set; se il limite cambia
+ * i token già consumati vengono riportati alla nuova velocità, senza riavvio.
+ */
+@Component
+@Slf4j
+public class ClientRateLimiter {
+
+    private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Map<Long, ClientBucket> buckets = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    public ClientRateLimiter() {
+        this(System::nanoTime);
+    }
+
+    ClientRateLimiter(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Esito di una richiesta
+     * @param allowed true se la richiesta rientra nel limite
+     * @param retryAfterSeconds attesa suggerita prima di riprovare, 0 se ammessa
+     */
+    public record Decision(boolean allowed, long retryAfterSeconds) {
+        static final Decision ALLOWED = new Decision(true, 0);
+    }
+
+    private record State(long theoreticalArrival, int limitPerMinute) {
+    }
+
+    private static final class ClientBucket {
+        private final AtomicReference<State> state;
+        private final LongAdder allowed = new LongAdder();
+        private final LongAdder throttled = new LongAdder();
+        private volatile int limitPerMinute;
+
+        private ClientBucket(long now) {
+            this.state = new AtomicReference<>(new State(now, 0));
+        }
+    }
+
+    /**
+     * Consuma un token del client
+     * @param clientId ID del client API
+     * @param limitPerMinute limite corrente; 0 o negativo = nessun limite
+     * @return l'esito, con il tempo di attesa se la richiesta è rifiutata
+     */
+    public Decision tryAcquire(Long clientId, int limitPerMinute) {
+        long now = clock.getAsLong();
+        ClientBucket bucket = buckets.computeIfAbsent(clientId, id -> new ClientBucket(now));
+        bucket.limitPerMinute = limitPerMinute;
+        if (limitPerMinute <= 0) {
+            bucket.allowed.increment();
+            return Decision.ALLOWED;
+        }
+
+        long interval = WINDOW_NANOS / limitPerMinute;
+        while (true) {
+            State current = bucket.state.get();
+            long debt = Math.max(0, current.theoreticalArrival() - now);
+            if (current.limitPerMinute() > 0 && current.limitPerMinute() != limitPerMinute) {
+                // Stessi token consumati, alla velocità del nuovo limite
+                debt = (long) ((double) debt * current.limitPerMinute() / limitPerMinute);
+            }
+            long next = now + debt + interval;
+            long excess = next - now - WINDOW_NANOS;
+            if (excess > 0) {
+                bucket.throttled.increment();
+                long retryAfter = Math.max(1, (excess + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+                log.debug("Client {} throttled ({} req/min), retry after {}s", clientId, limitPerMinute, retryAfter);
+                return new Decision(false, retryAfter);
+            }
+            if (bucket.state.compareAndSet(current, new State(next, limitPerMinute))) {
+                bucket.allowed.increment();
+                return Decision.ALLOWED;
+            }
+        }
+    }
+
+    /**
+     * Richieste rifiutate per un client
+     */
+    public long getThrottled(Long clientId) {
+        ClientBucket bucket = buckets.get(clientId);
+        return bucket != null ? bucket.throttled.sum() : 0;
+    }
+
+    /**
+     * Contatori per client: limite corrente, richieste ammesse e rifiutate
+     */
+    public Map<Long, Map<String, Object>> getStats() {
+        Map<Long, Map<String, Object>> stats = new LinkedHashMap<>();
+        buckets.forEach((clientId, bucket) -> {
+            Map<String, Object> clientStats = new LinkedHashMap<>();
+            clientStats.put("limitPerMinute", bucket.limitPerMinute);
+            clientStats.put("allowed", bucket.allowed.sum());
+            clientStats.put("throttled", bucket.throttled.sum());
+            stats.put(clientId, clientStats);
+        });
+        return stats;
+    }
+}
@@ -41,8 +41,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (isValidJwt(jwt)) {
-                processAuthentication(jwt);
+            // Una sola verifica per token: le richieste successive con lo stesso token usano la cache
+            JwtPrincipal principal = StringUtils.hasText(jwt) ? jwtTokenUtil.authenticate(jwt) : null;
+            if (principal != null) {
+                processAuthentication(principal);
             }
         } catch (Exception ex) {
             log.error("Could not set user authentication in security context", ex);
@@ -51,25 +53,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-    /**
-     * Verifica se il JWT è valido
-     */
-    private boolean isValidJwt(String jwt) {
-        return StringUtils.hasText(jwt) && jwtTokenUtil.validateToken(jwt);
-    }
-
     /**
      * Processa l'autenticazione per un JWT valido
      */
-    private void processAuthentication(String jwt) {
-        String username = jwtTokenUtil.getUsernameFromToken(jwt);
-        String userType = jwtTokenUtil.getUserType(jwt);
+    private void processAuthentication(JwtPrincipal principal) {
+        String username = principal.username();
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            String role = getUserRole(jwt, userType);
+            String role = getUserRole(principal);
 
             if (role != null) {
-                setSecurityContext(username, role, jwt, userType);
+                setSecurityContext(principal, role);
                 log.debug("Authenticated user '{}' with role '{}'", username, role);
             }
         }
@@ -78,30 +72,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     /**
      * Imposta il contesto di sicurezza Spring Security
      */
-    private void setSecurityContext(String username, String role, String jwt, String userType) {
+    private void setSecurityContext(JwtPrincipal principal, String role) {
         UsernamePasswordAuthenticationToken authentication = 
             new UsernamePasswordAuthenticationToken(
-                username,
+                principal.username(),
                 null,
                 Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
             );
 
-        JwtAuthenticationDetails details = createAuthDetails(jwt, userType);
-        authentication.setDetails(details);
+        authentication.setDetails(new JwtAuthenticationDetails(principal));
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
     }
 
-    /**
-     * Crea i dettagli di autenticazione
-     */
-    private JwtAuthenticationDetails createAuthDetails(String jwt, String userType) {
-        Long userId = jwtTokenUtil.isHumanToken(jwt) ? jwtTokenUtil.getUserIdFromToken(jwt) : null;
-        Long clientId = jwtTokenUtil.isMachineToken(jwt) ? jwtTokenUtil.getClientIdFromToken(jwt) : null;
-        
-        return new JwtAuthenticationDetails(userType, userId, clientId);
-    }
-
     /**
      * Estrae il token JWT dalla richiesta
      */
@@ -116,14 +99,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     /**
      * Ottiene il ruolo dell'utente dal database
      */
-    private String getUserRole(String jwt, String userType) {
+    private String getUserRole(JwtPrincipal principal) {
         try {
-            if ("HUMAN".equals(userType)) {
-                Long userId = jwtTokenUtil.getUserIdFromToken(jwt);
-                return userService.getUserRole(userId);
-            } else if ("MACHINE".equals(userType)) {
-                Long clientId = jwtTokenUtil.getClientIdFromToken(jwt);
-                return userService.getClientRole(clientId);
+            if (principal.isHuman()) {
+                return userService.getUserRole(principal.userId());
+            } else if (principal.isMachine()) {
+                return userService.getClientRole(principal.clientId());
             }
         } catch (Exception e) {
             log.error("Error getting user role for token", e);
@@ -138,11 +119,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         private final String userType;
         private final Long userId;
         private final Long clientId;
+        private final JwtPrincipal principal;
 
         public JwtAuthenticationDetails(String userType, Long userId, Long clientId) {
             this.userType = userType;
             this.userId = userId;
             this.clientId = clientId;
+            this.principal = null;
+        }
+
+        public JwtAuthenticationDetails(JwtPrincipal principal) {
+            this.userType = principal.userType();
+            this.userId = principal.isHuman() ? principal.userId() : null;
+            this.clientId = principal.isMachine() ? principal.clientId() : null;
+            this.principal = principal;
+        }
+
+        public JwtPrincipal getPrincipal() {
+            return principal;
         }
 
         public String getUserType() {
@@ -0,0 +1,32 @@
+package com.maiolix.maverick.security;
+
+import java.time.Instant;
+
+/**
+ * Identità estratta da un token JWT verificato, con una sola lettura dei claims
+ * @param username subject del token (username o clientId)
+ * @param userType HUMAN o MACHINE
+ * @param userId ID dell'utente, solo per token umani
+ * @param clientId ID del client API, solo per token machine
+ * @param email email dell'utente, solo per token umani
+ * @param rateLimit limite di richieste al minuto al momento dell'emissione, solo per token machine
+ * @param expiresAt scadenza del token
+ */
+public record JwtPrincipal(String username, String userType, Long userId, Long clientId, String email,
+        Integer rateLimit, Instant expiresAt) {
+
+    public static final String HUMAN = "HUMAN";
+    public static final String MACHINE = "MACHINE";
+
+    public boolean isHuman() {
+        return HUMAN.equals(userType);
+    }
+
+    public boolean isMachine() {
+        return MACHINE.equals(userType);
+    }
+
+    public boolean isExpired() {
+        return expiresAt != null && !expiresAt.isAfter(Instant.now());
+    }
+}
@@ -1,17 +1,29 @@
 package com.maiolix.maverick.security;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.crypto.SecretKey;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.maiolix.maverick.entity.ApiClientEntity;
 import com.maiolix.maverick.entity.UserEntity;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
@@ -19,15 +31,17 @@ import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Utility per la gestione dei token JWT
+ * Utility per la gestione dei token JWT. Ogni token viene verificato una sola volta: l'identità
+ * estratta ({@link JwtPrincipal}) resta in una cache limitata, indicizzata per SHA-256 del token,
+ * fino alla scadenza del token stesso.
  */
 @Component
 @Slf4j
 public class JwtTokenUtil {
 
     private static final String USER_TYPE_CLAIM = "user_type";
-    private static final String USER_TYPE_HUMAN = "HUMAN";
-    private static final String USER_TYPE_MACHINE = "MACHINE";
+    private static final String USER_TYPE_HUMAN = JwtPrincipal.HUMAN;
+    private static final String USER_TYPE_MACHINE = JwtPrincipal.MACHINE;
     private static final String USER_ID_CLAIM = "user_id";
     private static final String CLIENT_ID_CLAIM = "client_id";
     private static final String EMAIL_CLAIM = "email";
@@ -37,13 +51,45 @@ public class JwtTokenUtil {
     private final SecretKey key;
     private final long userTokenExpiration;
     private final long clientTokenExpiration;
+    private final JwtParser parser;
+    private final Cache<String, JwtPrincipal> verifiedTokens;
 
     public JwtTokenUtil(@Value("${maverick.jwt.secret:maverick-super-secret-key-for-development-only-please-change-in-production}") String secret,
                         @Value("${maverick.jwt.user-expiration:900000}") long userTokenExpiration,  // 15 min
-                        @Value("${maverick.jwt.client-expiration:86400000}") long clientTokenExpiration) {  // 24 ore
+                        @Value("${maverick.jwt.client-expiration:86400000}") long clientTokenExpiration,  // 24 ore
+                        @Value("${maverick.jwt.verified-cache.max-size:10000}") long verifiedCacheSize) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes());
         this.userTokenExpiration = userTokenExpiration;
         this.clientTokenExpiration = clientTokenExpiration;
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(Math.max(0, verifiedCacheSize))
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Le voci scadono insieme al token
+     */
+    private static final class TokenExpiry implements Expiry<String, JwtPrincipal> {
+        @Override
+        public long expireAfterCreate(String digest, JwtPrincipal principal, long currentTime) {
+            if (principal.expiresAt() == null) {
+                return Long.MAX_VALUE;
+            }
+            return Math.max(0, Duration.between(Instant.now(), principal.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, JwtPrincipal principal, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String digest, JwtPrincipal principal, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 
     /**
@@ -84,15 +130,12 @@ public class JwtTokenUtil {
     }
 
     /**
-     * Valida un token JWT
+     * Verifica un token JWT ed estrae l'identità in un solo passaggio
+     * @return l'identità del token, o null se il token non è valido o è scaduto
      */
-    public boolean validateToken(String token) {
+    public JwtPrincipal authenticate(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            return getPrincipal(token);
         } catch (SecurityException e) {
             log.error("Invalid JWT signature: {}", e.getMessage());
         } catch (MalformedJwtException e) {
@@ -103,69 +146,125 @@ public class JwtTokenUtil {
             log.error("JWT token is unsupported: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             log.error("JWT claims string is empty: {}", e.getMessage());
+        } catch (io.jsonwebtoken.security.SecurityException e) {
+            log.error("Invalid JWT signature: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Valida un token JWT
+     */
+    public boolean validateToken(String token) {
+        return authenticate(token) != null;
+    }
+
+    /**
+     * Identità del token dalla cache dei token verificati, altrimenti verifica della firma
+     * @throws io.jsonwebtoken.JwtException se il token non è valido o è scaduto
+     */
+    private JwtPrincipal getPrincipal(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("JWT string is empty");
+        }
+        String digest = digest(token);
+        JwtPrincipal cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null && !cached.isExpired()) {
+            return cached;
         }
-        return false;
+        JwtPrincipal principal = toPrincipal(getClaimsFromToken(token));
+        verifiedTokens.put(digest, principal);
+        return principal;
+    }
+
+    private static JwtPrincipal toPrincipal(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return new JwtPrincipal(
+                claims.getSubject(),
+                claims.get(USER_TYPE_CLAIM, String.class),
+                claims.get(USER_ID_CLAIM, Long.class),
+                claims.get(CLIENT_ID_CLAIM, Long.class),
+                claims.get(EMAIL_CLAIM, String.class),
+                claims.get(RATE_LIMIT_CLAIM, Integer.class),
+                expiration != null ? expiration.toInstant() : null);
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 non disponibile", e);
+        }
+    }
+
+    /**
+     * Statistiche della cache dei token verificati
+     */
+    public Map<String, Object> getVerifiedTokenCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", verifiedTokens.estimatedSize());
+        stats.put("hits", verifiedTokens.stats().hitCount());
+        stats.put("misses", verifiedTokens.stats().missCount());
+        stats.put("hitRatio", verifiedTokens.stats().hitRate());
+        return stats;
     }
 
     /**
      * Estrae username dal token
      */
     public String getUsernameFromToken(String token) {
-        return getClaimsFromToken(token).getSubject();
+        return getPrincipal(token).username();
     }
 
     /**
      * Estrae user_id dal token (per utenti umani)
      */
     public Long getUserIdFromToken(String token) {
-        return getClaimsFromToken(token).get(USER_ID_CLAIM, Long.class);
+        return getPrincipal(token).userId();
     }
 
     /**
      * Estrae client_id dal token (per client API)
      */
     public Long getClientIdFromToken(String token) {
-        return getClaimsFromToken(token).get(CLIENT_ID_CLAIM, Long.class);
+        return getPrincipal(token).clientId();
     }
 
     /**
      * Estrae tipo utente dal token
      */
     public String getUserType(String token) {
-        return getClaimsFromToken(token).get(USER_TYPE_CLAIM, String.class);
+        return getPrincipal(token).userType();
     }
 
     /**
      * Estrae email dal token
      */
     public String getEmailFromToken(String token) {
-        return getClaimsFromToken(token).get(EMAIL_CLAIM, String.class);
+        return getPrincipal(token).email();
     }
 
     /**
      * Verifica se il token è scaduto
      */
     public boolean isTokenExpired(String token) {
-        Date expiration = getClaimsFromToken(token).getExpiration();
-        return expiration.before(new Date());
+        return getPrincipal(token).isExpired();
     }
 
     /**
      * Estrae data di scadenza dal token
      */
     public Date getExpirationDateFromToken(String token) {
-        return getClaimsFromToken(token).getExpiration();
+        Instant expiresAt = getPrincipal(token).expiresAt();
+        return expiresAt != null ? Date.from(expiresAt) : null;
     }
 
     /**
      * Estrae tutti i claims dal token
      */
     private Claims getClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     /**
@@ -0,0 +1,415 @@
+package com.maiolix.maverick.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BaseIntVector;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.FloatingPointVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.FixedSizeListVector;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.util.Text;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.maiolix.maverick.exception.ModelNotFoundException;
+import com.maiolix.maverick.exception.ModelPredictionException;
+import com.maiolix.maverick.handler.IModelHandler;
+import com.maiolix.maverick.handler.RawTensor;
+import com.maiolix.maverick.handler.RowResult;
+import com.maiolix.maverick.registry.ModelLease;
+import com.maiolix.maverick.registry.ModelRegistry;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Scoring di record batch Apache Arrow ricevuti come stream IPC.
+ * Ogni batch è diviso in blocchi di al più {@code max-rows-per-batch} righe; ogni blocco è
+ * valutato e scritto come record batch di output prima di leggere il successivo, così la memoria
+ * resta limitata a un blocco per richiesta (e al limite dell'allocatore Arrow).
+ * <p>
+ * I modelli che accettano tensori (ONNX) valutano ogni blocco come un unico tensore: una colonna
+ * FixedSizeList con il nome dell'input del modello è passata senza copie, altrimenti le colonne
+ * delle feature (per nome se il modello le dichiara, per posizione altrimenti) sono composte in
+ * un tensore [righe, feature]. Gli altri modelli (MOJO, PMML) valutano le righe del blocco in un
+ * unico ciclo con {@link IModelHandler#predictBatch(List)}.
+ */
+@Service
+@Slf4j
+public class ArrowBatchScorer {
+
+    /** Content type degli stream IPC Arrow */
+    public static final String MEDIA_TYPE = "application/vnd.apache.arrow.stream";
+
+    private final BufferAllocator rootAllocator;
+    private final int maxRowsPerBatch;
+
+    private final LongAdder streams = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder failedRows = new LongAdder();
+
+    public ArrowBatchScorer(@Value("${maverick.arrow.max-memory-bytes:536870912}") long maxMemoryBytes,
+                            @Value("${maverick.arrow.max-rows-per-batch:8192}") int maxRowsPerBatch) {
+        this.rootAllocator = new RootAllocator(maxMemoryBytes);
+        this.maxRowsPerBatch = Math.max(1, maxRowsPerBatch);
+    }
+
+    /**
+     * Apre lo stream di risposta; chiamato solo quando il primo batch di output è pronto,
+     * così gli errori precedenti possono ancora essere restituiti come JSON
+     */
+    @FunctionalInterface
+    public interface ResponseOpener {
+        OutputStream open() throws IOException;
+    }
+
+    /**
+     * Esito di uno stream
+     * @param rows righe valutate
+     * @param successRows righe senza errori
+     * @param batches record batch di output scritti
+     */
+    public record Summary(long rows, long successRows, long batches) {
+    }
+
+    /**
+     * Valuta tutti i record batch dello stream e scrive gli output come stream IPC Arrow
+     * @param modelName nome del modello
+     * @param version versione del modello
+     * @param in stream IPC con i record batch di input
+     * @param opener apre lo stream di risposta alla prima scrittura
+     * @return righe valutate e batch scritti
+     * @throws IOException se la risposta non può essere scritta
+     */
+    public Summary score(String modelName, String version, InputStream in, ResponseOpener opener) throws IOException {
+        // Il lease mantiene aperto l'handler per tutto lo stream anche se il modello viene sostituito
+        try (ModelLease lease = ModelRegistry.acquire(modelName, version)) {
+            if (lease == null) {
+                throw new ModelNotFoundException("Model not found: " + modelName + " version: " + version);
+            }
+            IModelHandler handler = lease.getHandler();
+            streams.increment();
+
+            try (BufferAllocator allocator = rootAllocator.newChildAllocator(modelName + ":" + version, 0, rootAllocator.getLimit());
+                 ArrowStreamReader reader = new ArrowStreamReader(in, allocator);
+                 ArrowOutputWriter writer = new ArrowOutputWriter(allocator, () -> Channels.newChannel(opener.open()))) {
+
+                long scored = 0;
+                long succeeded = 0;
+                TensorBinding binding = null;
+                while (loadNextBatch(reader)) {
+                    VectorSchemaRoot input = reader.getVectorSchemaRoot();
+                    if (handler.supportsRawTensors() && binding == null) {
+                        binding = TensorBinding.resolve(handler, input);
+                    }
+                    for (int offset = 0; offset < input.getRowCount(); offset += maxRowsPerBatch) {
+                        int count = Math.min(maxRowsPerBatch, input.getRowCount() - offset);
+                        ArrowOutputWriter.Chunk chunk = scoreChunk(handler, binding, input, offset, count, writer.isStarted());
+                        writer.write(chunk);
+                        int failed = countErrors(chunk);
+                        scored += count;
+                        succeeded += count - failed;
+                        batches.increment();
+                        rows.add(count);
+                        failedRows.add(failed);
+                    }
+                }
+                writer.finish();
+                return new Summary(scored, succeeded, writer.getBatches());
+            }
+        }
+    }
+
+    private static boolean loadNextBatch(ArrowStreamReader reader) {
+        try {
+            return reader.loadNextBatch();
+        } catch (IOException | RuntimeException e) {
+            throw new ModelPredictionException("Invalid Arrow IPC stream: " + e.getMessage(), e);
+        }
+    }
+
+    private ArrowOutputWriter.Chunk scoreChunk(IModelHandler handler, TensorBinding binding, VectorSchemaRoot input,
+                                               int offset, int count, boolean started) {
+        try {
+            return binding != null ? scoreTensor(handler, binding, input, offset, count) : scoreRows(handler, input, offset, count);
+        } catch (RuntimeException e) {
+            if (!started) {
+                // Nulla è stato ancora scritto: la richiesta fallisce con un errore JSON
+                throw e instanceof ModelPredictionException ? e : new ModelPredictionException(e.getMessage(), e);
+            }
+            log.warn("⚠️ Blocco di {} righe fallito: {}", count, e.getMessage());
+            return ArrowOutputWriter.Chunk.failed(count, e.getMessage());
+        }
+    }
+
+    private static ArrowOutputWriter.Chunk scoreTensor(IModelHandler handler, TensorBinding binding, VectorSchemaRoot input,
+                                                       int offset, int count) {
+        Map<String, Object> outputs = handler.predictTensors(binding.bind(input, offset, count));
+        Map<String, Object> columns = new LinkedHashMap<>();
+        outputs.forEach((name, value) -> {
+            if (value instanceof RawTensor tensor && tensor.getRank() > 0 && tensor.getShape()[0] == count) {
+                columns.put(name, tensor);
+            } else if (value instanceof List<?> list && list.size() == count) {
+                columns.put(name, list);
+            } else {
+                log.debug("Output {} senza una riga per input, escluso dallo stream Arrow", name);
+            }
+        });
+        return new ArrowOutputWriter.Chunk(count, columns, null);
+    }
+
+    private static ArrowOutputWriter.Chunk scoreRows(IModelHandler handler, VectorSchemaRoot input, int offset, int count) {
+        List<FieldVector> vectors = input.getFieldVectors();
+        List<Map<String, Object>> inputRows = new ArrayList<>(count);
+        for (int row = offset; row < offset + count; row++) {
+            Map<String, Object> values = new HashMap<>(vectors.size() * 2);
+            for (FieldVector vector : vectors) {
+                Object value = vector.getObject(row);
+                if (value != null) {
+                    values.put(vector.getName(), value instanceof Text text ? text.toString() : value);
+                }
+            }
+            inputRows.add(values);
+        }
+
+        List<RowResult> results = handler.predictBatch(inputRows);
+        Map<String, Object> columns = new LinkedHashMap<>();
+        String[] errors = new String[count];
+        boolean anySuccess = false;
+        for (int i = 0; i < count; i++) {
+            RowResult result = results.get(i);
+            if (!result.isSuccess()) {
+                errors[i] = result.getError().getMessage();
+            } else if (result.getPrediction() instanceof Map<?, ?> prediction) {
+                anySuccess = true;
+                for (Map.Entry<?, ?> entry : prediction.entrySet()) {
+                    @SuppressWarnings("unchecked")
+                    List<Object> column = (List<Object>) columns.computeIfAbsent(String.valueOf(entry.getKey()),
+                            key -> new ArrayList<>(Collections.nCopies(count, null)));
+                    column.set(i, entry.getValue());
+                }
+            } else {
+                anySuccess = true;
+                @SuppressWarnings("unchecked")
+                List<Object> column = (List<Object>) columns.computeIfAbsent("prediction",
+                        key -> new ArrayList<>(Collections.nCopies(count, null)));
+                column.set(i, result.getPrediction());
+            }
+        }
+        if (!anySuccess && count > 0) {
+            // Senza almeno una riga valida lo schema di output non è deducibile
+            throw new ModelPredictionException("All " + count + " rows failed, first error: " + errors[0]);
+        }
+        return new ArrowOutputWriter.Chunk(count, columns, errors);
+    }
+
+    private static int countErrors(ArrowOutputWriter.Chunk chunk) {
+        int failed = 0;
+        if (chunk.errors() != null) {
+            for (String error : chunk.errors()) {
+                if (error != null) {
+                    failed++;
+                }
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Collegamento fra le colonne del batch e gli input tensoriali del modello, risolto una volta
+     * per stream (lo schema IPC non cambia)
+     */
+    private static final class TensorBinding {
+        private final Map<String, RawTensor.DType> inputs;
+        private final List<String> directColumns;
+        private final List<String> featureColumns;
+        private ByteBuffer scratch;
+
+        private TensorBinding(Map<String, RawTensor.DType> inputs, List<String> directColumns, List<String> featureColumns) {
+            this.inputs = inputs;
+            this.directColumns = directColumns;
+            this.featureColumns = featureColumns;
+        }
+
+        static TensorBinding resolve(IModelHandler handler, VectorSchemaRoot input) {
+            Map<String, RawTensor.DType> inputs = handler.getTensorInputTypes();
+            List<String> columns = input.getSchema().getFields().stream().map(Field::getName).toList();
+
+            // Una colonna per ogni input del modello: valori passati senza copie
+            if (!inputs.isEmpty() && columns.containsAll(inputs.keySet())) {
+                return new TensorBinding(inputs, List.copyOf(inputs.keySet()), List.of());
+            }
+            if (inputs.size() != 1) {
+                throw new ModelPredictionException("Model inputs " + inputs.keySet() + " must be given as columns with the same names");
+            }
+
+            // Colonne delle feature per nome, se dichiarate dal modello, altrimenti tutte per posizione
+            Object declared = handler.getInputSchema().get("featureNames");
+            List<String> features = new ArrayList<>();
+            if (declared instanceof List<?> names && !names.isEmpty()) {
+                for (Object name : names) {
+                    if (!columns.contains(String.valueOf(name))) {
+                        throw new ModelPredictionException("Missing feature column '" + name + "'. Expected: " + names);
+                    }
+                    features.add(String.valueOf(name));
+                }
+            } else {
+                features.addAll(columns);
+            }
+            return new TensorBinding(inputs, List.of(), features);
+        }
+
+        List<RawTensor> bind(VectorSchemaRoot input, int offset, int count) {
+            if (!directColumns.isEmpty()) {
+                List<RawTensor> tensors = new ArrayList<>(directColumns.size());
+                for (String name : directColumns) {
+                    tensors.add(direct(name, input.getVector(name), inputs.get(name), offset, count));
+                }
+                return tensors;
+            }
+            Map.Entry<String, RawTensor.DType> target = inputs.entrySet().iterator().next();
+            return List.of(stack(target.getKey(), target.getValue(), input, offset, count));
+        }
+
+        /**
+         * Vista sul buffer della colonna: nessuna copia dei valori
+         */
+        private static RawTensor direct(String name, FieldVector vector, RawTensor.DType dtype, int offset, int count) {
+            int width = 1;
+            FieldVector values = vector;
+            if (vector instanceof FixedSizeListVector list) {
+                width = list.getListSize();
+                values = list.getDataVector();
+            }
+            RawTensor.DType actual = dtypeOf(values);
+            if (actual != dtype) {
+                throw new IllegalArgumentException("Column '" + name + "' holds " + actual + " values but the model expects " + dtype);
+            }
+            if (vector.getNullCount() > 0 || values.getNullCount() > 0) {
+                throw new IllegalArgumentException("Column '" + name + "' contains null values");
+            }
+            long start = (long) offset * width * dtype.getSize();
+            long length = (long) count * width * dtype.getSize();
+            ByteBuffer data = values.getDataBuffer().nioBuffer(start, Math.toIntExact(length));
+            long[] shape = vector instanceof FixedSizeListVector ? new long[]{count, width} : new long[]{count};
+            return new RawTensor(name, dtype, shape, data);
+        }
+
+        /**
+         * Compone le colonne delle feature in un tensore [righe, feature] riga per riga
+         */
+        private RawTensor stack(String name, RawTensor.DType dtype, VectorSchemaRoot input, int offset, int count) {
+            int width = featureColumns.size();
+            int size = count * width * dtype.getSize();
+            if (scratch == null || scratch.capacity() < size) {
+                scratch = ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            ByteBuffer data = scratch.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            data.clear().limit(size);
+
+            for (int column = 0; column < width; column++) {
+                FieldVector vector = input.getVector(featureColumns.get(column));
+                for (int row = 0; row < count; row++) {
+                    int index = (row * width + column) * dtype.getSize();
+                    write(data, index, dtype, vector, offset + row);
+                }
+            }
+            return new RawTensor(name, dtype, new long[]{count, width}, data);
+        }
+
+        private static void write(ByteBuffer data, int index, RawTensor.DType dtype, FieldVector vector, int row) {
+            boolean isNull = vector.isNull(row);
+            if (vector instanceof FloatingPointVector floating) {
+                double value = isNull ? Double.NaN : floating.getValueAsDouble(row);
+                switch (dtype) {
+                    case FLOAT32 -> data.putFloat(index, (float) value);
+                    case FLOAT64 -> data.putDouble(index, value);
+                    default -> putInteger(data, index, dtype, vector, row, isNull, (long) value);
+                }
+            } else if (vector instanceof BaseIntVector integer) {
+                long value = isNull ? 0 : integer.getValueAsLong(row);
+                switch (dtype) {
+                    case FLOAT32 -> data.putFloat(index, isNull ? Float.NaN : value);
+                    case FLOAT64 -> data.putDouble(index, isNull ? Double.NaN : value);
+                    default -> putInteger(data, index, dtype, vector, row, isNull, value);
+                }
+            } else {
+                throw new IllegalArgumentException("Column '" + vector.getName() + "' is not numeric: " + vector.getMinorType());
+            }
+        }
+
+        private static void putInteger(ByteBuffer data, int index, RawTensor.DType dtype, FieldVector vector, int row,
+                                       boolean isNull, long value) {
+            // Gli input interi non hanno un valore per i mancanti
+            if (isNull) {
+                throw new IllegalArgumentException("Column '" + vector.getName() + "' has a null value at row " + row);
+            }
+            if (dtype == RawTensor.DType.INT32) {
+                data.putInt(index, Math.toIntExact(value));
+            } else {
+                data.putLong(index, value);
+            }
+        }
+
+        private static RawTensor.DType dtypeOf(FieldVector vector) {
+            if (vector instanceof Float4Vector) {
+                return RawTensor.DType.FLOAT32;
+            }
+            if (vector instanceof Float8Vector) {
+                return RawTensor.DType.FLOAT64;
+            }
+            if (vector instanceof IntVector) {
+                return RawTensor.DType.INT32;
+            }
+            if (vector instanceof BigIntVector) {
+                return RawTensor.DType.INT64;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Statistiche degli stream valutati
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("streams", streams.sum());
+        stats.put("batches", batches.sum());
+        stats.put("rows", rows.sum());
+        stats.put("failedRows", failedRows.sum());
+        stats.put("allocatedBytes", rootAllocator.getAllocatedMemory());
+        stats.put("peakAllocatedBytes", rootAllocator.getPeakMemoryAllocation());
+        stats.put("maxRowsPerBatch", maxRowsPerBatch);
+        return stats;
+    }
+
+    @PreDestroy
+    public void close() {
+        try {
+            rootAllocator.close();
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Chiusura allocatore Arrow: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package com.maiolix.maverick.service;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.BitVectorHelper;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.FixedSizeListVector;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import com.maiolix.maverick.handler.RawTensor;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Scrive gli output dei modelli come record batch Arrow su uno stream IPC.
+ * Lo schema è dedotto dal primo blocco di righe e resta fisso: colonne mancanti nei blocchi
+ * successivi sono null, colonne nuove vengono ignorate. I tensori sono copiati in blocco nei
+ * vettori (primitivi per [N], FixedSizeList per [N, ...]); le mappe diventano colonne
+ * {@code output.chiave}. La colonna {@value #ERROR_COLUMN} riporta l'errore di ogni riga.
+ */
+@Slf4j
+class ArrowOutputWriter implements AutoCloseable {
+
+    static final String ERROR_COLUMN = "_error";
+
+    /**
+     * Apre lo stream di risposta alla prima scrittura
+     */
+    @FunctionalInterface
+    interface ChannelOpener {
+        WritableByteChannel open() throws IOException;
+    }
+
+    /**
+     * Output di un blocco di righe: per colonna un {@link RawTensor} con le righe sulla prima
+     * dimensione oppure una lista con un valore per riga
+     */
+    record Chunk(int rows, Map<String, Object> columns, String[] errors) {
+
+        static Chunk failed(int rows, String message) {
+            String[] errors = new String[rows];
+            Arrays.fill(errors, message);
+            return new Chunk(rows, Map.of(), errors);
+        }
+    }
+
+    private enum Kind {
+        FLOAT32(new ArrowType.FloatingPoint(FloatingPointPrecision.SINGLE), RawTensor.DType.FLOAT32),
+        FLOAT64(new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE), RawTensor.DType.FLOAT64),
+        INT32(new ArrowType.Int(32, true), RawTensor.DType.INT32),
+        INT64(new ArrowType.Int(64, true), RawTensor.DType.INT64),
+        BOOL(ArrowType.Bool.INSTANCE, null),
+        UTF8(ArrowType.Utf8.INSTANCE, null);
+
+        private final ArrowType arrowType;
+        private final RawTensor.DType dtype;
+
+        Kind(ArrowType arrowType, RawTensor.DType dtype) {
+            this.arrowType = arrowType;
+            this.dtype = dtype;
+        }
+
+        static Kind of(RawTensor.DType dtype) {
+            for (Kind kind : values()) {
+                if (kind.dtype == dtype) {
+                    return kind;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported tensor type " + dtype);
+        }
+    }
+
+    /** Colonna di output: tipo degli elementi e dimensione della lista, 0 per valori scalari */
+    private record Column(String name, Kind kind, int listSize) {
+
+        Field toField() {
+            if (listSize == 0) {
+                return Field.nullable(name, kind.arrowType);
+            }
+            return new Field(name, FieldType.nullable(new ArrowType.FixedSizeList(listSize)),
+                    List.of(Field.nullable("item", kind.arrowType)));
+        }
+    }
+
+    private final BufferAllocator allocator;
+    private final ChannelOpener opener;
+    private List<Column> columns;
+    private VectorSchemaRoot root;
+    private ArrowStreamWriter writer;
+    private long batches;
+
+    ArrowOutputWriter(BufferAllocator allocator, ChannelOpener opener) {
+        this.allocator = allocator;
+        this.opener = opener;
+    }
+
+    /**
+     * Verifica se lo schema è già stato scritto sullo stream
+     */
+    boolean isStarted() {
+        return writer != null;
+    }
+
+    long getBatches() {
+        return batches;
+    }
+
+    /**
+     * Scrive un blocco come record batch; il primo blocco fissa lo schema
+     */
+    void write(Chunk chunk) throws IOException {
+        Map<String, Object> flat = flatten(chunk);
+        if (writer == null) {
+            start(flat);
+        }
+
+        int rows = chunk.rows();
+        for (Column column : columns) {
+            FieldVector vector = root.getVector(column.name());
+            vector.clear();
+            vector.setInitialCapacity(rows);
+            vector.allocateNew();
+            if (column.name().equals(ERROR_COLUMN)) {
+                fillValues(column, vector, chunk.errors() != null ? Arrays.asList(chunk.errors()) : null, rows);
+            } else {
+                Object values = flat.get(column.name());
+                if (values instanceof RawTensor tensor) {
+                    fillTensor(column, vector, tensor, rows);
+                } else {
+                    fillValues(column, vector, (List<?>) values, rows);
+                }
+            }
+            vector.setValueCount(rows);
+        }
+        root.setRowCount(rows);
+        writer.writeBatch();
+        batches++;
+    }
+
+    /**
+     * Chiude lo stream; senza alcun blocco scrive uno schema con la sola colonna degli errori
+     */
+    void finish() throws IOException {
+        if (writer == null) {
+            start(Map.of());
+        }
+        writer.end();
+    }
+
+    private void start(Map<String, Object> flat) throws IOException {
+        columns = new ArrayList<>();
+        flat.forEach((name, values) -> {
+            Column column = values instanceof RawTensor tensor ? tensorColumn(name, tensor) : valueColumn(name, (List<?>) values);
+            if (column != null) {
+                columns.add(column);
+            }
+        });
+        columns.add(new Column(ERROR_COLUMN, Kind.UTF8, 0));
+
+        Schema schema = new Schema(columns.stream().map(Column::toField).toList());
+        root = VectorSchemaRoot.create(schema, allocator);
+        writer = new ArrowStreamWriter(root, null, opener.open());
+        writer.start();
+    }
+
+    /**
+     * Porta le mappe annidate al primo livello: {"p": {"a": 0.1}} diventa la colonna "p.a"
+     */
+    private static Map<String, Object> flatten(Chunk chunk) {
+        Map<String, Object> flat = new LinkedHashMap<>();
+        chunk.columns().forEach((name, values) -> flattenInto(flat, name, values, chunk.rows()));
+        return flat;
+    }
+
+    private static void flattenInto(Map<String, Object> flat, String name, Object values, int rows) {
+        if (!(values instanceof List<?> list) || !(firstNonNull(list) instanceof Map)) {
+            flat.put(name, values);
+            return;
+        }
+        Map<String, List<Object>> nested = new LinkedHashMap<>();
+        for (int row = 0; row < list.size(); row++) {
+            if (list.get(row) instanceof Map<?, ?> map) {
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    List<Object> column = nested.computeIfAbsent(String.valueOf(entry.getKey()),
+                            key -> new ArrayList<>(Collections.nCopies(rows, null)));
+                    column.set(row, entry.getValue());
+                }
+            }
+        }
+        nested.forEach((key, column) -> flattenInto(flat, name + "." + key, column, rows));
+    }
+
+    private static Object firstNonNull(List<?> values) {
+        for (Object value : values) {
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static Column tensorColumn(String name, RawTensor tensor) {
+        return new Column(name, Kind.of(tensor.getDtype()), tensor.getRank() > 1 ? rowWidth(tensor) : 0);
+    }
+
+    private static Column valueColumn(String name, List<?> values) {
+        Object sample = firstNonNull(values);
+        if (sample != null && sample.getClass().isArray()) {
+            Class<?> component = sample.getClass().getComponentType();
+            Kind kind = component == float.class ? Kind.FLOAT32
+                    : component == double.class ? Kind.FLOAT64
+                    : component == int.class ? Kind.INT32
+                    : component == long.class ? Kind.INT64
+                    : null;
+            if (kind == null) {
+                log.debug("Output {} di tipo {} non rappresentabile in Arrow, ignorato", name, component);
+                return null;
+            }
+            return new Column(name, kind, Array.getLength(sample));
+        }
+        return new Column(name, scalarKind(sample), 0);
+    }
+
+    private static Kind scalarKind(Object sample) {
+        if (sample instanceof Float) {
+            return Kind.FLOAT32;
+        }
+        if (sample instanceof Long || sample instanceof Integer || sample instanceof Short || sample instanceof Byte) {
+            return Kind.INT64;
+        }
+        if (sample instanceof Number) {
+            return Kind.FLOAT64;
+        }
+        if (sample instanceof Boolean) {
+            return Kind.BOOL;
+        }
+        return Kind.UTF8;
+    }
+
+    private static int rowWidth(RawTensor tensor) {
+        long[] shape = tensor.getShape();
+        long width = 1;
+        for (int i = 1; i < shape.length; i++) {
+            width *= shape[i];
+        }
+        return Math.toIntExact(width);
+    }
+
+    private static void fillTensor(Column column, FieldVector vector, RawTensor tensor, int rows) {
+        if (Kind.of(tensor.getDtype()) != column.kind() || (column.listSize() > 0 && rowWidth(tensor) != column.listSize())) {
+            throw new IllegalStateException("Output " + tensor.describe() + " does not match the stream schema");
+        }
+        ByteBuffer data = tensor.getData();
+        // Copia in blocco: i vettori Arrow sono little-endian come i tensori
+        if (column.listSize() == 0) {
+            vector.getDataBuffer().setBytes(0, data);
+            setAllValid(vector.getValidityBuffer(), rows);
+        } else {
+            FixedSizeListVector list = (FixedSizeListVector) vector;
+            FieldVector child = list.getDataVector();
+            child.getDataBuffer().setBytes(0, data);
+            setAllValid(child.getValidityBuffer(), rows * column.listSize());
+            setAllValid(list.getValidityBuffer(), rows);
+            child.setValueCount(rows * column.listSize());
+        }
+    }
+
+    private static void setAllValid(ArrowBuf validity, int count) {
+        int bytes = BitVectorHelper.getValidityBufferSize(count);
+        for (int i = 0; i < bytes; i++) {
+            validity.setByte(i, 0xFF);
+        }
+    }
+
+    private static void fillValues(Column column, FieldVector vector, List<?> values, int rows) {
+        if (column.listSize() > 0) {
+            FixedSizeListVector list = (FixedSizeListVector) vector;
+            FieldVector child = list.getDataVector();
+            for (int row = 0; row < rows; row++) {
+                Object value = values != null ? values.get(row) : null;
+                if (value != null && value.getClass().isArray() && Array.getLength(value) == column.listSize()) {
+                    list.setNotNull(row);
+                    for (int i = 0; i < column.listSize(); i++) {
+                        setScalar(column.kind(), child, row * column.listSize() + i, Array.get(value, i));
+                    }
+                } else {
+                    list.setNull(row);
+                }
+            }
+            child.setValueCount(rows * column.listSize());
+            return;
+        }
+        for (int row = 0; row < rows; row++) {
+            setScalar(column.kind(), vector, row, values != null ? values.get(row) : null);
+        }
+    }
+
+    private static void setScalar(Kind kind, FieldVector vector, int index, Object value) {
+        boolean numeric = value instanceof Number;
+        switch (kind) {
+            case FLOAT32 -> {
+                if (numeric) {
+                    ((Float4Vector) vector).setSafe(index, ((Number) value).floatValue());
+                } else {
+                    ((Float4Vector) vector).setNull(index);
+                }
+            }
+            case FLOAT64 -> {
+                if (numeric) {
+                    ((Float8Vector) vector).setSafe(index, ((Number) value).doubleValue());
+                } else {
+                    ((Float8Vector) vector).setNull(index);
+                }
+            }
+            case INT32 -> {
+                if (numeric) {
+                    ((IntVector) vector).setSafe(index, ((Number) value).intValue());
+                } else {
+                    ((IntVector) vector).setNull(index);
+                }
+            }
+            case INT64 -> {
+                if (numeric) {
+                    ((BigIntVector) vector).setSafe(index, ((Number) value).longValue());
+                } else {
+                    ((BigIntVector) vector).setNull(index);
+                }
+            }
+            case BOOL -> {
+                if (value instanceof Boolean bool) {
+                    ((BitVector) vector).setSafe(index, bool ? 1 : 0);
+                } else {
+                    ((BitVector) vector).setNull(index);
+                }
+            }
+            default -> {
+                if (value != null) {
+                    ((VarCharVector) vector).setSafe(index, value.toString().getBytes(StandardCharsets.UTF_8));
+                } else {
+                    ((VarCharVector) vector).setNull(index);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (root != null) {
+            root.close();
+        }
+    }
+}
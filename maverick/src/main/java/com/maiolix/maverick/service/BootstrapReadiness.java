@@ -0,0 +1,116 @@
+package com.maiolix.maverick.service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.maiolix.maverick.entity.ModelEntity;
+import com.maiolix.maverick.registry.ModelCacheEntry;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Avanzamento del caricamento dei modelli attivi all'avvio.
+ * I modelli critici sono indicati per nome ({@code modelName}) o per nome e versione
+ * ({@code modelName:version}) e vengono risolti sui modelli attivi all'avvio del bootstrap.
+ * La readiness dipende solo dall'esito del bootstrap: un modello critico rimosso in seguito dalla
+ * memoria (budget o /remove) non la riporta DOWN, e il caricamento su richiesta può riportarlo in memoria.
+ */
+@Slf4j
+public class BootstrapReadiness {
+
+    private volatile boolean started;
+    private volatile boolean completed;
+    private volatile int total;
+    private volatile Set<String> criticalKeys = Set.of();
+    private final Set<String> loadedKeys = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger loaded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * Inizia un nuovo ciclo di caricamento
+     */
+    void start(List<ModelEntity> activeModels, Set<String> criticalModels) {
+        Set<String> keys = new HashSet<>();
+        Set<String> unmatched = new HashSet<>(criticalModels);
+        for (ModelEntity model : activeModels) {
+            String nameAndVersion = model.getModelName() + ":" + model.getVersion();
+            if (criticalModels.contains(model.getModelName()) || criticalModels.contains(nameAndVersion)) {
+                keys.add(ModelCacheEntry.generateKey(model.getModelName(), model.getVersion()));
+                unmatched.remove(model.getModelName());
+                unmatched.remove(nameAndVersion);
+            }
+        }
+        if (!unmatched.isEmpty()) {
+            log.warn("⚠️ Modelli critici non attivi nel database, ignorati per la readiness: {}", unmatched);
+        }
+
+        this.criticalKeys = Set.copyOf(keys);
+        this.total = activeModels.size();
+        this.loadedKeys.clear();
+        this.loaded.set(0);
+        this.failed.set(0);
+        this.completed = false;
+        this.started = true;
+    }
+
+    void loaded(ModelEntity model) {
+        loadedKeys.add(ModelCacheEntry.generateKey(model.getModelName(), model.getVersion()));
+        loaded.incrementAndGet();
+    }
+
+    void failed(ModelEntity model) {
+        failed.incrementAndGet();
+    }
+
+    void complete() {
+        this.completed = true;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getLoaded() {
+        return loaded.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Modelli ancora in caricamento, compresi quelli il cui timeout di bootstrap è scaduto
+     */
+    public int getPending() {
+        return Math.max(0, total - loaded.get() - failed.get());
+    }
+
+    /**
+     * Frazione di modelli caricati rispetto a quelli ancora caricabili: sono esclusi solo i
+     * caricamenti falliti, quelli scaduti restano al denominatore finché non terminano
+     */
+    public double getLoadedFraction() {
+        int loadable = total - failed.get();
+        return loadable <= 0 ? 1.0 : (double) loaded.get() / loadable;
+    }
+
+    /**
+     * Modelli critici il cui caricamento di bootstrap non è ancora riuscito
+     */
+    public Set<String> getMissingCriticalModels() {
+        Set<String> missing = new HashSet<>(criticalKeys);
+        missing.removeAll(loadedKeys);
+        return missing;
+    }
+}
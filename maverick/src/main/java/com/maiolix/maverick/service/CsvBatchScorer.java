@@ -0,0 +1,521 @@
+package com.maiolix.maverick.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.maiolix.maverick.exception.ModelNotFoundException;
+import com.maiolix.maverick.exception.ModelPredictionException;
+import com.maiolix.maverick.handler.IModelHandler;
+import com.maiolix.maverick.handler.RowResult;
+import com.maiolix.maverick.registry.ModelLease;
+import com.maiolix.maverick.registry.ModelRegistry;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Scoring di stream CSV con memoria limitata.
+ * L'intestazione è collegata alle feature del modello ({@code featureNames} di
+ * {@link IModelHandler#getInputSchema()}, oppure le colonne indicate dal chiamante, oppure tutte
+ * le colonne per posizione). Le righe sono raggruppate in blocchi di {@code batch-size} righe
+ * valutati in parallelo con {@link IModelHandler#predictBatch(List)} su un pool di worker
+ * condiviso; ogni richiesta ha al più {@code max-in-flight} blocchi in corso, quindi la lettura
+ * dell'input si ferma finché il blocco più vecchio non è stato scritto.
+ * <p>
+ * Le predizioni sono scritte come CSV nell'ordine delle righe di input, un blocco alla volta
+ * appena pronto: la colonna {@value #ROW_COLUMN} riporta l'indice della riga (da 0, intestazione
+ * esclusa), la colonna {@value #ERROR_COLUMN} l'eventuale errore della riga. Le colonne delle
+ * predizioni sono dedotte dal primo blocco con almeno una riga riuscita; mappe e array sono
+ * appiattiti in colonne {@code nome.chiave} e {@code nome.indice}. I blocchi precedenti, con sole
+ * righe fallite, attendono l'intestazione e sono scritti con il solo {@value #ERROR_COLUMN}; uno
+ * stream senza righe riuscite ha solo le colonne fisse. Una riga con chiavi assenti
+ * dall'intestazione è segnalata in {@value #ERROR_COLUMN} invece di perdere i valori in silenzio.
+ */
+@Service
+@Slf4j
+public class CsvBatchScorer {
+
+    /** Content type degli stream CSV */
+    public static final String MEDIA_TYPE = "text/csv";
+
+    /** Colonna con l'indice della riga di input */
+    public static final String ROW_COLUMN = "_row";
+
+    /** Colonna con l'errore della riga, vuota se la predizione è riuscita */
+    public static final String ERROR_COLUMN = "_error";
+
+    private final int batchSize;
+    private final int workerCount;
+    private final int maxInFlight;
+    private final int maxRecordLength;
+    private final ExecutorService workers;
+
+    private final LongAdder streams = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder failedRows = new LongAdder();
+    private final AtomicInteger inFlightChunks = new AtomicInteger();
+
+    public CsvBatchScorer(@Value("${maverick.csv.batch-size:1000}") int batchSize,
+                          @Value("${maverick.csv.workers:0}") int workers,
+                          @Value("${maverick.csv.max-in-flight:0}") int maxInFlight,
+                          @Value("${maverick.csv.max-record-length:1048576}") int maxRecordLength) {
+        this.batchSize = Math.max(1, batchSize);
+        this.workerCount = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : 2 * this.workerCount;
+        this.maxRecordLength = Math.max(1, maxRecordLength);
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(this.workerCount,
+                r -> daemon(r, "maverick-csv-worker-" + threads.incrementAndGet()));
+    }
+
+    /**
+     * Apre lo stream di risposta; chiamato solo quando il primo blocco di predizioni è pronto,
+     * così gli errori precedenti possono ancora essere restituiti come JSON
+     */
+    @FunctionalInterface
+    public interface ResponseOpener {
+        OutputStream open() throws IOException;
+    }
+
+    /**
+     * Esito di uno stream
+     * @param rows righe valutate
+     * @param successRows righe senza errori
+     * @param chunks blocchi valutati
+     */
+    public record Summary(long rows, long successRows, long chunks) {
+    }
+
+    /**
+     * Valuta tutte le righe dello stream CSV e scrive le predizioni come CSV
+     * @param modelName nome del modello
+     * @param version versione del modello
+     * @param in stream CSV con intestazione, in UTF-8
+     * @param features colonne da passare al modello, in ordine; null o vuota per usare le feature del modello
+     * @param opener apre lo stream di risposta alla prima scrittura
+     * @return righe valutate e blocchi scritti
+     * @throws IOException se l'input non può essere letto o la risposta non può essere scritta
+     */
+    public Summary score(String modelName, String version, InputStream in, List<String> features,
+                         ResponseOpener opener) throws IOException {
+        // Il lease mantiene aperto l'handler finché l'ultimo blocco non è stato valutato
+        try (ModelLease lease = ModelRegistry.acquire(modelName, version)) {
+            if (lease == null) {
+                throw new ModelNotFoundException("Model not found: " + modelName + " version: " + version);
+            }
+            IModelHandler handler = lease.getHandler();
+            streams.increment();
+
+            CsvRecordReader reader = new CsvRecordReader(
+                    new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), maxRecordLength);
+            List<String> header = readRecord(reader);
+            if (header == null) {
+                throw new ModelPredictionException("Empty CSV stream: a header row is required");
+            }
+            FeatureMapping mapping = FeatureMapping.resolve(handler, header, features);
+
+            CsvOutput output = new CsvOutput(opener, failedRows);
+            Deque<PendingChunk> inFlight = new ArrayDeque<>();
+            AtomicBoolean aborted = new AtomicBoolean();
+            boolean completed = false;
+            try {
+                long nextRow = 0;
+                List<List<String>> records;
+                while (!(records = readChunk(reader)).isEmpty()) {
+                    inFlight.add(submit(handler, mapping, nextRow, records, aborted));
+                    nextRow += records.size();
+                    // Scrive i blocchi già pronti; oltre il limite attende il più vecchio
+                    while (!inFlight.isEmpty() && (inFlight.size() >= maxInFlight || inFlight.peek().future.isDone())) {
+                        output.write(await(inFlight.poll(), output.isStarted()));
+                    }
+                }
+                while (!inFlight.isEmpty()) {
+                    output.write(await(inFlight.poll(), output.isStarted()));
+                }
+                output.finish();
+                completed = true;
+                return new Summary(output.rows, output.successRows, output.chunks);
+            } finally {
+                if (!completed) {
+                    abandon(inFlight, aborted);
+                }
+            }
+        }
+    }
+
+    private List<List<String>> readChunk(CsvRecordReader reader) throws IOException {
+        List<List<String>> records = new ArrayList<>(Math.min(batchSize, 1024));
+        List<String> cells;
+        while (records.size() < batchSize && (cells = readRecord(reader)) != null) {
+            records.add(cells);
+        }
+        return records;
+    }
+
+    private static List<String> readRecord(CsvRecordReader reader) throws IOException {
+        try {
+            return reader.next();
+        } catch (IllegalArgumentException e) {
+            throw new ModelPredictionException("Invalid CSV stream: " + e.getMessage(), e);
+        }
+    }
+
+    private PendingChunk submit(IModelHandler handler, FeatureMapping mapping, long firstRow,
+                                List<List<String>> records, AtomicBoolean aborted) {
+        inFlightChunks.incrementAndGet();
+        Future<ScoredChunk> future = workers.submit(() -> {
+            try {
+                return aborted.get() ? null : scoreChunk(handler, mapping, firstRow, records);
+            } finally {
+                inFlightChunks.decrementAndGet();
+            }
+        });
+        return new PendingChunk(firstRow, records.size(), future);
+    }
+
+    private ScoredChunk await(PendingChunk pending, boolean started) {
+        ScoredChunk scored;
+        try {
+            scored = pending.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ModelPredictionException("CSV scoring interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (!started) {
+                // Nulla è stato ancora scritto: la richiesta fallisce con un errore JSON
+                throw cause instanceof ModelPredictionException mpe ? mpe : new ModelPredictionException(cause.getMessage(), cause);
+            }
+            log.warn("⚠️ Blocco CSV di {} righe fallito: {}", pending.count, cause.getMessage());
+            scored = ScoredChunk.failed(pending.firstRow, pending.count, cause.getMessage());
+        }
+        chunks.increment();
+        rows.add(scored.count());
+        failedRows.add(scored.failedRows());
+        return scored;
+    }
+
+    /**
+     * Ferma i blocchi non ancora avviati e attende quelli in corso, che usano ancora l'handler del lease
+     */
+    private static void abandon(Deque<PendingChunk> inFlight, AtomicBoolean aborted) {
+        aborted.set(true);
+        boolean interrupted = false;
+        for (PendingChunk pending : inFlight) {
+            while (true) {
+                try {
+                    pending.future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ScoredChunk scoreChunk(IModelHandler handler, FeatureMapping mapping, long firstRow,
+                                          List<List<String>> records) {
+        int count = records.size();
+        String[] errors = new String[count];
+        List<Map<String, Object>> inputs = new ArrayList<>(count);
+        int[] positions = new int[count];
+        for (int i = 0; i < count; i++) {
+            try {
+                positions[inputs.size()] = i;
+                inputs.add(mapping.toInput(records.get(i)));
+            } catch (IllegalArgumentException e) {
+                errors[i] = e.getMessage();
+            }
+        }
+
+        List<Map<String, String>> values = new ArrayList<>(Collections.nCopies(count, null));
+        List<RowResult> results = inputs.isEmpty() ? List.of() : handler.predictBatch(inputs);
+        for (int j = 0; j < results.size(); j++) {
+            int i = positions[j];
+            RowResult result = results.get(j);
+            if (result.isSuccess()) {
+                Map<String, String> flattened = new LinkedHashMap<>();
+                flatten(result.getPrediction() instanceof Map<?, ?> ? null : "prediction", result.getPrediction(), flattened);
+                values.set(i, flattened);
+            } else {
+                errors[i] = result.getError().getMessage();
+            }
+        }
+        return new ScoredChunk(firstRow, count, values, errors);
+    }
+
+    private static void flatten(String name, Object value, Map<String, String> out) {
+        if (value instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                String key = String.valueOf(entry.getKey());
+                flatten(name == null ? key : name + "." + key, entry.getValue(), out);
+            }
+        } else if (value instanceof List<?> list && list.size() == 1) {
+            // Le predizioni per riga mantengono la dimensione del batch
+            flatten(name, list.get(0), out);
+        } else if (value instanceof List<?> list) {
+            for (int i = 0; i < list.size(); i++) {
+                flatten(name + "." + i, list.get(i), out);
+            }
+        } else if (value != null && value.getClass().isArray() && Array.getLength(value) == 1) {
+            flatten(name, Array.get(value, 0), out);
+        } else if (value != null && value.getClass().isArray()) {
+            for (int i = 0; i < Array.getLength(value); i++) {
+                flatten(name + "." + i, Array.get(value, i), out);
+            }
+        } else {
+            out.put(name, value == null ? "" : value.toString());
+        }
+    }
+
+    /**
+     * Colonne dell'intestazione passate al modello, risolte una volta per stream
+     */
+    private static final class FeatureMapping {
+        private final String[] names;
+        private final int[] indexes;
+        private final int columns;
+
+        private FeatureMapping(List<String> names, int[] indexes, int columns) {
+            this.names = names.toArray(new String[0]);
+            this.indexes = indexes;
+            this.columns = columns;
+        }
+
+        static FeatureMapping resolve(IModelHandler handler, List<String> header, List<String> requested) {
+            Map<String, Integer> positions = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                positions.putIfAbsent(header.get(i).trim(), i);
+            }
+
+            // Colonne indicate dal chiamante, altrimenti feature dichiarate dal modello, altrimenti tutte per posizione
+            List<String> features = new ArrayList<>();
+            if (requested != null && !requested.isEmpty()) {
+                features.addAll(requested);
+            } else if (handler.getInputSchema().get("featureNames") instanceof List<?> declared && !declared.isEmpty()) {
+                declared.forEach(name -> features.add(String.valueOf(name)));
+            } else {
+                header.forEach(name -> features.add(name.trim()));
+            }
+
+            int[] indexes = new int[features.size()];
+            for (int i = 0; i < features.size(); i++) {
+                Integer index = positions.get(features.get(i));
+                if (index == null) {
+                    throw new ModelPredictionException("Missing CSV column '" + features.get(i) + "'. Expected: " + features);
+                }
+                indexes[i] = index;
+            }
+            return new FeatureMapping(features, indexes, header.size());
+        }
+
+        /**
+         * Riga di input del modello; le celle vuote sono valori mancanti
+         */
+        Map<String, Object> toInput(List<String> cells) {
+            if (cells.size() != columns) {
+                throw new IllegalArgumentException("Expected " + columns + " CSV columns but got " + cells.size());
+            }
+            Map<String, Object> input = new LinkedHashMap<>(names.length * 2);
+            for (int i = 0; i < names.length; i++) {
+                String cell = cells.get(indexes[i]);
+                if (!cell.isEmpty()) {
+                    input.put(names[i], cell);
+                }
+            }
+            return input;
+        }
+    }
+
+    private record PendingChunk(long firstRow, int count, Future<ScoredChunk> future) {
+    }
+
+    /**
+     * Predizioni appiattite di un blocco; per ogni riga sono valorizzati i valori oppure l'errore
+     */
+    private record ScoredChunk(long firstRow, int count, List<Map<String, String>> values, String[] errors) {
+
+        static ScoredChunk failed(long firstRow, int count, String error) {
+            String[] errors = new String[count];
+            Arrays.fill(errors, error);
+            return new ScoredChunk(firstRow, count, Collections.nCopies(count, null), errors);
+        }
+
+        int failedRows() {
+            int failed = 0;
+            for (String error : errors) {
+                if (error != null) {
+                    failed++;
+                }
+            }
+            return failed;
+        }
+    }
+
+    /**
+     * Scrittura ordinata dei blocchi; l'intestazione è dedotta dal primo blocco con righe riuscite
+     */
+    private static final class CsvOutput {
+        private final ResponseOpener opener;
+        private final LongAdder failedRows;
+        /** Blocchi con sole righe fallite arrivati prima dell'intestazione */
+        private final List<ScoredChunk> pending = new ArrayList<>();
+        private Writer writer;
+        private Set<String> columns;
+        private long rows;
+        private long successRows;
+        private long chunks;
+
+        CsvOutput(ResponseOpener opener, LongAdder failedRows) {
+            this.opener = opener;
+            this.failedRows = failedRows;
+        }
+
+        boolean isStarted() {
+            return writer != null;
+        }
+
+        void write(ScoredChunk chunk) throws IOException {
+            if (writer == null) {
+                Set<String> names = new LinkedHashSet<>();
+                for (Map<String, String> values : chunk.values()) {
+                    if (values != null) {
+                        names.addAll(values.keySet());
+                    }
+                }
+                if (names.isEmpty()) {
+                    // Senza righe riuscite le colonne di output non sono ancora deducibili
+                    pending.add(chunk);
+                    return;
+                }
+                start(names);
+            }
+            writeRows(chunk);
+            // Ogni blocco è inviato al client appena scritto
+            writer.flush();
+        }
+
+        private void writeRows(ScoredChunk chunk) throws IOException {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < chunk.count(); i++) {
+                line.setLength(0);
+                line.append(chunk.firstRow() + i);
+                Map<String, String> values = chunk.values().get(i);
+                for (String column : columns) {
+                    line.append(',');
+                    appendCell(line, values == null ? null : values.get(column));
+                }
+                String error = chunk.errors()[i];
+                if (error == null && values != null && !columns.containsAll(values.keySet())) {
+                    Set<String> extra = new LinkedHashSet<>(values.keySet());
+                    extra.removeAll(columns);
+                    error = "Output columns not in the CSV header: " + extra;
+                    failedRows.increment();
+                }
+                line.append(',');
+                appendCell(line, error);
+                writer.write(line.append('\n').toString());
+                if (error == null) {
+                    successRows++;
+                }
+            }
+            rows += chunk.count();
+            chunks++;
+        }
+
+        private void start(Set<String> names) throws IOException {
+            columns = names;
+            writer = new BufferedWriter(new OutputStreamWriter(opener.open(), StandardCharsets.UTF_8));
+            StringBuilder line = new StringBuilder(ROW_COLUMN);
+            for (String column : columns) {
+                appendCell(line.append(','), column);
+            }
+            writer.write(line.append(',').append(ERROR_COLUMN).append('\n').toString());
+            for (ScoredChunk chunk : pending) {
+                writeRows(chunk);
+            }
+            pending.clear();
+        }
+
+        void finish() throws IOException {
+            if (writer == null) {
+                // Stream senza righe riuscite: solo le colonne fisse
+                start(Set.of());
+            }
+            writer.flush();
+        }
+
+        private static void appendCell(StringBuilder line, String value) {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                line.append(value);
+            } else {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            }
+        }
+    }
+
+    /**
+     * Statistiche degli stream valutati
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("streams", streams.sum());
+        stats.put("chunks", chunks.sum());
+        stats.put("rows", rows.sum());
+        stats.put("failedRows", failedRows.sum());
+        stats.put("inFlightChunks", inFlightChunks.get());
+        stats.put("batchSize", batchSize);
+        stats.put("workers", workerCount);
+        stats.put("maxInFlight", maxInFlight);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,107 @@
+package com.maiolix.maverick.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lettore di record CSV (RFC 4180) su uno stream a caratteri.
+ * Gestisce campi fra doppi apici con virgole, apici raddoppiati e a capo al loro interno,
+ * terminatori LF e CRLF, righe vuote (ignorate) e il BOM UTF-8 iniziale. La lunghezza di un
+ * record è limitata, così un input malformato non può occupare memoria senza limite.
+ */
+final class CsvRecordReader {
+
+    private static final int NONE = -2;
+
+    private final Reader in;
+    private final int maxRecordLength;
+    private int pending = NONE;
+    private long records;
+    private boolean first = true;
+
+    CsvRecordReader(Reader in, int maxRecordLength) {
+        this.in = in;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * Legge il prossimo record
+     * @return i campi del record, o null a fine stream
+     * @throws IOException se lo stream non può essere letto
+     * @throws IllegalArgumentException se il record è malformato o troppo lungo
+     */
+    List<String> next() throws IOException {
+        int c = read();
+        while (c == '\r' || c == '\n') {
+            c = read();
+        }
+        if (c < 0) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStart = true;
+        int length = 0;
+        while (true) {
+            if (++length > maxRecordLength) {
+                throw new IllegalArgumentException("Record " + (records + 1) + " exceeds " + maxRecordLength + " characters");
+            }
+            if (quoted) {
+                if (c < 0) {
+                    throw new IllegalArgumentException("Unterminated quoted field in record " + (records + 1));
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next != '"') {
+                        // Fine del campo fra apici: il carattere successivo è valutato come non quotato
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+                fieldStart = false;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+            } else if (c == '\n' || c == '\r' || c < 0) {
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') {
+                        pending = next;
+                    }
+                }
+                fields.add(field.toString());
+                records++;
+                return fields;
+            } else {
+                field.append((char) c);
+                fieldStart = false;
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (pending != NONE) {
+            int c = pending;
+            pending = NONE;
+            return c;
+        }
+        int c = in.read();
+        if (first) {
+            first = false;
+            if (c == '\uFEFF') {
+                c = in.read();
+            }
+        }
+        return c;
+    }
+}
@@ -1,7 +1,15 @@
 package com.maiolix.maverick.service;
 
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.web.multipart.MultipartFile;
 
+import com.maiolix.maverick.handler.OnnxSessionProfile;
+import com.maiolix.maverick.handler.RawTensor;
+import com.maiolix.maverick.handler.RowResult;
+
 public interface IModelService {
     void uploadModel(MultipartFile file, String modelName, String type, String version);
     
@@ -14,6 +22,24 @@ public interface IModelService {
      */
     Object predict(String modelName, String version, Object input);
     
+    /**
+     * Execute a prediction for each input row using a specific model version
+     * @param modelName the name of the model
+     * @param version the version of the model
+     * @param inputs the input rows for prediction
+     * @return one result per input row, in the same order
+     */
+    List<RowResult> predictBatch(String modelName, String version, List<?> inputs);
+    
+    /**
+     * Execute a prediction on raw tensors using a specific model version
+     * @param modelName the name of the model
+     * @param version the version of the model
+     * @param inputs the input tensors
+     * @return the outputs by name; numeric tensor outputs are {@link RawTensor}
+     */
+    Map<String, Object> predictTensors(String modelName, String version, List<RawTensor> inputs);
+    
     /**
      * Get input schema for a specific model version
      * @param modelName the name of the model
@@ -54,6 +80,26 @@ public interface IModelService {
      */
     Object createModelHandler(java.io.InputStream inputStream, String type);
 
+    /**
+     * Create a model handler from an InputStream with the ONNX Runtime session settings of the model
+     * @param inputStream the input stream of the model file
+     * @param type the type of the model (ONNX, MOJO, PMML, etc.)
+     * @param sessionProfile session profile for ONNX and ONNX_EXT models, null for defaults; ignored by other types
+     * @return the model handler instance
+     */
+    Object createModelHandler(java.io.InputStream inputStream, String type, OnnxSessionProfile sessionProfile);
+
+    /**
+     * Create a model handler from a model file on local disk; ONNX sessions are created from the file
+     * by ONNX Runtime, without reading the model into the heap
+     * @param modelFile the model file
+     * @param fileHash SHA-256 of the file if already known, null otherwise; keys the ONNX graph cache without rehashing
+     * @param type the type of the model (ONNX, MOJO, PMML, etc.)
+     * @param sessionProfile session profile for ONNX and ONNX_EXT models, null for defaults; ignored by other types
+     * @return the model handler instance
+     */
+    Object createModelHandlerFromFile(Path modelFile, String fileHash, String type, OnnxSessionProfile sessionProfile);
+
     /**
      * Remove a model from the registry
      * @param modelName the name of the model
@@ -1,17 +1,25 @@
 package com.maiolix.maverick.service;
 
-import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import com.maiolix.maverick.entity.ModelEntity;
-import com.maiolix.maverick.exception.ModelBootstrapException;
-import com.maiolix.maverick.handler.IModelHandler;
+import com.maiolix.maverick.registry.ModelCacheEntry;
 import com.maiolix.maverick.registry.ModelRegistry;
-import com.maiolix.maverick.repository.IModelStorageRepository;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -25,67 +33,169 @@ import lombok.extern.slf4j.Slf4j;
 public class ModelBootstrapService {
 
     private final ModelDatabaseService modelDatabaseService;
-    private final IModelStorageRepository storageRepository;
-    private final IModelService modelService;
+    private final ModelLoader modelLoader;
+    private final BootstrapReadiness readiness = new BootstrapReadiness();
+
+    private static final int DEFAULT_PARALLELISM = 4;
+
+    @Value("${maverick.bootstrap.parallelism:4}")
+    private int parallelism;
+
+    @Value("${maverick.bootstrap.model-timeout-seconds:300}")
+    private long modelTimeoutSeconds;
+
+    @Value("${maverick.bootstrap.readiness.critical-models:}")
+    private String criticalModelsConfig;
 
     /**
      * Carica automaticamente tutti i modelli attivi all'avvio dell'applicazione
-     * Viene eseguito dopo che l'applicazione è completamente inizializzata
+     * Viene eseguito dopo che l'applicazione è completamente inizializzata.
+     * I modelli sono caricati in parallelo (al massimo {@code maverick.bootstrap.parallelism}
+     * alla volta) partendo dai più usati, con un timeout per singolo modello.
      */
     @EventListener(ApplicationReadyEvent.class)
     public void loadActiveModelsOnStartup() {
         log.info("🚀 Avvio caricamento automatico modelli attivi...");
-        
+        loadActiveModels(false);
+    }
+
+    /**
+     * Carica i modelli attivi; con replace=true i modelli già in memoria vengono sostituiti a caldo.
+     * Solo il caricamento all'avvio aggiorna la readiness: durante una sostituzione a caldo i modelli
+     * restano serviti e il pod non deve uscire dal bilanciamento.
+     * @return le chiavi dei modelli attivi nel database, null se non è stato possibile leggerli
+     */
+    private Set<String> loadActiveModels(boolean replace) {
+        Set<String> activeKeys = null;
         try {
             // === RECUPERA MODELLI ATTIVI DAL DATABASE ===
-            List<ModelEntity> activeModels = modelDatabaseService.findActiveModels();
+            List<ModelEntity> activeModels = new ArrayList<>(modelDatabaseService.findActiveModels());
+            activeKeys = activeModels.stream()
+                    .map(model -> ModelCacheEntry.generateKey(model.getModelName(), model.getVersion()))
+                    .collect(Collectors.toSet());
             
             if (activeModels.isEmpty()) {
                 log.info("📋 Nessun modello attivo trovato nel database");
-                return;
+                if (!replace) {
+                    readiness.start(activeModels, criticalModels());
+                }
+                return activeKeys;
             }
             
-            log.info("📋 Trovati {} modelli attivi da caricare", activeModels.size());
+            // === ORDINAMENTO PER UTILIZZO (PIÙ USATI PRIMA) ===
+            activeModels.sort(Comparator.comparingLong(ModelBootstrapService::usage).reversed());
+            if (!replace) {
+                readiness.start(activeModels, criticalModels());
+            }
             
-            int successCount = 0;
-            int failureCount = 0;
+            int effectiveParallelism = parallelism > 0 ? parallelism : DEFAULT_PARALLELISM;
+            log.info("📋 Trovati {} modelli attivi da caricare (parallelismo {}, timeout {}s per modello)",
+                    activeModels.size(), effectiveParallelism, modelTimeoutSeconds > 0 ? modelTimeoutSeconds : "-");
             
             // === CARICAMENTO MODELLI IN MEMORIA ===
+            List<CompletableFuture<Boolean>> outcomes = new ArrayList<>(activeModels.size());
+            Semaphore permits = new Semaphore(effectiveParallelism);
             for (ModelEntity model : activeModels) {
-                if (loadSingleModel(model)) {
-                    successCount++;
-                    log.info("✅ Modello caricato: {} v{}", model.getModelName(), model.getVersion());
-                } else {
-                    failureCount++;
-                    handleModelLoadFailure(model);
-                }
+                permits.acquire();
+                outcomes.add(loadAsync(model, permits, replace));
             }
+            CompletableFuture.allOf(outcomes.toArray(new CompletableFuture<?>[0])).join();
             
             // === STATISTICHE FINALI ===
+            long successCount = outcomes.stream().filter(CompletableFuture::join).count();
             log.info("🎯 Caricamento completato - Successi: {}, Fallimenti: {}", 
-                    successCount, failureCount);
+                    successCount, outcomes.size() - successCount);
             
             if (successCount > 0) {
                 logMemoryStatistics();
             }
             
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("❌ Caricamento automatico modelli interrotto");
         } catch (Exception e) {
             log.error("❌ Errore durante caricamento automatico modelli: {}", e.getMessage(), e);
+        } finally {
+            if (!replace) {
+                readiness.complete();
+            }
         }
+        return activeKeys;
     }
 
     /**
-     * Carica un singolo modello in memoria
+     * Avvia il caricamento di un modello. Il permesso viene rilasciato solo quando il caricamento
+     * condiviso termina, così i caricamenti in corso non superano mai il parallelismo configurato.
+     * Il caricamento passa dal ModelLoader: se il modello è già in caricamento (/load o predizione) lo si attende.
+     * Allo scadere del timeout il bootstrap smette di attendere, ma il modello resta in sospeso per
+     * la readiness finché il caricamento non termina.
      */
-    private boolean loadSingleModel(ModelEntity model) {
+    private CompletableFuture<Boolean> loadAsync(ModelEntity model, Semaphore permits, boolean replace) {
+        CompletableFuture<ModelCacheEntry> shared;
         try {
-            loadModelIntoMemory(model);
-            return true;
-        } catch (Exception e) {
+            shared = modelLoader.loadAsync(model, replace);
+        } catch (RuntimeException e) {
+            shared = CompletableFuture.failedFuture(e);
+        }
+        
+        // Esito del caricamento vero e proprio, anche se arriva dopo il timeout
+        CompletableFuture<Boolean> settled = shared.handle((ignored, error) -> {
+            permits.release();
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            
+            if (cause == null) {
+                if (!replace) {
+                    readiness.loaded(model);
+                }
+                log.info("✅ Modello caricato: {} v{}", model.getModelName(), model.getVersion());
+                return true;
+            }
+            
+            if (!replace) {
+                readiness.failed(model);
+            }
             log.error("❌ Errore caricamento modello {} v{}: {}", 
-                    model.getModelName(), model.getVersion(), e.getMessage(), e);
+                    model.getModelName(), model.getVersion(), cause.getMessage(), cause);
+            handleModelLoadFailure(model);
             return false;
+        });
+        if (modelTimeoutSeconds <= 0) {
+            return settled;
         }
+        
+        // copy(): il timeout riguarda solo questa attesa, non il caricamento condiviso
+        return settled.copy().orTimeout(modelTimeoutSeconds, TimeUnit.SECONDS).exceptionally(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (!(cause instanceof TimeoutException)) {
+                log.error("❌ Errore caricamento modello {} v{}: {}", model.getModelName(), model.getVersion(), cause.getMessage(), cause);
+                return false;
+            }
+            // Il caricamento prosegue in background e registrerà il modello appena pronto
+            log.error("⏱️ Timeout caricamento modello {} v{} dopo {}s: il caricamento prosegue in background", 
+                    model.getModelName(), model.getVersion(), modelTimeoutSeconds);
+            return false;
+        });
+    }
+
+    private static long usage(ModelEntity model) {
+        return model.getPredictionCount() != null ? model.getPredictionCount() : 0L;
+    }
+
+    private Set<String> criticalModels() {
+        if (criticalModelsConfig == null || criticalModelsConfig.isBlank()) {
+            return Set.of();
+        }
+        return Arrays.stream(criticalModelsConfig.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Stato di avanzamento del caricamento, usato dall'health check di readiness
+     */
+    public BootstrapReadiness getReadiness() {
+        return readiness;
     }
 
     /**
@@ -93,8 +203,7 @@ public class ModelBootstrapService {
      */
     private void handleModelLoadFailure(ModelEntity model) {
         try {
-            model.setIsActive(false);
-            modelDatabaseService.saveModel(model);
+            modelDatabaseService.deactivateModel(model.getId());
             log.warn("⚠️ Modello {} v{} disattivato a causa dell'errore di caricamento", 
                     model.getModelName(), model.getVersion());
         } catch (Exception saveError) {
@@ -102,37 +211,6 @@ public class ModelBootstrapService {
         }
     }
 
-    /**
-     * Carica un singolo modello in memoria
-     */
-    private void loadModelIntoMemory(ModelEntity model) throws Exception {
-        String modelName = model.getModelName();
-        String version = model.getVersion();
-        
-        // === VERIFICA SE GIÀ IN MEMORIA ===
-        if (ModelRegistry.exists(modelName, version)) {
-            log.debug("⚡ Modello {} v{} già presente in memoria", modelName, version);
-            return;
-        }
-        
-        // === DOWNLOAD DA STORAGE ===
-        log.debug("📥 Download modello da {}: {}", storageRepository.getProviderType().getDisplayName(), model.getFilePath());
-        
-        try (InputStream modelStream = storageRepository.downloadModel(model.getFilePath())) {
-            
-            // === CREAZIONE HANDLER ===
-            Object handler = modelService.createModelHandler(modelStream, model.getType().toString());
-            
-            // === REGISTRAZIONE IN CACHE ===
-            ModelRegistry.register(modelName, model.getType().toString(), version, (IModelHandler) handler);
-            
-            log.debug("🧠 Modello {} v{} registrato in memoria", modelName, version);
-            
-        } catch (Exception e) {
-            throw new ModelBootstrapException("Errore caricamento modello " + modelName + " v" + version, e);
-        }
-    }
-
     /**
      * Stampa statistiche della memoria cache
      */
@@ -144,7 +222,7 @@ public class ModelBootstrapService {
             // Raggruppa per tipo
             var typeStats = cachedModels.stream()
                 .collect(java.util.stream.Collectors.groupingBy(
-                    com.maiolix.maverick.registry.ModelCacheEntry::getType,
+                    ModelCacheEntry::getType,
                     java.util.stream.Collectors.counting()
                 ));
             
@@ -163,12 +241,20 @@ public class ModelBootstrapService {
     public void reloadAllActiveModels() {
         log.info("🔄 Ricaricamento manuale modelli attivi...");
         
-        // Pulisce la cache esistente
-        ModelRegistry.clear();
-        log.info("🧹 Cache memoria pulita");
+        // Ricarica tutti i modelli attivi: ogni modello viene sostituito a caldo e il vecchio
+        // handler chiuso al termine delle predizioni in corso
+        Set<String> activeKeys = loadActiveModels(true);
+        if (activeKeys == null) {
+            return;
+        }
         
-        // Ricarica tutti i modelli attivi
-        loadActiveModelsOnStartup();
+        // Rimuove dalla memoria i modelli non più attivi
+        for (ModelCacheEntry entry : List.copyOf(ModelRegistry.getAllModels())) {
+            if (!activeKeys.contains(entry.getKey())) {
+                ModelRegistry.remove(entry.getModelName(), entry.getVersion());
+                log.info("🧹 Modello {} non più attivo rimosso dalla memoria", entry.getKey());
+            }
+        }
     }
 
     /**
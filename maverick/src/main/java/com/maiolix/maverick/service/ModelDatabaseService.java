@@ -2,6 +2,7 @@ package com.maiolix.maverick.service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -9,7 +10,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.maiolix.maverick.entity.ModelEntity;
 import com.maiolix.maverick.repository.ModelRepository;
@@ -27,6 +31,7 @@ import lombok.extern.slf4j.Slf4j;
 public class ModelDatabaseService {
 
     private final ModelRepository modelRepository;
+    private final ModelEntityCache modelEntityCache;
 
     // ==== OPERAZIONI CRUD BASE ====
 
@@ -41,6 +46,7 @@ public class ModelDatabaseService {
         log.info("Salvando modello: {} v{} in {}", 
                 model.getModelName(), model.getVersion(), model.getStorageType());
         
+        invalidateCache(() -> modelEntityCache.invalidate(model));
         return modelRepository.save(model);
     }
 
@@ -53,19 +59,20 @@ public class ModelDatabaseService {
     }
 
     /**
-     * Trova un modello per nome e versione
+     * Trova un modello per nome e versione (dalla cache se presente, senza aprire transazioni)
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Optional<ModelEntity> findByNameAndVersion(String name, String version) {
-        return modelRepository.findByModelNameAndVersion(name, version);
+        return modelEntityCache.getByNameAndVersion(name, version,
+                () -> modelRepository.findByModelNameAndVersion(name, version));
     }
 
     /**
-     * Trova un modello per UUID
+     * Trova un modello per UUID (dalla cache se presente, senza aprire transazioni)
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Optional<ModelEntity> findByUuid(String uuid) {
-        return modelRepository.findByModelUuid(uuid);
+        return modelEntityCache.getByUuid(uuid, () -> modelRepository.findByModelUuid(uuid));
     }
 
     /**
@@ -131,13 +138,16 @@ public class ModelDatabaseService {
     // ==== OPERAZIONI DI AGGIORNAMENTO ====
 
     /**
-     * Registra utilizzo modello
+     * Applica i contatori di predizione accumulati in memoria, un aggiornamento per modello in una sola transazione
+     * @return modelli aggiornati (quelli eliminati nel frattempo sono ignorati)
      */
-    public void recordPrediction(Long modelId) {
-        int updated = modelRepository.incrementPredictionCount(modelId, LocalDateTime.now());
-        if (updated > 0) {
-            log.debug("Incrementato contatore predizioni per modello ID: {}", modelId);
+    public int applyPredictionDeltas(Map<Long, PredictionCounter.PredictionDelta> deltas) {
+        int updated = 0;
+        for (Map.Entry<Long, PredictionCounter.PredictionDelta> delta : deltas.entrySet()) {
+            updated += modelRepository.addPredictions(delta.getKey(), delta.getValue().count(), delta.getValue().lastUsedAt());
         }
+        log.debug("Contatori predizioni aggiornati per {} modelli", updated);
+        return updated;
     }
 
     /**
@@ -146,6 +156,7 @@ public class ModelDatabaseService {
     public boolean updateModelStatus(Long modelId, ModelEntity.ModelStatus status) {
         int updated = modelRepository.updateStatus(modelId, status, LocalDateTime.now());
         if (updated > 0) {
+            invalidateCache(modelEntityCache::invalidateAll);
             log.info("Stato modello ID {} aggiornato a: {}", modelId, status);
             return true;
         }
@@ -158,12 +169,32 @@ public class ModelDatabaseService {
     public boolean deactivateModel(Long modelId) {
         int updated = modelRepository.deactivateModel(modelId, LocalDateTime.now());
         if (updated > 0) {
+            invalidateCache(modelEntityCache::invalidateAll);
             log.info("Modello ID {} disattivato", modelId);
             return true;
         }
         return false;
     }
 
+    /**
+     * Attiva un modello appena caricato in memoria e ne salva i metadati (profilo sessione, pinned)
+     * con un aggiornamento mirato: contatori e ultimo utilizzo salvati da altri non vengono sovrascritti
+     */
+    public boolean markModelLoaded(ModelEntity model) {
+        int updated = modelRepository.activateLoadedModel(model.getId(), model.getMetadata(), LocalDateTime.now());
+        invalidateCache(() -> modelEntityCache.invalidate(model));
+        return updated > 0;
+    }
+
+    /**
+     * Salva solo i metadati di un modello
+     */
+    public boolean updateModelMetadata(ModelEntity model) {
+        int updated = modelRepository.updateMetadata(model.getId(), model.getMetadata(), LocalDateTime.now());
+        invalidateCache(() -> modelEntityCache.invalidate(model));
+        return updated > 0;
+    }
+
     /**
      * Deploy di una nuova versione (disattiva le precedenti)
      */
@@ -177,6 +208,7 @@ public class ModelDatabaseService {
                 newModel.getVersion(), 
                 LocalDateTime.now()
         );
+        invalidateCache(() -> modelEntityCache.invalidateModel(newModel.getModelName()));
         
         log.info("Deployed {} v{}, disattivate {} versioni precedenti", 
                 newModel.getModelName(), newModel.getVersion(), deactivated);
@@ -281,6 +313,7 @@ public class ModelDatabaseService {
         if (modelOpt.isPresent()) {
             ModelEntity model = modelOpt.get();
             modelRepository.delete(model);
+            invalidateCache(() -> modelEntityCache.invalidate(model));
             log.info("✅ Modello {} v{} eliminato dal database (ID: {})", modelName, version, model.getId());
             return true;
         } else {
@@ -299,6 +332,7 @@ public class ModelDatabaseService {
         if (modelOpt.isPresent()) {
             ModelEntity model = modelOpt.get();
             modelRepository.delete(model);
+            invalidateCache(() -> modelEntityCache.invalidate(model));
             log.info("✅ Modello {} v{} eliminato dal database (ID: {})", 
                     model.getModelName(), model.getVersion(), id);
             return true;
@@ -308,6 +342,29 @@ public class ModelDatabaseService {
         }
     }
 
+    /**
+     * Statistiche della cache delle entità dei modelli
+     */
+    public Map<String, Object> getEntityCacheStats() {
+        return modelEntityCache.getStats();
+    }
+
+    /**
+     * Invalida subito e di nuovo dopo il commit: una lettura concorrente durante la transazione
+     * non lascia in cache lo stato precedente
+     */
+    private void invalidateCache(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
     // ==== UTILITY METHODS ====
 
     /**
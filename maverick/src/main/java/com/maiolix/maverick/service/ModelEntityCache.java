@@ -0,0 +1,174 @@
+package com.maiolix.maverick.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.maiolix.maverick.entity.ModelEntity;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cache limitata delle entità dei modelli per nome+versione e per UUID: una predizione su un
+ * modello già noto non interroga il database. Le scritture di {@link ModelDatabaseService}
+ * invalidano le voci esplicitamente; la scadenza copre le modifiche fatte da altri nodi.
+ * Ogni lettura restituisce una copia: le modifiche di un chiamante non sono viste dagli altri finché
+ * non vengono salvate nel database.
+ */
+@Component
+public class ModelEntityCache {
+
+    private final Cache<String, ModelEntity> byNameAndVersion;
+    private final Cache<String, ModelEntity> byUuid;
+    private final Timer loadTimer;
+
+    @Autowired
+    public ModelEntityCache(@Value("${maverick.model-cache.max-size:1000}") long maxSize,
+            @Value("${maverick.model-cache.expire-after-write-seconds:60}") long expireAfterWriteSeconds,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this(maxSize, expireAfterWriteSeconds, meterRegistry.getIfAvailable());
+    }
+
+    ModelEntityCache(long maxSize, long expireAfterWriteSeconds, MeterRegistry meterRegistry) {
+        this.byNameAndVersion = newCache(maxSize, expireAfterWriteSeconds);
+        this.byUuid = newCache(maxSize, expireAfterWriteSeconds);
+        if (meterRegistry != null) {
+            // cache.gets (hit/miss), cache.load, cache.evictions, cache.size
+            CaffeineCacheMetrics.monitor(meterRegistry, byNameAndVersion, "modelsByNameAndVersion");
+            CaffeineCacheMetrics.monitor(meterRegistry, byUuid, "modelsByUuid");
+            this.loadTimer = Timer.builder("maverick.model.entity.load")
+                    .description("Durata delle letture dal database per le entità dei modelli non in cache")
+                    .register(meterRegistry);
+        } else {
+            this.loadTimer = null;
+        }
+    }
+
+    private static Cache<String, ModelEntity> newCache(long maxSize, long expireAfterWriteSeconds) {
+        return Caffeine.newBuilder()
+                .maximumSize(Math.max(0, maxSize))
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Modello per nome e versione, dalla cache o dal loader (i modelli inesistenti non sono memorizzati)
+     */
+    public Optional<ModelEntity> getByNameAndVersion(String name, String version, Supplier<Optional<ModelEntity>> loader) {
+        return Optional.ofNullable(byNameAndVersion.get(key(name, version), k -> {
+            ModelEntity model = load(loader);
+            if (model != null && model.getModelUuid() != null) {
+                byUuid.put(model.getModelUuid(), model);
+            }
+            return model;
+        })).map(ModelEntityCache::copy);
+    }
+
+    /**
+     * Modello per UUID, dalla cache o dal loader (i modelli inesistenti non sono memorizzati)
+     */
+    public Optional<ModelEntity> getByUuid(String uuid, Supplier<Optional<ModelEntity>> loader) {
+        return Optional.ofNullable(byUuid.get(uuid, k -> {
+            ModelEntity model = load(loader);
+            if (model != null) {
+                byNameAndVersion.put(key(model.getModelName(), model.getVersion()), model);
+            }
+            return model;
+        })).map(ModelEntityCache::copy);
+    }
+
+    private static ModelEntity copy(ModelEntity model) {
+        return model.toBuilder().build();
+    }
+
+    private ModelEntity load(Supplier<Optional<ModelEntity>> loader) {
+        long start = System.nanoTime();
+        try {
+            return loader.get().orElse(null);
+        } finally {
+            if (loadTimer != null) {
+                loadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Rimuove un modello da entrambe le viste
+     */
+    public void invalidate(ModelEntity model) {
+        if (model == null) {
+            return;
+        }
+        invalidate(model.getModelName(), model.getVersion());
+        if (model.getModelUuid() != null) {
+            byUuid.invalidate(model.getModelUuid());
+        }
+    }
+
+    /**
+     * Rimuove una versione di un modello, anche dalla vista per UUID
+     */
+    public void invalidate(String name, String version) {
+        ModelEntity cached = byNameAndVersion.asMap().remove(key(name, version));
+        if (cached != null && cached.getModelUuid() != null) {
+            byUuid.invalidate(cached.getModelUuid());
+        }
+        byUuid.asMap().values().removeIf(model -> name.equals(model.getModelName()) && version.equals(model.getVersion()));
+    }
+
+    /**
+     * Rimuove tutte le versioni di un modello
+     */
+    public void invalidateModel(String name) {
+        byNameAndVersion.asMap().values().removeIf(model -> name.equals(model.getModelName()));
+        byUuid.asMap().values().removeIf(model -> name.equals(model.getModelName()));
+    }
+
+    /**
+     * Svuota la cache, per aggiornamenti di cui non si conoscono i modelli coinvolti
+     */
+    public void invalidateAll() {
+        byNameAndVersion.invalidateAll();
+        byUuid.invalidateAll();
+    }
+
+    /**
+     * Statistiche della cache: dimensione, hit ratio e tempo medio di caricamento dal database
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("byNameAndVersion", stats(byNameAndVersion));
+        stats.put("byUuid", stats(byUuid));
+        return stats;
+    }
+
+    private static Map<String, Object> stats(Cache<String, ModelEntity> cache) {
+        CacheStats cacheStats = cache.stats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", cache.estimatedSize());
+        stats.put("hits", cacheStats.hitCount());
+        stats.put("misses", cacheStats.missCount());
+        stats.put("hitRatio", cacheStats.hitRate());
+        stats.put("averageLoadMillis", cacheStats.averageLoadPenalty() / 1_000_000.0);
+        stats.put("evictions", cacheStats.evictionCount());
+        return stats;
+    }
+
+    private static String key(String name, String version) {
+        return name + "\u0000" + version;
+    }
+}
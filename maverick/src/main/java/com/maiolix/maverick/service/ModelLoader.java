@@ -0,0 +1,327 @@
+package com.maiolix.maverick.service;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.maiolix.maverick.constants.MaverickConstants;
+import com.maiolix.maverick.entity.ModelEntity;
+import com.maiolix.maverick.exception.ModelLoadingException;
+import com.maiolix.maverick.exception.ModelUploadException;
+import com.maiolix.maverick.handler.IModelHandler;
+import com.maiolix.maverick.handler.OnnxSessionProfile;
+import com.maiolix.maverick.registry.ModelCacheEntry;
+import com.maiolix.maverick.registry.ModelFootprint;
+import com.maiolix.maverick.registry.ModelRegistry;
+import com.maiolix.maverick.registry.WarmUpStats;
+import com.maiolix.maverick.repository.IModelStorageRepository;
+import com.maiolix.maverick.repository.ModelArtifactCache;
+import com.maiolix.maverick.repository.ParallelRangeDownloader;
+import com.maiolix.maverick.util.ModelMetadataUtils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Caricamento dei modelli in memoria: download dallo storage, creazione dell'handler,
+ * warm-up e registrazione. Tutti i percorsi (/load, bootstrap, caricamento su richiesta dei
+ * modelli attivi assenti dalla memoria) passano da {@link ModelRegistry#loadOnce}: richieste
+ * concorrenti per lo stesso modello:versione condividono un solo caricamento e il suo esito.
+ * Una sostituzione (/load?reload=true, bootstrap/reload) non riceve mai l'handler di un
+ * caricamento senza sostituzione o con un altro profilo: lo attende e poi esegue il proprio.
+ */
+@Service
+@Slf4j
+public class ModelLoader {
+
+    private final IModelStorageRepository storageRepository;
+    private final ModelArtifactCache artifactCache;
+    private final IModelService modelService;
+    private final ModelWarmer modelWarmer;
+    private final MeterRegistry meterRegistry;
+    private final ParallelRangeDownloader rangeDownloader;
+
+    private final boolean lazyLoadEnabled;
+    private final long maxWaitMs;
+
+    private static final int DEFAULT_LOAD_PARALLELISM = 4;
+
+    /** Caricamenti in background (bootstrap e su richiesta): download e creazione handler concorrenti limitati */
+    private final ExecutorService loaders;
+
+    @Autowired
+    public ModelLoader(IModelStorageRepository storageRepository, ModelArtifactCache artifactCache, IModelService modelService,
+            ModelWarmer modelWarmer, ObjectProvider<MeterRegistry> meterRegistry,
+            ObjectProvider<ParallelRangeDownloader> rangeDownloader,
+            @Value("${maverick.lazy-load.enabled:true}") boolean lazyLoadEnabled,
+            @Value("${maverick.lazy-load.max-wait-ms:30000}") long maxWaitMs,
+            @Value("${maverick.lazy-load.parallelism:${maverick.bootstrap.parallelism:4}}") int loadParallelism) {
+        this(storageRepository, artifactCache, modelService, modelWarmer, meterRegistry.getIfAvailable(),
+                rangeDownloader.getIfAvailable(), lazyLoadEnabled, maxWaitMs, loadParallelism);
+    }
+
+    ModelLoader(IModelStorageRepository storageRepository, ModelArtifactCache artifactCache, IModelService modelService,
+            ModelWarmer modelWarmer, MeterRegistry meterRegistry, boolean lazyLoadEnabled, long maxWaitMs) {
+        this(storageRepository, artifactCache, modelService, modelWarmer, meterRegistry, null, lazyLoadEnabled, maxWaitMs,
+                DEFAULT_LOAD_PARALLELISM);
+    }
+
+    ModelLoader(IModelStorageRepository storageRepository, ModelArtifactCache artifactCache, IModelService modelService,
+            ModelWarmer modelWarmer, MeterRegistry meterRegistry, ParallelRangeDownloader rangeDownloader,
+            boolean lazyLoadEnabled, long maxWaitMs, int loadParallelism) {
+        this.loaders = Executors.newFixedThreadPool(loadParallelism > 0 ? loadParallelism : DEFAULT_LOAD_PARALLELISM,
+                loaderThreadFactory());
+        this.rangeDownloader = rangeDownloader;
+        this.storageRepository = storageRepository;
+        this.artifactCache = artifactCache;
+        this.modelService = modelService;
+        this.modelWarmer = modelWarmer;
+        this.meterRegistry = meterRegistry;
+        this.lazyLoadEnabled = lazyLoadEnabled;
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    /**
+     * Carica un modello e lo registra in memoria, attendendo l'eventuale caricamento già in corso
+     * @param modelEntity il modello da caricare
+     * @param replace true per sostituire la versione già in memoria, false per riusarla
+     * @return la entry registrata
+     */
+    public ModelCacheEntry load(ModelEntity modelEntity, boolean replace) {
+        // Il primo chiamante esegue il caricamento nel proprio thread, gli altri lo attendono
+        CompletableFuture<ModelCacheEntry> outcome = ModelRegistry.loadOnce(modelEntity.getModelName(), modelEntity.getVersion(),
+                intent(modelEntity, replace), () -> loadIfNeeded(modelEntity, replace), Runnable::run);
+        try {
+            return outcome.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new ModelUploadException("Impossibile creare handler per il modello: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Avvia il caricamento di un modello in background, o si aggancia a quello già in corso
+     * @param modelEntity il modello da caricare
+     * @param replace true per sostituire la versione già in memoria, false per riusarla
+     * @return l'esito condiviso del caricamento
+     */
+    public CompletableFuture<ModelCacheEntry> loadAsync(ModelEntity modelEntity, boolean replace) {
+        return ModelRegistry.loadOnce(modelEntity.getModelName(), modelEntity.getVersion(),
+                intent(modelEntity, replace), () -> loadIfNeeded(modelEntity, replace), loaders);
+    }
+
+    /**
+     * Intento del caricamento per la condivisione: una sostituzione si aggancia solo a una
+     * sostituzione con gli stessi metadata (profilo sessione compreso), altrimenti attende il
+     * caricamento in corso e poi ricarica con i propri
+     */
+    private static Object intent(ModelEntity modelEntity, boolean replace) {
+        return replace ? "replace:" + modelEntity.getMetadata() : null;
+    }
+
+    private ModelCacheEntry loadIfNeeded(ModelEntity modelEntity, boolean replace) {
+        if (!replace) {
+            // Un caricamento appena concluso può aver già registrato il modello
+            ModelCacheEntry loaded = ModelRegistry.get(modelEntity.getModelName(), modelEntity.getVersion());
+            if (loaded != null) {
+                return loaded;
+            }
+        }
+        return doLoad(modelEntity);
+    }
+
+    private ModelCacheEntry doLoad(ModelEntity modelEntity) {
+        String modelName = modelEntity.getModelName();
+        String version = modelEntity.getVersion();
+        String type = modelEntity.getType().toString();
+        long start = System.nanoTime();
+
+        IModelHandler handler;
+        long diskBytesWritten;
+        String objectPath = modelEntity.getFilePath();
+        OnnxSessionProfile profile = OnnxSessionProfile.fromMetadata(modelEntity.getMetadata());
+        try {
+            // Artefatto dalla cache locale se il contenuto è invariato, altrimenti download verificato nella cache
+            ModelArtifactCache.LocalArtifact artifact = artifactCache.resolve(modelEntity.getFileHash(), objectPath,
+                    () -> storageRepository.downloadModel(objectPath), rangeFetcher(modelEntity, type));
+            if (artifact != null) {
+                // Handler creato dal file: ONNX Runtime lo legge senza copiarlo per intero nell'heap
+                handler = (IModelHandler) modelService.createModelHandlerFromFile(artifact.path(), modelEntity.getFileHash(),
+                        type, profile);
+                diskBytesWritten = artifact.bytesWritten();
+            } else {
+                // Cache disabilitata o artefatto senza SHA-256: stream diretto dallo storage, nessuna scrittura
+                try (InputStream modelStream = storageRepository.downloadModel(objectPath)) {
+                    handler = (IModelHandler) modelService.createModelHandler(modelStream, type, profile);
+                }
+                diskBytesWritten = 0;
+            }
+        } catch (ModelUploadException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ModelUploadException("Impossibile creare handler per il modello: " + e.getMessage(), e);
+        }
+
+        // Tempo di download e creazione dell'handler (cache comprese)
+        long loadMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Warm-up prima della registrazione: la prima richiesta reale non paga l'inizializzazione
+        WarmUpStats warmUp = modelWarmer.warmUp(modelName, version, type, handler, modelEntity.getMetadata());
+
+        // Registra il modello con l'handler nella cache (con eviction se il budget di memoria è superato)
+        ModelCacheEntry entry = new ModelCacheEntry(modelName, type, version, handler);
+        entry.setWarmUp(warmUp);
+        long artifactBytes = modelEntity.getFileSize() != null ? modelEntity.getFileSize() : 0L;
+        entry.setArtifactBytes(artifactBytes);
+        // Stima deterministica per tipo: non dipende da altri caricamenti in corso nel processo
+        entry.setFootprintBytes(ModelFootprint.estimate(type, artifactBytes));
+        entry.setLoadMillis(loadMillis);
+        entry.setDiskBytesWritten(diskBytesWritten);
+        entry.setPinned(ModelMetadataUtils.isFlagSet(modelEntity.getMetadata(), MaverickConstants.PINNED));
+        ModelRegistry.register(entry);
+
+        long elapsed = System.nanoTime() - start;
+        if (meterRegistry != null) {
+            Timer.builder("maverick.model.load")
+                    .description("Durata del caricamento dei modelli in memoria")
+                    .tag("type", type)
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("maverick.model.load.disk.bytes")
+                    .description("Byte dell'artefatto scritti nella cache locale dal caricamento dei modelli")
+                    .baseUnit("bytes")
+                    .tag("type", type)
+                    .register(meterRegistry)
+                    .record(diskBytesWritten);
+        }
+        log.info("✅ Handler creato e registrato per modello {} v{} in {} ms (caricamento {} ms, {} byte scritti nella cache)",
+                modelName, version, elapsed / 1_000_000, loadMillis, diskBytesWritten);
+        return entry;
+    }
+
+    /**
+     * Download a intervalli paralleli per gli artefatti più grandi di una parte, se lo storage lo supporta
+     * @return il fetcher per la cache degli artefatti, o null per il download sequenziale
+     */
+    private ModelArtifactCache.Fetcher rangeFetcher(ModelEntity modelEntity, String type) {
+        Long size = modelEntity.getFileSize();
+        if (rangeDownloader == null || size == null || !rangeDownloader.isParallel(size)
+                || !storageRepository.supportsRangedDownload()) {
+            return null;
+        }
+        String objectPath = modelEntity.getFilePath();
+        return target -> {
+            ParallelRangeDownloader.Result result = rangeDownloader.download(storageRepository, objectPath, size, target);
+            if (meterRegistry != null) {
+                DistributionSummary.builder("maverick.model.download.throughput")
+                        .description("Throughput del download parallelo dei modelli")
+                        .baseUnit("bytes/s")
+                        .tag("type", type)
+                        .register(meterRegistry)
+                        .record(result.bytesPerSecond());
+            }
+            log.info("⬇️ Download parallelo {}: {} byte in {} ms, {} parti, {} retry, {} richieste di riserva",
+                    objectPath, result.bytes(), result.millis(), result.parts(), result.retries(), result.hedges());
+        };
+    }
+
+    /**
+     * Statistiche del download parallelo
+     * @return parti, retry, richieste di riserva e throughput, o null se disabilitato
+     */
+    public Map<String, Object> getParallelDownloadStats() {
+        return rangeDownloader != null ? rangeDownloader.getStats() : null;
+    }
+
+    /**
+     * Garantisce che un modello attivo sia in memoria prima di una predizione, caricandolo se manca
+     * @param modelEntity il modello richiesto
+     * @throws ModelLoadingException se il modello non è pronto entro l'attesa massima o il caricamento fallisce
+     */
+    public void ensureLoaded(ModelEntity modelEntity) {
+        String modelName = modelEntity.getModelName();
+        String version = modelEntity.getVersion();
+        if (!lazyLoadEnabled || ModelRegistry.exists(modelName, version) || !Boolean.TRUE.equals(modelEntity.getIsActive())) {
+            // Modello già in memoria, oppure non attivo: la predizione risponderà "non trovato"
+            return;
+        }
+
+        String key = ModelCacheEntry.generateKey(modelName, version);
+        if (!ModelRegistry.isLoading(modelName, version)) {
+            log.info("📥 Modello {} attivo ma non in memoria: caricamento su richiesta", key);
+            increment("maverick.model.lazy.loads", "Caricamenti su richiesta avviati da una predizione");
+        }
+        CompletableFuture<ModelCacheEntry> pending = loadAsync(modelEntity, false);
+
+        await(key, pending);
+    }
+
+    private void await(String key, CompletableFuture<ModelCacheEntry> pending) {
+        try {
+            if (maxWaitMs > 0) {
+                pending.get(maxWaitMs, TimeUnit.MILLISECONDS);
+            } else {
+                pending.get();
+            }
+        } catch (TimeoutException e) {
+            // Il caricamento prosegue: le richieste successive lo attendono invece di avviarne un altro
+            increment("maverick.model.lazy.timeouts", "Predizioni scadute in attesa del caricamento su richiesta");
+            throw new ModelLoadingException("Modello " + key + " in caricamento, riprovare più tardi",
+                    Math.max(1, TimeUnit.MILLISECONDS.toSeconds(maxWaitMs)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ModelLoadingException("Attesa del caricamento del modello " + key + " interrotta", e);
+        } catch (ExecutionException e) {
+            increment("maverick.model.lazy.failures", "Caricamenti su richiesta falliti");
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("❌ Caricamento su richiesta di {} fallito: {}", key, cause.getMessage());
+            throw new ModelLoadingException("Caricamento del modello " + key + " fallito: " + cause.getMessage(), cause);
+        }
+    }
+
+    private void increment(String name, String description) {
+        if (meterRegistry != null) {
+            Counter.builder(name).description(description).register(meterRegistry).increment();
+        }
+    }
+
+    /**
+     * Numero di caricamenti in corso, su tutti i percorsi
+     */
+    public int getLoadsInFlight() {
+        return ModelRegistry.getLoadingCount();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loaders.shutdownNow();
+    }
+
+    private static ThreadFactory loaderThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "model-loader-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,229 @@
+package com.maiolix.maverick.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.maiolix.maverick.exception.ModelPredictionException;
+import com.maiolix.maverick.handler.IModelHandler;
+import com.maiolix.maverick.handler.RowResult;
+import com.maiolix.maverick.registry.ModelCacheEntry;
+import com.maiolix.maverick.registry.ModelLease;
+import com.maiolix.maverick.registry.ModelRegistry;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Groups concurrent single-row predictions for the same model into one batched runtime call.
+ * A batch is flushed when it reaches the maximum size or when the oldest request has waited
+ * the configured time, whichever comes first. Only models listed in configuration and whose
+ * handler supports native batching go through the batcher; all others are predicted directly.
+ */
+@Component
+@Slf4j
+public class ModelMicroBatcher {
+
+    private final Set<String> enabledModels;
+    private final long maxWaitMs;
+    private final int maxBatchSize;
+    private final long timeoutMs;
+    private final int workerCount;
+
+    private final Map<String, BatchQueue> queues = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService workers;
+
+    public ModelMicroBatcher(
+            @Value("${maverick.batching.models:}") String models,
+            @Value("${maverick.batching.max-wait-ms:2}") long maxWaitMs,
+            @Value("${maverick.batching.max-batch-size:32}") int maxBatchSize,
+            @Value("${maverick.batching.timeout-ms:30000}") long timeoutMs,
+            @Value("${maverick.batching.workers:0}") int workerThreads) {
+        this.enabledModels = Arrays.stream(models == null ? new String[0] : models.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.maxWaitMs = Math.max(0, maxWaitMs);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.timeoutMs = timeoutMs;
+        this.workerCount = workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors();
+
+        if (enabledModels.isEmpty()) {
+            this.scheduler = null;
+            this.workers = null;
+        } else {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "maverick-batch-timer"));
+            // Fixed pool: concurrent batches are bounded, further flushes wait in the queue
+            this.workers = Executors.newFixedThreadPool(workerCount, r -> daemon(r, "maverick-batch-worker"));
+            log.info("Micro-batching enabled for models {} (max batch size: {}, max wait: {} ms, workers: {})",
+                    enabledModels, this.maxBatchSize, this.maxWaitMs, workerCount);
+        }
+    }
+
+    /**
+     * Creates a batcher that predicts every request directly
+     * @return a batcher with no model enabled
+     */
+    public static ModelMicroBatcher disabled() {
+        return new ModelMicroBatcher("", 0, 1, 0, 1);
+    }
+
+    /**
+     * Executes a prediction, coalescing it with concurrent requests for the same model when enabled
+     * @param entry registry entry of the model
+     * @param input single-row input
+     * @return the prediction for the given input
+     */
+    public Object predict(ModelCacheEntry entry, Object input) {
+        IModelHandler handler = entry.getHandler();
+        if (!isEnabled(entry) || !handler.supportsNativeBatching()) {
+            return handler.predict(input);
+        }
+
+        // The batch holds its own lease: a caller that times out releases its lease while the row may
+        // still be running, and a replaced model must not be closed under the runtime call
+        ModelLease lease = ModelRegistry.acquire(entry);
+        if (lease == null) {
+            // Retired meanwhile: the caller's lease keeps the handler open for a direct call
+            return handler.predict(input);
+        }
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        String key = entry.getKey();
+        BatchQueue queue = queues.computeIfAbsent(key, k -> new BatchQueue());
+        queue.pending.add(new PendingPrediction(lease, input, future));
+
+        if (queue.size.incrementAndGet() >= maxBatchSize) {
+            workers.execute(() -> flush(key, queue));
+        } else if (queue.flushScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> workers.execute(() -> flush(key, queue)), maxWaitMs, TimeUnit.MILLISECONDS);
+        }
+
+        return await(future);
+    }
+
+    /**
+     * Checks if micro-batching is configured for the given model
+     * @param entry registry entry of the model
+     * @return true if the model name or name:version is listed in configuration
+     */
+    public boolean isEnabled(ModelCacheEntry entry) {
+        return !enabledModels.isEmpty()
+                && (enabledModels.contains(entry.getModelName()) || enabledModels.contains(entry.getKey()));
+    }
+
+    private void flush(String key, BatchQueue queue) {
+        queue.flushScheduled.set(false);
+
+        List<PendingPrediction> batch = new ArrayList<>(maxBatchSize);
+        PendingPrediction next;
+        int drained = 0;
+        while (batch.size() < maxBatchSize && (next = queue.pending.poll()) != null) {
+            drained++;
+            // Callers that timed out cancelled their future: their rows are not predicted
+            if (!next.future().isDone()) {
+                batch.add(next);
+            } else {
+                next.lease().close();
+            }
+        }
+        queue.size.addAndGet(-drained);
+
+        // Requests arrived while draining are picked up by the next window
+        if (queue.size.get() > 0 && queue.flushScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> workers.execute(() -> flush(key, queue)), maxWaitMs, TimeUnit.MILLISECONDS);
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // A model may have been reloaded between two requests: batch only rows of the same handler
+        Map<IModelHandler, List<PendingPrediction>> byHandler = new IdentityHashMap<>();
+        for (PendingPrediction pending : batch) {
+            byHandler.computeIfAbsent(pending.lease().getHandler(), h -> new ArrayList<>()).add(pending);
+        }
+        byHandler.forEach((handler, group) -> execute(key, handler, group));
+    }
+
+    private void execute(String key, IModelHandler handler, List<PendingPrediction> group) {
+        try {
+            List<RowResult> results = handler.predictBatch(group.stream().map(PendingPrediction::input).toList());
+            for (int i = 0; i < group.size(); i++) {
+                RowResult result = results.get(i);
+                if (result.isSuccess()) {
+                    group.get(i).future().complete(result.getPrediction());
+                } else {
+                    group.get(i).future().completeExceptionally(result.getError());
+                }
+            }
+            log.debug("Micro-batch of {} rows executed for model {}", group.size(), key);
+        } catch (Exception e) {
+            log.error("Micro-batch execution failed for model {}: {}", key, e.getMessage(), e);
+            group.forEach(pending -> pending.future().completeExceptionally(e));
+        } finally {
+            // Released only once the runtime call has returned
+            group.forEach(pending -> pending.lease().close());
+        }
+    }
+
+    private Object await(CompletableFuture<Object> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ModelPredictionException("Batched prediction failed", e.getCause());
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new ModelPredictionException("Batched prediction timed out after " + timeoutMs + " ms", e);
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new ModelPredictionException("Interrupted while waiting for batched prediction", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            workers.shutdown();
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static final class BatchQueue {
+        private final ConcurrentLinkedQueue<PendingPrediction> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    }
+
+    private record PendingPrediction(ModelLease lease, Object input, CompletableFuture<Object> future) {
+    }
+}
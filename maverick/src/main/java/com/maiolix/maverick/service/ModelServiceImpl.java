@@ -1,8 +1,13 @@
 package com.maiolix.maverick.service;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -12,12 +17,18 @@ import com.maiolix.maverick.exception.ModelUploadException;
 import com.maiolix.maverick.exception.MojoModelException;
 import com.maiolix.maverick.exception.OnnxExtModelException;
 import com.maiolix.maverick.exception.OnnxModelException;
+import com.maiolix.maverick.exception.PmmlModelException;
 import com.maiolix.maverick.handler.IModelHandler;
 import com.maiolix.maverick.handler.MojoModelHandler;
 import com.maiolix.maverick.handler.OnnxExtModelHandler;
+import com.maiolix.maverick.handler.OnnxGraphCache;
 import com.maiolix.maverick.handler.OnnxModelHandler;
+import com.maiolix.maverick.handler.OnnxSessionProfile;
 import com.maiolix.maverick.handler.PmmlModelHandler;
+import com.maiolix.maverick.handler.RawTensor;
+import com.maiolix.maverick.handler.RowResult;
 import com.maiolix.maverick.registry.ModelCacheEntry;
+import com.maiolix.maverick.registry.ModelLease;
 import com.maiolix.maverick.registry.ModelRegistry;
 
 import lombok.extern.slf4j.Slf4j;
@@ -33,6 +44,19 @@ public class ModelServiceImpl implements IModelService {
     private static final String MODEL_TYPE_KEY = "type";
     private static final String MODEL_KEY = "key";
 
+    private final ModelMicroBatcher microBatcher;
+    private final OnnxGraphCache graphCache;
+
+    public ModelServiceImpl() {
+        this(ModelMicroBatcher.disabled(), OnnxGraphCache.disabled());
+    }
+
+    @Autowired
+    public ModelServiceImpl(ModelMicroBatcher microBatcher, OnnxGraphCache graphCache) {
+        this.microBatcher = microBatcher;
+        this.graphCache = graphCache;
+    }
+
     @Override
     public void uploadModel(MultipartFile file, String modelName, String type, String version) {
         // Validate input parameters
@@ -55,6 +79,9 @@ public class ModelServiceImpl implements IModelService {
         } catch (MojoModelException e) {
             log.error("Failed to load MOJO model '{}': {}", modelName, e.getMessage(), e);
             throw new ModelUploadException("Failed to load MOJO model '" + modelName + "'", e);
+        } catch (PmmlModelException e) {
+            log.error("Failed to load PMML model '{}': {}", modelName, e.getMessage(), e);
+            throw new ModelUploadException("Failed to load PMML model '" + modelName + "'", e);
         } catch (IOException e) {
             log.error("I/O error while uploading model '{}': {}", modelName, e.getMessage(), e);
             throw new ModelUploadException("I/O error while uploading model '" + modelName + "'", e);
@@ -74,13 +101,13 @@ public class ModelServiceImpl implements IModelService {
         
         log.debug("Executing prediction for model: {} version: {}", modelName, version);
         
-        try {
-            var entry = ModelRegistry.get(modelName, version);
-            if (entry == null) {
+        // The lease keeps the handler open even if the model is replaced during the prediction
+        try (ModelLease lease = ModelRegistry.acquire(modelName, version)) {
+            if (lease == null) {
                 throw new ModelNotFoundException("Model not found: " + modelName + " version: " + version);
             }
             
-            Object result = entry.getHandler().predict(input);
+            Object result = microBatcher.predict(lease.getEntry(), input);
             log.debug("Prediction completed successfully for model: {} version: {}", modelName, version);
             return result;
             
@@ -93,6 +120,64 @@ public class ModelServiceImpl implements IModelService {
         }
     }
     
+    @Override
+    public List<RowResult> predictBatch(String modelName, String version, List<?> inputs) {
+        // Validate input parameters
+        validatePredictParameters(modelName, version, inputs);
+        if (inputs.isEmpty()) {
+            throw new ModelPredictionException("Input rows cannot be empty");
+        }
+        
+        log.debug("Executing batch prediction of {} rows for model: {} version: {}", inputs.size(), modelName, version);
+        
+        try (ModelLease lease = ModelRegistry.acquire(modelName, version)) {
+            if (lease == null) {
+                throw new ModelNotFoundException("Model not found: " + modelName + " version: " + version);
+            }
+            
+            List<RowResult> results = lease.getHandler().predictBatch(inputs);
+            log.debug("Batch prediction completed for model: {} version: {}", modelName, version);
+            return results;
+            
+        } catch (ModelNotFoundException e) {
+            log.error("Model not found: {} version: {}", modelName, version);
+            throw e;
+        } catch (Exception e) {
+            log.error("Error during batch prediction for model '{}' version '{}': {}", modelName, version, e.getMessage(), e);
+            throw new ModelPredictionException("Error during batch prediction for model '" + modelName + "' version '" + version + "'", e);
+        }
+    }
+    
+    @Override
+    public Map<String, Object> predictTensors(String modelName, String version, List<RawTensor> inputs) {
+        // Validate input parameters
+        validatePredictParameters(modelName, version, inputs);
+        
+        log.debug("Executing tensor prediction for model: {} version: {}", modelName, version);
+        
+        try (ModelLease lease = ModelRegistry.acquire(modelName, version)) {
+            if (lease == null) {
+                throw new ModelNotFoundException("Model not found: " + modelName + " version: " + version);
+            }
+            
+            IModelHandler handler = lease.getHandler();
+            if (!handler.supportsRawTensors()) {
+                throw new ModelPredictionException("Model '" + modelName + "' version '" + version + "' of type "
+                        + lease.getEntry().getType() + " does not accept binary tensor input");
+            }
+            Map<String, Object> results = handler.predictTensors(inputs);
+            log.debug("Tensor prediction completed for model: {} version: {}", modelName, version);
+            return results;
+            
+        } catch (ModelNotFoundException | ModelPredictionException e) {
+            log.error("Tensor prediction rejected for model '{}' version '{}': {}", modelName, version, e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.error("Error during tensor prediction for model '{}' version '{}': {}", modelName, version, e.getMessage(), e);
+            throw new ModelPredictionException("Error during tensor prediction for model '" + modelName + "' version '" + version + "'", e);
+        }
+    }
+    
     private void validateUploadParameters(MultipartFile file, String modelName, String type, String version) {
         if (file == null || file.isEmpty()) {
             throw new ModelUploadException("Model file cannot be null or empty");
@@ -128,8 +213,8 @@ public class ModelServiceImpl implements IModelService {
     private IModelHandler createModelHandler(MultipartFile file, String type) 
             throws IOException {
         return switch (type.toUpperCase()) {
-            case "ONNX" -> new OnnxModelHandler(file.getInputStream());
-            case "ONNX_EXT" -> new OnnxExtModelHandler(file.getInputStream());
+            case "ONNX" -> new OnnxModelHandler(file.getInputStream(), null, graphCache);
+            case "ONNX_EXT" -> new OnnxExtModelHandler(file.getInputStream(), null, graphCache);
             case "MOJO" -> new MojoModelHandler(file.getInputStream());
             case "PMML" -> new PmmlModelHandler(file.getInputStream());
             default -> throw new IllegalArgumentException("Unsupported model type: " + type + ". Supported types: ONNX, ONNX_EXT, MOJO, PMML");
@@ -138,10 +223,15 @@ public class ModelServiceImpl implements IModelService {
     
     @Override
     public Object createModelHandler(java.io.InputStream inputStream, String type) {
+        return createModelHandler(inputStream, type, null);
+    }
+    
+    @Override
+    public Object createModelHandler(java.io.InputStream inputStream, String type, OnnxSessionProfile sessionProfile) {
         try {
             return switch (type.toUpperCase()) {
-                case "ONNX" -> new OnnxModelHandler(inputStream);
-                case "ONNX_EXT" -> new OnnxExtModelHandler(inputStream);
+                case "ONNX" -> new OnnxModelHandler(inputStream, sessionProfile, graphCache);
+                case "ONNX_EXT" -> new OnnxExtModelHandler(inputStream, sessionProfile, graphCache);
                 case "MOJO" -> new MojoModelHandler(inputStream);
                 case "PMML" -> new PmmlModelHandler(inputStream);
                 default -> throw new IllegalArgumentException("Unsupported model type: " + type + ". Supported types: ONNX, ONNX_EXT, MOJO, PMML");
@@ -152,6 +242,23 @@ public class ModelServiceImpl implements IModelService {
         }
     }
     
+    @Override
+    public Object createModelHandlerFromFile(Path modelFile, String fileHash, String type, OnnxSessionProfile sessionProfile) {
+        if ("ONNX".equalsIgnoreCase(type)) {
+            try {
+                return new OnnxModelHandler(modelFile, fileHash, sessionProfile, graphCache);
+            } catch (Exception e) {
+                log.error("Error creating model handler for type '{}': {}", type, e.getMessage(), e);
+                throw new ModelUploadException("Failed to create model handler for type '" + type + "'", e);
+            }
+        }
+        try (InputStream inputStream = Files.newInputStream(modelFile)) {
+            return createModelHandler(inputStream, type, sessionProfile);
+        } catch (IOException e) {
+            throw new ModelUploadException("Failed to read model file for type '" + type + "'", e);
+        }
+    }
+    
     @Override
     public Object getInputSchema(String modelName, String version) {
         String key = ModelCacheEntry.generateKey(modelName, version);
@@ -160,8 +267,11 @@ public class ModelServiceImpl implements IModelService {
             throw new ModelNotFoundException("Model not found: " + modelName + " version: " + version);
         }
         
-        try {
-            ModelCacheEntry cacheEntry = ModelRegistry.getByKey(key);
+        try (ModelLease lease = ModelRegistry.acquire(modelName, version)) {
+            if (lease == null) {
+                throw new ModelNotFoundException("Model not found: " + modelName + " version: " + version);
+            }
+            ModelCacheEntry cacheEntry = lease.getEntry();
             IModelHandler handler = cacheEntry.getHandler();
             
             // Get input schema from handler
@@ -176,6 +286,8 @@ public class ModelServiceImpl implements IModelService {
             log.info("Input schema retrieved for model: {} version: {}", modelName, version);
             return completeSchema;
             
+        } catch (ModelNotFoundException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error retrieving input schema for model '{}' version '{}'", modelName, version, e);
             throw new ModelPredictionException("Error retrieving input schema for model '" + modelName + "' version '" + version + "'", e);
@@ -190,8 +302,11 @@ public class ModelServiceImpl implements IModelService {
             throw new ModelNotFoundException("Model not found: " + modelName + " version: " + version);
         }
         
-        try {
-            ModelCacheEntry cacheEntry = ModelRegistry.getByKey(key);
+        try (ModelLease lease = ModelRegistry.acquire(modelName, version)) {
+            if (lease == null) {
+                throw new ModelNotFoundException("Model not found: " + modelName + " version: " + version);
+            }
+            ModelCacheEntry cacheEntry = lease.getEntry();
             
             // Create comprehensive model information
             Map<String, Object> modelInfo = new java.util.HashMap<>();
@@ -216,6 +331,8 @@ public class ModelServiceImpl implements IModelService {
             log.info("Model info retrieved for model: {} version: {}", modelName, version);
             return modelInfo;
             
+        } catch (ModelNotFoundException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error retrieving model info for '{}' version '{}'", modelName, version, e);
             throw new ModelPredictionException("Error retrieving model info for '" + modelName + "' version '" + version + "'", e);
@@ -256,7 +373,9 @@ public class ModelServiceImpl implements IModelService {
             boolean wasRemoved = removedEntry != null;
             
             if (wasRemoved) {
-                log.info("Model {} version {} successfully removed from registry", modelName, version);
+                // The handler is closed by the registry once in-flight predictions complete
+                log.info("Model {} version {} successfully removed from registry ({} predictions in flight)",
+                        modelName, version, removedEntry.getActiveLeases());
             } else {
                 log.warn("Model {} version {} not found in registry", modelName, version);
             }
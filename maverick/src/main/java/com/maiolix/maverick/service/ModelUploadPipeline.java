@@ -0,0 +1,304 @@
+package com.maiolix.maverick.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import com.maiolix.maverick.exception.ModelUploadException;
+import com.maiolix.maverick.exception.PayloadTooLargeException;
+import com.maiolix.maverick.handler.IModelHandler;
+import com.maiolix.maverick.handler.OnnxSessionProfile;
+import com.maiolix.maverick.repository.IModelStorageRepository;
+import com.maiolix.maverick.repository.ModelArtifactCache;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Upload dei modelli in un solo passaggio: lo stesso flusso di byte viene inviato allo storage
+ * (a parti di dimensione fissa), usato per calcolare lo SHA-256 e scritto su un file locale.
+ * La validazione costruisce l'handler dal file verificato (ONNX Runtime lo legge direttamente,
+ * senza copiare il modello nello heap), che diventa poi la voce della cache degli artefatti.
+ * Un modello non valido viene rimosso dallo storage prima del salvataggio nel database.
+ */
+@Service
+@Slf4j
+public class ModelUploadPipeline {
+
+    private final IModelStorageRepository storageRepository;
+    private final IModelService modelService;
+    private final ModelArtifactCache artifactCache;
+    private final boolean validate;
+    private final long maxUploadBytes;
+    private final long validationTimeoutSeconds;
+
+    private final ExecutorService validators = Executors.newCachedThreadPool(validatorThreadFactory());
+
+    @Autowired
+    public ModelUploadPipeline(IModelStorageRepository storageRepository, IModelService modelService,
+            ModelArtifactCache artifactCache,
+            @Value("${maverick.upload.validate:true}") boolean validate,
+            @Value("${maverick.upload.max-size:1GB}") DataSize maxUploadSize,
+            @Value("${maverick.upload.validation-timeout-seconds:300}") long validationTimeoutSeconds) {
+        this(storageRepository, modelService, artifactCache, validate, maxUploadSize.toBytes(), validationTimeoutSeconds);
+    }
+
+    ModelUploadPipeline(IModelStorageRepository storageRepository, IModelService modelService,
+            ModelArtifactCache artifactCache, boolean validate, long maxUploadBytes, long validationTimeoutSeconds) {
+        this.storageRepository = storageRepository;
+        this.modelService = modelService;
+        this.artifactCache = artifactCache;
+        this.validate = validate;
+        this.maxUploadBytes = maxUploadBytes;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    /**
+     * Esito di un upload completato e validato
+     * @param sha256 SHA-256 del contenuto, esadecimale minuscolo
+     * @param bytes byte letti dalla richiesta
+     * @param uploadMillis durata dell'invio allo storage
+     * @param validationMillis durata della validazione, -1 se disabilitata
+     */
+    public record UploadResult(String sha256, long bytes, long uploadMillis, long validationMillis) {
+    }
+
+    /**
+     * @return dimensione massima di un modello caricato, in byte (0 = nessun limite)
+     */
+    public long getMaxUploadBytes() {
+        return maxUploadBytes;
+    }
+
+    /**
+     * Invia il modello allo storage calcolandone l'hash e validandolo nello stesso passaggio
+     * @param modelName nome del modello
+     * @param version versione del modello
+     * @param fileName nome del file
+     * @param content contenuto del modello, letto una sola volta
+     * @param size dimensione dichiarata, -1 se non nota
+     * @param contentType tipo MIME
+     * @param type tipo del modello (ONNX, ONNX_EXT, MOJO, PMML)
+     * @param profile profilo sessione ONNX, o null
+     * @return hash, dimensione e tempi dell'upload
+     * @throws PayloadTooLargeException se il contenuto supera la dimensione massima
+     * @throws ModelUploadException se il modello non è caricabile; in tal caso l'oggetto è già stato rimosso dallo storage
+     */
+    public UploadResult upload(String modelName, String version, String fileName, InputStream content, long size,
+            String contentType, String type, OnnxSessionProfile profile) {
+        if (maxUploadBytes > 0 && size > maxUploadBytes) {
+            throw new PayloadTooLargeException(tooLarge(size + " byte"));
+        }
+        Path staged;
+        try {
+            staged = artifactCache.createStagingFile();
+        } catch (IOException e) {
+            throw new ModelUploadException("Impossibile creare il file temporaneo del modello: " + e.getMessage(), e);
+        }
+
+        MessageDigest digest = ModelArtifactCache.newSha256();
+        CountingInputStream counted = new CountingInputStream(new DigestInputStream(content, digest), maxUploadBytes);
+
+        long start = System.nanoTime();
+        try (TeeInputStream upload = new TeeInputStream(counted, Files.newOutputStream(staged))) {
+            storageRepository.uploadModel(modelName, version, fileName, upload, size, contentType);
+            // Byte eventualmente non consumati dal provider: hash e file locale vedono l'intero modello
+            upload.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(staged);
+            if (counted.isOverLimit()) {
+                // Il provider può avvolgere l'eccezione del flusso: il limite superato resta un 413
+                throw new PayloadTooLargeException(tooLarge("oltre " + maxUploadBytes + " byte"));
+            }
+            throw e instanceof ModelUploadException mue ? mue
+                    : new ModelUploadException("Upload fallito: " + e.getMessage(), e);
+        }
+        long uploadMillis = (System.nanoTime() - start) / 1_000_000;
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+
+        long validationMillis = -1;
+        if (validate) {
+            try {
+                validationMillis = awaitValidation(startValidation(staged, sha256, type, profile), modelName, version, fileName);
+            } catch (RuntimeException e) {
+                deleteQuietly(staged);
+                throw e;
+            }
+        }
+        // Il file verificato diventa la voce della cache: il primo caricamento non lo riscarica
+        artifactCache.store(sha256, staged);
+        log.info("📦 Upload {} v{}: {} byte, sha256 {}, storage {} ms, validazione {} ms",
+                modelName, version, counted.getCount(), sha256, uploadMillis, validationMillis);
+        return new UploadResult(sha256, counted.getCount(), uploadMillis, validationMillis);
+    }
+
+    private String tooLarge(String size) {
+        return "Modello troppo grande: " + size + ", il massimo consentito è " + maxUploadBytes + " byte";
+    }
+
+    private CompletableFuture<Long> startValidation(Path modelFile, String sha256, String type, OnnxSessionProfile profile) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            Object handler = modelService.createModelHandlerFromFile(modelFile, sha256, type, profile);
+            if (handler instanceof IModelHandler modelHandler) {
+                modelHandler.close();
+            }
+            return (System.nanoTime() - start) / 1_000_000;
+        }, validators);
+    }
+
+    private long awaitValidation(CompletableFuture<Long> validation, String modelName, String version, String fileName) {
+        Throwable failure;
+        try {
+            return validationTimeoutSeconds > 0
+                    ? validation.get(validationTimeoutSeconds, TimeUnit.SECONDS)
+                    : validation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        } catch (ExecutionException e) {
+            failure = e.getCause() != null ? e.getCause() : e;
+        } catch (TimeoutException e) {
+            validation.cancel(true);
+            failure = new TimeoutException("validazione oltre " + validationTimeoutSeconds + "s");
+        }
+
+        // Il modello non è caricabile: l'oggetto non deve restare nello storage senza riga nel database
+        String objectPath = modelName + "/" + version + "/" + fileName;
+        try {
+            storageRepository.deleteModel(objectPath);
+        } catch (Exception e) {
+            log.warn("⚠️ Impossibile rimuovere dallo storage il modello rifiutato {}: {}", objectPath, e.getMessage());
+        }
+        log.error("❌ Modello {} v{} rifiutato: non caricabile ({})", modelName, version, failure.getMessage());
+        throw new ModelUploadException("Modello non valido, impossibile caricarlo: " + failure.getMessage(), failure);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        validators.shutdownNow();
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("⚠️ Impossibile eliminare il file temporaneo {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static ThreadFactory validatorThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "model-upload-validator-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Conta i byte letti dalla richiesta e interrompe la lettura oltre la dimensione massima
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+        private boolean overLimit;
+
+        CountingInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int read) {
+            count += read;
+            if (limit > 0 && count > limit) {
+                overLimit = true;
+                throw new PayloadTooLargeException("Modello oltre " + limit + " byte");
+            }
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        boolean isOverLimit() {
+            return overLimit;
+        }
+    }
+
+    /**
+     * Copia i byte letti nel file locale del modello
+     */
+    private static final class TeeInputStream extends FilterInputStream {
+        private final OutputStream sink;
+
+        TeeInputStream(InputStream in, OutputStream sink) {
+            super(in);
+            this.sink = sink;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                sink.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                sink.write(buffer, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                sink.close();
+            } finally {
+                super.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.maiolix.maverick.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maiolix.maverick.handler.IModelHandler;
+import com.maiolix.maverick.registry.WarmUpStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs synthetic predictions on a freshly built handler before it is registered, so that
+ * runtime arenas, JIT-compiled conversion code and lazy model structures are ready when the
+ * first real request arrives. Samples come from the {@value #SAMPLES_METADATA_KEY} entry of
+ * the model metadata (a row or an array of rows) or, when absent, from the
+ * {@code inputExample} of the handler input schema.
+ */
+@Component
+@Slf4j
+public class ModelWarmer {
+
+    /** Metadata entry holding the warm-up sample rows */
+    public static final String SAMPLES_METADATA_KEY = "warmUpSamples";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int MAX_BATCH_ROWS = 32;
+
+    private final boolean enabled;
+    private final int iterations;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public ModelWarmer(
+            @Value("${maverick.warmup.enabled:true}") boolean enabled,
+            @Value("${maverick.warmup.iterations:10}") int iterations,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this(enabled, iterations, meterRegistry.getIfAvailable());
+    }
+
+    ModelWarmer(boolean enabled, int iterations, MeterRegistry meterRegistry) {
+        this.enabled = enabled && iterations > 0;
+        this.iterations = iterations;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Creates a warmer that never runs predictions, for contexts without configuration
+     */
+    public static ModelWarmer disabled() {
+        return new ModelWarmer(false, 0, (MeterRegistry) null);
+    }
+
+    /**
+     * Warms up a handler; failures are logged and never prevent the model from loading
+     * @param modelName the model name
+     * @param version the model version
+     * @param type the model type, used as the only tag of the warm-up timer
+     * @param handler the handler, not yet registered
+     * @param metadata the model metadata JSON, may be null
+     * @return the warm-up statistics, or null if warm-up is disabled or no sample is available
+     */
+    public WarmUpStats warmUp(String modelName, String version, String type, IModelHandler handler, String metadata) {
+        if (!enabled) {
+            return null;
+        }
+
+        List<Object> samples = samplesFromMetadata(metadata);
+        if (samples.isEmpty()) {
+            samples = samplesFromSchema(handler);
+        }
+        if (samples.isEmpty()) {
+            log.warn("⚠️ Warm-up saltato per {} v{}: nessun esempio di input disponibile", modelName, version);
+            return null;
+        }
+
+        long start = System.nanoTime();
+        int failures = 0;
+        double first = 0;
+        double last = 0;
+        for (int i = 0; i < iterations; i++) {
+            long callStart = System.nanoTime();
+            try {
+                handler.predict(samples.get(i % samples.size()));
+            } catch (RuntimeException e) {
+                failures++;
+                log.debug("Warm-up prediction failed for {} v{}: {}", modelName, version, e.getMessage());
+            }
+            last = (System.nanoTime() - callStart) / 1_000_000.0;
+            if (i == 0) {
+                first = last;
+            }
+            // Samples that cannot be scored would only repeat the same error
+            if (failures == samples.size() && failures == i + 1) {
+                log.warn("⚠️ Warm-up interrotto per {} v{}: gli esempi di input non sono validi", modelName, version);
+                break;
+            }
+        }
+
+        if (handler.supportsNativeBatching() && failures < samples.size()) {
+            try {
+                warmUpBatch(handler, samples);
+            } catch (RuntimeException e) {
+                failures++;
+                log.debug("Warm-up batch prediction failed for {} v{}: {}", modelName, version, e.getMessage());
+            }
+        }
+
+        long totalNanos = System.nanoTime() - start;
+        WarmUpStats stats = new WarmUpStats(iterations, failures, totalNanos / 1_000_000, first, last);
+        if (meterRegistry != null) {
+            Timer.builder("maverick.model.warmup")
+                    .description("Durata del warm-up dei modelli prima della registrazione")
+                    .tag("type", String.valueOf(type))
+                    .register(meterRegistry)
+                    .record(totalNanos, TimeUnit.NANOSECONDS);
+        }
+        log.info("🔥 Warm-up {} v{}: {} predizioni in {} ms (prima {} ms, ultima {} ms, errori {})",
+                modelName, version, iterations, stats.getTotalMillis(),
+                String.format("%.2f", first), String.format("%.2f", last), failures);
+        return stats;
+    }
+
+    private void warmUpBatch(IModelHandler handler, List<Object> samples) {
+        int rows = Math.min(MAX_BATCH_ROWS, Math.max(iterations, samples.size()));
+        List<Object> batch = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            batch.add(samples.get(i % samples.size()));
+        }
+        handler.predictBatch(batch);
+    }
+
+    private List<Object> samplesFromMetadata(String metadata) {
+        if (metadata == null || metadata.isBlank()) {
+            return List.of();
+        }
+        try {
+            JsonNode node = MAPPER.readTree(metadata).get(SAMPLES_METADATA_KEY);
+            List<Object> samples = new ArrayList<>();
+            if (node != null && node.isArray()) {
+                node.forEach(row -> {
+                    if (row.isObject()) {
+                        samples.add(MAPPER.convertValue(row, Map.class));
+                    }
+                });
+            } else if (node != null && node.isObject()) {
+                samples.add(MAPPER.convertValue(node, Map.class));
+            }
+            return samples;
+        } catch (Exception e) {
+            log.warn("⚠️ Esempi di warm-up non leggibili dai metadata: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    private List<Object> samplesFromSchema(IModelHandler handler) {
+        Map<String, Object> schema;
+        try {
+            schema = handler.getInputSchema();
+        } catch (RuntimeException e) {
+            return List.of();
+        }
+        Object inputExample = schema != null ? schema.get("inputExample") : null;
+        if (!(inputExample instanceof Map<?, ?> example) || example.isEmpty()) {
+            return List.of();
+        }
+
+        // Tensor models describe the example as {inputName: [v0, v1, ...]}: the handlers take one value per feature
+        if (example.size() == 1 && example.values().iterator().next() instanceof List<?> values) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < values.size(); i++) {
+                row.put("f" + i, values.get(i));
+            }
+            return List.of(row);
+        }
+        return List.of(new LinkedHashMap<>(example));
+    }
+}
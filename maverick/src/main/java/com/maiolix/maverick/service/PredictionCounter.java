@@ -0,0 +1,190 @@
+package com.maiolix.maverick.service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Contatori di predizione write-behind: ogni predizione incrementa un contatore in memoria
+ * per modello e il database viene aggiornato a intervalli, con un solo UPDATE aggregato per
+ * modello. Oltre maxPending predizioni non salvate si anticipa il salvataggio; oltre il doppio
+ * è la richiesta stessa a salvarle, così le predizioni perse in caso di crash restano limitate.
+ */
+@Service
+@Slf4j
+public class PredictionCounter {
+
+    private final ModelDatabaseService modelDatabaseService;
+    private final long maxPending;
+
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicLong unflushed = new AtomicLong();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "prediction-counter-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedPredictions = new LongAdder();
+    private final LongAdder earlyFlushes = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+
+    public PredictionCounter(ModelDatabaseService modelDatabaseService,
+            @Value("${maverick.prediction-counter.flush-interval-ms:5000}") long flushIntervalMs,
+            @Value("${maverick.prediction-counter.max-pending:10000}") long maxPending) {
+        this.modelDatabaseService = modelDatabaseService;
+        this.maxPending = maxPending;
+        if (flushIntervalMs > 0) {
+            scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Predizioni di un modello non ancora salvate
+     * @param count numero di predizioni
+     * @param lastUsedAt ultimo utilizzo
+     */
+    public record PredictionDelta(long count, LocalDateTime lastUsedAt) {
+    }
+
+    private static final class Pending {
+        private final LongAdder count = new LongAdder();
+        private final AtomicLong lastUsedMillis = new AtomicLong();
+    }
+
+    /**
+     * Registra le predizioni di un modello in memoria
+     * @param modelId ID del modello
+     * @param count predizioni riuscite
+     */
+    public void record(Long modelId, long count) {
+        if (modelId == null || count <= 0) {
+            return;
+        }
+        Pending counter = pending.computeIfAbsent(modelId, id -> new Pending());
+        counter.count.add(count);
+        counter.lastUsedMillis.accumulateAndGet(System.currentTimeMillis(), Math::max);
+
+        long total = unflushed.addAndGet(count);
+        if (maxPending > 0 && total >= maxPending) {
+            if (total >= 2 * maxPending) {
+                // Il salvataggio asincrono non tiene il passo: la richiesta attende
+                flushQuietly();
+            } else if (flushRequested.compareAndSet(false, true)) {
+                earlyFlushes.increment();
+                try {
+                    scheduler.execute(this::flushQuietly);
+                } catch (RejectedExecutionException e) {
+                    // In chiusura: le predizioni sono salvate da shutdown()
+                    flushRequested.set(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Salva nel database le predizioni accumulate, un aggiornamento per modello
+     * @return predizioni salvate
+     */
+    public long flush() {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            Map<Long, PredictionDelta> batch = new HashMap<>();
+            long total = 0;
+            for (Map.Entry<Long, Pending> entry : pending.entrySet()) {
+                long count = entry.getValue().count.sumThenReset();
+                if (count > 0) {
+                    LocalDateTime lastUsedAt = LocalDateTime.ofInstant(
+                            Instant.ofEpochMilli(entry.getValue().lastUsedMillis.get()), ZoneId.systemDefault());
+                    batch.put(entry.getKey(), new PredictionDelta(count, lastUsedAt));
+                    total += count;
+                }
+            }
+            if (batch.isEmpty()) {
+                return 0;
+            }
+
+            try {
+                modelDatabaseService.applyPredictionDeltas(batch);
+            } catch (RuntimeException e) {
+                // Le predizioni tornano in memoria per il prossimo salvataggio
+                batch.forEach((modelId, delta) ->
+                        pending.computeIfAbsent(modelId, id -> new Pending()).count.add(delta.count()));
+                failedFlushes.increment();
+                throw e;
+            }
+            unflushed.addAndGet(-total);
+            flushes.increment();
+            flushedPredictions.add(total);
+            log.debug("Salvate {} predizioni per {} modelli", total, batch.size());
+            return total;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("⚠️ Salvataggio contatori predizioni fallito, {} predizioni in attesa: {}",
+                    unflushed.get(), e.getMessage());
+        }
+    }
+
+    /**
+     * Predizioni registrate in memoria e non ancora salvate
+     */
+    public long getUnflushed() {
+        return unflushed.get();
+    }
+
+    /**
+     * Statistiche dei contatori write-behind
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("unflushed", unflushed.get());
+        stats.put("maxPending", maxPending);
+        stats.put("flushes", flushes.sum());
+        stats.put("flushedPredictions", flushedPredictions.sum());
+        stats.put("earlyFlushes", earlyFlushes.sum());
+        stats.put("failedFlushes", failedFlushes.sum());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long pendingAtShutdown = unflushed.get();
+        flushQuietly();
+        log.info("🛑 Contatori predizioni salvati alla chiusura: {} predizioni", pendingAtShutdown - unflushed.get());
+    }
+}
@@ -0,0 +1,189 @@
+package com.maiolix.maverick.service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.maiolix.maverick.repository.ApiClientRepository;
+import com.maiolix.maverick.repository.UserRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Campi di utilizzo di client e utenti (usageCount, lastUsedAt, lastLoginAt) accumulati in
+ * memoria e salvati a intervalli con UPDATE aggregati in una sola transazione: autenticazioni
+ * e predizioni non attendono scritture sul database.
+ */
+@Service
+@Slf4j
+public class UsageTracker {
+
+    private final ApiClientRepository apiClientRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, ClientUsage> clients = new ConcurrentHashMap<>();
+    private final Map<Long, Long> userLogins = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "usage-tracker-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+
+    public UsageTracker(ApiClientRepository apiClientRepository, UserRepository userRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${maverick.usage.flush-interval-ms:10000}") long flushIntervalMs) {
+        this.apiClientRepository = apiClientRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        if (flushIntervalMs > 0) {
+            scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static final class ClientUsage {
+        private final LongAdder count = new LongAdder();
+        private final AtomicLong lastUsedMillis = new AtomicLong();
+        private volatile boolean touched;
+    }
+
+    /**
+     * Registra l'autenticazione di un client: aggiorna solo lastUsedAt
+     */
+    public void recordClientAuthentication(Long clientId) {
+        recordClientUsage(clientId, 0);
+    }
+
+    /**
+     * Registra le predizioni di un client: incrementa usageCount e aggiorna lastUsedAt
+     */
+    public void recordClientUsage(Long clientId, long count) {
+        if (clientId == null || count < 0) {
+            return;
+        }
+        ClientUsage usage = clients.computeIfAbsent(clientId, id -> new ClientUsage());
+        usage.count.add(count);
+        usage.lastUsedMillis.accumulateAndGet(System.currentTimeMillis(), Math::max);
+        usage.touched = true;
+    }
+
+    /**
+     * Registra l'accesso di un utente (lastLoginAt)
+     */
+    public void recordUserLogin(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        userLogins.merge(userId, System.currentTimeMillis(), Math::max);
+    }
+
+    /**
+     * Salva nel database gli utilizzi accumulati, un UPDATE per client e per utente
+     * @return righe aggiornate
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            Map<Long, Long> clientCounts = new LinkedHashMap<>();
+            Map<Long, LocalDateTime> clientLastUsed = new LinkedHashMap<>();
+            clients.forEach((clientId, usage) -> {
+                if (usage.touched) {
+                    usage.touched = false;
+                    clientCounts.put(clientId, usage.count.sumThenReset());
+                    clientLastUsed.put(clientId, toDateTime(usage.lastUsedMillis.get()));
+                }
+            });
+            Map<Long, Long> logins = new LinkedHashMap<>();
+            userLogins.forEach((userId, lastLogin) -> {
+                // Rimosso solo se nel frattempo non è arrivato un accesso più recente
+                if (userLogins.remove(userId, lastLogin)) {
+                    logins.put(userId, lastLogin);
+                }
+            });
+            if (clientCounts.isEmpty() && logins.isEmpty()) {
+                return 0;
+            }
+
+            try {
+                Integer updated = transactionTemplate.execute(status -> {
+                    int rows = 0;
+                    for (Map.Entry<Long, Long> entry : clientCounts.entrySet()) {
+                        rows += apiClientRepository.addUsage(entry.getKey(), entry.getValue(), clientLastUsed.get(entry.getKey()));
+                    }
+                    for (Map.Entry<Long, Long> entry : logins.entrySet()) {
+                        rows += userRepository.updateLastLogin(entry.getKey(), toDateTime(entry.getValue()));
+                    }
+                    return rows;
+                });
+                flushes.increment();
+                log.debug("Utilizzi salvati: {} client, {} utenti", clientCounts.size(), logins.size());
+                return updated != null ? updated : 0;
+            } catch (RuntimeException e) {
+                // Gli utilizzi tornano in memoria per il prossimo salvataggio
+                clientCounts.forEach((clientId, count) -> {
+                    ClientUsage usage = clients.computeIfAbsent(clientId, id -> new ClientUsage());
+                    usage.count.add(count);
+                    usage.touched = true;
+                });
+                logins.forEach((userId, lastLogin) -> userLogins.merge(userId, lastLogin, Math::max));
+                failedFlushes.increment();
+                throw e;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("⚠️ Salvataggio utilizzi di client e utenti fallito: {}", e.getMessage());
+        }
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * Statistiche dei salvataggi
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedClients", clients.size());
+        stats.put("pendingLogins", userLogins.size());
+        stats.put("flushes", flushes.sum());
+        stats.put("failedFlushes", failedFlushes.sum());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+}
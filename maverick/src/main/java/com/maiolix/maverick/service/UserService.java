@@ -3,7 +3,9 @@ package com.maiolix.maverick.service;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -26,6 +28,7 @@ public class UserService {
     private final UserRepository userRepository;
     private final ApiClientRepository apiClientRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UsageTracker usageTracker;
 
     /**
      * Autentica utente umano con username e password
@@ -36,9 +39,8 @@ public class UserService {
         if (userOpt.isPresent()) {
             UserEntity user = userOpt.get();
             if (passwordEncoder.matches(password, user.getPasswordHash())) {
-                // Aggiorna last login
-                user.setLastLoginAt(LocalDateTime.now());
-                userRepository.save(user);
+                // Aggiorna last login (salvataggio asincrono a lotti)
+                usageTracker.recordUserLogin(user.getId());
                 log.info("User '{}' authenticated successfully", username);
                 return Optional.of(user);
             } else {
@@ -60,9 +62,8 @@ public class UserService {
         if (clientOpt.isPresent()) {
             ApiClientEntity client = clientOpt.get();
             if (passwordEncoder.matches(clientSecret, client.getClientSecretHash())) {
-                // Aggiorna last used
-                client.setLastUsedAt(LocalDateTime.now());
-                apiClientRepository.save(client);
+                // Aggiorna last used (salvataggio asincrono a lotti)
+                usageTracker.recordClientAuthentication(client.getId());
                 log.info("API Client '{}' authenticated successfully", clientId);
                 return Optional.of(client);
             } else {
@@ -92,6 +93,15 @@ public class UserService {
         return client.map(c -> c.isAdminAccess() ? "ADMIN" : "PREDICTOR").orElse(null);
     }
 
+    /**
+     * Ottiene il limite di richieste al minuto di un client API (con cache: le modifiche
+     * nel database valgono alla scadenza della voce, senza riavvio)
+     */
+    @Cacheable(value = "clientRateLimits", key = "#clientId")
+    public Integer getClientRateLimit(Long clientId) {
+        return apiClientRepository.findById(clientId).map(ApiClientEntity::getRateLimitPerMinute).orElse(null);
+    }
+
     /**
      * Trova utente per username
      */
@@ -206,6 +216,10 @@ public class UserService {
     /**
      * Elimina client API per ID
      */
+    @Caching(evict = {
+        @CacheEvict(value = "clientRoles", key = "#clientId"),
+        @CacheEvict(value = "clientRateLimits", key = "#clientId")
+    })
     public boolean deleteApiClient(Long clientId) {
         Optional<ApiClientEntity> clientOpt = apiClientRepository.findById(clientId);
         if (clientOpt.isPresent()) {
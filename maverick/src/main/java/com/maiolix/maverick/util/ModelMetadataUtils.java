@@ -0,0 +1,66 @@
+package com.maiolix.maverick.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Utility per leggere e aggiornare singole voci del JSON metadata dei modelli
+ */
+public final class ModelMetadataUtils {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ModelMetadataUtils() {
+        // Utility class
+    }
+
+    /**
+     * Legge un flag booleano dai metadata
+     * @param metadata JSON metadata del modello, può essere null
+     * @param key nome della voce
+     * @return true solo se la voce esiste ed è true
+     */
+    public static boolean isFlagSet(String metadata, String key) {
+        if (metadata == null || metadata.isBlank()) {
+            return false;
+        }
+        try {
+            JsonNode node = MAPPER.readTree(metadata).get(key);
+            return node != null && node.asBoolean(false);
+        } catch (JsonProcessingException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Imposta una voce nei metadata mantenendo le altre
+     * @param metadata JSON metadata attuale, può essere null
+     * @param key nome della voce
+     * @param value valore, null per rimuovere la voce
+     * @return il JSON aggiornato
+     */
+    public static String withEntry(String metadata, String key, Object value) {
+        ObjectNode root = MAPPER.createObjectNode();
+        if (metadata != null && !metadata.isBlank()) {
+            try {
+                JsonNode existing = MAPPER.readTree(metadata);
+                if (existing instanceof ObjectNode objectNode) {
+                    root = objectNode;
+                } else {
+                    root.set("previousMetadata", existing);
+                }
+            } catch (JsonProcessingException e) {
+                root.put("previousMetadata", metadata);
+            }
+        }
+
+        if (value != null) {
+            root.set(key, MAPPER.valueToTree(value));
+        } else {
+            root.remove(key);
+        }
+        return root.toString();
+    }
+}
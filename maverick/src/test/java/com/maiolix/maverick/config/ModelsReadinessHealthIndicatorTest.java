@@ -0,0 +1,50 @@
+package com.maiolix.maverick.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import com.maiolix.maverick.service.BootstrapReadiness;
+import com.maiolix.maverick.service.ModelBootstrapService;
+
+class ModelsReadinessHealthIndicatorTest {
+
+    private final ModelBootstrapService bootstrapService = mock(ModelBootstrapService.class);
+    private final BootstrapReadiness readiness = mock(BootstrapReadiness.class);
+
+    @Test
+    void testDownBeforeBootstrapStarts() {
+        when(bootstrapService.getReadiness()).thenReturn(readiness);
+
+        assertEquals(Status.DOWN, new ModelsReadinessHealthIndicator(bootstrapService, 0.5).health().getStatus());
+    }
+
+    @Test
+    void testUpOnceFractionReached() {
+        mockProgress(0.6, Set.of());
+
+        assertEquals(Status.UP, new ModelsReadinessHealthIndicator(bootstrapService, 0.5).health().getStatus());
+        assertEquals(Status.DOWN, new ModelsReadinessHealthIndicator(bootstrapService, 0.8).health().getStatus());
+    }
+
+    @Test
+    void testDownWhileCriticalModelMissing() {
+        mockProgress(1.0, Set.of("fraud:v2.0"));
+
+        var health = new ModelsReadinessHealthIndicator(bootstrapService, 0.5).health();
+
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals(Set.of("fraud:v2.0"), health.getDetails().get("missingCriticalModels"));
+    }
+
+    private void mockProgress(double fraction, Set<String> missingCritical) {
+        when(bootstrapService.getReadiness()).thenReturn(readiness);
+        when(readiness.isStarted()).thenReturn(true);
+        when(readiness.getLoadedFraction()).thenReturn(fraction);
+        when(readiness.getMissingCriticalModels()).thenReturn(missingCritical);
+    }
+}
@@ -0,0 +1,35 @@
+package com.maiolix.maverick.exception;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class ModelLoadingExceptionTest {
+
+    @Test
+    void testConstructorWithRetryAfter() {
+        String message = "Model is loading";
+        ModelLoadingException exception = new ModelLoadingException(message, 5);
+        
+        assertEquals(message, exception.getMessage());
+        assertEquals(5, exception.getRetryAfterSeconds());
+        assertNull(exception.getCause());
+    }
+
+    @Test
+    void testConstructorWithMessageAndCause() {
+        String message = "Model load failed";
+        Throwable cause = new IllegalStateException("Artifact not found");
+        ModelLoadingException exception = new ModelLoadingException(message, cause);
+        
+        assertEquals(message, exception.getMessage());
+        assertEquals(cause, exception.getCause());
+        assertEquals(0, exception.getRetryAfterSeconds());
+    }
+
+    @Test
+    void testExceptionIsRuntimeException() {
+        ModelLoadingException exception = new ModelLoadingException("Test", 1);
+        assertInstanceOf(RuntimeException.class, exception);
+    }
+}
@@ -0,0 +1,33 @@
+package com.maiolix.maverick.exception;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class PmmlModelExceptionTest {
+
+    @Test
+    void testConstructorWithMessage() {
+        String message = "PMML model loading failed";
+        PmmlModelException exception = new PmmlModelException(message);
+        
+        assertEquals(message, exception.getMessage());
+        assertNull(exception.getCause());
+    }
+
+    @Test
+    void testConstructorWithMessageAndCause() {
+        String message = "PMML model loading failed";
+        Throwable cause = new RuntimeException("Invalid PMML document");
+        PmmlModelException exception = new PmmlModelException(message, cause);
+        
+        assertEquals(message, exception.getMessage());
+        assertEquals(cause, exception.getCause());
+    }
+
+    @Test
+    void testExceptionIsRuntimeException() {
+        PmmlModelException exception = new PmmlModelException("Test");
+        assertInstanceOf(RuntimeException.class, exception);
+    }
+}
@@ -0,0 +1,33 @@
+package com.maiolix.maverick.exception;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class PmmlPredictionExceptionTest {
+
+    @Test
+    void testConstructorWithMessage() {
+        String message = "PMML prediction failed";
+        PmmlPredictionException exception = new PmmlPredictionException(message);
+        
+        assertEquals(message, exception.getMessage());
+        assertNull(exception.getCause());
+    }
+
+    @Test
+    void testConstructorWithMessageAndCause() {
+        String message = "PMML prediction failed";
+        Throwable cause = new IllegalArgumentException("Missing feature value");
+        PmmlPredictionException exception = new PmmlPredictionException(message, cause);
+        
+        assertEquals(message, exception.getMessage());
+        assertEquals(cause, exception.getCause());
+    }
+
+    @Test
+    void testExceptionIsRuntimeException() {
+        PmmlPredictionException exception = new PmmlPredictionException("Test");
+        assertInstanceOf(RuntimeException.class, exception);
+    }
+}
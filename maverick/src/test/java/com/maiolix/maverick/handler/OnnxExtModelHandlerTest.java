@@ -3,11 +3,16 @@ package com.maiolix.maverick.handler;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -58,6 +63,28 @@ class OnnxExtModelHandlerTest {
         assertNotNull(exception);
     }
 
+    @Test
+    void testLoadsArchiveEntriesFromStream() throws IOException {
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(zip);
+                InputStream model = getClass().getResourceAsStream("/models/iris.onnx")) {
+            assertNotNull(model);
+            out.putNextEntry(new ZipEntry("model/iris.onnx"));
+            model.transferTo(out);
+            out.putNextEntry(new ZipEntry("labels.json"));
+            out.write("{\"0\": \"setosa\", \"1\": \"versicolor\", \"2\": \"virginica\"}".getBytes(StandardCharsets.UTF_8));
+        }
+
+        onnxExtHandler = new OnnxExtModelHandler(new ByteArrayInputStream(zip.toByteArray()));
+
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("x1", 5.1);
+        row.put("x2", 3.5);
+        row.put("x3", 1.4);
+        row.put("x4", 0.2);
+        assertNotNull(onnxExtHandler.predict(row));
+    }
+
     @Test
     void testInputValidation() {
         // Test various input validation scenarios
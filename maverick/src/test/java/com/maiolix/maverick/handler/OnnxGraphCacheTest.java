@@ -0,0 +1,142 @@
+package com.maiolix.maverick.handler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OnnxGraphCacheTest {
+
+    private static final String IRIS_ONNX = "/models/iris.onnx";
+
+    @TempDir
+    Path cacheDir;
+
+    @Test
+    void testSecondLoadUsesOptimizedGraph() throws Exception {
+        OnnxGraphCache cache = new OnnxGraphCache(cacheDir);
+
+        OnnxModelHandler first = load(cache);
+        OnnxModelHandler second = load(cache);
+        try {
+            assertEquals(1, cache.getMisses());
+            assertEquals(1, cache.getHits());
+            assertEquals(1L, cache.getStats().get("entries"));
+
+            Map<String, Object> row = irisRow(6.7, 3.0, 5.2, 2.3);
+            Map<?, ?> expected = (Map<?, ?>) first.predict(row);
+            Map<?, ?> actual = (Map<?, ?>) second.predict(row);
+            assertArrayEquals((long[]) expected.get("output_label"), (long[]) actual.get("output_label"));
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    void testModelFileSharesTheEntryOfTheSameBytes(@TempDir Path modelDir) throws Exception {
+        OnnxGraphCache cache = new OnnxGraphCache(cacheDir);
+        Path modelFile = modelDir.resolve("iris.onnx");
+        try (InputStream stream = getClass().getResourceAsStream(IRIS_ONNX)) {
+            Files.copy(stream, modelFile);
+        }
+
+        OnnxModelHandler fromFile = new OnnxModelHandler(modelFile, null, cache);
+        OnnxModelHandler fromBytes = load(cache);
+        try {
+            assertEquals(1, cache.getMisses());
+            assertEquals(1, cache.getHits());
+            Map<String, Object> row = irisRow(6.7, 3.0, 5.2, 2.3);
+            assertArrayEquals((long[]) ((Map<?, ?>) fromBytes.predict(row)).get("output_label"),
+                    (long[]) ((Map<?, ?>) fromFile.predict(row)).get("output_label"));
+        } finally {
+            fromFile.close();
+            fromBytes.close();
+        }
+    }
+
+    @Test
+    void testCorruptedEntryIsRebuilt() throws Exception {
+        OnnxGraphCache cache = new OnnxGraphCache(cacheDir);
+        load(cache).close();
+
+        try (var files = Files.list(cacheDir)) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".onnx")).toList()) {
+                Files.writeString(file, "corrupted");
+            }
+        }
+
+        OnnxModelHandler handler = load(cache);
+        try {
+            assertEquals(0, cache.getHits());
+            assertEquals(2, cache.getMisses());
+            assertEquals(1L, cache.getStats().get("failures"));
+            assertNotNull(handler.predict(irisRow(5.1, 3.5, 1.4, 0.2)));
+        } finally {
+            handler.close();
+        }
+    }
+
+    @Test
+    void testKnownHashKeysTheEntryAndOldGraphsAreEvicted(@TempDir Path modelDir) throws Exception {
+        OnnxGraphCache cache = new OnnxGraphCache(cacheDir, 1);
+        Path modelFile = modelDir.resolve("iris.onnx");
+        try (InputStream stream = getClass().getResourceAsStream(IRIS_ONNX)) {
+            Files.copy(stream, modelFile);
+        }
+        String firstHash = "a".repeat(64);
+        String secondHash = "b".repeat(64);
+
+        new OnnxModelHandler(modelFile, firstHash, null, cache).close();
+        assertTrue(Files.list(cacheDir).allMatch(f -> f.getFileName().toString().startsWith(firstHash)));
+
+        // The cap is below one graph: storing the second removes the first, with its load time
+        new OnnxModelHandler(modelFile, secondHash, null, cache).close();
+        assertEquals(1L, cache.getStats().get("entries"));
+        assertEquals(1L, cache.getStats().get("evictions"));
+        assertTrue(Files.list(cacheDir).allMatch(f -> f.getFileName().toString().startsWith(secondHash)));
+
+        new OnnxModelHandler(modelFile, secondHash, null, cache).close();
+        assertEquals(2, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void testDisabledCacheWritesNothing() throws Exception {
+        OnnxGraphCache cache = OnnxGraphCache.disabled();
+        load(cache).close();
+
+        assertFalse(cache.isEnabled());
+        assertEquals(0, cache.getMisses());
+        assertEquals(List.of(), Files.list(cacheDir).toList());
+    }
+
+    @Test
+    void testCacheKeyIncludesRuntimeVersionAndLevel() {
+        String key = OnnxGraphCache.cacheKey("abc", "1.18.0", ai.onnxruntime.OrtSession.SessionOptions.OptLevel.BASIC_OPT);
+
+        assertEquals("abc-ort1.18.0-basic_opt", key);
+    }
+
+    private OnnxModelHandler load(OnnxGraphCache cache) throws Exception {
+        try (InputStream stream = getClass().getResourceAsStream(IRIS_ONNX)) {
+            return new OnnxModelHandler(stream, null, cache);
+        }
+    }
+
+    private static Map<String, Object> irisRow(double x1, double x2, double x3, double x4) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("x1", x1);
+        row.put("x2", x2);
+        row.put("x3", x3);
+        row.put("x4", x4);
+        return row;
+    }
+}
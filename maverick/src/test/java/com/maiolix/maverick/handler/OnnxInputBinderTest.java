@@ -0,0 +1,88 @@
+package com.maiolix.maverick.handler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ai.onnxruntime.OnnxJavaType;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtSession;
+
+class OnnxInputBinderTest {
+
+    private OrtSession session;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        try (InputStream stream = getClass().getResourceAsStream("/models/iris.onnx")) {
+            assertNotNull(stream);
+            session = OrtEnvironment.getEnvironment().createSession(stream.readAllBytes(), new OrtSession.SessionOptions());
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (session != null) {
+            session.close();
+        }
+    }
+
+    @Test
+    void testCompileFromSessionMetadata() throws Exception {
+        OnnxInputBinder binder = OnnxInputBinder.compile(session);
+
+        assertEquals("float_input", binder.getInputName());
+        assertEquals(OnnxJavaType.FLOAT, binder.getElementType());
+        assertFalse(binder.isNamed());
+        assertEquals(4, binder.rowWidth(Map.of()));
+    }
+
+    @Test
+    void testNamedBindingFollowsModelFeatureOrder() throws Exception {
+        OnnxInputBinder binder = OnnxInputBinder.compile(session, List.of("sepal_length", "sepal_width", "petal_length", "petal_width"));
+        Buffer buffer = new TensorBufferPool(binder.getElementType()).lease(8);
+
+        binder.bind(Map.of("petal_width", 0.2, "sepal_length", 5.1, "petal_length", "1.4", "sepal_width", 3.5), buffer, 1, 4);
+
+        FloatBuffer floats = (FloatBuffer) buffer;
+        assertEquals(5.1f, floats.get(4));
+        assertEquals(3.5f, floats.get(5));
+        assertEquals(1.4f, floats.get(6));
+        assertEquals(0.2f, floats.get(7));
+    }
+
+    @Test
+    void testNamedBindingRejectsUnknownAndMissingFeatures() throws Exception {
+        OnnxInputBinder binder = OnnxInputBinder.compile(session, List.of("a", "b", "c", "d"));
+        Buffer buffer = new TensorBufferPool(binder.getElementType()).lease(4);
+
+        Map<String, Object> unknown = Map.of("a", 1, "b", 2, "c", 3, "e", 4);
+        Map<String, Object> missing = Map.of("a", 1, "b", 2, "c", 3);
+
+        assertThrows(IllegalArgumentException.class, () -> binder.bind(unknown, buffer, 0, 4));
+        assertThrows(IllegalArgumentException.class, () -> binder.bind(missing, buffer, 0, 4));
+    }
+
+    @Test
+    void testDeclaredFeaturesMustMatchModelWidth() {
+        assertThrows(IllegalStateException.class, () -> OnnxInputBinder.compile(session, List.of("a", "b")));
+    }
+
+    @Test
+    void testNonNumericValueIsRejected() throws Exception {
+        OnnxInputBinder binder = OnnxInputBinder.compile(session, List.of("a", "b", "c", "d"));
+        Buffer buffer = new TensorBufferPool(binder.getElementType()).lease(4);
+
+        Map<String, Object> row = Map.of("a", "x", "b", 2, "c", 3, "d", 4);
+
+        assertThrows(NumberFormatException.class, () -> binder.bind(row, buffer, 0, 4));
+    }
+}
@@ -5,8 +5,12 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.AfterEach;
@@ -18,6 +22,8 @@ import com.maiolix.maverick.exception.OnnxPredictionException;
 
 class OnnxModelHandlerTest {
 
+    private static final String IRIS_ONNX = "/models/iris.onnx";
+
     private OnnxModelHandler onnxHandler;
     private Path tempFile;
 
@@ -127,6 +133,116 @@ class OnnxModelHandlerTest {
         assertEquals(2, validInput.size());
     }
 
+    @Test
+    void testPredictWithIrisModel() throws Exception {
+        try (InputStream stream = getClass().getResourceAsStream(IRIS_ONNX)) {
+            onnxHandler = new OnnxModelHandler(stream);
+        }
+        
+        Object result = onnxHandler.predict(irisRow(5.1, 3.5, 1.4, 0.2));
+        
+        assertInstanceOf(Map.class, result);
+        long[] labels = (long[]) ((Map<?, ?>) result).get("output_label");
+        assertArrayEquals(new long[]{0L}, labels);
+    }
+
+    @Test
+    void testPredictWithWrongFeatureCount() throws Exception {
+        try (InputStream stream = getClass().getResourceAsStream(IRIS_ONNX)) {
+            onnxHandler = new OnnxModelHandler(stream);
+        }
+        
+        Map<String, Object> input = Map.of("x1", 5.1, "x2", 3.5);
+        Exception exception = assertThrows(OnnxPredictionException.class, () -> onnxHandler.predict(input));
+        assertTrue(exception.getMessage().contains("Expected 4 input values"));
+    }
+
+    @Test
+    void testPredictBatchWithIrisModel() throws Exception {
+        try (InputStream stream = getClass().getResourceAsStream(IRIS_ONNX)) {
+            onnxHandler = new OnnxModelHandler(stream);
+        }
+        assertTrue(onnxHandler.supportsNativeBatching());
+        
+        List<RowResult> results = onnxHandler.predictBatch(List.of(
+                irisRow(5.1, 3.5, 1.4, 0.2),
+                Map.of("x1", "not-a-number", "x2", 3.0, "x3", 5.2, "x4", 2.3),
+                irisRow(6.7, 3.0, 5.2, 2.3)));
+        
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertInstanceOf(OnnxPredictionException.class, results.get(1).getError());
+        assertTrue(results.get(2).isSuccess());
+        
+        // Each row gets the same shape a single prediction would return
+        Map<?, ?> first = (Map<?, ?>) results.get(0).getPrediction();
+        Map<?, ?> third = (Map<?, ?>) results.get(2).getPrediction();
+        assertArrayEquals(new long[]{0L}, (long[]) first.get("output_label"));
+        assertArrayEquals(new long[]{2L}, (long[]) third.get("output_label"));
+        assertEquals(1, ((List<?>) first.get("output_probability")).size());
+    }
+
+    @Test
+    void testPredictWithSessionProfile() throws Exception {
+        OnnxSessionProfile profile = OnnxSessionProfile.fromJson(
+                "{\"intraOpThreads\": 1, \"interOpThreads\": 1, \"executionMode\": \"sequential\","
+                + " \"optimizationLevel\": \"ALL_OPT\", \"memoryPattern\": false, \"cpuArena\": true, \"arenaShrinkage\": true}");
+        try (InputStream stream = getClass().getResourceAsStream(IRIS_ONNX)) {
+            onnxHandler = new OnnxModelHandler(stream, profile, null);
+        }
+        
+        Object result = onnxHandler.predict(irisRow(6.7, 3.0, 5.2, 2.3));
+        
+        long[] labels = (long[]) ((Map<?, ?>) result).get("output_label");
+        assertArrayEquals(new long[]{2L}, labels);
+    }
+
+    @Test
+    void testPredictTensorsWithIrisModel() throws Exception {
+        try (InputStream stream = getClass().getResourceAsStream(IRIS_ONNX)) {
+            onnxHandler = new OnnxModelHandler(stream);
+        }
+        assertTrue(onnxHandler.supportsRawTensors());
+        ByteBuffer data = ByteBuffer.allocateDirect(2 * 4 * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        data.asFloatBuffer().put(new float[]{5.1f, 3.5f, 1.4f, 0.2f, 6.7f, 3.0f, 5.2f, 2.3f});
+        
+        Map<String, Object> outputs = onnxHandler.predictTensors(
+                List.of(new RawTensor(null, RawTensor.DType.FLOAT32, new long[]{2, 4}, data)));
+        
+        RawTensor labels = (RawTensor) outputs.get("output_label");
+        assertEquals(RawTensor.DType.INT64, labels.getDtype());
+        assertArrayEquals(new long[]{0L, 2L}, (long[]) labels.toArray());
+        // Sequences of maps keep their JSON form
+        assertEquals(2, ((List<?>) outputs.get("output_probability")).size());
+    }
+
+    @Test
+    void testPredictTensorsRejectsWrongDtypeAndShape() throws Exception {
+        try (InputStream stream = getClass().getResourceAsStream(IRIS_ONNX)) {
+            onnxHandler = new OnnxModelHandler(stream);
+        }
+        RawTensor doubles = new RawTensor(null, RawTensor.DType.FLOAT64, new long[]{1, 4}, ByteBuffer.allocate(32));
+        RawTensor narrow = new RawTensor(null, RawTensor.DType.FLOAT32, new long[]{1, 3}, ByteBuffer.allocate(12));
+        RawTensor unknown = new RawTensor("other", RawTensor.DType.FLOAT32, new long[]{1, 4}, ByteBuffer.allocate(16));
+        
+        Exception dtype = assertThrows(OnnxPredictionException.class, () -> onnxHandler.predictTensors(List.of(doubles)));
+        Exception shape = assertThrows(OnnxPredictionException.class, () -> onnxHandler.predictTensors(List.of(narrow)));
+        Exception name = assertThrows(OnnxPredictionException.class, () -> onnxHandler.predictTensors(List.of(unknown)));
+        assertTrue(dtype.getMessage().contains("expects FLOAT32"));
+        assertTrue(shape.getMessage().contains("expects shape"));
+        assertTrue(name.getMessage().contains("Unknown input 'other'"));
+    }
+
+    private static Map<String, Object> irisRow(double x1, double x2, double x3, double x4) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("x1", x1);
+        row.put("x2", x2);
+        row.put("x3", x3);
+        row.put("x4", x4);
+        return row;
+    }
+
     @Test
     void testExceptionHierarchy() {
         // Test that exceptions are properly typed
@@ -0,0 +1,63 @@
+package com.maiolix.maverick.handler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.OrtSession.SessionOptions.ExecutionMode;
+import ai.onnxruntime.OrtSession.SessionOptions.OptLevel;
+
+class OnnxSessionProfileTest {
+
+    @Test
+    void testFromJson() {
+        OnnxSessionProfile profile = OnnxSessionProfile.fromJson(
+                "{\"intraOpThreads\": 2, \"executionMode\": \"parallel\", \"optimizationLevel\": \"BASIC_OPT\", \"cpuArena\": false}");
+
+        assertEquals(2, profile.getIntraOpThreads());
+        assertNull(profile.getInterOpThreads());
+        assertEquals(ExecutionMode.PARALLEL, profile.getExecutionMode());
+        assertEquals(OptLevel.BASIC_OPT, profile.getOptimizationLevel());
+        assertFalse(profile.getCpuArena());
+        assertNull(OnnxSessionProfile.fromJson("  "));
+    }
+
+    @Test
+    void testFromJsonRejectsInvalidValues() {
+        assertThrows(IllegalArgumentException.class, () -> OnnxSessionProfile.fromJson("{\"intraOpThreads\": -1}"));
+        assertThrows(IllegalArgumentException.class, () -> OnnxSessionProfile.fromJson("{\"optimizationLevel\": \"FAST\"}"));
+        assertThrows(IllegalArgumentException.class, () -> OnnxSessionProfile.fromJson("{\"threads\": 4}"));
+        assertThrows(IllegalArgumentException.class, () -> OnnxSessionProfile.fromJson("not json"));
+    }
+
+    @Test
+    void testMergeIntoMetadataKeepsOtherEntries() {
+        OnnxSessionProfile profile = OnnxSessionProfile.builder().intraOpThreads(1).memoryPattern(false).build();
+
+        String metadata = OnnxSessionProfile.mergeIntoMetadata("{\"framework\": \"sklearn\"}", profile);
+
+        assertTrue(metadata.contains("\"framework\":\"sklearn\""));
+        assertEquals(profile, OnnxSessionProfile.fromMetadata(metadata));
+        assertNull(OnnxSessionProfile.fromMetadata(OnnxSessionProfile.mergeIntoMetadata(metadata, null)));
+    }
+
+    @Test
+    void testFromMetadataIgnoresMissingOrInvalidProfile() {
+        assertNull(OnnxSessionProfile.fromMetadata(null));
+        assertNull(OnnxSessionProfile.fromMetadata("{\"framework\": \"test\"}"));
+        assertNull(OnnxSessionProfile.fromMetadata("plain text"));
+        assertNull(OnnxSessionProfile.fromMetadata("{\"sessionProfile\": {\"interOpThreads\": -2}}"));
+    }
+
+    @Test
+    void testRunOptionsOnlyWithArenaShrinkage() throws Exception {
+        assertNull(OnnxSessionProfile.toRunOptions(null));
+        assertNull(OnnxSessionProfile.toRunOptions(OnnxSessionProfile.builder().cpuArena(true).build()));
+
+        try (OrtSession.RunOptions options = OnnxSessionProfile.toRunOptions(
+                OnnxSessionProfile.builder().arenaShrinkage(true).build())) {
+            assertNotNull(options);
+        }
+    }
+}
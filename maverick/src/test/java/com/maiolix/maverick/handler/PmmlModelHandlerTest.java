@@ -7,32 +7,32 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.maiolix.maverick.exception.PmmlModelException;
+import com.maiolix.maverick.exception.PmmlPredictionException;
+
 class PmmlModelHandlerTest {
 
+    private static final String IRIS_PMML = "/models/iris.pmml";
+
     private PmmlModelHandler pmmlHandler;
     private Path tempFile;
 
     @BeforeEach
     void setUp() throws IOException {
-        // Create a temporary PMML file for testing
+        // Copy the iris classification model (logistic regression, inputs x1..x4, target y) to a temporary file
         tempFile = Files.createTempFile("test-pmml", ".pmml");
-        // Write minimal PMML content (XML format)
-        String pmmlContent = """
-            <?xml version="1.0" encoding="UTF-8"?>
-            <PMML version="4.4" xmlns="http://www.dmg.org/PMML-4_4">
-                <Header/>
-                <DataDictionary>
-                    <DataField name="feature1" optype="continuous" dataType="double"/>
-                </DataDictionary>
-            </PMML>
-            """;
-        Files.write(tempFile, pmmlContent.getBytes());
+        try (InputStream model = getClass().getResourceAsStream(IRIS_PMML)) {
+            assertNotNull(model, "Test model not found: " + IRIS_PMML);
+            Files.copy(model, tempFile, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 
     @AfterEach
@@ -52,6 +52,100 @@ class PmmlModelHandlerTest {
         }
     }
 
+    @Test
+    void testConstructorWithNullStream() {
+        Exception exception = assertThrows(PmmlModelException.class, () -> {
+            new PmmlModelHandler(null);
+        });
+        assertTrue(exception.getMessage().contains("Model stream cannot be null"));
+    }
+
+    @Test
+    void testConstructorWithoutModelElement() {
+        String pmmlContent = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <PMML version="4.4" xmlns="http://www.dmg.org/PMML-4_4">
+                <Header/>
+                <DataDictionary>
+                    <DataField name="feature1" optype="continuous" dataType="double"/>
+                </DataDictionary>
+            </PMML>
+            """;
+        InputStream stream = new ByteArrayInputStream(pmmlContent.getBytes());
+        
+        assertThrows(PmmlModelException.class, () -> new PmmlModelHandler(stream));
+    }
+
+    @Test
+    void testPredictIrisClassification() throws Exception {
+        try (InputStream stream = Files.newInputStream(tempFile)) {
+            pmmlHandler = new PmmlModelHandler(stream);
+        }
+        
+        Object result = pmmlHandler.predict(Map.of("x1", 5.1, "x2", 3.5, "x3", 1.4, "x4", 0.2));
+        
+        assertInstanceOf(Map.class, result);
+        Map<?, ?> output = (Map<?, ?>) result;
+        assertEquals(0, output.get("predictedClass"));
+        double[] probabilities = (double[]) output.get("classProbabilities");
+        assertEquals(3, probabilities.length);
+        assertEquals(1.0, probabilities[0] + probabilities[1] + probabilities[2], 1e-6);
+        assertTrue(probabilities[0] > 0.9);
+        assertEquals(probabilities[0], (Double) output.get("probability(0)"), 1e-9);
+    }
+
+    @Test
+    void testPredictAcceptsStringValues() throws Exception {
+        try (InputStream stream = Files.newInputStream(tempFile)) {
+            pmmlHandler = new PmmlModelHandler(stream);
+        }
+        
+        Map<?, ?> output = (Map<?, ?>) pmmlHandler.predict(Map.of("x1", "6.7", "x2", "3.0", "x3", "5.2", "x4", "2.3"));
+        
+        assertEquals(2, output.get("predictedClass"));
+    }
+
+    @Test
+    void testPredictWithInvalidValue() throws Exception {
+        try (InputStream stream = Files.newInputStream(tempFile)) {
+            pmmlHandler = new PmmlModelHandler(stream);
+        }
+        
+        Map<String, Object> input = Map.of("x1", "not-a-number", "x2", 3.5, "x3", 1.4, "x4", 0.2);
+        Exception exception = assertThrows(PmmlPredictionException.class, () -> pmmlHandler.predict(input));
+        assertTrue(exception.getMessage().contains("x1"));
+    }
+
+    @Test
+    void testPredictWithInvalidInputType() throws Exception {
+        try (InputStream stream = Files.newInputStream(tempFile)) {
+            pmmlHandler = new PmmlModelHandler(stream);
+        }
+        
+        assertThrows(PmmlPredictionException.class, () -> pmmlHandler.predict("invalid"));
+        assertThrows(PmmlPredictionException.class, () -> pmmlHandler.predict(null));
+        assertThrows(PmmlPredictionException.class, () -> pmmlHandler.predict(Map.of()));
+    }
+
+    @Test
+    void testGetInputSchemaFromDataDictionary() throws Exception {
+        try (InputStream stream = Files.newInputStream(tempFile)) {
+            pmmlHandler = new PmmlModelHandler(stream);
+        }
+        
+        Map<String, Object> schema = pmmlHandler.getInputSchema();
+        
+        assertEquals("PMML", schema.get("modelType"));
+        assertEquals(4, schema.get("totalFeatures"));
+        assertEquals(List.of("x1", "x2", "x3", "x4"), schema.get("featureNames"));
+        assertEquals("y", schema.get("responseColumnName"));
+        assertEquals(3, schema.get("nClasses"));
+        Map<?, ?> features = (Map<?, ?>) schema.get("features");
+        Map<?, ?> x1 = (Map<?, ?>) features.get("x1");
+        assertEquals("numeric", x1.get("type"));
+        assertEquals("double", x1.get("dataType"));
+    }
+
     @Test
     void testConstructorWithInvalidPmmlContent() {
         InputStream invalidStream = new ByteArrayInputStream("not-valid-pmml-xml".getBytes());
@@ -0,0 +1,72 @@
+package com.maiolix.maverick.handler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.Buffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import ai.onnxruntime.OnnxJavaType;
+
+class TensorBufferPoolTest {
+
+    @Test
+    void testLeaseReturnsDirectBufferOfElementType() {
+        TensorBufferPool pool = new TensorBufferPool(OnnxJavaType.FLOAT);
+
+        Buffer buffer = pool.lease(4);
+
+        assertInstanceOf(FloatBuffer.class, buffer);
+        assertTrue(buffer.isDirect());
+        assertEquals(0, buffer.position());
+        assertTrue(buffer.capacity() >= 4);
+        assertInstanceOf(DoubleBuffer.class, new TensorBufferPool(OnnxJavaType.DOUBLE).lease(4));
+        assertInstanceOf(LongBuffer.class, new TensorBufferPool(OnnxJavaType.INT64).lease(4));
+    }
+
+    @Test
+    void testReleasedBufferIsReusedBySameSizeClass() {
+        TensorBufferPool pool = new TensorBufferPool(OnnxJavaType.FLOAT);
+        Buffer first = pool.lease(10);
+        first.limit(5);
+        pool.release(first);
+
+        long hits = TensorBufferPool.getHits();
+        Buffer second = pool.lease(12);
+
+        assertSame(first, second);
+        assertEquals(second.capacity(), second.limit());
+        assertEquals(hits + 1, TensorBufferPool.getHits());
+    }
+
+    @Test
+    void testDifferentSizeClassAllocatesNewBuffer() {
+        TensorBufferPool pool = new TensorBufferPool(OnnxJavaType.FLOAT);
+        Buffer small = pool.lease(4);
+        pool.release(small);
+
+        long misses = TensorBufferPool.getMisses();
+        Buffer large = pool.lease(1000);
+
+        assertNotSame(small, large);
+        assertEquals(1024, large.capacity());
+        assertEquals(misses + 1, TensorBufferPool.getMisses());
+    }
+
+    @Test
+    void testCloseReleasesHeldBytes() {
+        TensorBufferPool pool = new TensorBufferPool(OnnxJavaType.DOUBLE);
+        long before = TensorBufferPool.getBytesHeld();
+
+        Buffer buffer = pool.lease(64);
+        assertEquals(before + 64 * 8, TensorBufferPool.getBytesHeld());
+        pool.release(buffer);
+        pool.close();
+
+        assertEquals(before, TensorBufferPool.getBytesHeld());
+        assertNotSame(buffer, pool.lease(64));
+    }
+}
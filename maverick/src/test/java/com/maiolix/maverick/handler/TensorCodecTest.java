@@ -0,0 +1,101 @@
+package com.maiolix.maverick.handler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.maiolix.maverick.exception.PayloadTooLargeException;
+
+class TensorCodecTest {
+
+    @Test
+    void testRoundTripKeepsNamesShapesAndValues() throws Exception {
+        ByteBuffer floats = ByteBuffer.allocate(6 * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        floats.asFloatBuffer().put(new float[]{1f, 2f, 3f, 4f, 5f, 6f});
+        ByteBuffer longs = ByteBuffer.allocate(3 * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        longs.asLongBuffer().put(new long[]{7L, -8L, 9L});
+
+        byte[] message = TensorCodec.encode(List.of(
+                new RawTensor("features", RawTensor.DType.FLOAT32, new long[]{2, 3}, floats),
+                new RawTensor(null, RawTensor.DType.INT64, new long[]{3}, longs)));
+        ByteBuffer body = TensorCodec.readBody(new ByteArrayInputStream(message), message.length, 1024).buffer();
+        List<RawTensor> decoded = TensorCodec.decode(body);
+
+        assertEquals(2, decoded.size());
+        assertEquals("features", decoded.get(0).getName());
+        assertArrayEquals(new long[]{2, 3}, decoded.get(0).getShape());
+        float[][] matrix = (float[][]) decoded.get(0).toArray();
+        assertArrayEquals(new float[]{4f, 5f, 6f}, matrix[1]);
+        assertNull(decoded.get(1).getName());
+        assertArrayEquals(new long[]{7L, -8L, 9L}, (long[]) decoded.get(1).toArray());
+        // Values are 8-byte aligned views over the direct request buffer
+        assertTrue(body.isDirect());
+        assertTrue(decoded.get(0).values().isDirect());
+        assertEquals(0, message.length % 8);
+    }
+
+    @Test
+    void testMalformedMessagesAreRejected() {
+        ByteBuffer data = ByteBuffer.allocate(4 * Float.BYTES);
+        byte[] message = TensorCodec.encode(List.of(new RawTensor(null, RawTensor.DType.FLOAT32, new long[]{1, 4}, data)));
+        byte[] truncated = Arrays.copyOf(message, message.length - 8);
+        byte[] badMagic = message.clone();
+        badMagic[0] = 'X';
+        byte[] badDtype = message.clone();
+        badDtype[8] = 9;
+
+        assertThrows(IllegalArgumentException.class, () -> TensorCodec.decode(ByteBuffer.wrap(truncated)));
+        assertThrows(IllegalArgumentException.class, () -> TensorCodec.decode(ByteBuffer.wrap(badMagic)));
+        assertThrows(IllegalArgumentException.class, () -> TensorCodec.decode(ByteBuffer.wrap(badDtype)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RawTensor(null, RawTensor.DType.FLOAT64, new long[]{1, 4}, ByteBuffer.allocate(16)));
+    }
+
+    @Test
+    void testBodiesOverTheLimitAreRejected() throws Exception {
+        byte[] message = TensorCodec.encode(List.of(
+                new RawTensor(null, RawTensor.DType.FLOAT32, new long[]{1, 16}, ByteBuffer.allocate(16 * Float.BYTES))));
+
+        // Declared length over the limit: rejected before reading
+        assertThrows(PayloadTooLargeException.class,
+                () -> TensorCodec.readBody(new ByteArrayInputStream(message), message.length, message.length - 1));
+        // Chunked body: rejected once the limit is passed
+        assertThrows(PayloadTooLargeException.class,
+                () -> TensorCodec.readBody(new ByteArrayInputStream(message), -1, message.length - 1));
+        ByteBuffer chunked = TensorCodec.readBody(new ByteArrayInputStream(message), -1, message.length).buffer();
+        assertEquals(message.length, chunked.remaining());
+    }
+
+    @Test
+    void testSmallBodiesReusePooledBuffersAndLargeOnesStayOnTheHeap() throws Exception {
+        byte[] message = TensorCodec.encode(List.of(
+                new RawTensor(null, RawTensor.DType.FLOAT32, new long[]{1, 16}, ByteBuffer.allocate(16 * Float.BYTES))));
+
+        long misses = TensorBufferPool.getMisses();
+        for (int i = 0; i < 3; i++) {
+            try (TensorCodec.Body body = TensorCodec.readBody(new ByteArrayInputStream(message), message.length, 1024)) {
+                assertTrue(body.buffer().isDirect());
+                assertEquals(message.length, body.buffer().remaining());
+                assertEquals(1, TensorCodec.decode(body.buffer()).size());
+            }
+        }
+        // Released bodies are leased again by the same thread
+        assertEquals(1, TensorBufferPool.getMisses() - misses);
+
+        byte[] large = TensorCodec.encode(List.of(
+                new RawTensor(null, RawTensor.DType.FLOAT32, new long[]{1, 1 << 17}, ByteBuffer.allocate((1 << 17) * Float.BYTES))));
+        try (TensorCodec.Body body = TensorCodec.readBody(new ByteArrayInputStream(large), large.length, large.length)) {
+            assertFalse(body.buffer().isDirect());
+            assertArrayEquals(new long[]{1, 1 << 17}, TensorCodec.decode(body.buffer()).get(0).getShape());
+        }
+        assertThrows(IOException.class,
+                () -> TensorCodec.readBody(new ByteArrayInputStream(message), message.length + 8, 1024));
+    }
+}
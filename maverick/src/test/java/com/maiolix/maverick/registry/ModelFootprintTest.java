@@ -0,0 +1,34 @@
+package com.maiolix.maverick.registry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ModelFootprintTest {
+
+    @AfterEach
+    void tearDown() {
+        ModelFootprint.configureFactors(null);
+    }
+
+    @Test
+    void testEstimateIsArtifactSizeTimesTypeFactor() {
+        assertEquals(1000, ModelFootprint.estimate("ONNX", 1000));
+        assertEquals(2000, ModelFootprint.estimate("mojo", 1000));
+        assertEquals(4000, ModelFootprint.estimate("PMML", 1000));
+        assertEquals(0, ModelFootprint.estimate("ONNX", 0));
+        // Same artifact, same estimate
+        assertEquals(ModelFootprint.estimate("MOJO", 1234), ModelFootprint.estimate("MOJO", 1234));
+    }
+
+    @Test
+    void testConfiguredFactorsOverrideDefaults() {
+        ModelFootprint.configureFactors(Map.of("pmml", 0.5));
+
+        assertEquals(500, ModelFootprint.estimate("PMML", 1000));
+        assertEquals(2000, ModelFootprint.estimate("MOJO", 1000));
+    }
+}
@@ -2,8 +2,25 @@ package com.maiolix.maverick.registry;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -25,6 +42,12 @@ class ModelRegistryTest {
         ModelRegistry.clear(); // Clean slate for each test
     }
 
+    @AfterEach
+    void tearDown() {
+        ModelRegistry.configureBudget(0, EvictionPolicy.LRU, Set.of());
+        ModelRegistry.clear();
+    }
+
     @Test
     void testRegisterAndGet() {
         ModelRegistry.register("test-model", "ONNX", "1.0", mockHandler1);
@@ -165,4 +188,251 @@ class ModelRegistryTest {
         assertEquals(mockHandler1, entry1.getHandler());
         assertEquals(mockHandler2, entry2.getHandler());
     }
+
+    @Test
+    void testReplacedHandlerClosedAfterInFlightLeaseReleased() {
+        ModelRegistry.register("test-model", "ONNX", "1.0", mockHandler1);
+        ModelLease lease = ModelRegistry.acquire("test-model", "1.0");
+        assertNotNull(lease);
+
+        ModelRegistry.register("test-model", "ONNX", "1.0", mockHandler2);
+
+        // New predictions see the replacement, the in-flight one keeps the old handler open
+        assertEquals(mockHandler2, ModelRegistry.get("test-model", "1.0").getHandler());
+        assertTrue(lease.getEntry().isRetired());
+        assertEquals(1, lease.getEntry().getActiveLeases());
+        verify(mockHandler1, never()).close();
+
+        lease.close();
+        lease.close(); // Releasing twice has no effect
+
+        verify(mockHandler1, times(1)).close();
+        verify(mockHandler2, never()).close();
+        assertNull(ModelRegistry.acquire(lease.getEntry()));
+    }
+
+    @Test
+    void testRemoveClosesIdleHandler() {
+        ModelRegistry.register("test-model", "ONNX", "1.0", mockHandler1);
+        long closedBefore = ModelRegistry.getClosedCount();
+
+        ModelRegistry.remove("test-model", "1.0");
+
+        verify(mockHandler1).close();
+        assertNull(ModelRegistry.acquire("test-model", "1.0"));
+        assertEquals(closedBefore + 1, ModelRegistry.getClosedCount());
+        assertTrue(ModelRegistry.getRetirementStats().containsKey("maxDrainMs"));
+    }
+
+    @Test
+    void testRegisteringSameHandlerDoesNotCloseIt() {
+        ModelRegistry.register("test-model", "ONNX", "1.0", mockHandler1);
+        ModelRegistry.register("test-model", "ONNX", "1.0", mockHandler1);
+
+        verify(mockHandler1, never()).close();
+        try (ModelLease lease = ModelRegistry.acquire("test-model", "1.0")) {
+            assertEquals(mockHandler1, lease.getHandler());
+        }
+    }
+
+    @Test
+    void testConcurrentPredictionsDuringSwapNeverUseClosedHandler() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        IModelHandler first = mock(IModelHandler.class);
+        doAnswer(invocation -> {
+            closed.set(true);
+            return null;
+        }).when(first).close();
+        when(first.predict(any())).thenAnswer(invocation -> {
+            assertFalse(closed.get(), "prediction on a closed handler");
+            Thread.sleep(1);
+            return "old";
+        });
+        when(mockHandler2.predict(any())).thenReturn("new");
+        ModelRegistry.register("test-model", "ONNX", "1.0", first);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                results.add(executor.submit(() -> {
+                    try (ModelLease lease = ModelRegistry.acquire("test-model", "1.0")) {
+                        return lease.getHandler().predict(Map.of());
+                    }
+                }));
+                if (i == 50) {
+                    ModelRegistry.register("test-model", "ONNX", "1.0", mockHandler2);
+                }
+            }
+            for (Future<Object> result : results) {
+                assertNotNull(result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(closed.get());
+        verify(first, times(1)).close();
+    }
+
+    @Test
+    void testBudgetEvictsLeastRecentlyUsedIdleModel() {
+        ModelRegistry.configureBudget(250, EvictionPolicy.LRU, Set.of());
+        IModelHandler handler3 = mock(IModelHandler.class);
+        ModelRegistry.register(sizedEntry("a", 100, mockHandler1));
+        ModelRegistry.register(sizedEntry("b", 100, mockHandler2));
+        ModelRegistry.acquire("a", "1.0").close(); // "b" is now the least recently used
+
+        long capacityBefore = ModelRegistry.getEvictionCount(EvictionReason.CAPACITY);
+        ModelRegistry.register(sizedEntry("c", 100, handler3));
+
+        assertTrue(ModelRegistry.exists("a", "1.0"));
+        assertFalse(ModelRegistry.exists("b", "1.0"));
+        assertTrue(ModelRegistry.exists("c", "1.0"));
+        assertEquals(200, ModelRegistry.getResidentBytes());
+        assertEquals(capacityBefore + 1, ModelRegistry.getEvictionCount(EvictionReason.CAPACITY));
+        verify(mockHandler2).close();
+    }
+
+    @Test
+    void testBudgetLfuEvictsLeastFrequentlyUsedModel() {
+        ModelRegistry.configureBudget(250, EvictionPolicy.LFU, Set.of());
+        ModelRegistry.register(sizedEntry("a", 100, mockHandler1));
+        ModelRegistry.register(sizedEntry("b", 100, mockHandler2));
+        for (int i = 0; i < 3; i++) {
+            ModelRegistry.acquire("b", "1.0").close();
+        }
+        ModelRegistry.acquire("a", "1.0").close(); // Most recent, but used less
+
+        ModelRegistry.register(sizedEntry("c", 100, mock(IModelHandler.class)));
+
+        assertFalse(ModelRegistry.exists("a", "1.0"));
+        assertTrue(ModelRegistry.exists("b", "1.0"));
+    }
+
+    @Test
+    void testPinnedAndBusyModelsAreNotEvicted() {
+        ModelRegistry.configureBudget(150, EvictionPolicy.LRU, Set.of("a"));
+        ModelRegistry.register(sizedEntry("a", 100, mockHandler1));
+        ModelCacheEntry flagged = sizedEntry("b", 100, mockHandler2);
+        flagged.setPinned(true);
+        ModelRegistry.register(flagged);
+        IModelHandler busyHandler = mock(IModelHandler.class);
+        ModelRegistry.register(sizedEntry("busy", 100, busyHandler));
+        // "busy" has just been registered; hold a lease so it is not idle for the next registration
+        try (ModelLease lease = ModelRegistry.acquire("busy", "1.0")) {
+            ModelRegistry.register(sizedEntry("d", 100, mock(IModelHandler.class)));
+
+            assertTrue(ModelRegistry.exists("a", "1.0"));
+            assertTrue(ModelRegistry.exists("b", "1.0"));
+            assertTrue(ModelRegistry.exists("busy", "1.0"));
+            assertTrue(ModelRegistry.exists("d", "1.0"));
+            assertTrue((Long) ModelRegistry.getMemoryStats().get("overBudget") > 0);
+        }
+        verify(busyHandler, never()).close();
+    }
+
+    @Test
+    void testConcurrentLoadsOfSameVersionShareOneLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger invocations = new AtomicInteger();
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            long joinedBefore = ModelRegistry.getLoadsJoined();
+            List<CompletableFuture<ModelCacheEntry>> loads = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                loads.add(ModelRegistry.loadOnce("shared", "1.0", () -> {
+                    invocations.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    ModelCacheEntry entry = new ModelCacheEntry("shared", "ONNX", "1.0", mockHandler1);
+                    ModelRegistry.register(entry);
+                    return entry;
+                }, executor));
+            }
+            assertTrue(ModelRegistry.isLoading("shared", "1.0"));
+            release.countDown();
+
+            ModelCacheEntry first = loads.get(0).get(5, TimeUnit.SECONDS);
+            for (CompletableFuture<ModelCacheEntry> load : loads) {
+                assertSame(first, load.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, invocations.get());
+            assertEquals(4, ModelRegistry.getLoadsJoined() - joinedBefore);
+            assertFalse(ModelRegistry.isLoading("shared", "1.0"));
+            assertEquals(first, ModelRegistry.get("shared", "1.0"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testReplacingLoadDoesNotJoinLoadWithDifferentIntent() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            ModelCacheEntry stale = new ModelCacheEntry("intent", "ONNX", "1.0", mockHandler1);
+            ModelCacheEntry fresh = new ModelCacheEntry("intent", "ONNX", "1.0", mockHandler2);
+            CompletableFuture<ModelCacheEntry> lazy = ModelRegistry.loadOnce("intent", "1.0", () -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return stale;
+            }, executor);
+            CompletableFuture<ModelCacheEntry> reload = ModelRegistry.loadOnce("intent", "1.0", "replace:profile-b",
+                    () -> fresh, executor);
+            CompletableFuture<ModelCacheEntry> sameReload = ModelRegistry.loadOnce("intent", "1.0", "replace:profile-b",
+                    () -> fail("The reload with the same intent is shared"), executor);
+
+            // The reload runs only after the load in flight has settled
+            assertFalse(reload.isDone());
+            release.countDown();
+
+            assertSame(stale, lazy.get(5, TimeUnit.SECONDS));
+            assertSame(fresh, reload.get(5, TimeUnit.SECONDS));
+            assertSame(fresh, sameReload.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testLoadFailureIsSharedAndNextLoadRetries() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<ModelCacheEntry> first = ModelRegistry.loadOnce("broken", "1.0", () -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalStateException("corrupted artifact");
+            }, executor);
+            CompletableFuture<ModelCacheEntry> joined = ModelRegistry.loadOnce("broken", "1.0",
+                    () -> fail("A load is already in flight"), executor);
+            release.countDown();
+
+            ExecutionException error = assertThrows(ExecutionException.class, () -> joined.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, error.getCause());
+            assertTrue(first.isCompletedExceptionally());
+
+            // The failed load is no longer in flight: a new caller starts a fresh load
+            ModelCacheEntry entry = new ModelCacheEntry("broken", "ONNX", "1.0", mockHandler2);
+            assertSame(entry, ModelRegistry.loadOnce("broken", "1.0", () -> entry, Runnable::run).get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ModelCacheEntry sizedEntry(String name, long bytes, IModelHandler handler) {
+        ModelCacheEntry entry = new ModelCacheEntry(name, "ONNX", "1.0", handler);
+        entry.setArtifactBytes(bytes);
+        return entry;
+    }
 }
@@ -0,0 +1,112 @@
+package com.maiolix.maverick.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.maiolix.maverick.exception.StorageOperationException;
+
+class ModelArtifactCacheTest {
+
+    @TempDir
+    Path cacheDir;
+
+    @Test
+    void testSecondOpenIsServedFromDisk() throws Exception {
+        ModelArtifactCache cache = new ModelArtifactCache(cacheDir, 0);
+        byte[] content = "model-bytes".getBytes(StandardCharsets.UTF_8);
+        AtomicInteger downloads = new AtomicInteger();
+        Supplier<InputStream> download = () -> {
+            downloads.incrementAndGet();
+            return new ByteArrayInputStream(content);
+        };
+
+        assertArrayEquals(content, read(cache.open(sha256(content), "m/1.0/model.onnx", download)));
+        assertArrayEquals(content, read(cache.open(sha256(content), "m/1.0/model.onnx", download)));
+
+        assertEquals(1, downloads.get());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(1L, cache.getStats().get("entries"));
+    }
+
+    @Test
+    void testFillWithWrongContentIsRejected() throws Exception {
+        ModelArtifactCache cache = new ModelArtifactCache(cacheDir, 0);
+        String expected = sha256("original".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(StorageOperationException.class, () -> cache.open(expected, "m/1.0/model.onnx",
+                () -> new ByteArrayInputStream("tampered".getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals(1L, cache.getStats().get("verifyFailures"));
+        assertEquals(List.of(), Files.list(cacheDir).toList());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+        ModelArtifactCache cache = new ModelArtifactCache(cacheDir, 25);
+        byte[] first = "first-artifact".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "second-artifact".getBytes(StandardCharsets.UTF_8);
+
+        read(cache.open(sha256(first), "a", () -> new ByteArrayInputStream(first)));
+        // The first entry becomes the least recently used one
+        Files.setLastModifiedTime(cacheDir.resolve(sha256(first) + ".artifact"), FileTime.fromMillis(0));
+        read(cache.open(sha256(second), "b", () -> new ByteArrayInputStream(second)));
+
+        assertEquals(1, cache.getEvictions());
+        assertFalse(Files.exists(cacheDir.resolve(sha256(first) + ".artifact")));
+        assertTrue(Files.exists(cacheDir.resolve(sha256(second) + ".artifact")));
+    }
+
+    @Test
+    void testLegacyHashOrDisabledCacheBypassesDisk() throws Exception {
+        byte[] content = "model".getBytes(StandardCharsets.UTF_8);
+        ModelArtifactCache cache = new ModelArtifactCache(cacheDir, 0);
+
+        assertArrayEquals(content, read(cache.open("-123456", "m", () -> new ByteArrayInputStream(content))));
+        assertArrayEquals(content, read(ModelArtifactCache.disabled().open(sha256(content), "m",
+                () -> new ByteArrayInputStream(content))));
+
+        assertEquals(1L, cache.getStats().get("bypassed"));
+        assertEquals(List.of(), Files.list(cacheDir).toList());
+        assertFalse(ModelArtifactCache.isSha256(null));
+        assertTrue(ModelArtifactCache.isSha256(sha256(content)));
+    }
+
+    @Test
+    void testFetcherFillsCacheAndIsVerified() throws Exception {
+        ModelArtifactCache cache = new ModelArtifactCache(cacheDir, 0);
+        byte[] content = "ranged-model-bytes".getBytes(StandardCharsets.UTF_8);
+
+        assertArrayEquals(content, read(cache.open(sha256(content), "m", () -> {
+            throw new AssertionError("The fetcher replaces the sequential download");
+        }, target -> Files.write(target, content))));
+        assertThrows(StorageOperationException.class, () -> cache.open(sha256("other".getBytes(StandardCharsets.UTF_8)),
+                "m", () -> null, target -> Files.write(target, content)));
+
+        assertEquals(1L, cache.getStats().get("entries"));
+        assertEquals(1L, cache.getStats().get("verifyFailures"));
+    }
+
+    private static byte[] read(InputStream stream) throws Exception {
+        try (InputStream in = stream) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        return HexFormat.of().formatHex(ModelArtifactCache.newSha256().digest(content));
+    }
+}
@@ -2,7 +2,9 @@ package com.maiolix.maverick.repository;
 
 import static org.assertj.core.api.Assertions.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -15,6 +17,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.maiolix.maverick.entity.ModelEntity;
 import com.maiolix.maverick.service.ModelDatabaseService;
+import com.maiolix.maverick.service.PredictionCounter;
 
 /**
  * Test di integrazione per il ModelRepository e ModelDatabaseService con PostgreSQL
@@ -139,7 +142,7 @@ class ModelRepositoryIntegrationTest {
         Long initialCount = saved.getPredictionCount();
 
         // When
-        modelDatabaseService.recordPrediction(saved.getId());
+        modelDatabaseService.applyPredictionDeltas(Map.of(saved.getId(), new PredictionCounter.PredictionDelta(1, LocalDateTime.now())));
 
         // Then
         Optional<ModelEntity> updated = modelDatabaseService.findById(saved.getId());
@@ -278,7 +281,7 @@ class ModelRepositoryIntegrationTest {
 
         ModelEntity usedModel = testModel;
         ModelEntity saved = modelDatabaseService.saveModel(usedModel);
-        modelDatabaseService.recordPrediction(saved.getId()); // Simula utilizzo
+        modelDatabaseService.applyPredictionDeltas(Map.of(saved.getId(), new PredictionCounter.PredictionDelta(1, LocalDateTime.now()))); // Simula utilizzo
 
         // When
         List<ModelEntity> unused = modelDatabaseService.findUnusedModels();
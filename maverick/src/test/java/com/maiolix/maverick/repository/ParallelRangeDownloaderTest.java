@@ -0,0 +1,125 @@
+package com.maiolix.maverick.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.maiolix.maverick.exception.StorageOperationException;
+
+class ParallelRangeDownloaderTest {
+
+    private static final String OBJECT_PATH = "model/1.0/model.onnx";
+
+    @TempDir
+    Path tempDir;
+
+    private IModelStorageRepository storage;
+    private ParallelRangeDownloader downloader;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() {
+        storage = mock(IModelStorageRepository.class);
+        content = new byte[10_000];
+        new Random(7).nextBytes(content);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (downloader != null) {
+            downloader.close();
+        }
+    }
+
+    @Test
+    void testRangesAreAssembledInOrder() throws Exception {
+        downloader = new ParallelRangeDownloader(1024, 4, 0, 0);
+        when(storage.downloadModelRange(eq(OBJECT_PATH), anyLong(), anyLong())).thenAnswer(invocation -> range(
+                invocation.getArgument(1, Long.class), invocation.getArgument(2, Long.class)));
+
+        Path target = tempDir.resolve("model.partial");
+        ParallelRangeDownloader.Result result = downloader.download(storage, OBJECT_PATH, content.length, target);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(10, result.parts());
+        assertEquals(content.length, result.bytes());
+        assertEquals(0, result.retries());
+        assertTrue(downloader.isParallel(content.length));
+        assertEquals(1L, downloader.getStats().get("downloads"));
+    }
+
+    @Test
+    void testFailedRangeIsRetried() throws Exception {
+        downloader = new ParallelRangeDownloader(1024, 4, 2, 0);
+        AtomicInteger failures = new AtomicInteger();
+        when(storage.downloadModelRange(eq(OBJECT_PATH), anyLong(), anyLong())).thenAnswer(invocation -> {
+            long offset = invocation.getArgument(1, Long.class);
+            if (offset == 2048 && failures.getAndIncrement() < 2) {
+                throw new StorageOperationException("Connection reset", "MINIO");
+            }
+            return range(offset, invocation.getArgument(2, Long.class));
+        });
+
+        Path target = tempDir.resolve("model.partial");
+        ParallelRangeDownloader.Result result = downloader.download(storage, OBJECT_PATH, content.length, target);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(2, result.retries());
+    }
+
+    @Test
+    void testRangeFailingBeyondRetriesFailsDownload() {
+        downloader = new ParallelRangeDownloader(1024, 4, 1, 0);
+        when(storage.downloadModelRange(eq(OBJECT_PATH), anyLong(), anyLong())).thenAnswer(invocation -> {
+            long offset = invocation.getArgument(1, Long.class);
+            if (offset == 0) {
+                throw new StorageOperationException("Connection reset", "MINIO");
+            }
+            return range(offset, invocation.getArgument(2, Long.class));
+        });
+
+        assertThrows(IOException.class,
+                () -> downloader.download(storage, OBJECT_PATH, content.length, tempDir.resolve("model.partial")));
+        assertEquals(1L, downloader.getStats().get("failures"));
+    }
+
+    @Test
+    void testSlowRangeIsHedged() throws Exception {
+        downloader = new ParallelRangeDownloader(1024, 4, 0, 50);
+        AtomicInteger lastRangeRequests = new AtomicInteger();
+        when(storage.downloadModelRange(eq(OBJECT_PATH), anyLong(), anyLong())).thenAnswer(invocation -> {
+            long offset = invocation.getArgument(1, Long.class);
+            if (offset == 9216 && lastRangeRequests.getAndIncrement() == 0) {
+                // The first request of the last range stalls until cancelled
+                Thread.sleep(30_000);
+            }
+            return range(offset, invocation.getArgument(2, Long.class));
+        });
+
+        Path target = tempDir.resolve("model.partial");
+        ParallelRangeDownloader.Result result = downloader.download(storage, OBJECT_PATH, content.length, target);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(1, result.hedges());
+        assertTrue(result.millis() < 30_000);
+    }
+
+    private InputStream range(long offset, long length) {
+        return new ByteArrayInputStream(Arrays.copyOfRange(content, (int) offset, (int) (offset + length)));
+    }
+}
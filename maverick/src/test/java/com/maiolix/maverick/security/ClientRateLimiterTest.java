@@ -0,0 +1,130 @@
+package com.maiolix.maverick.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.maiolix.maverick.service.UserService;
+
+class ClientRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final ClientRateLimiter limiter = new ClientRateLimiter(now::get);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testBurstUpToLimitThenThrottled() {
+        for (int i = 0; i < 60; i++) {
+            assertTrue(limiter.tryAcquire(1L, 60).allowed());
+        }
+
+        ClientRateLimiter.Decision rejected = limiter.tryAcquire(1L, 60);
+
+        assertFalse(rejected.allowed());
+        assertEquals(1, rejected.retryAfterSeconds());
+        assertEquals(1, limiter.getThrottled(1L));
+        // Other clients have their own bucket
+        assertTrue(limiter.tryAcquire(2L, 60).allowed());
+    }
+
+    @Test
+    void testTokensRefillOverTime() {
+        for (int i = 0; i < 60; i++) {
+            limiter.tryAcquire(1L, 60);
+        }
+        assertFalse(limiter.tryAcquire(1L, 60).allowed());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(1L, 60).allowed());
+        }
+        assertFalse(limiter.tryAcquire(1L, 60).allowed());
+    }
+
+    @Test
+    void testLimitChangeAppliesToNextRequest() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire(1L, 10).allowed());
+        }
+        assertFalse(limiter.tryAcquire(1L, 10).allowed());
+
+        // Raised limit: the same bucket now admits more requests
+        assertTrue(limiter.tryAcquire(1L, 100).allowed());
+        assertTrue(limiter.tryAcquire(1L, 0).allowed());
+        assertEquals(0, limiter.getStats().get(1L).get("limitPerMinute"));
+    }
+
+    @Test
+    void testConcurrentRequestsNeverExceedLimit() throws Exception {
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 500; i++) {
+                    if (limiter.tryAcquire(1L, 1000).allowed()) {
+                        allowed.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertEquals(1000, allowed.get());
+        assertEquals(3000, limiter.getThrottled(1L));
+    }
+
+    @Test
+    void testFilterRejectsThrottledClientWith429() throws Exception {
+        UserService userService = mock(UserService.class);
+        when(userService.getClientRateLimit(5L)).thenReturn(1);
+        ClientRateLimitFilter filter = new ClientRateLimitFilter(limiter, userService,
+                new ObjectMapper().registerModule(new JavaTimeModule()));
+        JwtPrincipal principal = new JwtPrincipal("batch-client", JwtPrincipal.MACHINE, null, 5L, null, 1000,
+                Instant.now().plusSeconds(3600));
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                "batch-client", null, List.of(new SimpleGrantedAuthority("ROLE_PREDICTOR")));
+        authentication.setDetails(new JwtAuthenticationFilter.JwtAuthenticationDetails(principal));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockFilterChain firstChain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/models/predict/1.0/iris"), first, firstChain);
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        MockFilterChain secondChain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/models/predict/1.0/iris"), second, secondChain);
+
+        assertNotNull(firstChain.getRequest());
+        assertEquals(200, first.getStatus());
+        assertNull(secondChain.getRequest());
+        assertEquals(429, second.getStatus());
+        assertEquals("60", second.getHeader("Retry-After"));
+        assertTrue(second.getContentAsString().contains("RATE_LIMIT_EXCEEDED"));
+    }
+}
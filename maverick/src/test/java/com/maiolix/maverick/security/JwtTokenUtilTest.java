@@ -0,0 +1,70 @@
+package com.maiolix.maverick.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.maiolix.maverick.entity.ApiClientEntity;
+import com.maiolix.maverick.entity.UserEntity;
+
+class JwtTokenUtilTest {
+
+    private static final String SECRET = "test-secret-key-for-jwt-token-util-tests-at-least-256-bits";
+
+    private final JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(SECRET, 900_000, 86_400_000, 100);
+
+    @Test
+    void testClientTokenIsVerifiedOnce() {
+        ApiClientEntity client = ApiClientEntity.builder().id(7L).clientId("scoring-client")
+                .allowedScopes("predict").rateLimitPerMinute(120).build();
+        String token = jwtTokenUtil.createClientToken(client);
+
+        JwtPrincipal principal = jwtTokenUtil.authenticate(token);
+        for (int i = 0; i < 4; i++) {
+            assertSame(principal, jwtTokenUtil.authenticate(token));
+        }
+
+        assertTrue(principal.isMachine());
+        assertEquals("scoring-client", principal.username());
+        assertEquals(7L, principal.clientId());
+        assertEquals(120, principal.rateLimit());
+        assertNull(principal.userId());
+        assertEquals(4L, jwtTokenUtil.getVerifiedTokenCacheStats().get("hits"));
+        assertEquals(7L, jwtTokenUtil.getClientIdFromToken(token));
+    }
+
+    @Test
+    void testUserTokenClaims() {
+        UserEntity user = UserEntity.builder().id(3L).username("alice").email("alice@example.com").build();
+        String token = jwtTokenUtil.createUserToken(user);
+
+        JwtPrincipal principal = jwtTokenUtil.authenticate(token);
+
+        assertTrue(principal.isHuman());
+        assertEquals(3L, principal.userId());
+        assertEquals("alice@example.com", principal.email());
+        assertFalse(principal.isExpired());
+        assertTrue(jwtTokenUtil.getTokenRemainingTime(token) > 0);
+    }
+
+    @Test
+    void testTamperedOrForeignTokensAreRejected() {
+        UserEntity user = UserEntity.builder().id(3L).username("alice").email("alice@example.com").build();
+        String token = jwtTokenUtil.createUserToken(user);
+        String foreign = new JwtTokenUtil(SECRET.replace('t', 'x'), 900_000, 86_400_000, 100).createUserToken(user);
+
+        assertNull(jwtTokenUtil.authenticate(token.substring(0, token.length() - 2) + "xx"));
+        assertNull(jwtTokenUtil.authenticate(foreign));
+        assertNull(jwtTokenUtil.authenticate("not-a-jwt"));
+        assertFalse(jwtTokenUtil.validateToken(""));
+    }
+
+    @Test
+    void testExpiredTokenIsRejected() {
+        JwtTokenUtil expiring = new JwtTokenUtil(SECRET, -1_000, -1_000, 100);
+        UserEntity user = UserEntity.builder().id(3L).username("alice").email("alice@example.com").build();
+
+        assertNull(expiring.authenticate(expiring.createUserToken(user)));
+        assertEquals(0L, expiring.getVerifiedTokenCacheStats().get("size"));
+    }
+}
@@ -0,0 +1,191 @@
+package com.maiolix.maverick.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.FixedSizeListVector;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.maiolix.maverick.exception.ModelPredictionException;
+import com.maiolix.maverick.handler.IModelHandler;
+import com.maiolix.maverick.handler.OnnxModelHandler;
+import com.maiolix.maverick.handler.RowResult;
+import com.maiolix.maverick.registry.ModelRegistry;
+
+class ArrowBatchScorerTest {
+
+    private static final ArrowType FLOAT64 = new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+    private static final ArrowType FLOAT32 = new ArrowType.FloatingPoint(FloatingPointPrecision.SINGLE);
+
+    private final BufferAllocator allocator = new RootAllocator();
+    private final ArrowBatchScorer scorer = new ArrowBatchScorer(64L * 1024 * 1024, 2);
+
+    @AfterEach
+    void tearDown() {
+        ModelRegistry.remove("arrow-iris", "1");
+        ModelRegistry.remove("arrow-rows", "1");
+        scorer.close();
+        allocator.close();
+    }
+
+    @Test
+    void testFeatureColumnsAreScoredAsOneTensorPerBlock() throws Exception {
+        registerIris();
+        Schema schema = new Schema(List.of(Field.nullable("x1", FLOAT64), Field.nullable("x2", FLOAT64),
+                Field.nullable("x3", FLOAT64), Field.nullable("x4", FLOAT64)));
+        double[][] rows = {{5.1, 3.5, 1.4, 0.2}, {6.7, 3.0, 5.2, 2.3}, {5.0, 3.4, 1.5, 0.2}};
+        byte[] request = stream(schema, root -> {
+            for (int column = 0; column < 4; column++) {
+                Float8Vector vector = (Float8Vector) root.getVector(column);
+                for (int row = 0; row < rows.length; row++) {
+                    vector.setSafe(row, rows[row][column]);
+                }
+            }
+            root.setRowCount(rows.length);
+        });
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        ArrowBatchScorer.Summary summary = scorer.score("arrow-iris", "1", new ByteArrayInputStream(request), () -> response);
+
+        assertEquals(new ArrowBatchScorer.Summary(3, 3, 2), summary);
+        List<Long> labels = new ArrayList<>();
+        readBatches(response.toByteArray(), root -> {
+            BigIntVector label = (BigIntVector) root.getVector("output_label");
+            for (int i = 0; i < root.getRowCount(); i++) {
+                labels.add(label.get(i));
+                assertTrue(root.getVector("_error").isNull(i));
+            }
+            // Probability maps become one column per class
+            assertInstanceOf(Float4Vector.class, root.getVector("output_probability.0"));
+        });
+        assertEquals(List.of(0L, 2L, 0L), labels);
+    }
+
+    @Test
+    void testInputColumnIsPassedWithoutCopy() throws Exception {
+        registerIris();
+        Field input = new Field("float_input", FieldType.nullable(new ArrowType.FixedSizeList(4)),
+                List.of(Field.nullable("item", FLOAT32)));
+        float[] values = {6.7f, 3.0f, 5.2f, 2.3f};
+        byte[] request = stream(new Schema(List.of(input)), root -> {
+            FixedSizeListVector list = (FixedSizeListVector) root.getVector(0);
+            Float4Vector child = (Float4Vector) list.getDataVector();
+            list.setNotNull(0);
+            for (int i = 0; i < values.length; i++) {
+                child.setSafe(i, values[i]);
+            }
+            child.setValueCount(values.length);
+            root.setRowCount(1);
+        });
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        scorer.score("arrow-iris", "1", new ByteArrayInputStream(request), () -> response);
+
+        List<Long> labels = new ArrayList<>();
+        readBatches(response.toByteArray(), root -> labels.add(((BigIntVector) root.getVector("output_label")).get(0)));
+        assertEquals(List.of(2L), labels);
+    }
+
+    @Test
+    void testRowModelsReportErrorsPerRow() throws Exception {
+        IModelHandler handler = mock(IModelHandler.class);
+        when(handler.predictBatch(anyList())).thenAnswer(invocation -> {
+            List<?> inputs = invocation.getArgument(0);
+            List<RowResult> results = new ArrayList<>();
+            for (Object row : inputs) {
+                Map<?, ?> values = (Map<?, ?>) row;
+                results.add(values.containsKey("x")
+                        ? RowResult.success(Map.of("predictedClass", "yes", "classProbabilities", new double[]{0.2, 0.8}))
+                        : RowResult.failure(new IllegalArgumentException("x is missing")));
+            }
+            return results;
+        });
+        ModelRegistry.register("arrow-rows", "MOJO", "1", handler);
+        byte[] request = stream(new Schema(List.of(Field.nullable("x", FLOAT64))), root -> {
+            Float8Vector x = (Float8Vector) root.getVector(0);
+            x.setSafe(0, 1.0);
+            x.setNull(1);
+            root.setRowCount(2);
+        });
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        ArrowBatchScorer.Summary summary = scorer.score("arrow-rows", "1", new ByteArrayInputStream(request), () -> response);
+
+        assertEquals(1, summary.successRows());
+        readBatches(response.toByteArray(), root -> {
+            assertEquals("yes", ((VarCharVector) root.getVector("predictedClass")).getObject(0).toString());
+            FixedSizeListVector probabilities = (FixedSizeListVector) root.getVector("classProbabilities");
+            assertEquals(List.of(0.2, 0.8), probabilities.getObject(0));
+            assertTrue(root.getVector("predictedClass").isNull(1));
+            assertEquals("x is missing", ((VarCharVector) root.getVector("_error")).getObject(1).toString());
+        });
+    }
+
+    @Test
+    void testInvalidStreamFailsBeforeTheResponseIsOpened() throws Exception {
+        registerIris();
+        AtomicBoolean opened = new AtomicBoolean();
+        InputStream garbage = new ByteArrayInputStream("not an arrow stream at all".getBytes());
+
+        assertThrows(ModelPredictionException.class, () -> scorer.score("arrow-iris", "1", garbage, () -> {
+            opened.set(true);
+            return new ByteArrayOutputStream();
+        }));
+        assertFalse(opened.get());
+        assertEquals(0L, scorer.getStats().get("allocatedBytes"));
+    }
+
+    private void registerIris() throws Exception {
+        try (InputStream stream = getClass().getResourceAsStream("/models/iris.onnx")) {
+            ModelRegistry.register("arrow-iris", "ONNX", "1", new OnnxModelHandler(stream));
+        }
+    }
+
+    private byte[] stream(Schema schema, Consumer<VectorSchemaRoot> fill) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (VectorSchemaRoot root = VectorSchemaRoot.create(schema, allocator);
+             ArrowStreamWriter writer = new ArrowStreamWriter(root, null, Channels.newChannel(out))) {
+            root.getFieldVectors().forEach(FieldVector::allocateNew);
+            fill.accept(root);
+            writer.start();
+            writer.writeBatch();
+            writer.end();
+        }
+        return out.toByteArray();
+    }
+
+    private void readBatches(byte[] response, Consumer<VectorSchemaRoot> check) throws Exception {
+        try (ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(response), allocator)) {
+            while (reader.loadNextBatch()) {
+                check.accept(reader.getVectorSchemaRoot());
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.maiolix.maverick.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.maiolix.maverick.exception.ModelPredictionException;
+import com.maiolix.maverick.handler.IModelHandler;
+import com.maiolix.maverick.handler.OnnxModelHandler;
+import com.maiolix.maverick.handler.RowResult;
+import com.maiolix.maverick.registry.ModelRegistry;
+
+class CsvBatchScorerTest {
+
+    private final CsvBatchScorer scorer = new CsvBatchScorer(2, 3, 2, 1024);
+
+    @AfterEach
+    void tearDown() {
+        ModelRegistry.remove("csv-iris", "1");
+        ModelRegistry.remove("csv-rows", "1");
+        scorer.shutdown();
+    }
+
+    @Test
+    void testSelectedColumnsAreScoredInRowOrder() throws Exception {
+        try (InputStream stream = getClass().getResourceAsStream("/models/iris.onnx")) {
+            ModelRegistry.register("csv-iris", "ONNX", "1", new OnnxModelHandler(stream));
+        }
+        String csv = "sepal_length,sepal_width,petal_length,petal_width,class\n"
+                + "5.1,3.5,1.4,0.2,setosa\n"
+                + "6.7,3.0,5.2,2.3,virginica\r\n"
+                + "5.0,3.4,1.5,0.2,setosa\n"
+                + "6.4,3.2,4.5,1.5,versicolor\n"
+                + "5.9,3.0,5.1,1.8,virginica\n";
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        CsvBatchScorer.Summary summary = scorer.score("csv-iris", "1", input(csv),
+                List.of("sepal_length", "sepal_width", "petal_length", "petal_width"), () -> response);
+
+        assertEquals(new CsvBatchScorer.Summary(5, 5, 3), summary);
+        List<String> lines = response.toString(StandardCharsets.UTF_8).lines().toList();
+        List<String> header = List.of(lines.get(0).split(","));
+        assertEquals("_row", header.get(0));
+        assertEquals("_error", header.get(header.size() - 1));
+        int label = header.indexOf("output_label");
+        assertTrue(label > 0, "Header: " + header);
+        // Le mappe delle probabilità diventano una colonna per classe
+        assertTrue(header.containsAll(List.of("output_probability.0", "output_probability.1", "output_probability.2")));
+
+        List<String> labels = new ArrayList<>();
+        for (int i = 1; i < lines.size(); i++) {
+            String[] cells = lines.get(i).split(",", -1);
+            assertEquals(String.valueOf(i - 1), cells[0]);
+            assertEquals("", cells[cells.length - 1]);
+            labels.add(cells[label]);
+        }
+        assertEquals(List.of("0", "2", "0", "1", "2"), labels);
+    }
+
+    @Test
+    void testDeclaredFeaturesAreMappedByNameWithPerRowErrors() throws Exception {
+        IModelHandler handler = mock(IModelHandler.class);
+        when(handler.getInputSchema()).thenReturn(Map.of("featureNames", List.of("x", "y")));
+        when(handler.predictBatch(anyList())).thenAnswer(invocation -> {
+            List<?> inputs = invocation.getArgument(0);
+            List<RowResult> results = new ArrayList<>();
+            for (Object row : inputs) {
+                Map<?, ?> values = (Map<?, ?>) row;
+                if (!values.containsKey("x")) {
+                    results.add(RowResult.failure(new IllegalArgumentException("x is missing")));
+                } else {
+                    // Le righe dei blocchi successivi terminano prima dei precedenti
+                    Thread.sleep(values.get("x").equals("1") ? 50 : 0);
+                    results.add(RowResult.success(Map.of("label", values.get("y") + ", " + values.get("x"))));
+                }
+            }
+            return results;
+        });
+        ModelRegistry.register("csv-rows", "MOJO", "1", handler);
+        String csv = "id,y,x\n"
+                + "a,\"b \"\"quoted\"\"\",1\n"
+                + "c,d,\n"
+                + "e,f\n"
+                + "g,h,2\n"
+                + "i,j,3\n";
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        CsvBatchScorer.Summary summary = scorer.score("csv-rows", "1", input(csv), null, () -> response);
+
+        assertEquals(3, summary.successRows());
+        assertEquals(List.of(
+                "_row,label,_error",
+                "0,\"b \"\"quoted\"\", 1\",",
+                "1,,x is missing",
+                "2,,Expected 3 CSV columns but got 2",
+                "3,\"h, 2\",",
+                "4,\"j, 3\","), response.toString(StandardCharsets.UTF_8).lines().toList());
+    }
+
+    @Test
+    void testHeaderWaitsForTheFirstSuccessfulChunk() throws Exception {
+        IModelHandler handler = mock(IModelHandler.class);
+        when(handler.getInputSchema()).thenReturn(Map.of("featureNames", List.of("x")));
+        when(handler.predictBatch(anyList())).thenAnswer(invocation -> {
+            List<RowResult> results = new ArrayList<>();
+            for (Object row : (List<?>) invocation.getArgument(0)) {
+                Object x = ((Map<?, ?>) row).get("x");
+                if (x == null) {
+                    results.add(RowResult.failure(new IllegalArgumentException("x is missing")));
+                } else if (x.equals("3")) {
+                    results.add(RowResult.success(Map.of("label", x, "score", "0.5")));
+                } else {
+                    results.add(RowResult.success(Map.of("label", x)));
+                }
+            }
+            return results;
+        });
+        ModelRegistry.register("csv-rows", "MOJO", "1", handler);
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        CsvBatchScorer.Summary summary = scorer.score("csv-rows", "1", input("x,y\n,a\n,b\n1,c\n2,d\n3,e\n"), null, () -> response);
+
+        // Il primo blocco fallisce per intero ma non rifiuta lo stream; la chiave nuova è segnalata
+        assertEquals(new CsvBatchScorer.Summary(5, 2, 3), summary);
+        assertEquals(List.of(
+                "_row,label,_error",
+                "0,,x is missing",
+                "1,,x is missing",
+                "2,1,",
+                "3,2,",
+                "4,3,Output columns not in the CSV header: [score]"), response.toString(StandardCharsets.UTF_8).lines().toList());
+    }
+
+    @Test
+    void testStreamWithoutSuccessfulRowsHasOnlyFixedColumns() throws Exception {
+        IModelHandler handler = mock(IModelHandler.class);
+        when(handler.getInputSchema()).thenReturn(Map.of("featureNames", List.of("x")));
+        ModelRegistry.register("csv-rows", "MOJO", "1", handler);
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        CsvBatchScorer.Summary summary = scorer.score("csv-rows", "1", input("x,y\n1\n2\n3\n"), null, () -> response);
+
+        assertEquals(new CsvBatchScorer.Summary(3, 0, 2), summary);
+        assertEquals(List.of(
+                "_row,_error",
+                "0,Expected 2 CSV columns but got 1",
+                "1,Expected 2 CSV columns but got 1",
+                "2,Expected 2 CSV columns but got 1"), response.toString(StandardCharsets.UTF_8).lines().toList());
+    }
+
+    @Test
+    void testMissingFeatureColumnFailsBeforeTheResponseIsOpened() {
+        IModelHandler handler = mock(IModelHandler.class);
+        when(handler.getInputSchema()).thenReturn(Map.of("featureNames", List.of("x", "y")));
+        ModelRegistry.register("csv-rows", "MOJO", "1", handler);
+        AtomicBoolean opened = new AtomicBoolean();
+
+        ModelPredictionException e = assertThrows(ModelPredictionException.class,
+                () -> scorer.score("csv-rows", "1", input("x,z\n1,2\n"), null, () -> {
+                    opened.set(true);
+                    return new ByteArrayOutputStream();
+                }));
+        assertTrue(e.getMessage().contains("'y'"));
+        assertFalse(opened.get());
+        verify(handler, never()).predictBatch(anyList());
+    }
+
+    private static InputStream input(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+}
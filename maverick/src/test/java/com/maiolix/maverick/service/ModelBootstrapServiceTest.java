@@ -1,24 +1,31 @@
 package com.maiolix.maverick.service;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import com.maiolix.maverick.entity.ModelEntity;
+import com.maiolix.maverick.handler.IModelHandler;
 import com.maiolix.maverick.registry.ModelRegistry;
 import com.maiolix.maverick.repository.MinioModelRepository;
+import com.maiolix.maverick.repository.ModelArtifactCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 /**
  * Test per ModelBootstrapService
@@ -36,13 +43,25 @@ class ModelBootstrapServiceTest {
     @Mock
     private ApplicationReadyEvent applicationReadyEvent;
 
-    @InjectMocks
+    @Mock
+    private IModelService modelService;
+
+    private ModelLoader modelLoader;
+
     private ModelBootstrapService bootstrapService;
 
     @BeforeEach
     void setUp() {
         // Pulisce la cache prima di ogni test
         ModelRegistry.clear();
+        modelLoader = new ModelLoader(minioRepository, ModelArtifactCache.disabled(), modelService, ModelWarmer.disabled(), new SimpleMeterRegistry(), true, 0);
+        bootstrapService = new ModelBootstrapService(modelDatabaseService, modelLoader);
+    }
+
+    @AfterEach
+    void tearDown() {
+        modelLoader.shutdown();
+        ModelRegistry.clear();
     }
 
     /**
@@ -287,8 +306,138 @@ class ModelBootstrapServiceTest {
                 " modelli completato in " + executionTime + "ms");
     }
 
+    /**
+     * Test ordinamento per utilizzo: i modelli più usati sono caricati per primi
+     */
+    @Test
+    void testModelsLoadedInUsageOrder() throws Exception {
+        ModelBootstrapService service = createParallelService(1, 0, "");
+        List<ModelEntity> activeModels = Arrays.asList(
+                createTestModelWithUsage("cold-model", 1L),
+                createTestModelWithUsage("hot-model", 500L),
+                createTestModelWithUsage("warm-model", 20L)
+        );
+        when(modelDatabaseService.findActiveModels()).thenReturn(activeModels);
+        when(minioRepository.downloadModel(anyString())).thenAnswer(inv -> new ByteArrayInputStream(new byte[0]));
+
+        IModelHandler handler = mock(IModelHandler.class);
+        when(modelService.createModelHandler(any(InputStream.class), anyString(), any())).thenReturn(handler);
+
+        service.loadActiveModelsOnStartup();
+
+        assertEquals(3, ModelRegistry.size());
+        var inOrder = inOrder(minioRepository);
+        inOrder.verify(minioRepository).downloadModel("hot-model/v1.0/model.onnx");
+        inOrder.verify(minioRepository).downloadModel("warm-model/v1.0/model.onnx");
+        inOrder.verify(minioRepository).downloadModel("cold-model/v1.0/model.onnx");
+
+        BootstrapReadiness readiness = service.getReadiness();
+        assertTrue(readiness.isCompleted());
+        assertEquals(3, readiness.getLoaded());
+        assertEquals(1.0, readiness.getLoadedFraction());
+    }
+
+    /**
+     * Test timeout per modello: un modello lento non blocca gli altri e viene registrato quando pronto
+     */
+    @Test
+    void testSlowModelTimesOutWithoutBlockingOthers() throws Exception {
+        ModelBootstrapService service = createParallelService(2, 3, "slow-model");
+        List<ModelEntity> activeModels = Arrays.asList(
+                createTestModelWithUsage("slow-model", 10L),
+                createTestModelWithUsage("fast-model", 5L)
+        );
+        when(modelDatabaseService.findActiveModels()).thenReturn(activeModels);
+        when(minioRepository.downloadModel(anyString()))
+                .thenAnswer(inv -> new ByteArrayInputStream(inv.getArgument(0, String.class).getBytes()));
+
+        IModelHandler slowHandler = mock(IModelHandler.class);
+        IModelHandler fastHandler = mock(IModelHandler.class);
+        when(modelService.createModelHandler(any(InputStream.class), anyString(), any())).thenAnswer(inv -> {
+            String path = new String(inv.getArgument(0, InputStream.class).readAllBytes());
+            if (path.startsWith("slow-model")) {
+                Thread.sleep(8000);
+                return slowHandler;
+            }
+            return fastHandler;
+        });
+
+        long start = System.currentTimeMillis();
+        service.loadActiveModelsOnStartup();
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(elapsed < 8000, "Il bootstrap non deve attendere il modello lento");
+        assertFalse(ModelRegistry.exists("slow-model", "v1.0"));
+        assertTrue(ModelRegistry.exists("fast-model", "v1.0"));
+        // Il modello scaduto non è un fallimento: resta in sospeso e la readiness non sale
+        assertEquals(0, service.getReadiness().getFailed());
+        assertEquals(1, service.getReadiness().getPending());
+        assertEquals(0.5, service.getReadiness().getLoadedFraction());
+        assertEquals(Set.of("slow-model:v1.0"), service.getReadiness().getMissingCriticalModels());
+
+        // Il modello scaduto resta attivo: il caricamento prosegue e lo registra quando è pronto
+        verify(modelDatabaseService, never()).deactivateModel(any());
+        for (int i = 0; i < 100 && !ModelRegistry.exists("slow-model", "v1.0"); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(ModelRegistry.exists("slow-model", "v1.0"));
+        for (int i = 0; i < 50 && service.getReadiness().getLoaded() < 2; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(2, service.getReadiness().getLoaded());
+        assertEquals(1.0, service.getReadiness().getLoadedFraction());
+        assertEquals(slowHandler, ModelRegistry.get("slow-model", "v1.0").getHandler());
+        verify(slowHandler, never()).close();
+        assertEquals(Set.of(), service.getReadiness().getMissingCriticalModels());
+
+        // Un modello critico rimosso dopo il bootstrap non riporta la readiness DOWN
+        ModelRegistry.remove("slow-model", "v1.0");
+        assertEquals(Set.of(), service.getReadiness().getMissingCriticalModels());
+    }
+
+    /**
+     * Test ricaricamento a caldo: la readiness del bootstrap non viene azzerata
+     */
+    @Test
+    void testManualReloadKeepsReadiness() throws Exception {
+        ModelBootstrapService service = createParallelService(2, 0, "");
+        when(modelDatabaseService.findActiveModels()).thenReturn(List.of(createTestModelWithUsage("served-model", 1L)));
+        when(minioRepository.downloadModel(anyString())).thenAnswer(inv -> new ByteArrayInputStream(new byte[0]));
+        when(modelService.createModelHandler(any(InputStream.class), anyString(), any())).thenAnswer(inv -> mock(IModelHandler.class));
+
+        service.loadActiveModelsOnStartup();
+        assertEquals(1.0, service.getReadiness().getLoadedFraction());
+
+        List<Double> fractionsDuringReload = new java.util.concurrent.CopyOnWriteArrayList<>();
+        when(modelService.createModelHandler(any(InputStream.class), anyString(), any())).thenAnswer(inv -> {
+            fractionsDuringReload.add(service.getReadiness().getLoadedFraction());
+            return mock(IModelHandler.class);
+        });
+        service.reloadAllActiveModels();
+
+        // Durante la sostituzione il pod resta pronto
+        assertEquals(List.of(1.0), fractionsDuringReload);
+        assertEquals(1, service.getReadiness().getLoaded());
+        assertTrue(service.getReadiness().isCompleted());
+        assertTrue(ModelRegistry.exists("served-model", "v1.0"));
+    }
+
     // === METODI HELPER ===
 
+    private ModelBootstrapService createParallelService(int parallelism, long timeoutSeconds, String criticalModels) {
+        ModelBootstrapService service = new ModelBootstrapService(modelDatabaseService, modelLoader);
+        ReflectionTestUtils.setField(service, "parallelism", parallelism);
+        ReflectionTestUtils.setField(service, "modelTimeoutSeconds", timeoutSeconds);
+        ReflectionTestUtils.setField(service, "criticalModelsConfig", criticalModels);
+        return service;
+    }
+
+    private ModelEntity createTestModelWithUsage(String name, long predictionCount) {
+        ModelEntity model = createTestModel(name, "v1.0");
+        model.setPredictionCount(predictionCount);
+        return model;
+    }
+
     private ModelEntity createTestModel(String name, String version) {
         return createTestModelWithType(name, version, ModelEntity.ModelType.ONNX);
     }
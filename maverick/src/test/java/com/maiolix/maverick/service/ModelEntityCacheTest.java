@@ -0,0 +1,112 @@
+package com.maiolix.maverick.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.maiolix.maverick.entity.ModelEntity;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ModelEntityCacheTest {
+
+    private SimpleMeterRegistry registry;
+    private ModelEntityCache cache;
+    private final AtomicInteger queries = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new ModelEntityCache(100, 60, registry);
+    }
+
+    @Test
+    void testRepeatedLookupsHitTheCache() {
+        ModelEntity model = model("iris", "1.0", "uuid-1");
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(model, cache.getByNameAndVersion("iris", "1.0", loader(model)).orElseThrow());
+        }
+        // A lookup by name+version also serves the UUID view
+        assertEquals(model, cache.getByUuid("uuid-1", loader(model)).orElseThrow());
+
+        assertEquals(1, queries.get());
+        assertEquals(4.0, registry.get("cache.gets").tag("cache", "modelsByNameAndVersion").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1L, registry.get("maverick.model.entity.load").timer().count());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> byNameAndVersion = (Map<String, Object>) cache.getStats().get("byNameAndVersion");
+        assertEquals(0.8, (Double) byNameAndVersion.get("hitRatio"), 1e-9);
+    }
+
+    @Test
+    void testLookupsReturnCopies() {
+        ModelEntity model = model("iris", "1.0", "uuid-1");
+        ModelEntity first = cache.getByNameAndVersion("iris", "1.0", loader(model)).orElseThrow();
+
+        first.setIsActive(false);
+        first.setMetadata("{\"pinned\":true}");
+
+        ModelEntity second = cache.getByNameAndVersion("iris", "1.0", loader(model)).orElseThrow();
+        assertNotSame(first, second);
+        assertTrue(second.getIsActive());
+        assertNull(second.getMetadata());
+        assertNotSame(second, cache.getByUuid("uuid-1", loader(model)).orElseThrow());
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    void testMissingModelsAreNotCached() {
+        assertTrue(cache.getByNameAndVersion("missing", "1.0", loader(null)).isEmpty());
+        assertTrue(cache.getByNameAndVersion("missing", "1.0", loader(null)).isEmpty());
+
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    void testInvalidationRemovesBothViews() {
+        ModelEntity model = model("iris", "1.0", "uuid-1");
+        cache.getByUuid("uuid-1", loader(model));
+
+        cache.invalidate("iris", "1.0");
+        cache.getByUuid("uuid-1", loader(model));
+        cache.invalidate(model);
+        cache.getByNameAndVersion("iris", "1.0", loader(model));
+
+        assertEquals(3, queries.get());
+    }
+
+    @Test
+    void testInvalidateModelRemovesAllVersions() {
+        ModelEntity v1 = model("iris", "1.0", "uuid-1");
+        ModelEntity v2 = model("iris", "2.0", "uuid-2");
+        ModelEntity other = model("wine", "1.0", "uuid-3");
+        cache.getByNameAndVersion("iris", "1.0", loader(v1));
+        cache.getByNameAndVersion("iris", "2.0", loader(v2));
+        cache.getByNameAndVersion("wine", "1.0", loader(other));
+
+        cache.invalidateModel("iris");
+        cache.getByNameAndVersion("iris", "1.0", loader(v1));
+        cache.getByUuid("uuid-2", loader(v2));
+        cache.getByNameAndVersion("wine", "1.0", loader(other));
+
+        assertEquals(5, queries.get());
+    }
+
+    private Supplier<Optional<ModelEntity>> loader(ModelEntity model) {
+        return () -> {
+            queries.incrementAndGet();
+            return Optional.ofNullable(model);
+        };
+    }
+
+    private static ModelEntity model(String name, String version, String uuid) {
+        return ModelEntity.builder().modelName(name).version(version).modelUuid(uuid).build();
+    }
+}
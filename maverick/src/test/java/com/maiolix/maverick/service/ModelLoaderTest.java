@@ -0,0 +1,171 @@
+package com.maiolix.maverick.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.maiolix.maverick.entity.ModelEntity;
+import com.maiolix.maverick.exception.ModelLoadingException;
+import com.maiolix.maverick.handler.IModelHandler;
+import com.maiolix.maverick.registry.ModelCacheEntry;
+import com.maiolix.maverick.registry.ModelRegistry;
+import com.maiolix.maverick.repository.IModelStorageRepository;
+import com.maiolix.maverick.repository.ModelArtifactCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ModelLoaderTest {
+
+    private IModelStorageRepository storageRepository;
+    private IModelService modelService;
+    private ModelLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        ModelRegistry.clear();
+        storageRepository = mock(IModelStorageRepository.class);
+        modelService = mock(IModelService.class);
+        when(storageRepository.downloadModel(anyString())).thenAnswer(invocation -> new ByteArrayInputStream(new byte[] { 1 }));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (loader != null) {
+            loader.shutdown();
+        }
+        ModelRegistry.clear();
+    }
+
+    @Test
+    void testConcurrentMissesTriggerOneLoad() throws Exception {
+        loader = new ModelLoader(storageRepository, ModelArtifactCache.disabled(), modelService, ModelWarmer.disabled(), new SimpleMeterRegistry(), true, 10_000);
+        CountDownLatch release = new CountDownLatch(1);
+        IModelHandler handler = mock(IModelHandler.class);
+        when(modelService.createModelHandler(any(), anyString(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return handler;
+        });
+        ModelEntity model = activeModel("lazy-model");
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> requests = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                requests.add(executor.submit(() -> loader.ensureLoaded(model)));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<?> request : requests) {
+                request.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(ModelRegistry.exists("lazy-model", "1.0"));
+        assertEquals(handler, ModelRegistry.get("lazy-model", "1.0").getHandler());
+        verify(storageRepository, times(1)).downloadModel(anyString());
+        verify(modelService, times(1)).createModelHandler(any(), anyString(), any());
+        assertEquals(0, loader.getLoadsInFlight());
+    }
+
+    @Test
+    void testSlowLoadAnswersRetryLaterAndKeepsLoading() throws Exception {
+        loader = new ModelLoader(storageRepository, ModelArtifactCache.disabled(), modelService, ModelWarmer.disabled(), new SimpleMeterRegistry(), true, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        when(modelService.createModelHandler(any(), anyString(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return mock(IModelHandler.class);
+        });
+        ModelEntity model = activeModel("slow-model");
+
+        ModelLoadingException exception = assertThrows(ModelLoadingException.class, () -> loader.ensureLoaded(model));
+        assertTrue(exception.getRetryAfterSeconds() > 0);
+        assertEquals(1, loader.getLoadsInFlight());
+
+        release.countDown();
+        for (int i = 0; i < 50 && !ModelRegistry.exists("slow-model", "1.0"); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(ModelRegistry.exists("slow-model", "1.0"));
+        verify(modelService, times(1)).createModelHandler(any(), anyString(), any());
+    }
+
+    @Test
+    void testCachedArtifactIsLoadedFromItsFile(@TempDir Path cacheDir) {
+        loader = new ModelLoader(storageRepository, new ModelArtifactCache(cacheDir, 0), modelService, ModelWarmer.disabled(), new SimpleMeterRegistry(), true, 5_000);
+        IModelHandler handler = mock(IModelHandler.class);
+        when(modelService.createModelHandlerFromFile(any(), anyString(), anyString(), any())).thenReturn(handler);
+        ModelEntity model = activeModel("file-model");
+        model.setFileHash(HexFormat.of().formatHex(ModelArtifactCache.newSha256().digest(new byte[] { 1 })));
+
+        ModelCacheEntry filled = loader.load(model, false);
+        ModelCacheEntry cached = loader.load(model, true);
+
+        // Only the fill writes to disk; the handler reads the cached file, never the stream
+        assertEquals(1, filled.getDiskBytesWritten());
+        assertEquals(0, cached.getDiskBytesWritten());
+        verify(modelService, times(2)).createModelHandlerFromFile(eq(cacheDir.resolve(model.getFileHash() + ".artifact")),
+                eq(model.getFileHash()), eq("ONNX"), any());
+        verify(modelService, never()).createModelHandler(any(), anyString(), any());
+        verify(storageRepository, times(1)).downloadModel(anyString());
+    }
+
+    @Test
+    void testLoadFailureIsReported() {
+        loader = new ModelLoader(storageRepository, ModelArtifactCache.disabled(), modelService, ModelWarmer.disabled(), new SimpleMeterRegistry(), true, 5_000);
+        when(modelService.createModelHandler(any(), anyString(), any())).thenThrow(new IllegalStateException("corrupted artifact"));
+
+        ModelLoadingException exception = assertThrows(ModelLoadingException.class, () -> loader.ensureLoaded(activeModel("broken-model")));
+
+        assertEquals(0, exception.getRetryAfterSeconds());
+        assertFalse(ModelRegistry.exists("broken-model", "1.0"));
+    }
+
+    @Test
+    void testInactiveOrDisabledModelIsNotLoaded() {
+        loader = new ModelLoader(storageRepository, ModelArtifactCache.disabled(), modelService, ModelWarmer.disabled(), new SimpleMeterRegistry(), true, 5_000);
+        ModelEntity inactive = activeModel("inactive-model");
+        inactive.setIsActive(false);
+
+        loader.ensureLoaded(inactive);
+
+        ModelLoader disabled = new ModelLoader(storageRepository, ModelArtifactCache.disabled(), modelService, ModelWarmer.disabled(), new SimpleMeterRegistry(), false, 5_000);
+        try {
+            disabled.ensureLoaded(activeModel("other-model"));
+        } finally {
+            disabled.shutdown();
+        }
+
+        verifyNoInteractions(storageRepository);
+        assertEquals(0, ModelRegistry.size());
+    }
+
+    private static ModelEntity activeModel(String name) {
+        ModelEntity model = new ModelEntity();
+        model.setModelName(name);
+        model.setVersion("1.0");
+        model.setType(ModelEntity.ModelType.ONNX);
+        model.setFilePath(name + "/1.0/model.onnx");
+        model.setFileSize(1024L);
+        model.setIsActive(true);
+        return model;
+    }
+}
@@ -0,0 +1,195 @@
+package com.maiolix.maverick.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.maiolix.maverick.exception.ModelPredictionException;
+import com.maiolix.maverick.handler.IModelHandler;
+import com.maiolix.maverick.handler.RowResult;
+import com.maiolix.maverick.registry.ModelCacheEntry;
+import com.maiolix.maverick.registry.ModelLease;
+import com.maiolix.maverick.registry.ModelRegistry;
+
+class ModelMicroBatcherTest {
+
+    private ModelMicroBatcher batcher;
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.shutdown();
+        }
+    }
+
+    @Test
+    void testConcurrentPredictionsAreGroupedInOneBatch() throws Exception {
+        batcher = new ModelMicroBatcher("batched-model", 200, 4, 5000, 2);
+        DoublingHandler handler = new DoublingHandler();
+        ModelCacheEntry entry = new ModelCacheEntry("batched-model", "ONNX", "1.0", handler);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 1; i <= 4; i++) {
+                int value = i;
+                futures.add(executor.submit(() -> batcher.predict(entry, value)));
+            }
+            for (int i = 0; i < 4; i++) {
+                assertEquals((i + 1) * 2, futures.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(List.of(4), handler.batchSizes);
+    }
+
+    @Test
+    void testFailedRowDoesNotAffectOtherRows() throws Exception {
+        batcher = new ModelMicroBatcher("batched-model:1.0", 200, 2, 5000, 2);
+        DoublingHandler handler = new DoublingHandler();
+        ModelCacheEntry entry = new ModelCacheEntry("batched-model", "ONNX", "1.0", handler);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> valid = executor.submit(() -> batcher.predict(entry, 21));
+            Future<Object> invalid = executor.submit(() -> batcher.predict(entry, "not-a-number"));
+
+            assertEquals(42, valid.get());
+            Exception exception = assertThrows(Exception.class, invalid::get);
+            assertInstanceOf(ModelPredictionException.class, exception.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testSingleRequestIsFlushedAfterMaxWait() {
+        batcher = new ModelMicroBatcher("batched-model", 5, 32, 5000, 2);
+        DoublingHandler handler = new DoublingHandler();
+        ModelCacheEntry entry = new ModelCacheEntry("batched-model", "ONNX", "1.0", handler);
+
+        assertEquals(10, batcher.predict(entry, 5));
+        assertEquals(List.of(1), handler.batchSizes);
+    }
+
+    @Test
+    void testTimedOutRequestIsNotPredicted() throws Exception {
+        batcher = new ModelMicroBatcher("batched-model", 200, 32, 20, 1);
+        DoublingHandler handler = new DoublingHandler();
+        ModelCacheEntry entry = new ModelCacheEntry("batched-model", "ONNX", "1.0", handler);
+
+        assertThrows(ModelPredictionException.class, () -> batcher.predict(entry, 5));
+        Thread.sleep(400);
+        assertTrue(handler.batchSizes.isEmpty());
+    }
+
+    @Test
+    void testReplacedModelIsNotClosedWhileItsBatchRuns() throws Exception {
+        batcher = new ModelMicroBatcher("batched-model", 0, 32, 50, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean closed = new AtomicBoolean();
+        DoublingHandler handler = new DoublingHandler() {
+            @Override
+            public List<RowResult> predictBatch(List<?> inputs) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                assertFalse(closed.get(), "Handler closed during the batch");
+                return super.predictBatch(inputs);
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        ModelRegistry.register("batched-model", "ONNX", "1.0", handler);
+        try {
+            // The caller times out and releases its lease while the batch is still running
+            try (ModelLease lease = ModelRegistry.acquire("batched-model", "1.0")) {
+                assertThrows(ModelPredictionException.class, () -> batcher.predict(lease.getEntry(), 5));
+            }
+            ModelRegistry.register("batched-model", "ONNX", "1.0", new DoublingHandler());
+            assertFalse(closed.get());
+
+            release.countDown();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!closed.get() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(closed.get());
+            assertEquals(List.of(1), handler.batchSizes);
+        } finally {
+            release.countDown();
+            ModelRegistry.remove("batched-model", "1.0");
+        }
+    }
+
+    @Test
+    void testModelNotEnabledIsPredictedDirectly() {
+        batcher = new ModelMicroBatcher("other-model", 5, 32, 5000, 2);
+        DoublingHandler handler = new DoublingHandler();
+        ModelCacheEntry entry = new ModelCacheEntry("batched-model", "ONNX", "1.0", handler);
+
+        assertFalse(batcher.isEnabled(entry));
+        assertEquals(6, batcher.predict(entry, 3));
+        assertTrue(handler.batchSizes.isEmpty());
+    }
+
+    @Test
+    void testDisabledBatcherPredictsDirectly() {
+        batcher = ModelMicroBatcher.disabled();
+        DoublingHandler handler = new DoublingHandler();
+        ModelCacheEntry entry = new ModelCacheEntry("batched-model", "ONNX", "1.0", handler);
+
+        assertEquals(8, batcher.predict(entry, 4));
+        assertTrue(handler.batchSizes.isEmpty());
+    }
+
+    /**
+     * Handler that doubles integer inputs and records the size of each native batch
+     */
+    private static class DoublingHandler implements IModelHandler {
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Object predict(Object input) {
+            if (!(input instanceof Integer value)) {
+                throw new ModelPredictionException("Input must be an integer");
+            }
+            return value * 2;
+        }
+
+        @Override
+        public List<RowResult> predictBatch(List<?> inputs) {
+            batchSizes.add(inputs.size());
+            return IModelHandler.super.predictBatch(inputs);
+        }
+
+        @Override
+        public boolean supportsNativeBatching() {
+            return true;
+        }
+
+        @Override
+        public Map<String, Object> getInputSchema() {
+            return Map.of();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.maiolix.maverick.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.AfterEach;
@@ -15,6 +16,7 @@ import com.maiolix.maverick.exception.ModelNotFoundException;
 import com.maiolix.maverick.exception.ModelPredictionException;
 import com.maiolix.maverick.exception.ModelUploadException;
 import com.maiolix.maverick.handler.IModelHandler;
+import com.maiolix.maverick.handler.RowResult;
 import com.maiolix.maverick.registry.ModelRegistry;
 
 class ModelServiceImplTest {
@@ -121,6 +123,44 @@ class ModelServiceImplTest {
         assertTrue(exception.getMessage().contains("Model not found"));
     }
 
+    @Test
+    void testPredictBatchWithEmptyRows() {
+        Exception exception = assertThrows(ModelPredictionException.class, () -> {
+            modelService.predictBatch("test-model", "1.0", List.of());
+        });
+        
+        assertTrue(exception.getMessage().contains("Input rows cannot be empty"));
+    }
+
+    @Test
+    void testPredictBatchWithNonExistentModel() {
+        List<Object> rows = List.of(Map.of("feature1", 1.0));
+        
+        Exception exception = assertThrows(ModelNotFoundException.class, () -> {
+            modelService.predictBatch("non-existent-model", "1.0", rows);
+        });
+        
+        assertTrue(exception.getMessage().contains("Model not found"));
+    }
+
+    @Test
+    void testPredictBatchReportsErrorsPerRow() {
+        IModelHandler handler = mock(IModelHandler.class);
+        when(handler.predict("good")).thenReturn("ok");
+        when(handler.predict("bad")).thenThrow(new ModelPredictionException("bad row"));
+        when(handler.predictBatch(anyList())).thenCallRealMethod();
+        ModelRegistry.register("batch-model", "ONNX", "1.0", handler);
+        
+        List<RowResult> results = modelService.predictBatch("batch-model", "1.0", List.of("good", "bad", "good"));
+        
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("ok", results.get(0).getPrediction());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("bad row", results.get(1).getError().getMessage());
+        assertTrue(results.get(2).isSuccess());
+    }
+
     @Test
     void testGetInputSchemaWithNonExistentModel() {
         Exception exception = assertThrows(ModelNotFoundException.class, () -> {
@@ -0,0 +1,132 @@
+package com.maiolix.maverick.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.maiolix.maverick.exception.ModelUploadException;
+import com.maiolix.maverick.exception.PayloadTooLargeException;
+import com.maiolix.maverick.handler.IModelHandler;
+import com.maiolix.maverick.repository.IModelStorageRepository;
+import com.maiolix.maverick.repository.ModelArtifactCache;
+
+class ModelUploadPipelineTest {
+
+    @TempDir
+    Path cacheDir;
+
+    private IModelStorageRepository storageRepository;
+    private IModelService modelService;
+    private ModelUploadPipeline pipeline;
+    private final ByteArrayOutputStream stored = new ByteArrayOutputStream();
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() {
+        storageRepository = mock(IModelStorageRepository.class);
+        modelService = mock(IModelService.class);
+        content = new byte[64 * 1024];
+        new Random(42).nextBytes(content);
+        doAnswer(invocation -> {
+            invocation.getArgument(3, InputStream.class).transferTo(stored);
+            return null;
+        }).when(storageRepository).uploadModel(anyString(), anyString(), anyString(), any(), anyLong(), any());
+        pipeline = new ModelUploadPipeline(storageRepository, modelService, new ModelArtifactCache(cacheDir, 0), true, 0, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void testSinglePassUploadHashesAndValidatesFromTheLocalFile() {
+        IModelHandler handler = mock(IModelHandler.class);
+        AtomicReference<byte[]> validated = new AtomicReference<>();
+        when(modelService.createModelHandlerFromFile(any(Path.class), anyString(), eq("ONNX"), any())).thenAnswer(invocation -> {
+            validated.set(Files.readAllBytes(invocation.getArgument(0, Path.class)));
+            return handler;
+        });
+
+        ModelUploadPipeline.UploadResult result = pipeline.upload("model", "1.0", "model.onnx",
+                new ByteArrayInputStream(content), content.length, "application/octet-stream", "ONNX", null);
+
+        String sha256 = HexFormat.of().formatHex(ModelArtifactCache.newSha256().digest(content));
+        assertArrayEquals(content, stored.toByteArray());
+        assertArrayEquals(content, validated.get());
+        assertEquals(sha256, result.sha256());
+        assertEquals(content.length, result.bytes());
+        assertTrue(result.validationMillis() >= 0);
+        // The validated file becomes the artifact cache entry
+        assertTrue(Files.exists(cacheDir.resolve(sha256 + ".artifact")));
+        assertEquals(1, cacheDir.toFile().list().length);
+        verify(handler).close();
+        verify(storageRepository, never()).deleteModel(anyString());
+    }
+
+    @Test
+    void testInvalidModelIsRemovedFromStorage() {
+        when(modelService.createModelHandlerFromFile(any(Path.class), anyString(), anyString(), any()))
+                .thenThrow(new ModelUploadException("Failed to create model handler for type 'ONNX'"));
+
+        assertThrows(ModelUploadException.class, () -> pipeline.upload("model", "1.0", "model.onnx",
+                new ByteArrayInputStream(content), content.length, "application/octet-stream", "ONNX", null));
+
+        assertArrayEquals(content, stored.toByteArray());
+        verify(storageRepository).deleteModel("model/1.0/model.onnx");
+        assertEquals(0, cacheDir.toFile().list().length);
+    }
+
+    @Test
+    void testUploadOverTheLimitIsRejected() {
+        ModelUploadPipeline limited = new ModelUploadPipeline(storageRepository, modelService,
+                new ModelArtifactCache(cacheDir, 0), true, content.length - 1, 10);
+        try {
+            // Declared size over the limit: rejected before reading
+            assertThrows(PayloadTooLargeException.class, () -> limited.upload("model", "1.0", "model.onnx",
+                    new ByteArrayInputStream(content), content.length, "application/octet-stream", "ONNX", null));
+            verifyNoInteractions(storageRepository);
+
+            // Unknown size: rejected once the limit is passed
+            assertThrows(PayloadTooLargeException.class, () -> limited.upload("model", "1.0", "model.onnx",
+                    new ByteArrayInputStream(content), -1, "application/octet-stream", "ONNX", null));
+            assertTrue(stored.size() < content.length);
+            assertEquals(0, cacheDir.toFile().list().length);
+            verifyNoInteractions(modelService);
+        } finally {
+            limited.shutdown();
+        }
+    }
+
+    @Test
+    void testValidationCanBeDisabled() {
+        ModelUploadPipeline unchecked = new ModelUploadPipeline(storageRepository, modelService,
+                ModelArtifactCache.disabled(), false, 0, 10);
+        try {
+            ModelUploadPipeline.UploadResult result = unchecked.upload("model", "1.0", "model.onnx",
+                    new ByteArrayInputStream(content), content.length, "application/octet-stream", "ONNX", null);
+
+            assertEquals(-1, result.validationMillis());
+            verifyNoInteractions(modelService);
+        } finally {
+            unchecked.shutdown();
+        }
+    }
+}
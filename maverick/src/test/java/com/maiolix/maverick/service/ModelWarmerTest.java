@@ -0,0 +1,113 @@
+package com.maiolix.maverick.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.maiolix.maverick.handler.IModelHandler;
+import com.maiolix.maverick.handler.OnnxModelHandler;
+import com.maiolix.maverick.registry.WarmUpStats;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ModelWarmerTest {
+
+    @Test
+    void testWarmUpUsesSchemaExample() {
+        IModelHandler handler = mock(IModelHandler.class);
+        when(handler.getInputSchema()).thenReturn(Map.of("inputExample", Map.of("x", 1.0)));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        WarmUpStats stats = new ModelWarmer(true, 5, registry).warmUp("model", "1.0", "ONNX", handler, null);
+
+        assertNotNull(stats);
+        assertEquals(5, stats.getIterations());
+        assertEquals(0, stats.getFailures());
+        verify(handler, times(5)).predict(Map.of("x", 1.0));
+        assertEquals(1, registry.get("maverick.model.warmup").tag("type", "ONNX").timer().count());
+    }
+
+    @Test
+    void testWarmUpPrefersMetadataSamples() {
+        IModelHandler handler = mock(IModelHandler.class);
+        String metadata = "{\"warmUpSamples\": [{\"a\": 1}, {\"a\": 2}]}";
+
+        new ModelWarmer(true, 4, new SimpleMeterRegistry()).warmUp("model", "1.0", "ONNX", handler, metadata);
+
+        verify(handler, times(2)).predict(Map.of("a", 1));
+        verify(handler, times(2)).predict(Map.of("a", 2));
+        verify(handler, never()).getInputSchema();
+    }
+
+    @Test
+    void testInvalidSamplesStopWarmUp() {
+        IModelHandler handler = mock(IModelHandler.class);
+        when(handler.getInputSchema()).thenReturn(Map.of("inputExample", Map.of("x", 1.0)));
+        when(handler.predict(any())).thenThrow(new IllegalArgumentException("bad input"));
+
+        WarmUpStats stats = new ModelWarmer(true, 10, new SimpleMeterRegistry()).warmUp("model", "1.0", "ONNX", handler, null);
+
+        assertNotNull(stats);
+        assertEquals(1, stats.getFailures());
+        verify(handler, times(1)).predict(any());
+        verify(handler, never()).predictBatch(anyList());
+    }
+
+    @Test
+    void testDisabledOrWithoutSamplesReturnsNull() {
+        IModelHandler handler = mock(IModelHandler.class);
+        when(handler.getInputSchema()).thenReturn(Map.of());
+
+        assertNull(ModelWarmer.disabled().warmUp("model", "1.0", "ONNX", handler, null));
+        assertNull(new ModelWarmer(true, 3, new SimpleMeterRegistry()).warmUp("model", "1.0", "ONNX", handler, null));
+        verify(handler, never()).predict(any());
+    }
+
+    @Test
+    void testWarmUpOnnxModelFromSchema() throws Exception {
+        try (InputStream stream = getClass().getResourceAsStream("/models/iris.onnx")) {
+            assertNotNull(stream);
+            OnnxModelHandler handler = new OnnxModelHandler(stream);
+            try {
+                WarmUpStats stats = new ModelWarmer(true, 3, new SimpleMeterRegistry()).warmUp("iris", "1.0", "ONNX", handler, null);
+
+                assertNotNull(stats);
+                assertEquals(0, stats.getFailures());
+                assertTrue(stats.getTotalMillis() >= 0);
+            } finally {
+                handler.close();
+            }
+        }
+    }
+
+    @Test
+    void testBatchWarmUpForBatchingHandlers() {
+        IModelHandler handler = mock(IModelHandler.class);
+        when(handler.supportsNativeBatching()).thenReturn(true);
+        when(handler.getInputSchema()).thenReturn(Map.of("inputExample", Map.of("x", 1.0)));
+
+        new ModelWarmer(true, 2, new SimpleMeterRegistry()).warmUp("model", "1.0", "ONNX", handler, null);
+
+        verify(handler).predictBatch(List.of(Map.of("x", 1.0), Map.of("x", 1.0)));
+    }
+
+    @Test
+    void testBatchWarmUpFailureDoesNotFailTheLoad() {
+        IModelHandler handler = mock(IModelHandler.class);
+        when(handler.supportsNativeBatching()).thenReturn(true);
+        when(handler.getInputSchema()).thenReturn(Map.of("inputExample", Map.of("x", 1.0)));
+        when(handler.predictBatch(anyList())).thenThrow(new IllegalStateException("batch not supported"));
+
+        WarmUpStats stats = new ModelWarmer(true, 2, new SimpleMeterRegistry()).warmUp("model", "1.0", "ONNX", handler, null);
+
+        assertNotNull(stats);
+        assertEquals(1, stats.getFailures());
+    }
+}
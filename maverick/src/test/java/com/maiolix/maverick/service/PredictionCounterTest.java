@@ -0,0 +1,117 @@
+package com.maiolix.maverick.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PredictionCounterTest {
+
+    private ModelDatabaseService modelDatabaseService;
+    private final List<Map<Long, PredictionCounter.PredictionDelta>> applied = new ArrayList<>();
+    private PredictionCounter counter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        modelDatabaseService = mock(ModelDatabaseService.class);
+        doAnswer(invocation -> {
+            Map<Long, PredictionCounter.PredictionDelta> batch = invocation.getArgument(0, Map.class);
+            synchronized (applied) {
+                applied.add(Map.copyOf(batch));
+            }
+            return batch.size();
+        }).when(modelDatabaseService).applyPredictionDeltas(anyMap());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (counter != null) {
+            counter.shutdown();
+        }
+    }
+
+    @Test
+    void testPredictionsAreAggregatedPerModel() throws Exception {
+        counter = new PredictionCounter(modelDatabaseService, 0, 0);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    counter.record(1L, 1);
+                    counter.record(2L, 2);
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        verifyNoInteractions(modelDatabaseService);
+        assertEquals(24_000, counter.getUnflushed());
+        assertEquals(24_000, counter.flush());
+
+        assertEquals(1, applied.size());
+        assertEquals(8_000, applied.get(0).get(1L).count());
+        assertEquals(16_000, applied.get(0).get(2L).count());
+        assertNotNull(applied.get(0).get(1L).lastUsedAt());
+        assertEquals(0, counter.getUnflushed());
+        assertEquals(0, counter.flush());
+    }
+
+    @Test
+    void testFailedFlushKeepsPredictions() {
+        counter = new PredictionCounter(modelDatabaseService, 0, 0);
+        counter.record(1L, 5);
+        doThrow(new IllegalStateException("database non disponibile"))
+                .doReturn(1)
+                .when(modelDatabaseService).applyPredictionDeltas(anyMap());
+
+        assertThrows(IllegalStateException.class, counter::flush);
+        assertEquals(5, counter.getUnflushed());
+        assertEquals(1L, counter.getStats().get("failedFlushes"));
+    }
+
+    @Test
+    void testPendingPredictionsTriggerEarlyFlush() {
+        counter = new PredictionCounter(modelDatabaseService, 0, 10);
+        for (int i = 0; i < 10; i++) {
+            counter.record(1L, 1);
+        }
+
+        verify(modelDatabaseService, timeout(5000)).applyPredictionDeltas(anyMap());
+        assertEquals(1L, counter.getStats().get("earlyFlushes"));
+    }
+
+    @Test
+    void testShutdownFlushesPendingPredictions() {
+        counter = new PredictionCounter(modelDatabaseService, 60_000, 0);
+        counter.record(3L, 7);
+
+        counter.shutdown();
+
+        assertEquals(1, applied.size());
+        assertEquals(7, applied.get(0).get(3L).count());
+        assertEquals(0, counter.getUnflushed());
+    }
+
+    @Test
+    void testScheduledFlush() {
+        counter = new PredictionCounter(modelDatabaseService, 20, 0);
+        counter.record(4L, 1);
+
+        verify(modelDatabaseService, timeout(5000)).applyPredictionDeltas(anyMap());
+    }
+}
@@ -0,0 +1,90 @@
+package com.maiolix.maverick.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.maiolix.maverick.repository.ApiClientRepository;
+import com.maiolix.maverick.repository.UserRepository;
+
+class UsageTrackerTest {
+
+    private ApiClientRepository apiClientRepository;
+    private UserRepository userRepository;
+    private UsageTracker tracker;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        apiClientRepository = mock(ApiClientRepository.class);
+        userRepository = mock(UserRepository.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(
+                invocation -> invocation.getArgument(0, TransactionCallback.class).doInTransaction(null));
+        when(apiClientRepository.addUsage(anyLong(), anyLong(), any())).thenReturn(1);
+        when(userRepository.updateLastLogin(anyLong(), any())).thenReturn(1);
+        tracker = new UsageTracker(apiClientRepository, userRepository, transactionTemplate, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracker.shutdown();
+    }
+
+    @Test
+    void testClientUsageIsAggregatedIntoOneUpdate() {
+        tracker.recordClientAuthentication(1L);
+        for (int i = 0; i < 10; i++) {
+            tracker.recordClientUsage(1L, 5);
+        }
+        tracker.recordClientUsage(2L, 1);
+
+        assertEquals(2, tracker.flush());
+
+        verify(apiClientRepository).addUsage(eq(1L), eq(50L), any(LocalDateTime.class));
+        verify(apiClientRepository).addUsage(eq(2L), eq(1L), any(LocalDateTime.class));
+        // Nothing new since the last flush
+        assertEquals(0, tracker.flush());
+        verifyNoMoreInteractions(apiClientRepository);
+    }
+
+    @Test
+    void testRepeatedLoginsAreWrittenOnce() {
+        tracker.recordUserLogin(3L);
+        tracker.recordUserLogin(3L);
+        tracker.recordUserLogin(3L);
+
+        assertEquals(1, tracker.flush());
+
+        verify(userRepository, times(1)).updateLastLogin(eq(3L), any(LocalDateTime.class));
+        assertEquals(0, tracker.getStats().get("pendingLogins"));
+    }
+
+    @Test
+    void testFailedFlushKeepsUsageForNextFlush() {
+        when(apiClientRepository.addUsage(eq(1L), anyLong(), any()))
+                .thenThrow(new DataAccessResourceFailureException("database down"))
+                .thenReturn(1);
+        tracker.recordClientUsage(1L, 7);
+        tracker.recordUserLogin(3L);
+
+        assertThrows(DataAccessResourceFailureException.class, tracker::flush);
+        tracker.recordClientUsage(1L, 3);
+
+        assertEquals(2, tracker.flush());
+        verify(apiClientRepository).addUsage(eq(1L), eq(10L), any(LocalDateTime.class));
+        verify(userRepository).updateLastLogin(eq(3L), any(LocalDateTime.class));
+        assertEquals(1L, tracker.getStats().get("failedFlushes"));
+    }
+}